@@ -7,7 +7,6 @@ import edu.umd.cs.findbugs.annotations.Nullable;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikFile;
@@ -79,7 +78,23 @@ public abstract class MagikCheck extends MagikVisitor {
    */
   public List<MagikIssue> scanFileForIssues(final MagikFile magikFile) {
     this.scanFile(magikFile);
-    return Collections.unmodifiableList(this.issues);
+    return this.getIssues();
+  }
+
+  /**
+   * Get the issues found in the last scanned file.
+   *
+   * @return List issues.
+   */
+  public List<MagikIssue> getIssues() {
+    return List.copyOf(this.issues);
+  }
+
+  @Override
+  protected void startFile(final MagikFile scannedMagikFile) {
+    super.startFile(scannedMagikFile);
+    // Allow the check to be reused for multiple files.
+    this.issues.clear();
   }
 
   /**
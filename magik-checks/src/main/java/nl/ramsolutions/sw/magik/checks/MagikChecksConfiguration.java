@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -21,6 +22,7 @@ public class MagikChecksConfiguration {
 
   private final MagikToolsProperties properties;
   private final List<Class<? extends MagikCheck>> checkClasses;
+  private List<MagikCheckHolder> holders;
 
   /**
    * Constructor.
@@ -52,11 +54,20 @@ public class MagikChecksConfiguration {
   }
 
   /**
-   * Get {@link MagikCheck}s, each contained by a {@link MagikCheckHolder}.
+   * Get {@link MagikCheck}s, each contained by a {@link MagikCheckHolder}. The holders are created
+   * once and shared, so their metadata is read only once.
    *
    * @return
    */
-  public List<MagikCheckHolder> getAllChecks() {
+  public synchronized List<MagikCheckHolder> getAllChecks() {
+    if (this.holders == null) {
+      this.holders = Collections.unmodifiableList(this.createHolders());
+    }
+
+    return this.holders;
+  }
+
+  private List<MagikCheckHolder> createHolders() {
     final List<MagikCheckHolder> holders = new ArrayList<>();
 
     final List<String> disableds = this.properties.getPropertyList(KEY_DISABLED_CHECKS);
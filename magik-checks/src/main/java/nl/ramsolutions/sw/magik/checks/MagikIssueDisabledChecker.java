@@ -1,10 +1,9 @@
 package nl.ramsolutions.sw.magik.checks;
 
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
 import nl.ramsolutions.sw.magik.analysis.scope.Scope;
@@ -38,36 +37,33 @@ public final class MagikIssueDisabledChecker {
     Objects.requireNonNull(holder);
     final String checkKey = holder.getCheckKeyKebabCase();
 
-    final Integer issueLineNo = magikIssue.startLine(); // 1-based.
-    final Integer columnNo = magikIssue.startColumn();
-    final Integer fileLineNo = issueLineNo - 1; // 0-based.
+    final int issueLineNo = magikIssue.startLine(); // 1-based.
+    final int columnNo = magikIssue.startColumn();
+    final int fileLineNo = issueLineNo - 1; // 0-based.
 
-    final Map<String, String> statementInstructions =
+    final Set<String> statementDisableds =
         magikFile
-            .getStatementInstructions(MLINT_STATEMENT_INSTRUCTION)
-            .getOrDefault(fileLineNo, Collections.emptyMap());
-    final String[] statementDisableds =
-        statementInstructions.getOrDefault(MagikIssueDisabledChecker.KEY_DISABLE, "").split(",");
-    final boolean statementDisabled = List.of(statementDisableds).contains(checkKey);
-    if (statementDisabled) {
+            .getStatementInstructionValues(MLINT_STATEMENT_INSTRUCTION, KEY_DISABLE)
+            .getOrDefault(fileLineNo, Collections.emptySet());
+    if (statementDisableds.contains(checkKey)) {
       return true;
     }
 
+    final Map<Scope, Set<String>> scopeDisableds =
+        magikFile.getScopeInstructionValues(MLINT_SCOPE_INSTRUCTION, KEY_DISABLE);
+    if (scopeDisableds.isEmpty()) {
+      return false;
+    }
+
     final GlobalScope globalScope = magikFile.getGlobalScope();
     final Scope issueScope = globalScope.getScopeForLineColumn(issueLineNo, columnNo);
     Objects.requireNonNull(issueScope);
-    return issueScope.getSelfAndAncestorScopes().stream()
-        .map(
-            scope ->
-                magikFile
-                    .getScopeInstructions(MLINT_SCOPE_INSTRUCTION)
-                    .getOrDefault(scope, Collections.emptyMap()))
-        .map(
-            scopeInstructions ->
-                scopeInstructions
-                    .getOrDefault(MagikIssueDisabledChecker.KEY_DISABLE, "")
-                    .split(","))
-        .flatMap(Arrays::stream)
-        .anyMatch(disabled -> disabled.equals(checkKey));
+    for (Scope scope = issueScope; scope != null; scope = scope.getParentScope()) {
+      final Set<String> disableds = scopeDisableds.getOrDefault(scope, Collections.emptySet());
+      if (disableds.contains(checkKey)) {
+        return true;
+      }
+    }
+    return false;
   }
 }
@@ -54,6 +54,10 @@ public class FormattingCheck extends MagikCheck {
 
   @Override
   protected void walkPreMagik(final AstNode node) {
+    this.previousToken = null;
+    this.currentToken = null;
+    this.nextToken = null;
+
     final MagikFile magikFile = this.getMagikFile();
     this.lines = magikFile.getSourceLines();
     if (this.lines == null) {
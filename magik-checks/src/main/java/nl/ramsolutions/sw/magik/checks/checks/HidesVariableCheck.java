@@ -62,7 +62,9 @@ public class HidesVariableCheck extends MagikCheck {
       }
     }
 
-    for (final Scope ancestorScope : scope.getAncestorScopes()) {
+    for (Scope ancestorScope = scope.getParentScope();
+        ancestorScope != null;
+        ancestorScope = ancestorScope.getParentScope()) {
       final ScopeEntry scopeEntry = ancestorScope.getScopeEntry(identifierNode);
       if (scopeEntry != null
           && scopeEntry.isType(ScopeEntry.Type.LOCAL)
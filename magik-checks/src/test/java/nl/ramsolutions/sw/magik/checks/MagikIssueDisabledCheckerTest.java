@@ -83,4 +83,27 @@ class MagikIssueDisabledCheckerTest {
     final boolean issueDisabled = MagikIssueDisabledChecker.issueDisabled(magikFile, issue);
     assertThat(issueDisabled).isTrue();
   }
+
+  @Test
+  void testDisabledMultipleScopeInstructions() throws ReflectiveOperationException {
+    final String code =
+        """
+        _block
+          # mlint: disable=line-length
+          # mlint: disable=no-self-use, forbidden-call
+          show(1)
+        _endblock
+        show(2)
+        """;
+    final MagikFile magikFile = new MagikFile(DEFAULT_URI, code);
+
+    final MagikCheckHolder holder =
+        new MagikCheckHolder(ForbiddenCallCheck.class, Collections.emptySet(), true);
+    final MagikCheck check = holder.createCheck();
+    final List<MagikIssue> issues = check.scanFileForIssues(magikFile);
+
+    assertThat(issues).hasSize(2);
+    assertThat(MagikIssueDisabledChecker.issueDisabled(magikFile, issues.get(0))).isTrue();
+    assertThat(MagikIssueDisabledChecker.issueDisabled(magikFile, issues.get(1))).isFalse();
+  }
 }
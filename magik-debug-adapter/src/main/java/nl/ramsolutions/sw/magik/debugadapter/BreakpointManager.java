@@ -10,11 +10,16 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.Position;
-import nl.ramsolutions.sw.magik.analysis.AstQuery;
+import nl.ramsolutions.sw.magik.analysis.AstPositionIndex;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapProtocol;
@@ -40,6 +45,17 @@ class BreakpointManager {
   static final ExceptionBreakpointsFilter[] EXCEPTION_BREAKPOINTS_FILTERS;
   private static final String CONDITION_BREAKPOINT_METHOD = "sw:condition.invoke()";
   private static final String SW_TRUE = "True";
+  private static final Pattern HIT_CONDITION_PATTERN =
+      Pattern.compile("\\s*(>=|>|==|<=|<|%|)\\s*(\\d{1,9})\\s*");
+  private static final Map<String, BiPredicate<Integer, Integer>> HIT_CONDITION_OPERATORS =
+      Map.of(
+          "", (hitCount, value) -> hitCount >= value,
+          ">=", (hitCount, value) -> hitCount >= value,
+          ">", (hitCount, value) -> hitCount > value,
+          "==", (hitCount, value) -> hitCount.intValue() == value.intValue(),
+          "<=", (hitCount, value) -> hitCount <= value,
+          "<", (hitCount, value) -> hitCount < value,
+          "%", (hitCount, value) -> value != 0 && hitCount % value == 0);
 
   /** Magik breakpoint. */
   static class MagikBreakpoint {
@@ -47,7 +63,9 @@ class BreakpointManager {
     private long breakpointId;
     private final String methodName;
     private final int methodLine;
+    private final AtomicInteger hitCount = new AtomicInteger();
     private String condition;
+    private String hitCondition;
     private String message;
 
     /**
@@ -72,9 +90,26 @@ class BreakpointManager {
      * @param condition Condition.
      */
     MagikBreakpoint(final String methodName, final int methodLine, final String condition) {
+      this(methodName, methodLine, condition, null);
+    }
+
+    /**
+     * Contructor.
+     *
+     * @param methodName Name of method.
+     * @param methodLine Line in method.
+     * @param condition Condition.
+     * @param hitCondition Hit condition.
+     */
+    MagikBreakpoint(
+        final String methodName,
+        final int methodLine,
+        final @Nullable String condition,
+        final @Nullable String hitCondition) {
       this.methodName = methodName;
       this.methodLine = methodLine;
       this.condition = condition;
+      this.hitCondition = hitCondition;
 
       this.setBreakpointId(ISlapProtocol.INVALID_BREAKPOINT_ID);
     }
@@ -92,10 +127,44 @@ class BreakpointManager {
       return this.condition;
     }
 
+    /**
+     * Set the condition. The hit count is reset when the condition changes.
+     *
+     * @param condition Condition.
+     */
     void setCondition(final @Nullable String condition) {
+      if (!Objects.equals(this.condition, condition)) {
+        this.hitCount.set(0);
+      }
       this.condition = condition;
     }
 
+    @CheckForNull
+    String getHitCondition() {
+      return this.hitCondition;
+    }
+
+    /**
+     * Set the hit condition. The hit count is reset when the hit condition changes.
+     *
+     * @param hitCondition Hit condition.
+     */
+    void setHitCondition(final @Nullable String hitCondition) {
+      if (!Objects.equals(this.hitCondition, hitCondition)) {
+        this.hitCount.set(0);
+      }
+      this.hitCondition = hitCondition;
+    }
+
+    /**
+     * Register a hit of this breakpoint, of which the condition is met.
+     *
+     * @return Number of hits, including this one.
+     */
+    int hit() {
+      return this.hitCount.incrementAndGet();
+    }
+
     void setMessage(final String message) {
       this.message = message;
     }
@@ -173,8 +242,17 @@ class BreakpointManager {
         Arrays.stream(newSourceBreakpoints)
             .filter(breakpoint -> !magikBreakpointLines.contains(breakpoint.getLine()))
             .toList();
-    for (final SourceBreakpoint sourceBreakpoint : addedBreakpoints) {
-      this.addBreakpoint(source, sourceBreakpoint);
+    this.addBreakpoints(source, addedBreakpoints);
+
+    // Update conditions of kept breakpoints.
+    for (final SourceBreakpoint sourceBreakpoint : newSourceBreakpoints) {
+      breakpoints.stream()
+          .filter(magikBreakpoint -> magikBreakpoint.getMethodLine() == sourceBreakpoint.getLine())
+          .forEach(
+              magikBreakpoint -> {
+                magikBreakpoint.setCondition(sourceBreakpoint.getCondition());
+                magikBreakpoint.setHitCondition(sourceBreakpoint.getHitCondition());
+              });
     }
 
     // Remove old breakpoints.
@@ -185,11 +263,9 @@ class BreakpointManager {
             .filter(
                 magikBreakpoint -> !sourceBreakpointLines.contains(magikBreakpoint.getMethodLine()))
             .toList();
-    for (final MagikBreakpoint magikBreakpoint : removedBreakpoints) {
-      this.removeBreakpoint(source, magikBreakpoint);
-    }
+    this.removeBreakpoints(source, removedBreakpoints);
 
-    // breakpoints gets updated through addBreakpoint/removeBreakpoint.
+    // breakpoints gets updated through addBreakpoints/removeBreakpoints.
     return breakpoints;
   }
 
@@ -205,34 +281,84 @@ class BreakpointManager {
    */
   MagikBreakpoint addBreakpoint(final Source source, final SourceBreakpoint sourceBreakpoint)
       throws IOException, InterruptedException, ExecutionException {
-    int line = sourceBreakpoint.getLine();
-    final AstNode methodNode = this.getNode(source, line);
-    final String method;
-    if (methodNode == null) {
-      method = "<not_in_method>";
-    } else {
-      final MethodDefinitionNodeHelper helper = new MethodDefinitionNodeHelper(methodNode);
-      method = helper.getFullExemplarMethodName();
-      final int methodLine = methodNode.getTokenLine();
-      if (methodLine == line) {
-        line = 0;
+    return this.addBreakpoints(source, List.of(sourceBreakpoint)).get(0);
+  }
+
+  /**
+   * Add new breakpoints to self and debugger. All breakpoints are sent to the debugger before
+   * waiting for any reply.
+   *
+   * @param source Source.
+   * @param sourceBreakpoints Source breakpoints.
+   * @return New magik breakpoints.
+   * @throws IOException -
+   * @throws ExecutionException -
+   * @throws InterruptedException -
+   */
+  List<MagikBreakpoint> addBreakpoints(
+      final Source source, final List<SourceBreakpoint> sourceBreakpoints)
+      throws IOException, InterruptedException, ExecutionException {
+    if (sourceBreakpoints.isEmpty()) {
+      return List.of();
+    }
+
+    final AstNode node = this.parseSource(source);
+    final AstPositionIndex positionIndex = new AstPositionIndex(node);
+    final List<MagikBreakpoint> magikBreakpoints = new ArrayList<>();
+    for (final SourceBreakpoint sourceBreakpoint : sourceBreakpoints) {
+      int line = sourceBreakpoint.getLine();
+      final AstNode methodNode =
+          positionIndex.nodeSurrounding(new Position(line, 0), MagikGrammar.METHOD_DEFINITION);
+      final String method;
+      if (methodNode == null) {
+        method = "<not_in_method>";
+      } else {
+        final MethodDefinitionNodeHelper helper = new MethodDefinitionNodeHelper(methodNode);
+        method = helper.getFullExemplarMethodName();
+        final int methodLine = methodNode.getTokenLine();
+        if (methodLine == line) {
+          line = 0;
+        }
       }
+      final String condition = sourceBreakpoint.getCondition();
+      final String hitCondition = sourceBreakpoint.getHitCondition();
+      magikBreakpoints.add(new MagikBreakpoint(method, line, condition, hitCondition));
     }
-    final String condition = sourceBreakpoint.getCondition();
-    return this.createBreakpoint(source, method, line, condition);
+    return this.createBreakpoints(source, magikBreakpoints);
   }
 
-  /** Remove breakpoint. */
-  void removeBreakpoint(final @Nullable Source source, final MagikBreakpoint magikBreakpoint)
+  /**
+   * Remove breakpoints from self and debugger. All deletes are sent to the debugger before waiting
+   * for any reply.
+   *
+   * @param source Source.
+   * @param magikBreakpoints Breakpoints to remove.
+   * @throws IOException -
+   * @throws ExecutionException -
+   * @throws InterruptedException -
+   */
+  void removeBreakpoints(
+      final @Nullable Source source, final List<MagikBreakpoint> magikBreakpoints)
       throws IOException, InterruptedException, ExecutionException {
-    this.sendDeleteBreakpoint(magikBreakpoint);
-
-    final long breakpointId = magikBreakpoint.getBreakpointId();
-    this.breakpointIds.remove(breakpointId);
+    final List<CompletableFuture<ISlapResponse>> futures = new ArrayList<>();
+    for (final MagikBreakpoint magikBreakpoint : magikBreakpoints) {
+      LOGGER.trace(
+          "Send delete breakpoint: method: {}, line: {}",
+          magikBreakpoint.getMethodName(),
+          magikBreakpoint.getMethodLine());
+      final long breakpointId = magikBreakpoint.getBreakpointId();
+      futures.add(this.slapProtocol.deleteBreakpoint(breakpointId));
+    }
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
 
     final List<MagikBreakpoint> breakpoints =
         this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>());
-    breakpoints.remove(magikBreakpoint);
+    for (final MagikBreakpoint magikBreakpoint : magikBreakpoints) {
+      LOGGER.trace("Deleted breakpoint: {}", magikBreakpoint);
+      final long breakpointId = magikBreakpoint.getBreakpointId();
+      this.breakpointIds.remove(breakpointId);
+      breakpoints.remove(magikBreakpoint);
+    }
   }
 
   // endregion
@@ -244,9 +370,7 @@ class BreakpointManager {
 
     final List<MagikBreakpoint> magikBreakpoints =
         this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>());
-    for (final MagikBreakpoint magikBreakpoint : magikBreakpoints) {
-      this.removeBreakpoint(source, magikBreakpoint);
-    }
+    this.removeBreakpoints(source, List.copyOf(magikBreakpoints));
   }
 
   /**
@@ -260,30 +384,18 @@ class BreakpointManager {
    */
   List<MagikBreakpoint> addFunctionBreakpoints(final FunctionBreakpoint[] functionBreakpoints)
       throws IOException, InterruptedException, ExecutionException {
-    final List<MagikBreakpoint> breakpoints = new ArrayList<>();
-    for (final FunctionBreakpoint functionBreakpoint : functionBreakpoints) {
-      final MagikBreakpoint magikBreakpoint = this.addFunctionBreakpoint(functionBreakpoint);
-      breakpoints.add(magikBreakpoint);
-    }
-    return breakpoints;
-  }
-
-  /**
-   * Add a function breakpoint.
-   *
-   * @param functionBreakpoint {@link FunctionBreakpoint} to add.
-   * @return Created {@link MagikBreakpoint}.
-   * @throws IOException -
-   * @throws ExecutionException -
-   * @throws InterruptedException -
-   */
-  MagikBreakpoint addFunctionBreakpoint(final FunctionBreakpoint functionBreakpoint)
-      throws IOException, InterruptedException, ExecutionException {
-    final Source source = null;
-    final String methodName = functionBreakpoint.getName();
-    final int methodLine = 0;
-    final String condition = functionBreakpoint.getCondition();
-    return this.createBreakpoint(source, methodName, methodLine, condition);
+    final List<MagikBreakpoint> magikBreakpoints =
+        Arrays.stream(functionBreakpoints)
+            .map(
+                functionBreakpoint ->
+                    new MagikBreakpoint(
+                        functionBreakpoint.getName(),
+                        0,
+                        functionBreakpoint.getCondition(),
+                        functionBreakpoint.getHitCondition()))
+            .toList();
+    final Source source = null; // A function breakpoint has no source.
+    return this.createBreakpoints(source, magikBreakpoints);
   }
 
   // endregion
@@ -326,7 +438,10 @@ class BreakpointManager {
 
     // Ensure there is a breakpoint.
     if (this.conditionBreakpoint == null && filters.length != 0) {
-      this.conditionBreakpoint = this.sendSetBreakpoint(CONDITION_BREAKPOINT_METHOD, 0);
+      final MagikBreakpoint magikBreakpoint = new MagikBreakpoint(CONDITION_BREAKPOINT_METHOD, 0);
+      this.completeSetBreakpoint(
+          magikBreakpoint, this.slapProtocol.setBreakpoint(CONDITION_BREAKPOINT_METHOD, 0));
+      this.conditionBreakpoint = magikBreakpoint;
     }
 
     // Set condition for breakpoint.
@@ -364,80 +479,129 @@ class BreakpointManager {
    * Handle a {@link BreakpointEvent}.
    *
    * @param breakpointEvent event.
+   * @return True if the thread stopped, false if it was resumed.
    */
-  void handleBreakpointEvent(final BreakpointEvent breakpointEvent) {
+  boolean handleBreakpointEvent(final BreakpointEvent breakpointEvent) {
     final long threadId = breakpointEvent.getThreadId();
 
     // If conditional breakpoint, then test condition and optionally continue.
     final long breakpointId = breakpointEvent.getBreakpointId();
     final MagikBreakpoint magikBreakpoint = this.getBreakpoint(breakpointId);
-    final String condition = magikBreakpoint.getCondition();
-    if (condition != null) {
-      try {
-        final EvalResponse eval =
-            (EvalResponse) this.slapProtocol.evaluate(threadId, 0, condition).get();
-        final String result = eval.getResult();
-        if (!result.equals(SW_TRUE)) {
-          this.slapProtocol.resumeThread(threadId).get();
-          return;
-        }
-      } catch (InterruptedException exception) {
-        LOGGER.warn("Interrupted!", exception);
-        Thread.currentThread().interrupt();
-      } catch (ExecutionException | IOException exception) {
-        // Could not execute, pretend nothing happened.
+    try {
+      if (magikBreakpoint != null && !this.isStopping(threadId, magikBreakpoint)) {
+        this.slapProtocol.resumeThread(threadId).get();
+        return false;
       }
+    } catch (InterruptedException exception) {
+      LOGGER.warn("Interrupted!", exception);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | IOException exception) {
+      // Could not execute, pretend nothing happened.
     }
 
     final StoppedEventArguments args = new StoppedEventArguments();
     args.setThreadId((int) threadId);
     args.setReason(StoppedEventArgumentsReason.BREAKPOINT);
     this.debugClient.stopped(args);
+    return true;
+  }
+
+  /**
+   * Test if a hit of a breakpoint stops the thread.
+   *
+   * <p>Hits are counted here. Only hits meeting the condition are counted, as the hit condition
+   * applies to the hits meeting the condition.
+   *
+   * @param threadId Thread which hit the breakpoint.
+   * @param magikBreakpoint Breakpoint.
+   * @return True if thread should stop, false if it should continue.
+   */
+  private boolean isStopping(final long threadId, final MagikBreakpoint magikBreakpoint)
+      throws IOException, InterruptedException, ExecutionException {
+    final String condition = magikBreakpoint.getCondition();
+    if (condition != null && !condition.isBlank()) {
+      final EvalResponse eval =
+          (EvalResponse) this.slapProtocol.evaluate(threadId, 0, condition).get();
+      if (!eval.getResult().equals(SW_TRUE)) {
+        return false;
+      }
+    }
+
+    final int hitCount = magikBreakpoint.hit();
+    return BreakpointManager.isHitConditionMet(magikBreakpoint.getHitCondition(), hitCount);
+  }
+
+  /**
+   * Test if a hit condition is met.
+   *
+   * <p>Supported hit conditions are {@code N}/{@code >= N}, {@code > N}, {@code == N}, {@code <=
+   * N}, {@code < N} and {@code % N}. An unparsable hit condition is always met.
+   *
+   * @param hitCondition Hit condition.
+   * @param hitCount Number of hits, including the current one.
+   * @return True if met, false otherwise.
+   */
+  static boolean isHitConditionMet(final @Nullable String hitCondition, final int hitCount) {
+    if (hitCondition == null || hitCondition.isBlank()) {
+      return true;
+    }
+
+    final Matcher matcher = HIT_CONDITION_PATTERN.matcher(hitCondition);
+    if (!matcher.matches()) {
+      LOGGER.warn("Unable to parse hit condition: '{}'", hitCondition);
+      return true;
+    }
+
+    final String operator = matcher.group(1);
+    final int value = Integer.parseInt(matcher.group(2));
+    return HIT_CONDITION_OPERATORS.get(operator).test(hitCount, value);
   }
 
   // endergion
 
   // region: Internals
-  private AstNode getNode(final Source source, final int line) {
+  private AstNode parseSource(final Source source) {
     final Path path = Path.of(source.getPath());
     final MagikParser parser = new MagikParser();
-    final AstNode node = parser.parseSafe(path);
-    return AstQuery.nodeSurrounding(node, new Position(line, 0), MagikGrammar.METHOD_DEFINITION);
+    return parser.parseSafe(path);
   }
 
-  private MagikBreakpoint createBreakpoint(
-      final @Nullable Source source,
-      final String method,
-      final int line,
-      final @Nullable String condition)
+  /** Send all breakpoints to the debugger, then wait for the replies and register them. */
+  private List<MagikBreakpoint> createBreakpoints(
+      final @Nullable Source source, final List<MagikBreakpoint> magikBreakpoints)
       throws IOException, InterruptedException, ExecutionException {
-    // Send breakpoint to debugger.
-    final MagikBreakpoint magikBreakpoint = this.sendSetBreakpoint(method, line);
-    magikBreakpoint.setCondition(condition);
-
-    // Register breakpoint id, if successful.
-    final long breakpointId = magikBreakpoint.getBreakpointId();
-    if (breakpointId != ISlapProtocol.INVALID_BREAKPOINT_ID) {
-      this.breakpointIds.put(breakpointId, magikBreakpoint);
+    final List<CompletableFuture<ISlapResponse>> futures = new ArrayList<>();
+    for (final MagikBreakpoint magikBreakpoint : magikBreakpoints) {
+      final String method = magikBreakpoint.getMethodName();
+      final int line = magikBreakpoint.getMethodLine();
+      LOGGER.trace("Send set breakpoint: method: {}, line: {}", method, line);
+      futures.add(this.slapProtocol.setBreakpoint(method, line));
     }
 
-    // Register breakpoint.
     final List<MagikBreakpoint> breakpoints =
         this.sourceBreakpoints.computeIfAbsent(source, key -> new ArrayList<>());
-    breakpoints.add(magikBreakpoint);
-
-    return magikBreakpoint;
-  }
+    for (int i = 0; i < magikBreakpoints.size(); ++i) {
+      final MagikBreakpoint magikBreakpoint = magikBreakpoints.get(i);
+      this.completeSetBreakpoint(magikBreakpoint, futures.get(i));
+
+      // Register breakpoint id, if successful.
+      final long breakpointId = magikBreakpoint.getBreakpointId();
+      if (breakpointId != ISlapProtocol.INVALID_BREAKPOINT_ID) {
+        this.breakpointIds.put(breakpointId, magikBreakpoint);
+      }
 
-  private MagikBreakpoint sendSetBreakpoint(final String method, final int line)
-      throws IOException, InterruptedException, ExecutionException {
-    LOGGER.trace("Send set breakpoint: method: {}, line: {}", method, line);
+      // Register breakpoint.
+      breakpoints.add(magikBreakpoint);
+    }
 
-    final MagikBreakpoint magikBreakpoint = new MagikBreakpoint(method, line);
+    return magikBreakpoints;
+  }
 
+  private void completeSetBreakpoint(
+      final MagikBreakpoint magikBreakpoint,
+      final CompletableFuture<ISlapResponse> breakpointSetFuture)
+      throws InterruptedException, ExecutionException {
     try {
-      final CompletableFuture<ISlapResponse> breakpointSetFuture =
-          this.slapProtocol.setBreakpoint(method, line);
       final BreakpointSetResponse breakpointSet = (BreakpointSetResponse) breakpointSetFuture.get();
       final long breakpointId = breakpointSet.getBreakpointId();
       magikBreakpoint.setBreakpointId(breakpointId);
@@ -455,21 +619,6 @@ class BreakpointManager {
         throw exception;
       }
     }
-
-    return magikBreakpoint;
-  }
-
-  private void sendDeleteBreakpoint(final MagikBreakpoint magikBreakpoint)
-      throws IOException, InterruptedException, ExecutionException {
-    LOGGER.trace(
-        "Send delete breakpoint: method: {}, line: {}",
-        magikBreakpoint.getMethodName(),
-        magikBreakpoint.getMethodLine());
-
-    final long breakpointId = magikBreakpoint.getBreakpointId();
-    this.slapProtocol.deleteBreakpoint(breakpointId).get();
-
-    LOGGER.trace("Deleted breakpoint: {}", magikBreakpoint);
   }
   // endregion
 
@@ -107,10 +107,21 @@ public final class Lsp4jConversion {
         .map(
             magikVariable -> {
               final Variable variable = new Variable();
-              variable.setVariablesReference(magikVariable.getId());
               variable.setName(magikVariable.getName());
               variable.setValue(magikVariable.getValue());
               variable.setEvaluateName(magikVariable.getExpression());
+              switch (magikVariable.getKind()) {
+                case NONE -> variable.setVariablesReference(0);
+                case INDEXED -> {
+                  variable.setVariablesReference(magikVariable.getId());
+                  variable.setIndexedVariables(magikVariable.getChildCount());
+                }
+                case SLOTTED -> {
+                  variable.setVariablesReference(magikVariable.getId());
+                  variable.setNamedVariables(magikVariable.getChildCount());
+                }
+                default -> variable.setVariablesReference(magikVariable.getId());
+              }
               return variable;
             })
         .toArray(size -> new Variable[size]);
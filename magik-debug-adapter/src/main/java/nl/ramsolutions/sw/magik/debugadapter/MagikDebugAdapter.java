@@ -104,6 +104,8 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
 
     final Capabilities capabilities = new Capabilities();
     capabilities.setSupportsFunctionBreakpoints(true);
+    capabilities.setSupportsConditionalBreakpoints(true);
+    capabilities.setSupportsHitConditionalBreakpoints(true);
     capabilities.setExceptionBreakpointFilters(BreakpointManager.EXCEPTION_BREAKPOINTS_FILTERS);
     return CompletableFuture.completedFuture(capabilities);
   }
@@ -305,7 +307,10 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
         () -> {
           final int reference = args.getVariablesReference();
           try {
-            final List<MagikVariable> magikVariables = this.variableManager.getVariables(reference);
+            final int start = args.getStart() != null ? args.getStart() : 0;
+            final int count = args.getCount() != null ? args.getCount() : 0;
+            final List<MagikVariable> magikVariables =
+                this.variableManager.getVariables(reference, args.getFilter(), start, count);
 
             // Return response.
             final VariablesResponse response = new VariablesResponse();
@@ -526,6 +531,7 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
           try {
             // Evaluate in thread/frame.
             final String result = this.threadManager.evaluate(frameId, expression);
+            this.variableManager.invalidateLocals();
 
             // Return response.
             final EvaluateResponse response = new EvaluateResponse();
@@ -591,8 +597,8 @@ public class MagikDebugAdapter implements IDebugProtocolServer, SlapEventListene
    */
   void processEvent(final ISlapEvent event) {
     if (event instanceof BreakpointEvent breakpointEvent) {
-      this.breakpointManager.handleBreakpointEvent(breakpointEvent);
-      this.threadManager.handleBreakpointEvent(breakpointEvent);
+      final boolean stopped = this.breakpointManager.handleBreakpointEvent(breakpointEvent);
+      this.threadManager.handleBreakpointEvent(breakpointEvent, stopped);
       this.variableManager.handleBreakpointEvent(breakpointEvent);
     } else if (event instanceof ThreadStartedEvent threadStartedEvent) {
       this.threadManager.handleThreadStartedEvent(threadStartedEvent);
@@ -1,11 +1,18 @@
 package nl.ramsolutions.sw.magik.debugadapter;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ErrorMessage;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapProtocol;
@@ -35,6 +42,12 @@ import org.slf4j.LoggerFactory;
 /** Thread manager. */
 class ThreadManager {
 
+  /** Caches of a suspended thread, valid until the thread is resumed. */
+  private static final class Suspension {
+
+    private volatile List<StackFrame> stackFrames;
+  }
+
   private static final Logger LOGGER = LoggerFactory.getLogger(ThreadManager.class);
 
   private static final String LANGUAGE_MAGIK = "Magik";
@@ -46,6 +59,9 @@ class ThreadManager {
   private final ISlapProtocol slapProtocol;
   private final IDebugProtocolClient debugClient;
   private final PathMapper pathMapper;
+  private final Map<Long, Thread> threads = new ConcurrentHashMap<>();
+  private final Map<Long, Suspension> suspensions = new ConcurrentHashMap<>();
+  private final Map<String, Optional<Path>> sourcePaths = new ConcurrentHashMap<>();
   private boolean stepCompletedEventReceived;
   private BreakpointEvent breakpointEvent;
 
@@ -68,6 +84,9 @@ class ThreadManager {
   /**
    * Get the Thread currently active.
    *
+   * <p>Info of threads is requested concurrently, and kept until the thread ends or is no longer
+   * listed.
+   *
    * @return {@link Thread}s
    * @throws IOException -
    * @throws InterruptedException -
@@ -78,37 +97,76 @@ class ThreadManager {
     final CompletableFuture<ISlapResponse> futureThreadList = this.slapProtocol.getThreadList();
     final ThreadListResponse threadList = (ThreadListResponse) futureThreadList.get();
 
-    // Get all thread info for each received thread ID.
-    final List<Thread> threads = new ArrayList<>();
-    for (long threadId : threadList.getThreadIds()) {
-      final CompletableFuture<ISlapResponse> threadInfoFuture =
-          this.slapProtocol.getThreadInfo(threadId);
-      try {
-        final ThreadInfoResponse threadInfo = (ThreadInfoResponse) threadInfoFuture.get();
-        LOGGER.trace("Got thread, id: {}, thread info: {}", threadId, threadInfo);
-
-        final Thread thread = Lsp4jConversion.toLsp4j(threadId, threadInfo);
-        threads.add(thread);
-      } catch (final ExecutionException exception) {
-        LOGGER.trace(
-            "Exception while getting thread, id: {}, exception: {}",
-            threadId,
-            exception.getMessage());
-
-        // If not ErrorMessage.UNKNOWN_ERROR, then re-throw.
-        if (exception.getCause() instanceof SlapErrorException slapErrorException
-            && slapErrorException.getError().getErrorMessage() != ErrorMessage.UNKNOWN_ERROR) {
-          throw exception;
-        }
+    // Forget threads which are gone, in case their end was not signalled.
+    final Set<Long> threadIds = new HashSet<>(threadList.getThreadIds());
+    this.threads.keySet().retainAll(threadIds);
+    this.suspensions.keySet().retainAll(threadIds);
+
+    // Request thread info for all unknown threads at once.
+    final Map<Long, CompletableFuture<ISlapResponse>> threadInfoFutures = new HashMap<>();
+    for (final long threadId : threadList.getThreadIds()) {
+      if (!this.threads.containsKey(threadId)) {
+        threadInfoFutures.put(threadId, this.slapProtocol.getThreadInfo(threadId));
+      }
+    }
+    CompletableFuture.allOf(threadInfoFutures.values().toArray(CompletableFuture[]::new))
+        .handle((result, exception) -> result)
+        .get();
+
+    final List<Thread> threadsList = new ArrayList<>();
+    for (final long threadId : threadList.getThreadIds()) {
+      final CompletableFuture<ISlapResponse> threadInfoFuture = threadInfoFutures.get(threadId);
+      final Thread thread =
+          threadInfoFuture != null
+              ? this.awaitThread(threadId, threadInfoFuture)
+              : this.threads.get(threadId);
+      if (thread != null) {
+        threadsList.add(thread);
       }
     }
 
-    return threads;
+    return threadsList;
+  }
+
+  /**
+   * Wait for the info of a thread.
+   *
+   * @param threadId Thread ID.
+   * @param threadInfoFuture Future of thread info request.
+   * @return Thread, or null if the thread is gone.
+   */
+  @CheckForNull
+  private Thread awaitThread(
+      final long threadId, final CompletableFuture<ISlapResponse> threadInfoFuture)
+      throws InterruptedException, ExecutionException {
+    try {
+      final ThreadInfoResponse threadInfo = (ThreadInfoResponse) threadInfoFuture.get();
+      LOGGER.trace("Got thread, id: {}, thread info: {}", threadId, threadInfo);
+
+      final Thread thread = Lsp4jConversion.toLsp4j(threadId, threadInfo);
+      this.threads.put(threadId, thread);
+      return thread;
+    } catch (final ExecutionException exception) {
+      LOGGER.trace(
+          "Exception while getting thread, id: {}, exception: {}",
+          threadId,
+          exception.getMessage());
+
+      // If not ErrorMessage.UNKNOWN_ERROR, then re-throw.
+      if (exception.getCause() instanceof SlapErrorException slapErrorException
+          && slapErrorException.getError().getErrorMessage() != ErrorMessage.UNKNOWN_ERROR) {
+        throw exception;
+      }
+    }
+
+    return null;
   }
 
   /**
    * Get a stack trace for a given thread.
    *
+   * <p>The stack trace of a suspended thread is kept until the thread is resumed or stepped.
+   *
    * @param threadId Thread ID.
    * @return StackFrames for thread.
    * @throws IOException -
@@ -117,13 +175,18 @@ class ThreadManager {
    */
   List<StackFrame> stackTrace(final long threadId)
       throws IOException, InterruptedException, ExecutionException {
+    final Suspension suspension = this.suspensions.get(threadId);
+    if (suspension != null && suspension.stackFrames != null) {
+      return suspension.stackFrames;
+    }
+
     final CompletableFuture<ISlapResponse> threadStackFuture =
         this.slapProtocol.getThreadStack(threadId);
     final ThreadStackResponse threadStack = (ThreadStackResponse) threadStackFuture.get();
 
     // Do conversion here due to filtering on language + getting source,
     // instead of Lsp4jConversion.
-    final List<StackFrame> stackFrames = new ArrayList<>();
+    final List<ThreadStackResponse.StackElement> stackElements = new ArrayList<>();
     for (final ThreadStackResponse.StackElement stackElement : threadStack.getStackFrames()) {
       LOGGER.trace(
           "Stack element, level: {}, language: {}, name: '{}', offset: {}",
@@ -133,54 +196,160 @@ class ThreadManager {
           stackElement.getOffset());
 
       // Don't mess with non-Magik stack frames.
-      if (!stackElement.getLanguage().equals(LANGUAGE_MAGIK)) {
-        continue;
+      if (stackElement.getLanguage().equals(LANGUAGE_MAGIK)) {
+        stackElements.add(stackElement);
       }
+    }
 
-      // This sets the frameId to the given stack frames.
-      final Path path = this.determinePath(threadId, stackElement);
-      final StackFrame stackFrame = Lsp4jConversion.toLsp4j(threadId, stackElement, path);
-      stackFrames.add(stackFrame);
+    // Request packages and source files for all frames at once, instead of frame by frame.
+    this.resolvePackages(threadId, stackElements);
+    final Map<String, Optional<Path>> paths = this.resolvePaths(stackElements);
+
+    // This sets the frameId to the given stack frames.
+    final List<StackFrame> stackFrames =
+        stackElements.stream()
+            .map(
+                stackElement -> {
+                  final String method = ThreadManager.sourceMethod(stackElement);
+                  final Path path = method != null ? paths.get(method).orElse(null) : null;
+                  return Lsp4jConversion.toLsp4j(threadId, stackElement, path);
+                })
+            .toList();
+    if (suspension != null) {
+      suspension.stackFrames = stackFrames;
     }
 
     return stackFrames;
   }
 
-  private Path determinePath(
-      final long threadId, final ThreadStackResponse.StackElement stackElement)
-      throws InterruptedException, ExecutionException, IOException {
-    try {
-      String method = stackElement.getName();
-      if (!method.equals(UNNAMED_PROC) && !method.equals(LOOPBODY)) {
-        final int indexDot = method.indexOf('.');
-        final int indexBracket = method.indexOf('[');
-        final int index = indexDot != -1 ? indexDot + 1 : indexBracket;
-        if (!method.contains(":") && index != -1) {
-          // Do some extra work to determine package.
-          final int level = stackElement.getLevel();
-
-          final String exemplarName = ":|" + method.substring(0, index - 1) + "|";
-          final String expr = String.format(EVAL_EXEMPLAR_PACKAGE, exemplarName);
-          LOGGER.debug("Eval expression: '{}'", expr);
-          final EvalResponse eval =
-              (EvalResponse) this.slapProtocol.evaluate(threadId, level, expr).get();
-          method = eval.getResult() + ":" + method;
-
-          // Bonus: update exemplar name with package.
-          stackElement.setName(method);
-        }
+  /**
+   * Get the name of the exemplar for which the package has to be determined.
+   *
+   * @param stackElement Stack element.
+   * @return Exemplar name, or null if not needed.
+   */
+  @CheckForNull
+  private static String exemplarName(final ThreadStackResponse.StackElement stackElement) {
+    final String method = stackElement.getName();
+    if (method.equals(UNNAMED_PROC) || method.equals(LOOPBODY) || method.contains(":")) {
+      return null;
+    }
 
-        // Clear any spaces (before `<<`/`^<<`). Lazy approach...
-        method = method.replace(" ", "");
+    final int indexDot = method.indexOf('.');
+    final int indexBracket = method.indexOf('[');
+    final int index = indexDot != -1 ? indexDot + 1 : indexBracket;
+    if (index == -1) {
+      return null;
+    }
 
-        // Get source file for method.
-        final CompletableFuture<ISlapResponse> sourceFileFuture =
-            this.slapProtocol.getSourceFile(method);
-        final SourceFileResponse sourceFile = (SourceFileResponse) sourceFileFuture.get();
-        final String filename = sourceFile.getFilename();
-        final Path daPath = Path.of(filename);
-        return this.pathMapper.applyMapping(daPath);
+    return method.substring(0, index - 1);
+  }
+
+  /**
+   * Get the method to get the source file for.
+   *
+   * @param stackElement Stack element.
+   * @return Method, or null if it has no source file.
+   */
+  @CheckForNull
+  private static String sourceMethod(final ThreadStackResponse.StackElement stackElement) {
+    final String method = stackElement.getName();
+    if (method.equals(UNNAMED_PROC) || method.equals(LOOPBODY)) {
+      return null;
+    }
+
+    // Clear any spaces (before `<<`/`^<<`). Lazy approach...
+    return method.replace(" ", "");
+  }
+
+  /**
+   * Prefix the names of the stack elements with the package of their exemplar.
+   *
+   * <p>The exemplar name is resolved relative to the method of the frame, so the package is
+   * determined per frame.
+   *
+   * @param threadId Thread ID.
+   * @param stackElements Stack elements.
+   */
+  private void resolvePackages(
+      final long threadId, final List<ThreadStackResponse.StackElement> stackElements)
+      throws IOException, InterruptedException, ExecutionException {
+    final Map<Integer, CompletableFuture<ISlapResponse>> futures = new HashMap<>();
+    for (final ThreadStackResponse.StackElement stackElement : stackElements) {
+      final String exemplarName = ThreadManager.exemplarName(stackElement);
+      if (exemplarName == null) {
+        continue;
+      }
+
+      final String expr = String.format(EVAL_EXEMPLAR_PACKAGE, ":|" + exemplarName + "|");
+      LOGGER.debug("Eval expression: '{}'", expr);
+      final int level = stackElement.getLevel();
+      futures.put(level, this.slapProtocol.evaluate(threadId, level, expr));
+    }
+
+    // Bonus: update exemplar name with package.
+    for (final ThreadStackResponse.StackElement stackElement : stackElements) {
+      final CompletableFuture<ISlapResponse> future = futures.get(stackElement.getLevel());
+      final EvalResponse eval = future != null ? (EvalResponse) this.awaitLookup(future) : null;
+      if (eval != null) {
+        stackElement.setName(eval.getResult() + ":" + stackElement.getName());
+      }
+    }
+  }
+
+  /**
+   * Get the paths of the source files of the stack elements.
+   *
+   * @param stackElements Stack elements.
+   * @return Paths, keyed by method.
+   */
+  private Map<String, Optional<Path>> resolvePaths(
+      final List<ThreadStackResponse.StackElement> stackElements)
+      throws IOException, InterruptedException, ExecutionException {
+    final Map<String, Optional<Path>> paths = new HashMap<>();
+    final Map<String, CompletableFuture<ISlapResponse>> futures = new HashMap<>();
+    for (final ThreadStackResponse.StackElement stackElement : stackElements) {
+      final String method = ThreadManager.sourceMethod(stackElement);
+      if (method == null || paths.containsKey(method) || futures.containsKey(method)) {
+        continue;
+      }
+
+      final Optional<Path> cachedPath = this.sourcePaths.get(method);
+      if (cachedPath != null) {
+        paths.put(method, cachedPath);
+      } else {
+        futures.put(method, this.slapProtocol.getSourceFile(method));
+      }
+    }
+
+    for (final Map.Entry<String, CompletableFuture<ISlapResponse>> entry : futures.entrySet()) {
+      final String method = entry.getKey();
+      final SourceFileResponse sourceFile = (SourceFileResponse) this.awaitLookup(entry.getValue());
+      final Optional<Path> path =
+          Optional.ofNullable(sourceFile)
+              .map(SourceFileResponse::getFilename)
+              .map(Path::of)
+              .map(this.pathMapper::applyMapping);
+      if (path.isPresent()) {
+        this.sourcePaths.put(method, path);
       }
+      paths.put(method, path);
+    }
+
+    return paths;
+  }
+
+  /**
+   * Wait for the response of a package or source file lookup.
+   *
+   * @param future Future of request.
+   * @return Response, or null if the method was not found.
+   */
+  @CheckForNull
+  private ISlapResponse awaitLookup(final CompletableFuture<ISlapResponse> future)
+      throws InterruptedException, ExecutionException {
+    try {
+      return future.get();
     } catch (final ExecutionException exception) {
       if (exception.getCause() instanceof SlapErrorException slapErrorException
           && slapErrorException.getError().getErrorMessage() != ErrorMessage.METHOD_NOT_FOUND) {
@@ -202,6 +371,7 @@ class ThreadManager {
   void pause(final long threadId) throws IOException, InterruptedException, ExecutionException {
     try {
       this.slapProtocol.suspendThread(threadId).get();
+      this.suspensions.put(threadId, new Suspension());
     } catch (ExecutionException exception) {
       if (exception.getCause() instanceof SlapErrorException exception2) {
         final ErrorResponse error = exception2.getError();
@@ -217,6 +387,8 @@ class ThreadManager {
   /**
    * Continue a thread.
    *
+   * <p>Code might be (re)loaded while the session runs, the cached source files are forgotten.
+   *
    * @param threadId Thread ID.
    * @throws IOException -
    * @throws InterruptedException -
@@ -225,6 +397,8 @@ class ThreadManager {
   @SuppressWarnings("java:S100")
   void continue_(final long threadId)
       throws IOException, InterruptedException, ExecutionException { // NOSONAR
+    this.suspensions.remove(threadId);
+    this.sourcePaths.clear();
     this.slapProtocol.resumeThread(threadId).get();
   }
 
@@ -294,6 +468,8 @@ class ThreadManager {
    * @param event Event.
    */
   void handleThreadStartedEvent(final ThreadStartedEvent event) {
+    this.threads.remove(event.getThreadId());
+
     final ThreadEventArguments args = new ThreadEventArguments();
     args.setThreadId((int) event.getThreadId());
     args.setReason(ThreadEventArgumentsReason.STARTED);
@@ -306,6 +482,9 @@ class ThreadManager {
    * @param event Event.
    */
   void handleThreadEndedEvent(final ThreadEndedEvent event) {
+    this.threads.remove(event.getThreadId());
+    this.suspensions.remove(event.getThreadId());
+
     final ThreadEventArguments args = new ThreadEventArguments();
     args.setThreadId((int) event.getThreadId());
     args.setReason(ThreadEventArgumentsReason.EXITED);
@@ -323,6 +502,8 @@ class ThreadManager {
 
   private void step(final long threadId, final StepType stepType)
       throws IOException, InterruptedException, ExecutionException {
+    this.suspensions.remove(threadId);
+
     // Record what the stack looks like now.
     CompletableFuture<ISlapResponse> threadStackFuture = this.slapProtocol.getThreadStack(threadId);
     ThreadStackResponse threadStack = (ThreadStackResponse) threadStackFuture.get();
@@ -340,7 +521,7 @@ class ThreadManager {
     // Do the stepping.
     boolean stepping = true;
     while (stepping) {
-      this.handleBreakpointEvent(null);
+      this.setBreakpointEvent(null);
 
       LOGGER.trace("Single step start: thread: {}, step type: {}", threadId, stepType);
 
@@ -406,6 +587,7 @@ class ThreadManager {
     }
 
     // Signal client step is completed.
+    this.suspensions.put(threadId, new Suspension());
     final StoppedEventArguments args = new StoppedEventArguments();
     args.setThreadId((int) threadId);
     args.setReason(StoppedEventArgumentsReason.STEP);
@@ -440,8 +622,18 @@ class ThreadManager {
    * Handle breakpoint event.
    *
    * @param newBreakpointEvent Breakpoint event.
+   * @param stopped True if the thread stopped, false if it was resumed by the {@link
+   *     BreakpointManager}.
    */
-  public void handleBreakpointEvent(final @Nullable BreakpointEvent newBreakpointEvent) {
+  void handleBreakpointEvent(final BreakpointEvent newBreakpointEvent, final boolean stopped) {
+    if (stopped) {
+      this.suspensions.put(newBreakpointEvent.getThreadId(), new Suspension());
+    }
+
+    this.setBreakpointEvent(newBreakpointEvent);
+  }
+
+  private void setBreakpointEvent(final @Nullable BreakpointEvent newBreakpointEvent) {
     synchronized (this) {
       this.breakpointEvent = newBreakpointEvent;
     }
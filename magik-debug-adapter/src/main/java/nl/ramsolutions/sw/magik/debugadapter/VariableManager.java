@@ -1,5 +1,6 @@
 package nl.ramsolutions.sw.magik.debugadapter;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -14,8 +15,10 @@ import nl.ramsolutions.sw.magik.debugadapter.slap.events.StepCompletedEvent;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.Local;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.LocalType;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.VariableType;
 import org.eclipse.lsp4j.debug.Scope;
+import org.eclipse.lsp4j.debug.VariablesArgumentsFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +35,8 @@ class VariableManager {
     private final String name;
     private final String value;
     private final String expression;
+    private final VariableKind kind;
+    private final int childCount;
 
     /**
      * Constructor.
@@ -41,18 +46,24 @@ class VariableManager {
      * @param name Name of variable.
      * @param value Value of variable.
      * @param expression Expression for varaible.
+     * @param kind Kind of variable.
+     * @param childCount Number of children, if kind is known.
      */
     MagikVariable(
         final int id,
         final int frameId,
         final String name,
         final String value,
-        final String expression) {
+        final String expression,
+        final VariableKind kind,
+        final int childCount) {
       this.id = id;
       this.frameId = frameId;
       this.name = name;
       this.value = value;
       this.expression = expression;
+      this.kind = kind;
+      this.childCount = childCount;
     }
 
     int getId() {
@@ -74,6 +85,14 @@ class VariableManager {
     String getExpression() {
       return this.expression;
     }
+
+    VariableKind getKind() {
+      return this.kind;
+    }
+
+    int getChildCount() {
+      return this.childCount;
+    }
   }
 
   /** Scope type. */
@@ -82,10 +101,108 @@ class VariableManager {
     SLOTS,
   }
 
+  /** Variable kind, determines how children are retrieved. */
+  enum VariableKind {
+    /** Could not be determined up front, determined when children are requested. */
+    UNKNOWN,
+    /** Variable without children. */
+    NONE,
+    /** Variable with indexed children, {@code sw:indexed_format_mixin}. */
+    INDEXED,
+    /** Variable with named children, {@code sw:slotted_format_mixin}. */
+    SLOTTED,
+  }
+
+  /**
+   * Magik procedures shared by the expressions below: {@code slap!w} writes a length-prefixed field
+   * ({@code <length>:<text>}), {@code slap!k} gives the kind and number of children of an object.
+   *
+   * <p>The expressions bind the value(s) of the user expression(s) in an outer block, before any
+   * helper is declared, and all helpers are prefixed with {@code slap!}. This way locals of the
+   * debuggee are never shadowed by the helpers.
+   */
+  private static final String FIELD_PROCS =
+      """
+          _local slap!w << _proc(o, x) o.write(x.size, %:, x) _endproc
+          _local slap!k << _proc(e)
+            _if e.is_kind_of?(sw:enumerated_format_mixin) _then _return :none, 0
+            _elif e.is_kind_of?(sw:indexed_format_mixin) _then _return :indexed, e.sys!size
+            _elif e.is_kind_of?(sw:slotted_format_mixin)
+            _then _return :slotted, e.sys!all_slot_names().size
+            _endif
+            _return :none, 0
+          _endproc
+      """;
+
+  /**
+   * Magik expression to get the kind and number of children of objects, in a single evaluation. The
+   * result is a sequence of length-prefixed fields: the kind and number of children of each object.
+   * Placeholders: comma separated expressions, procedures.
+   */
+  private static final String KINDS_EXPRESSION =
+      """
+      _block
+        _local slap!values << {%s}
+        >> _block
+      %s
+          _local slap!o << internal_text_output_stream.new()
+          _for slap!e _over slap!values.fast_elements()
+          _loop
+            _local (slap!kd, slap!n) << slap!k(slap!e)
+            slap!w(slap!o, slap!kd)
+            slap!w(slap!o, slap!n.write_string)
+          _endloop
+          >> slap!o.string
+        _endblock
+      _endblock""";
+
+  /**
+   * Magik expression to get a page of children of a variable, in a single evaluation. The result is
+   * a sequence of length-prefixed fields: the kind and number of children of the variable itself,
+   * followed by the kind, number of children, name and print string of each child in the page.
+   * Placeholders: expression, procedures, start, end (exclusive).
+   */
+  private static final String PAGE_EXPRESSION =
+      """
+      _block
+        _local slap!v << %s
+        >> _block
+      %s
+          _local slap!o << internal_text_output_stream.new()
+          _local (slap!kd, slap!n) << slap!k(slap!v)
+          slap!w(slap!o, slap!kd)
+          slap!w(slap!o, slap!n.write_string)
+          _local slap!ns << _if slap!kd _is :slotted _then >> slap!v.sys!all_slot_names() _endif
+          _for slap!i _over %d.upto(%s - 1)
+          _loop
+            _local slap!nm, slap!e
+            _if slap!kd _is :slotted
+            _then
+              _local slap!sn << slap!ns.sys!at0(slap!i)
+              slap!nm << slap!sn.subseq(slap!sn.index_of(%%!) + 1)
+              slap!e << slap!v.sys!slot(slap!nm.as_symbol())
+            _else
+              slap!nm << slap!i.write_string
+              slap!e << slap!v.sys!at0(slap!i)
+            _endif
+            _local (slap!ekd, slap!en) << slap!k(slap!e)
+            slap!w(slap!o, slap!ekd)
+            slap!w(slap!o, slap!en.write_string)
+            slap!w(slap!o, slap!nm)
+            slap!w(slap!o, slap!e.print_string)
+          _endloop
+          >> slap!o.string
+        _endblock
+      _endblock""";
+
+  private static final int FIELDS_PER_CHILD = 4;
+  private static final int FIELDS_PER_KIND = 2;
+
   private final ISlapProtocol slapProtocol;
   private final Map<Integer, Integer> frameIds = new HashMap<>();
   private final Map<Integer, Scope> scopes = new HashMap<>();
   private final Map<Integer, MagikVariable> variables = new HashMap<>();
+  private final Map<Integer, List<MagikVariable>> scopeVariables = new HashMap<>();
   private int lastId;
 
   /**
@@ -104,9 +221,18 @@ class VariableManager {
     this.frameIds.clear();
     this.scopes.clear();
     this.variables.clear();
+    this.scopeVariables.clear();
     this.lastId = 0;
   }
 
+  /**
+   * Invalidate the cached locals, as an evaluation might have changed them. Locals are retrieved
+   * again when their scope is requested again.
+   */
+  void invalidateLocals() {
+    this.scopeVariables.clear();
+  }
+
   /**
    * Get frameid for scope/variable id.
    *
@@ -172,11 +298,17 @@ class VariableManager {
    * @return New variable.
    */
   private MagikVariable addVariable(
-      final int frameId, final String name, final String value, final String expression) {
+      final int frameId,
+      final String name,
+      final String value,
+      final String expression,
+      final VariableKind kind,
+      final int childCount) {
     final int id = ++this.lastId;
     this.frameIds.put(id, frameId);
 
-    final MagikVariable variable = new MagikVariable(id, frameId, name, value, expression);
+    final MagikVariable variable =
+        new MagikVariable(id, frameId, name, value, expression, kind, childCount);
     this.variables.put(id, variable);
     return variable;
   }
@@ -186,12 +318,15 @@ class VariableManager {
    *
    * @param frameId Frame ID.
    * @param local Local to convert.
+   * @param kind Kind of variable.
+   * @param childCount Number of children of variable.
    * @return New variable.
    */
-  private MagikVariable addVariable(final int frameId, final Local local) {
+  private MagikVariable addVariable(
+      final int frameId, final Local local, final VariableKind kind, final int childCount) {
     final String name = local.getName();
     final String value = local.getValue();
-    return addVariable(frameId, name, value, name);
+    return this.addVariable(frameId, name, value, name, kind, childCount);
   }
 
   /**
@@ -201,14 +336,18 @@ class VariableManager {
    * @param name Name of variable.
    * @param value Value of variable.
    * @param expression Expression to get variable.
+   * @param kind Kind of variable.
+   * @param childCount Number of children of variable.
    * @return New variable.
    */
   private MagikVariable addVariable(
       final MagikVariable variable,
       final String name,
       final String value,
-      final String expression) {
-    return this.addVariable(variable.getFrameId(), name, value, expression);
+      final String expression,
+      final VariableKind kind,
+      final int childCount) {
+    return this.addVariable(variable.getFrameId(), name, value, expression, kind, childCount);
   }
 
   /**
@@ -222,165 +361,237 @@ class VariableManager {
   }
 
   /**
-   * Get variables.
+   * Get all variables.
    *
    * @param reference Reference to use.
    * @return Variables.
    */
   List<MagikVariable> getVariables(final int reference)
       throws IOException, InterruptedException, ExecutionException {
-    final List<MagikVariable> magikVariables = new ArrayList<>();
+    return this.getVariables(reference, null, 0, 0);
+  }
 
-    // Call into debugger to get variables.
+  /**
+   * Get a page of variables.
+   *
+   * <p>Children of a variable are retrieved using a single evaluation, regardless of the page size.
+   *
+   * @param reference Reference to use.
+   * @param filter Filter, or null for all.
+   * @param start Index of first variable.
+   * @param count Number of variables to get, 0 for all.
+   * @return Variables.
+   */
+  List<MagikVariable> getVariables(
+      final int reference,
+      final @Nullable VariablesArgumentsFilter filter,
+      final int start,
+      final int count)
+      throws IOException, InterruptedException, ExecutionException {
     final Scope scope = this.getScope(reference);
-    MagikVariable variable = this.getVariable(reference);
+    final MagikVariable variable = this.getVariable(reference);
     if (scope != null) {
-      final int scopeId = scope.getVariablesReference();
-      final int frameId = this.getFrameId(scopeId);
-      final long threadId = Lsp4jConversion.frameIdToThreadId(frameId);
-      final int level = Lsp4jConversion.frameIdToLevel(frameId);
-      final StackFrameLocalsResponse stackFrameLocals =
-          (StackFrameLocalsResponse) this.slapProtocol.getStackFrameLocals(threadId, level).get();
-
-      stackFrameLocals.getLocals().stream()
-          .filter(local -> !local.getVariableTypes().contains(VariableType.SLOT))
-          .map(local -> this.addVariable(frameId, local))
-          .forEach(magikVariables::add);
-    } else if (variable != null) {
-      final int frameId = variable.getFrameId();
-      final long threadId = Lsp4jConversion.frameIdToThreadId(frameId);
-      final int level = Lsp4jConversion.frameIdToLevel(frameId);
-      final String expression = variable.getExpression();
-
-      // Determine type:
-      // - sw:enumerated_format_mixin
-      // - sw:indexed_format_mixin
-      // - sw:slotted_format_mixin
-      final String typeExpression =
-          ""
-              + "_if "
-              + expression
-              + ".is_kind_of?(sw:enumerated_format_mixin) "
-              + "_then >> :enumerated_format_mixin "
-              + "_elif "
-              + expression
-              + ".is_kind_of?(sw:indexed_format_mixin) "
-              + "_then >> :indexed_format_mixin "
-              + "_elif "
-              + expression
-              + ".is_kind_of?(sw:slotted_format_mixin) "
-              + "_then >> :slotted_format_mixin "
-              + "_else >> expression.class_name "
-              + "_endif";
-      final EvalResponse typeEvalResponse =
-          (EvalResponse) this.slapProtocol.evaluate(threadId, level, typeExpression).get();
-      List<MagikVariable> subVariables = null;
-      switch (typeEvalResponse.getResult()) {
-        case ":enumerated_format_mixin":
-          subVariables = this.variablesFromEnumerated(variable);
-          break;
-
-        case ":indexed_format_mixin":
-          subVariables = this.variablesFromIndexed(variable);
-          break;
-
-        case ":slotted_format_mixin":
-          subVariables = this.variablesFromSlotted(variable);
-          break;
-
-        default:
-          LOGGER.warn(
-              "Unknown type for expression: {}, class: {}",
-              expression,
-              typeEvalResponse.getResult());
-          subVariables = new ArrayList<>();
-          break;
-      }
-      magikVariables.addAll(subVariables);
+      return this.variablesFromScope(scope);
+    } else if (variable != null && VariableManager.matchesFilter(variable, filter)) {
+      return this.variablesFromVariable(variable, start, count);
     }
 
-    // Sort variables.
-    final Comparator<MagikVariable> byName = Comparator.comparing(MagikVariable::getName);
-    return magikVariables.stream().sorted(byName).toList();
+    return Collections.emptyList();
   }
 
   // endregion
 
-  private List<MagikVariable> variablesFromSlotted(final MagikVariable variable)
+  private static boolean matchesFilter(
+      final MagikVariable variable, final @Nullable VariablesArgumentsFilter filter) {
+    if (filter == null) {
+      return true;
+    }
+
+    return switch (variable.getKind()) {
+      case INDEXED -> filter == VariablesArgumentsFilter.INDEXED;
+      case SLOTTED -> filter == VariablesArgumentsFilter.NAMED;
+      default -> true;
+    };
+  }
+
+  private List<MagikVariable> variablesFromScope(final Scope scope)
       throws InterruptedException, ExecutionException, IOException {
-    final int frameId = variable.getFrameId();
+    // Locals only change while suspended through an evaluation, which invalidates them.
+    final int scopeId = scope.getVariablesReference();
+    final List<MagikVariable> cachedVariables = this.scopeVariables.get(scopeId);
+    if (cachedVariables != null) {
+      return cachedVariables;
+    }
+
+    final int frameId = this.getFrameId(scopeId);
     final long threadId = Lsp4jConversion.frameIdToThreadId(frameId);
     final int level = Lsp4jConversion.frameIdToLevel(frameId);
-    final String expression = variable.getExpression();
+    final StackFrameLocalsResponse stackFrameLocals =
+        (StackFrameLocalsResponse) this.slapProtocol.getStackFrameLocals(threadId, level).get();
+
+    final List<Local> locals =
+        stackFrameLocals.getLocals().stream()
+            .filter(local -> !local.getVariableTypes().contains(VariableType.SLOT))
+            .toList();
+    final Map<String, List<String>> kindFields = this.getKindFields(threadId, level, locals);
+    final List<MagikVariable> magikVariables =
+        locals.stream()
+            .map(
+                local -> {
+                  // Objects of which the kind could not be determined are kept as unknown.
+                  final List<String> fields = kindFields.get(local.getName());
+                  if (local.getLocalType() != LocalType.TYPE_OBJ) {
+                    return this.addVariable(frameId, local, VariableKind.NONE, 0);
+                  } else if (fields == null) {
+                    return this.addVariable(frameId, local, VariableKind.UNKNOWN, 0);
+                  }
+                  final VariableKind kind = VariableManager.parseKind(fields.get(0));
+                  final int childCount = Integer.parseInt(fields.get(1));
+                  return this.addVariable(frameId, local, kind, childCount);
+                })
+            .sorted(Comparator.comparing(MagikVariable::getName))
+            .toList();
+    this.scopeVariables.put(scopeId, magikVariables);
+    return magikVariables;
+  }
 
-    // Get slots.
-    final String slotsExpression =
-        ""
-            + expression
-            + ".sys!all_slot_names()"
-            + ".map(_proc(sn) _return sn.subseq(sn.index_of(%!) + 1) _endproc)"
-            + ".join_as_strings(%,)";
-    final EvalResponse slotsEvalResponse =
-        (EvalResponse) this.slapProtocol.evaluate(threadId, level, slotsExpression).get();
-    final String slotNames = slotsEvalResponse.getResult();
-
-    // For each slot, get contents
-    final List<MagikVariable> magikVariables = new ArrayList<>();
-    for (final String slotName : slotNames.split(",")) {
-      if ("".equals(slotName)) {
-        continue;
-      }
+  /**
+   * Get the kind fields of the object locals, in a single evaluation.
+   *
+   * @param threadId Thread ID.
+   * @param level Level of frame.
+   * @param locals Locals.
+   * @return Kind and number of children fields, keyed by local name.
+   */
+  private Map<String, List<String>> getKindFields(
+      final long threadId, final int level, final List<Local> locals)
+      throws InterruptedException, ExecutionException, IOException {
+    final List<String> names =
+        locals.stream()
+            .filter(local -> local.getLocalType() == LocalType.TYPE_OBJ)
+            .map(Local::getName)
+            .toList();
+    if (names.isEmpty()) {
+      return Collections.emptyMap();
+    }
 
-      final String slotValueExpression = expression + ".sys!slot(:" + slotName + ")";
-      final EvalResponse slotValueResponse =
-          (EvalResponse)
-              this.slapProtocol
-                  .evaluate(threadId, level, slotValueExpression + ".print_string")
-                  .get();
-      final String slotValue = slotValueResponse.getResult();
-
-      final MagikVariable slotVariable =
-          this.addVariable(variable, slotName, slotValue, slotValueExpression);
-      magikVariables.add(slotVariable);
+    final String kindsExpression =
+        String.format(KINDS_EXPRESSION, String.join(", ", names), FIELD_PROCS);
+    final EvalResponse evalResponse =
+        (EvalResponse) this.slapProtocol.evaluate(threadId, level, kindsExpression).get();
+    final List<String> fields = VariableManager.parseFields(evalResponse.getResult());
+    if (fields.size() != names.size() * FIELDS_PER_KIND) {
+      LOGGER.warn(
+          "Unable to get kinds for locals: {}, result: {}", names, evalResponse.getResult());
+      return Collections.emptyMap();
     }
-    return magikVariables;
+
+    final Map<String, List<String>> kindFields = new HashMap<>();
+    for (int i = 0; i < names.size(); ++i) {
+      final int index = i * FIELDS_PER_KIND;
+      kindFields.put(names.get(i), fields.subList(index, index + FIELDS_PER_KIND));
+    }
+    return kindFields;
   }
 
-  private List<MagikVariable> variablesFromIndexed(final MagikVariable variable)
+  private List<MagikVariable> variablesFromVariable(
+      final MagikVariable variable, final int start, final int count)
       throws InterruptedException, ExecutionException, IOException {
+    if (variable.getKind() == VariableKind.NONE) {
+      return Collections.emptyList();
+    }
+
     final int frameId = variable.getFrameId();
     final long threadId = Lsp4jConversion.frameIdToThreadId(frameId);
     final int level = Lsp4jConversion.frameIdToLevel(frameId);
     final String expression = variable.getExpression();
+    final String pageExpression = VariableManager.pageExpression(expression, start, count);
+    final EvalResponse evalResponse =
+        (EvalResponse) this.slapProtocol.evaluate(threadId, level, pageExpression).get();
+    final List<String> fields = VariableManager.parseFields(evalResponse.getResult());
+    if (fields.size() < 2 || (fields.size() - 2) % FIELDS_PER_CHILD != 0) {
+      LOGGER.warn(
+          "Unable to get children for expression: {}, result: {}",
+          expression,
+          evalResponse.getResult());
+      return Collections.emptyList();
+    }
 
-    // Get size.
-    final String sizeExpression = expression + ".sys!size";
-    final EvalResponse sizeEvalResponse =
-        (EvalResponse) this.slapProtocol.evaluate(threadId, level, sizeExpression).get();
-    final int size = Integer.parseInt(sizeEvalResponse.getResult());
-
-    // Get contents.
+    final VariableKind kind = VariableManager.parseKind(fields.get(0));
     final List<MagikVariable> magikVariables = new ArrayList<>();
-    for (int i = 0; i < size; ++i) {
-      final String itemValueExpression = expression + ".sys!at0(" + i + ")";
-      final EvalResponse itemValueResponse =
-          (EvalResponse)
-              this.slapProtocol
-                  .evaluate(threadId, level, itemValueExpression + ".print_string")
-                  .get();
-      final String itemValue = itemValueResponse.getResult();
-
-      final MagikVariable slotVariable =
-          this.addVariable(variable, Integer.toString(i), itemValue, itemValueExpression);
-      magikVariables.add(slotVariable);
+    for (int i = 2; i < fields.size(); i += FIELDS_PER_CHILD) {
+      final VariableKind childKind = VariableManager.parseKind(fields.get(i));
+      final int childCount = Integer.parseInt(fields.get(i + 1));
+      final String name = fields.get(i + 2);
+      final String value = fields.get(i + 3);
+      final String childExpression =
+          kind == VariableKind.SLOTTED
+              ? expression + ".sys!slot(:" + name + ")"
+              : expression + ".sys!at0(" + name + ")";
+      final MagikVariable childVariable =
+          this.addVariable(variable, name, value, childExpression, childKind, childCount);
+      magikVariables.add(childVariable);
     }
 
+    // Sort named variables, keep indexed variables in order.
+    if (kind == VariableKind.SLOTTED) {
+      magikVariables.sort(Comparator.comparing(MagikVariable::getName));
+    }
     return magikVariables;
   }
 
-  @SuppressWarnings("java:S1172")
-  private List<MagikVariable> variablesFromEnumerated(final MagikVariable variable) {
-    return Collections.emptyList();
+  /**
+   * Build the expression to get a page of children of {@code expression}.
+   *
+   * @param expression Expression of parent variable.
+   * @param start Index of first child.
+   * @param count Number of children, 0 for all.
+   * @return Page expression.
+   */
+  static String pageExpression(final String expression, final int start, final int count) {
+    final String end = count > 0 ? "(" + (start + count) + ").min(slap!n)" : "slap!n";
+    return String.format(PAGE_EXPRESSION, expression, FIELD_PROCS, start, end);
+  }
+
+  /**
+   * Parse length-prefixed fields, {@code <length>:<text>}.
+   *
+   * @param result Result to parse.
+   * @return Parsed fields, or an empty list if the result is malformed.
+   */
+  static List<String> parseFields(final String result) {
+    final List<String> fields = new ArrayList<>();
+    int index = 0;
+    while (index < result.length()) {
+      final int separatorIndex = result.indexOf(':', index);
+      if (separatorIndex == -1) {
+        return Collections.emptyList();
+      }
+
+      final int length;
+      try {
+        length = Integer.parseInt(result.substring(index, separatorIndex));
+      } catch (final NumberFormatException exception) {
+        return Collections.emptyList();
+      }
+
+      final int endIndex = separatorIndex + 1 + length;
+      if (length < 0 || endIndex > result.length()) {
+        return Collections.emptyList();
+      }
+
+      fields.add(result.substring(separatorIndex + 1, endIndex));
+      index = endIndex;
+    }
+    return fields;
+  }
+
+  private static VariableKind parseKind(final String kind) {
+    return switch (kind) {
+      case "indexed" -> VariableKind.INDEXED;
+      case "slotted" -> VariableKind.SLOTTED;
+      default -> VariableKind.NONE;
+    };
   }
 
   /**
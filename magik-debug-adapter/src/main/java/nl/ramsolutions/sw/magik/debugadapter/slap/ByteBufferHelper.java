@@ -1,7 +1,6 @@
 package nl.ramsolutions.sw.magik.debugadapter.slap;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 /** Byte buffer utils. */
@@ -9,6 +8,11 @@ import java.nio.charset.StandardCharsets;
 public final class ByteBufferHelper {
 
   private static final int ELEMENTS_PER_LINE = 16;
+  private static final int MAX_DECODE_BUFFER_SIZE = 64 * 1024;
+
+  /** Bytes of strings in direct buffers are copied here before decoding, one per thread. */
+  private static final ThreadLocal<byte[]> DECODE_BUFFER =
+      ThreadLocal.withInitial(() -> new byte[1024]);
 
   private ByteBufferHelper() {}
 
@@ -40,19 +44,7 @@ public final class ByteBufferHelper {
    * @return Uint32 value.
    */
   public static long readUInt32(final ByteBuffer buffer) {
-    final int val = buffer.getInt();
-
-    final ByteBuffer tmp = ByteBuffer.allocate(8);
-    final ByteOrder order = buffer.order();
-    tmp.order(order);
-    if (order == ByteOrder.LITTLE_ENDIAN) {
-      tmp.putInt(0, val);
-      tmp.putInt(4, 0);
-    } else {
-      tmp.putInt(0, 0);
-      tmp.putInt(4, val);
-    }
-    return tmp.getLong();
+    return Integer.toUnsignedLong(buffer.getInt());
   }
 
   /**
@@ -63,10 +55,7 @@ public final class ByteBufferHelper {
    * @return Uint32 value.
    */
   public static long readUInt32(final ByteBuffer buffer, final int position) {
-    final ByteBuffer roBuffer = buffer.asReadOnlyBuffer();
-    roBuffer.order(buffer.order());
-    roBuffer.position(position);
-    return ByteBufferHelper.readUInt32(roBuffer);
+    return Integer.toUnsignedLong(buffer.getInt(position));
   }
 
   /**
@@ -89,18 +78,7 @@ public final class ByteBufferHelper {
    * @param value Value to write.
    */
   public static void writeUInt32(final ByteBuffer buffer, final long value) {
-    final ByteBuffer tmp = ByteBuffer.allocate(8);
-    final ByteOrder order = buffer.order();
-    tmp.order(order);
-    tmp.putLong(value);
-
-    if (order == ByteOrder.LITTLE_ENDIAN) {
-      final int val = tmp.getInt(0);
-      buffer.putInt(val);
-    } else {
-      final int val = tmp.getInt(4);
-      buffer.putInt(val);
-    }
+    buffer.putInt((int) value);
   }
 
   /**
@@ -111,9 +89,10 @@ public final class ByteBufferHelper {
    */
   public static String readString(final ByteBuffer buffer) {
     final int length = (int) ByteBufferHelper.readUInt32(buffer);
-    final byte[] encoded = new byte[length];
-    buffer.get(encoded);
-    return new String(encoded, StandardCharsets.UTF_8);
+    final int position = buffer.position();
+    final String value = ByteBufferHelper.decodeString(buffer, position, length);
+    buffer.position(position + length);
+    return value;
   }
 
   /**
@@ -124,10 +103,51 @@ public final class ByteBufferHelper {
    * @return String value.
    */
   public static String readString(final ByteBuffer buffer, final int position) {
-    final ByteBuffer roBuffer = buffer.asReadOnlyBuffer();
-    roBuffer.order(buffer.order());
-    roBuffer.position(position);
-    return ByteBufferHelper.readString(roBuffer);
+    final int length = (int) ByteBufferHelper.readUInt32(buffer, position);
+    return ByteBufferHelper.decodeString(buffer, position + 4, length);
+  }
+
+  /**
+   * Decode an UTF-8 string of {@code length} bytes at the given position. Position of the buffer is
+   * not updated.
+   *
+   * <p>Bytes of a direct buffer are copied to a reused array first, as decoding an array is cheaper
+   * than decoding a {@link ByteBuffer}.
+   *
+   * @param buffer ByteBuffer to read from.
+   * @param position Position of first byte.
+   * @param length Number of bytes.
+   * @return String value.
+   */
+  public static String decodeString(final ByteBuffer buffer, final int position, final int length) {
+    if (buffer.hasArray()) {
+      return new String(
+          buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+    }
+
+    final byte[] bytes = ByteBufferHelper.decodeBuffer(length);
+    buffer.get(position, bytes, 0, length);
+    return new String(bytes, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get an array of at least {@code length} bytes to decode from. Only arrays up to {@link
+   * #MAX_DECODE_BUFFER_SIZE} are kept for reuse.
+   */
+  private static byte[] decodeBuffer(final int length) {
+    final byte[] bytes = DECODE_BUFFER.get();
+    if (bytes.length >= length) {
+      return bytes;
+    }
+
+    if (length > MAX_DECODE_BUFFER_SIZE) {
+      return new byte[length];
+    }
+
+    final byte[] newBytes =
+        new byte[Math.max(length, Math.min(bytes.length * 2, MAX_DECODE_BUFFER_SIZE))];
+    DECODE_BUFFER.set(newBytes);
+    return newBytes;
   }
 
   /**
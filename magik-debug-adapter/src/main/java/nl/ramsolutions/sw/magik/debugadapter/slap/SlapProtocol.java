@@ -1,17 +1,24 @@
 package nl.ramsolutions.sw.magik.debugadapter.slap;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import nl.ramsolutions.sw.magik.debugadapter.slap.events.BreakpointEvent;
 import nl.ramsolutions.sw.magik.debugadapter.slap.events.DisconnectedEvent;
 import nl.ramsolutions.sw.magik.debugadapter.slap.events.StepCompletedEvent;
@@ -36,25 +43,18 @@ import org.slf4j.LoggerFactory;
 @SuppressWarnings("checkstyle:MagicNumber")
 public class SlapProtocol implements ISlapProtocol {
 
-  /** Request future. */
-  static class RequestFuture {
-    private final RequestType requestType;
-    private final CompletableFuture<ISlapResponse> future;
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlapProtocol.class);
 
-    RequestFuture(final RequestType requestType, final CompletableFuture<ISlapResponse> future) {
-      this.requestType = requestType;
-      this.future = future;
-    }
+  /** Default maximum number of requests awaiting a reply. */
+  public static final int DEFAULT_MAX_PENDING_REQUESTS = 64;
 
-    @Override
-    public String toString() {
-      return String.format(
-          "%s@%s(%s)",
-          this.getClass().getName(), Integer.toHexString(this.hashCode()), this.requestType);
-    }
-  }
+  /** Initial size of the input buffer, grown when a larger message is received. */
+  private static final int INITIAL_INPUT_BUFFER_SIZE = 65536;
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(SlapProtocol.class);
+  private static final int MESSAGE_LENGTH_SIZE = 4;
+
+  /** Default time to wait for a reply. */
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofMinutes(1);
 
   private static final String DEBUG_CLIENT_ID = "DuckOnATricycle\0";
   private static final String DEBUG_AGENT_ID = "SwanOnAUnicycle\0";
@@ -78,13 +78,15 @@ public class SlapProtocol implements ISlapProtocol {
   private final InetSocketAddress inetSocketAddress;
   private final SlapEventListener listener;
   private SocketChannel socketChannel;
-  private final ByteBuffer inputBuffer = ByteBuffer.allocate(65536);
+  private ByteBuffer inputBuffer = ByteBuffer.allocateDirect(INITIAL_INPUT_BUFFER_SIZE);
   private ByteOrder byteOrder = ByteOrder.nativeOrder();
   private State state;
   private RequestType multiResponseRequestType;
   private long version;
-  private final List<RequestFuture> requestFutures =
-      Collections.synchronizedList(new ArrayList<>());
+  private final Map<RequestType, Queue<CompletableFuture<ISlapResponse>>> pendingRequests =
+      new EnumMap<>(RequestType.class);
+  private final Semaphore pendingRequestPermits;
+  private final Duration requestTimeout;
   private final List<ISlapResponse> subResponses = new ArrayList<>();
 
   /**
@@ -92,11 +94,36 @@ public class SlapProtocol implements ISlapProtocol {
    *
    * @param host Hostname to connect to.
    * @param port Port to connect to.
-   * @throws SlapException -
+   * @param listener Listener for events.
    */
   public SlapProtocol(final String host, final int port, final SlapEventListener listener) {
+    this(host, port, listener, DEFAULT_MAX_PENDING_REQUESTS, DEFAULT_REQUEST_TIMEOUT);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param host Hostname to connect to.
+   * @param port Port to connect to.
+   * @param listener Listener for events.
+   * @param maxPendingRequests Maximum number of requests awaiting a reply, sending more blocks.
+   * @param requestTimeout Time to wait for a reply.
+   */
+  public SlapProtocol(
+      final String host,
+      final int port,
+      final SlapEventListener listener,
+      final int maxPendingRequests,
+      final Duration requestTimeout) {
     this.inetSocketAddress = new InetSocketAddress(host, port);
     this.listener = listener;
+    this.pendingRequestPermits = new Semaphore(maxPendingRequests);
+    this.requestTimeout = requestTimeout;
+
+    // Replies arrive in request order, per request type.
+    for (final RequestType requestType : RequestType.values()) {
+      this.pendingRequests.put(requestType, new ConcurrentLinkedQueue<>());
+    }
 
     this.state = State.WAITING;
     this.version = -1;
@@ -136,6 +163,7 @@ public class SlapProtocol implements ISlapProtocol {
                   LOGGER.error(exception.getMessage(), exception);
                 }
               }
+              protocol.failPendingRequests();
               final DisconnectedEvent event = new DisconnectedEvent();
               protocol.listener.handleEvent(event);
             });
@@ -250,12 +278,15 @@ public class SlapProtocol implements ISlapProtocol {
    * @param param0 Parameter 0.
    * @param param1 Parameter 1.
    * @param data Additional data to send.
-   * @return Response of request.
+   * @return Response of request, completed exceptionally if no reply is received in time.
    * @throws IOException -
    */
   private CompletableFuture<ISlapResponse> sendRequest(
       final RequestType requestType, final long param0, final long param1, final byte[] data)
       throws IOException {
+    // Apply back-pressure when too many requests are awaiting a reply.
+    this.acquirePendingRequestPermit(requestType);
+
     final ByteBuffer buffer = ByteBuffer.allocate(16 + data.length);
     buffer.order(this.byteOrder);
 
@@ -268,7 +299,8 @@ public class SlapProtocol implements ISlapProtocol {
     buffer.put(data);
     buffer.flip();
 
-    // Try to keep these future-bookkeeping and socket in order.
+    // Keep the order of pending requests equal to the order on the socket.
+    final CompletableFuture<ISlapResponse> future;
     synchronized (this) {
       LOGGER.trace(
           "Thread: {}, Sending, type: {}, param0: {}, param1: {}",
@@ -276,16 +308,39 @@ public class SlapProtocol implements ISlapProtocol {
           requestType,
           param0,
           param1);
-      final CompletableFuture<ISlapResponse> future = this.addFutureRequest(requestType);
+      future = this.addFutureRequest(requestType);
 
-      this.socketChannel.write(buffer);
+      try {
+        while (buffer.hasRemaining()) {
+          this.socketChannel.write(buffer);
+        }
+      } catch (final IOException exception) {
+        // Reply will never arrive.
+        this.pendingRequests.get(requestType).remove(future);
+        this.pendingRequestPermits.release();
+        throw exception;
+      }
       LOGGER.trace(
           "Thread: {}, Sent, type: {}, param0: {}, param1: {}",
           Thread.currentThread().getName(),
           requestType,
           param0,
           param1);
-      return future;
+    }
+
+    // A timed out future stays pending, so a late reply is still matched to it.
+    return future.orTimeout(this.requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void acquirePendingRequestPermit(final RequestType requestType) throws IOException {
+    try {
+      if (!this.pendingRequestPermits.tryAcquire(
+          this.requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new IOException("Too many pending requests, unable to send: " + requestType);
+      }
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(exception.getMessage());
     }
   }
 
@@ -296,7 +351,11 @@ public class SlapProtocol implements ISlapProtocol {
   private void handleData() throws IOException {
     // Read from socket.
     try {
-      this.socketChannel.read(this.inputBuffer);
+      if (this.socketChannel.read(this.inputBuffer) == -1) {
+        // Channel has reached end-of-stream.
+        this.socketChannel.close();
+        return;
+      }
     } catch (final AsynchronousCloseException ex) {
       // Channel has reached end-of-stream.
       this.socketChannel.close();
@@ -307,25 +366,21 @@ public class SlapProtocol implements ISlapProtocol {
     final int limit = this.inputBuffer.limit();
     LOGGER.trace("Received data, byte count: {}", limit);
 
-    while (this.inputBuffer.hasRemaining()) {
+    final ByteOrder order = this.inputBuffer.order();
+    while (this.inputBuffer.remaining() >= MESSAGE_LENGTH_SIZE) {
       final int startPosition = this.inputBuffer.position();
-      final int bufferLength = this.inputBuffer.limit() - startPosition;
+      final int bufferLength = this.inputBuffer.remaining();
       final int messageLength = (int) ByteBufferHelper.peekUInt32(this.inputBuffer); // byte: 0-4
       LOGGER.trace("Message length: {}, buffer size: {}", messageLength, bufferLength);
       if (bufferLength < messageLength) {
         // Did not receive enough data (yet), wait for more data.
+        this.ensureInputCapacity(messageLength);
         break;
       }
 
-      // Rewind, decode message from data.
-      final ByteOrder order = this.inputBuffer.order();
+      // Decode message from a view on the data, decoders do not keep a reference to it.
       final ByteBuffer messageBuffer =
-          this.inputBuffer
-              .position(startPosition)
-              .slice()
-              .limit(messageLength)
-              .asReadOnlyBuffer()
-              .order(order);
+          this.inputBuffer.slice(startPosition, messageLength).asReadOnlyBuffer().order(order);
       this.handleMessage(messageBuffer);
 
       // Skip past message.
@@ -335,6 +390,26 @@ public class SlapProtocol implements ISlapProtocol {
     this.inputBuffer.compact();
   }
 
+  /**
+   * Grow the input buffer when a message does not fit. Replaces the flipped input buffer with a
+   * larger, flipped, buffer containing the remaining data.
+   *
+   * @param messageLength Length of the message to fit.
+   */
+  private void ensureInputCapacity(final int messageLength) {
+    if (messageLength <= this.inputBuffer.capacity()) {
+      return;
+    }
+
+    final int capacity = Math.max(messageLength, this.inputBuffer.capacity() * 2);
+    LOGGER.debug("Growing input buffer to: {}", capacity);
+    final ByteBuffer newInputBuffer =
+        ByteBuffer.allocateDirect(capacity).order(this.inputBuffer.order());
+    newInputBuffer.put(this.inputBuffer);
+    newInputBuffer.flip();
+    this.inputBuffer = newInputBuffer;
+  }
+
   /**
    * Handle a message.
    *
@@ -778,73 +853,67 @@ public class SlapProtocol implements ISlapProtocol {
   // region: Requests/Futures
   private CompletableFuture<ISlapResponse> addFutureRequest(final RequestType requestType) {
     final CompletableFuture<ISlapResponse> future = new CompletableFuture<>();
-    final RequestFuture requestFuture = new RequestFuture(requestType, future);
+    this.pendingRequests.get(requestType).add(future);
+    LOGGER.debug(
+        "Thread: {}, added request future, request type: {}",
+        Thread.currentThread().getName(),
+        requestType);
+    return future;
+  }
 
-    synchronized (this.requestFutures) {
-      LOGGER.debug(
-          "Thread: {}, added request future: {}", Thread.currentThread().getName(), requestFuture);
-      this.requestFutures.add(requestFuture);
+  @CheckForNull
+  private CompletableFuture<ISlapResponse> pollFutureRequest(final RequestType requestType) {
+    final CompletableFuture<ISlapResponse> future = this.pendingRequests.get(requestType).poll();
+    if (future == null) {
+      LOGGER.warn(
+          "Thread: {}, Trying to handle request, but not available, request type: {}",
+          Thread.currentThread().getName(),
+          requestType);
+      return null;
     }
 
+    this.pendingRequestPermits.release();
     return future;
   }
 
   private void handleFutureRequest(final RequestType requestType, final ISlapResponse response) {
-    RequestFuture requestFuture = null;
-
     LOGGER.debug(
-        "Thread: {}, Request type: {}, response: {}, request futures: {}",
+        "Thread: {}, Request type: {}, response: {}",
         Thread.currentThread().getName(),
         requestType,
-        response,
-        this.requestFutures);
-
-    synchronized (this.requestFutures) {
-      final Optional<RequestFuture> first =
-          this.requestFutures.stream().filter(pair -> pair.requestType == requestType).findFirst();
-      if (!first.isPresent()) {
-        LOGGER.warn(
-            "Thread: {}, Trying to handle request, but not available, request type: {}",
-            Thread.currentThread().getName(),
-            requestType);
-        return;
-      }
+        response);
 
-      requestFuture = first.get();
-      this.requestFutures.remove(requestFuture);
+    final CompletableFuture<ISlapResponse> future = this.pollFutureRequest(requestType);
+    if (future != null) {
+      future.complete(response);
     }
-
-    requestFuture.future.complete(response);
   }
 
   private void handleErrorFutureRequest(
       final RequestType requestType, final ErrorResponse errorResponse) {
-    RequestFuture requestFuture = null;
-
     LOGGER.debug(
-        "Thread: {}, Request type: {}, error response: {}, request futures: {}",
+        "Thread: {}, Request type: {}, error response: {}",
         Thread.currentThread().getName(),
         requestType,
-        errorResponse,
-        this.requestFutures);
-
-    synchronized (this.requestFutures) {
-      final Optional<RequestFuture> findFirst =
-          this.requestFutures.stream().filter(pair -> pair.requestType == requestType).findFirst();
-      if (!findFirst.isPresent()) {
-        LOGGER.warn(
-            "Thread: {}, Trying to handle request, but not available, request type: {}",
-            Thread.currentThread().getName(),
-            requestType);
-        return;
-      }
+        errorResponse);
 
-      requestFuture = findFirst.get();
-      this.requestFutures.remove(requestFuture);
+    final CompletableFuture<ISlapResponse> future = this.pollFutureRequest(requestType);
+    if (future != null) {
+      final SlapErrorException exception = new SlapErrorException(errorResponse);
+      future.completeExceptionally(exception);
     }
+  }
 
-    final SlapErrorException exception = new SlapErrorException(errorResponse);
-    requestFuture.future.completeExceptionally(exception);
+  /** Fail all pending requests, after the connection is lost. */
+  private void failPendingRequests() {
+    for (final RequestType requestType : RequestType.values()) {
+      CompletableFuture<ISlapResponse> future = this.pendingRequests.get(requestType).poll();
+      while (future != null) {
+        this.pendingRequestPermits.release();
+        future.completeExceptionally(new SlapException("Disconnected"));
+        future = this.pendingRequests.get(requestType).poll();
+      }
+    }
   }
   // endregion
 
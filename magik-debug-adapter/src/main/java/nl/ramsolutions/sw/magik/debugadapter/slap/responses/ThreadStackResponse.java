@@ -1,7 +1,6 @@
 package nl.ramsolutions.sw.magik.debugadapter.slap.responses;
 
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ByteBufferHelper;
@@ -100,16 +99,11 @@ public class ThreadStackResponse implements ISlapResponse {
       final int offset = (int) ByteBufferHelper.readUInt32(buffer, OFFSET_OFFSET);
 
       final int nameLength = (int) ByteBufferHelper.readUInt32(buffer, OFFSET_NAME_LENGTH);
-      final byte[] nameArr = new byte[nameLength];
-      buffer.position(OFFSET_NAME_LANGUAGE);
-      buffer.get(nameArr);
-      final String name = new String(nameArr, StandardCharsets.UTF_8);
+      final String name = ByteBufferHelper.decodeString(buffer, OFFSET_NAME_LANGUAGE, nameLength);
 
       final int languageLength = (int) ByteBufferHelper.readUInt32(buffer, OFFSET_LANGUAGE_LENGTH);
-      final byte[] langArr = new byte[languageLength];
-      buffer.position(OFFSET_NAME_LANGUAGE + nameLength);
-      buffer.get(langArr);
-      final String language = new String(langArr, StandardCharsets.UTF_8);
+      final String language =
+          ByteBufferHelper.decodeString(buffer, OFFSET_NAME_LANGUAGE + nameLength, languageLength);
 
       return new StackElement(level, offset, name, language);
     }
@@ -2,8 +2,13 @@ package nl.ramsolutions.sw.magik.debugadapter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
@@ -12,11 +17,18 @@ import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapProtocol;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.RequestType;
 import nl.ramsolutions.sw.magik.debugadapter.slap.SlapErrorException;
+import nl.ramsolutions.sw.magik.debugadapter.slap.events.BreakpointEvent;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.BreakpointSetResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ErrorResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ResumeThreadResponse;
 import org.eclipse.lsp4j.debug.Source;
 import org.eclipse.lsp4j.debug.SourceBreakpoint;
+import org.eclipse.lsp4j.debug.StoppedEventArguments;
+import org.eclipse.lsp4j.debug.services.IDebugProtocolClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
 /** Tests for BreakpointManager. */
 @SuppressWarnings("checkstyle:MagicNumber")
@@ -118,4 +130,185 @@ class BreakpointManagerTest {
     assertThat(breakpoint.getMessage()).isEqualTo("METHOD_NOT_FOUND");
     assertThat(breakpoint.getBreakpointId()).isEqualTo(ISlapProtocol.INVALID_BREAKPOINT_ID);
   }
+
+  @Test
+  @Timeout(10)
+  void testSetBreakpointsSentConcurrently()
+      throws IOException, InterruptedException, ExecutionException {
+    // Replies are only sent when all requests are in flight.
+    final List<CompletableFuture<ISlapResponse>> futures = new ArrayList<>();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> setBreakpoint(String method, int line) {
+            final CompletableFuture<ISlapResponse> future = new CompletableFuture<>();
+            futures.add(future);
+            if (futures.size() == 2) {
+              for (int i = 0; i < futures.size(); ++i) {
+                futures.get(i).complete(new BreakpointSetResponse(i + 1));
+              }
+            }
+            return future;
+          }
+        };
+    final BreakpointManager manager = new BreakpointManager(slapProtocol, null);
+
+    final SourceBreakpoint sourceBreakpoint0 = new SourceBreakpoint();
+    sourceBreakpoint0.setLine(18);
+    final SourceBreakpoint sourceBreakpoint1 = new SourceBreakpoint();
+    sourceBreakpoint1.setLine(35);
+    final Source source = new Source();
+    source.setPath(getPath("magik-debug-adapter/src/test/resources/bpt.magik").toString());
+    final List<BreakpointManager.MagikBreakpoint> breakpoints =
+        manager.setBreakpoints(
+            source, new SourceBreakpoint[] {sourceBreakpoint0, sourceBreakpoint1});
+    assertThat(breakpoints)
+        .extracting(BreakpointManager.MagikBreakpoint::getMethodName)
+        .containsExactly("user:bpt.t()", "user:bpt.t2()");
+    assertThat(breakpoints)
+        .extracting(BreakpointManager.MagikBreakpoint::getBreakpointId)
+        .containsExactly(1L, 2L);
+    assertThat(manager.getBreakpoint(2L)).isSameAs(breakpoints.get(1));
+  }
+
+  @Test
+  void testIsHitConditionMet() {
+    assertThat(BreakpointManager.isHitConditionMet(null, 1)).isTrue();
+    assertThat(BreakpointManager.isHitConditionMet("3", 2)).isFalse();
+    assertThat(BreakpointManager.isHitConditionMet("3", 3)).isTrue();
+    assertThat(BreakpointManager.isHitConditionMet("> 3", 3)).isFalse();
+    assertThat(BreakpointManager.isHitConditionMet("==3", 4)).isFalse();
+    assertThat(BreakpointManager.isHitConditionMet("< 3", 2)).isTrue();
+    assertThat(BreakpointManager.isHitConditionMet("% 2", 4)).isTrue();
+    assertThat(BreakpointManager.isHitConditionMet("% 2", 5)).isFalse();
+    assertThat(BreakpointManager.isHitConditionMet("often", 1)).isTrue();
+  }
+
+  @Test
+  void testBreakpointEventHitCondition()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<String> requests = new ArrayList<>();
+    final Deque<String> results = new ArrayDeque<>(List.of("False", "True", "False", "True"));
+    final List<StoppedEventArguments> stoppedEvents = new ArrayList<>();
+    final BreakpointManager manager =
+        new BreakpointManager(
+            this.recordingSlapProtocol(requests, results), this.recordingClient(stoppedEvents));
+
+    final BreakpointManager.MagikBreakpoint breakpoint =
+        manager.addBreakpoint(this.bptSource(), this.sourceBreakpoint("a _is b", ">= 2"));
+
+    // Only hits meeting the condition are counted.
+    final BreakpointEvent event = new BreakpointEvent(breakpoint.getBreakpointId(), 1);
+    manager.handleBreakpointEvent(event);
+    manager.handleBreakpointEvent(event);
+    manager.handleBreakpointEvent(event);
+    assertThat(requests)
+        .containsExactly("evaluate", "resume", "evaluate", "resume", "evaluate", "resume");
+    assertThat(stoppedEvents).isEmpty();
+
+    manager.handleBreakpointEvent(event);
+    assertThat(requests).hasSize(7).endsWith("evaluate");
+    assertThat(stoppedEvents).hasSize(1);
+  }
+
+  @Test
+  void testBreakpointEventHitConditionWithoutCondition()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<String> requests = new ArrayList<>();
+    final List<StoppedEventArguments> stoppedEvents = new ArrayList<>();
+    final BreakpointManager manager =
+        new BreakpointManager(
+            this.recordingSlapProtocol(requests, new ArrayDeque<>()),
+            this.recordingClient(stoppedEvents));
+
+    final BreakpointManager.MagikBreakpoint breakpoint =
+        manager.addBreakpoint(this.bptSource(), this.sourceBreakpoint(null, "== 2"));
+
+    // Hits not meeting the hit condition are resumed without any evaluation.
+    final BreakpointEvent event = new BreakpointEvent(breakpoint.getBreakpointId(), 1);
+    assertThat(manager.handleBreakpointEvent(event)).isFalse();
+    assertThat(requests).containsExactly("resume");
+    assertThat(stoppedEvents).isEmpty();
+
+    assertThat(manager.handleBreakpointEvent(event)).isTrue();
+    assertThat(requests).containsExactly("resume");
+    assertThat(stoppedEvents).hasSize(1);
+  }
+
+  @Test
+  void testHitCountResetOnChangedConditions()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<String> requests = new ArrayList<>();
+    final Deque<String> results = new ArrayDeque<>(List.of("True", "True"));
+    final List<StoppedEventArguments> stoppedEvents = new ArrayList<>();
+    final BreakpointManager manager =
+        new BreakpointManager(
+            this.recordingSlapProtocol(requests, results), this.recordingClient(stoppedEvents));
+
+    final Source source = this.bptSource();
+    final List<BreakpointManager.MagikBreakpoint> breakpoints =
+        manager.setBreakpoints(
+            source, new SourceBreakpoint[] {this.sourceBreakpoint(null, "== 2")});
+    final BreakpointEvent event = new BreakpointEvent(breakpoints.get(0).getBreakpointId(), 1);
+    manager.handleBreakpointEvent(event);
+
+    // Unchanged conditions keep the hit count.
+    manager.setBreakpoints(source, new SourceBreakpoint[] {this.sourceBreakpoint(null, "== 2")});
+    assertThat(breakpoints.get(0).hit()).isEqualTo(2);
+
+    // Changed condition restarts counting.
+    manager.setBreakpoints(
+        source, new SourceBreakpoint[] {this.sourceBreakpoint("a _is b", "== 2")});
+    manager.handleBreakpointEvent(event);
+    assertThat(stoppedEvents).isEmpty();
+    manager.handleBreakpointEvent(event);
+    assertThat(stoppedEvents).hasSize(1);
+
+    // Changed hit condition restarts counting.
+    manager.setBreakpoints(
+        source, new SourceBreakpoint[] {this.sourceBreakpoint("a _is b", "== 1")});
+    assertThat(breakpoints.get(0).hit()).isEqualTo(1);
+  }
+
+  private Source bptSource() {
+    final Source source = new Source();
+    source.setPath(getPath("magik-debug-adapter/src/test/resources/bpt.magik").toString());
+    return source;
+  }
+
+  private SourceBreakpoint sourceBreakpoint(
+      final @Nullable String condition, final @Nullable String hitCondition) {
+    final SourceBreakpoint sourceBreakpoint = new SourceBreakpoint();
+    sourceBreakpoint.setLine(18);
+    sourceBreakpoint.setCondition(condition);
+    sourceBreakpoint.setHitCondition(hitCondition);
+    return sourceBreakpoint;
+  }
+
+  private TestSlapProtocol recordingSlapProtocol(
+      final List<String> requests, final Deque<String> results) {
+    return new TestSlapProtocol() {
+      @Override
+      public CompletableFuture<ISlapResponse> evaluate(
+          final long threadId, final int level, final String expression) {
+        requests.add("evaluate");
+        return CompletableFuture.completedFuture(new EvalResponse(results.pop()));
+      }
+
+      @Override
+      public CompletableFuture<ISlapResponse> resumeThread(final long threadId) {
+        requests.add("resume");
+        return CompletableFuture.completedFuture(new ResumeThreadResponse());
+      }
+    };
+  }
+
+  private IDebugProtocolClient recordingClient(final List<StoppedEventArguments> stoppedEvents) {
+    return new IDebugProtocolClient() {
+      @Override
+      public void stopped(final StoppedEventArguments args) {
+        stoppedEvents.add(args);
+      }
+    };
+  }
 }
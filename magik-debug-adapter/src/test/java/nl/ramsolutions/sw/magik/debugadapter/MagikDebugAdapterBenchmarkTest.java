@@ -0,0 +1,188 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import nl.ramsolutions.sw.magik.debugadapter.slap.RequestType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.SlapAgentSimulator;
+import org.eclipse.lsp4j.debug.Breakpoint;
+import org.eclipse.lsp4j.debug.DisconnectArguments;
+import org.eclipse.lsp4j.debug.NextArguments;
+import org.eclipse.lsp4j.debug.Scope;
+import org.eclipse.lsp4j.debug.ScopesArguments;
+import org.eclipse.lsp4j.debug.SetBreakpointsArguments;
+import org.eclipse.lsp4j.debug.Source;
+import org.eclipse.lsp4j.debug.SourceBreakpoint;
+import org.eclipse.lsp4j.debug.StackFrame;
+import org.eclipse.lsp4j.debug.StackTraceArguments;
+import org.eclipse.lsp4j.debug.Variable;
+import org.eclipse.lsp4j.debug.VariablesArguments;
+import org.eclipse.lsp4j.debug.services.IDebugProtocolClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency benchmark of MagikDebugAdapter, against a simulated debug agent.
+ *
+ * <p>Breakpoint benchmarks measure a hit which does not stop the thread, from the event until the
+ * thread is resumed.
+ *
+ * <p>Excluded from the default build, run with: {@code mvn test -pl magik-debug-adapter
+ * -DexcludedGroups= -Dgroups=benchmark}. The simulated session is configured through the system
+ * properties {@code benchmark.latencyMs}, {@code benchmark.iterations}, {@code
+ * benchmark.stackDepth} and {@code benchmark.localsCount}.
+ */
+@Tag("benchmark")
+@SuppressWarnings("checkstyle:MagicNumber")
+class MagikDebugAdapterBenchmarkTest {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(MagikDebugAdapterBenchmarkTest.class);
+
+  private static final long LATENCY_MS = Long.getLong("benchmark.latencyMs", 1);
+  private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 50);
+  private static final int STACK_DEPTH = Integer.getInteger("benchmark.stackDepth", 30);
+  private static final int LOCALS_COUNT = Integer.getInteger("benchmark.localsCount", 30);
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int THREAD_ID = 1;
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private SlapAgentSimulator simulator;
+  private MagikDebugAdapter adapter;
+
+  @BeforeEach
+  void attach() throws IOException, InterruptedException, ExecutionException {
+    this.simulator =
+        new SlapAgentSimulator()
+            .setLatency(Duration.ofMillis(LATENCY_MS))
+            .setStackDepth(STACK_DEPTH)
+            .setLocalsCount(LOCALS_COUNT);
+    this.adapter = new MagikDebugAdapter();
+    this.adapter.connect(new IDebugProtocolClient() {});
+    final Map<String, Object> connect =
+        Map.of("host", "localhost", "port", (double) this.simulator.getPort());
+    this.adapter.attach(Map.of("connect", connect)).get();
+  }
+
+  @AfterEach
+  void disconnect() throws IOException, InterruptedException, ExecutionException {
+    this.adapter.disconnect(new DisconnectArguments()).get();
+    this.simulator.close();
+  }
+
+  @Test
+  void benchmarkStackTrace() throws Exception {
+    this.measure("stackTrace", () -> assertThat(this.stackTrace()).hasSize(STACK_DEPTH));
+  }
+
+  @Test
+  void benchmarkVariables() throws Exception {
+    final StackFrame[] stackFrames = this.stackTrace();
+    this.measure(
+        "variables",
+        () -> {
+          final ScopesArguments scopesArgs = new ScopesArguments();
+          scopesArgs.setFrameId(stackFrames[0].getId());
+          final Scope scope = this.adapter.scopes(scopesArgs).get().getScopes()[0];
+          final VariablesArguments variablesArgs = new VariablesArguments();
+          variablesArgs.setVariablesReference(scope.getVariablesReference());
+          final Variable[] variables = this.adapter.variables(variablesArgs).get().getVariables();
+          assertThat(variables).hasSize(LOCALS_COUNT);
+        });
+  }
+
+  @Test
+  void benchmarkStep() throws Exception {
+    this.measure(
+        "step+stackTrace",
+        () -> {
+          final NextArguments args = new NextArguments();
+          args.setThreadId(THREAD_ID);
+          this.adapter.next(args).get();
+          assertThat(this.stackTrace()).hasSize(STACK_DEPTH);
+        });
+  }
+
+  @Test
+  void benchmarkHitConditionBreakpoint() throws Exception {
+    this.benchmarkBreakpoint("hitCondition", null, ">= 1000000");
+  }
+
+  @Test
+  void benchmarkConditionBreakpoint() throws Exception {
+    this.benchmarkBreakpoint("condition", "_false", null);
+  }
+
+  /** Measure a breakpoint hit which does not stop, until the thread is resumed. */
+  private void benchmarkBreakpoint(
+      final String name, final @Nullable String condition, final @Nullable String hitCondition)
+      throws Exception {
+    final SourceBreakpoint sourceBreakpoint = new SourceBreakpoint();
+    sourceBreakpoint.setLine(18);
+    sourceBreakpoint.setCondition(condition);
+    sourceBreakpoint.setHitCondition(hitCondition);
+    final Source source = new Source();
+    source.setPath(Path.of("src/test/resources/bpt.magik").toAbsolutePath().toString());
+    final SetBreakpointsArguments args = new SetBreakpointsArguments();
+    args.setSource(source);
+    args.setBreakpoints(new SourceBreakpoint[] {sourceBreakpoint});
+    final Breakpoint breakpoint = this.adapter.setBreakpoints(args).get().getBreakpoints()[0];
+
+    final AtomicInteger hits = new AtomicInteger();
+    this.measure(
+        name + " breakpoint",
+        () -> {
+          this.simulator.sendBreakpointEvent(breakpoint.getId(), THREAD_ID);
+          this.simulator.awaitRequestCount(RequestType.RESUME_THREAD, hits.incrementAndGet());
+        });
+  }
+
+  private StackFrame[] stackTrace() throws InterruptedException, ExecutionException {
+    final StackTraceArguments args = new StackTraceArguments();
+    args.setThreadId(THREAD_ID);
+    return this.adapter.stackTrace(args).get().getStackFrames();
+  }
+
+  private void measure(final String name, final Operation operation) throws Exception {
+    for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+      operation.run();
+    }
+
+    final long[] durations = new long[ITERATIONS];
+    for (int i = 0; i < ITERATIONS; ++i) {
+      final long start = System.nanoTime();
+      operation.run();
+      durations[i] = System.nanoTime() - start;
+    }
+
+    Arrays.sort(durations);
+    LOGGER.info(
+        "{}: latency: {} ms, stack depth: {}, locals: {}, iterations: {}, "
+            + "p50: {} ms, p95: {} ms, max: {} ms",
+        name,
+        LATENCY_MS,
+        STACK_DEPTH,
+        LOCALS_COUNT,
+        ITERATIONS,
+        String.format("%.2f", durations[ITERATIONS / 2] / NANOS_PER_MILLI),
+        String.format("%.2f", durations[ITERATIONS * 95 / 100] / NANOS_PER_MILLI),
+        String.format("%.2f", durations[ITERATIONS - 1] / NANOS_PER_MILLI));
+  }
+
+  /** Measured operation. */
+  @FunctionalInterface
+  private interface Operation {
+    void run() throws Exception;
+  }
+}
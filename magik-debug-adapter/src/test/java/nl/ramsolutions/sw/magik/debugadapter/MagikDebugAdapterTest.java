@@ -0,0 +1,126 @@
+package nl.ramsolutions.sw.magik.debugadapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import nl.ramsolutions.sw.magik.debugadapter.slap.RequestType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.SlapAgentSimulator;
+import org.eclipse.lsp4j.debug.DisconnectArguments;
+import org.eclipse.lsp4j.debug.EvaluateArguments;
+import org.eclipse.lsp4j.debug.NextArguments;
+import org.eclipse.lsp4j.debug.Scope;
+import org.eclipse.lsp4j.debug.ScopesArguments;
+import org.eclipse.lsp4j.debug.StackFrame;
+import org.eclipse.lsp4j.debug.StackTraceArguments;
+import org.eclipse.lsp4j.debug.StoppedEventArguments;
+import org.eclipse.lsp4j.debug.StoppedEventArgumentsReason;
+import org.eclipse.lsp4j.debug.Thread;
+import org.eclipse.lsp4j.debug.Variable;
+import org.eclipse.lsp4j.debug.VariablesArguments;
+import org.eclipse.lsp4j.debug.services.IDebugProtocolClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** End-to-end tests for MagikDebugAdapter, against a simulated debug agent. */
+@SuppressWarnings("checkstyle:MagicNumber")
+@Timeout(30)
+class MagikDebugAdapterTest {
+
+  private final CompletableFuture<StoppedEventArguments> stoppedEvent = new CompletableFuture<>();
+  private SlapAgentSimulator simulator;
+  private MagikDebugAdapter adapter;
+
+  @BeforeEach
+  void attach() throws IOException, InterruptedException, ExecutionException {
+    this.simulator = new SlapAgentSimulator().setThreadCount(3).setStackDepth(5).setLocalsCount(4);
+    this.adapter = new MagikDebugAdapter();
+    this.adapter.connect(
+        new IDebugProtocolClient() {
+          @Override
+          public void stopped(final StoppedEventArguments args) {
+            MagikDebugAdapterTest.this.stoppedEvent.complete(args);
+          }
+        });
+    final Map<String, Object> connect =
+        Map.of("host", "localhost", "port", (double) this.simulator.getPort());
+    this.adapter.attach(Map.of("connect", connect)).get();
+  }
+
+  @AfterEach
+  void disconnect() throws IOException, InterruptedException, ExecutionException {
+    this.adapter.disconnect(new DisconnectArguments()).get();
+    this.simulator.close();
+  }
+
+  @Test
+  void testThreads() throws InterruptedException, ExecutionException {
+    final Thread[] threads = this.adapter.threads().get().getThreads();
+
+    assertThat(threads)
+        .extracting(Thread::getName)
+        .containsExactly("thread-1", "thread-2", "thread-3");
+  }
+
+  @Test
+  void testStackTrace() throws InterruptedException, ExecutionException {
+    final StackTraceArguments args = new StackTraceArguments();
+    args.setThreadId(2);
+    final StackFrame[] stackFrames = this.adapter.stackTrace(args).get().getStackFrames();
+
+    assertThat(stackFrames).hasSize(5);
+    assertThat(stackFrames[0].getName()).isEqualTo("user:sim_object.method0()");
+    assertThat(stackFrames[0].getSource().getPath())
+        .isEqualTo(SlapAgentSimulator.SOURCE_DIRECTORY + "user:sim_object.method0()");
+    assertThat(this.simulator.getRequestCount(RequestType.EVALUATE)).isEqualTo(5);
+    assertThat(this.simulator.getRequestCount(RequestType.SOURCE_FILE)).isEqualTo(5);
+  }
+
+  @Test
+  void testVariables() throws InterruptedException, ExecutionException {
+    final StackTraceArguments stackTraceArgs = new StackTraceArguments();
+    stackTraceArgs.setThreadId(1);
+    final StackFrame stackFrame = this.adapter.stackTrace(stackTraceArgs).get().getStackFrames()[0];
+    final ScopesArguments scopesArgs = new ScopesArguments();
+    scopesArgs.setFrameId(stackFrame.getId());
+    final Scope scope = this.adapter.scopes(scopesArgs).get().getScopes()[0];
+    final VariablesArguments variablesArgs = new VariablesArguments();
+    variablesArgs.setVariablesReference(scope.getVariablesReference());
+    final Variable[] variables = this.adapter.variables(variablesArgs).get().getVariables();
+    this.adapter.variables(variablesArgs).get();
+
+    assertThat(this.simulator.getRequestCount(RequestType.GET_FRAME_LOCALS)).isEqualTo(1);
+    assertThat(variables)
+        .extracting(Variable::getName)
+        .containsExactly("local0", "local1", "local2", "local3");
+    assertThat(variables[0].getValue()).isEqualTo("value of local0");
+  }
+
+  @Test
+  void testEvaluateLargeResult() throws InterruptedException, ExecutionException {
+    final String result = "x".repeat(200_000);
+    this.simulator.setEvaluator(expression -> result);
+    final StackTraceArguments stackTraceArgs = new StackTraceArguments();
+    stackTraceArgs.setThreadId(1);
+    final StackFrame stackFrame = this.adapter.stackTrace(stackTraceArgs).get().getStackFrames()[0];
+    final EvaluateArguments args = new EvaluateArguments();
+    args.setFrameId(stackFrame.getId());
+    args.setExpression("a");
+
+    assertThat(this.adapter.evaluate(args).get().getResult()).isEqualTo(result);
+  }
+
+  @Test
+  void testNext() throws InterruptedException, ExecutionException {
+    final NextArguments args = new NextArguments();
+    args.setThreadId(1);
+    this.adapter.next(args).get();
+
+    assertThat(this.stoppedEvent.get().getReason()).isEqualTo(StoppedEventArgumentsReason.STEP);
+    assertThat(this.simulator.getRequestCount(RequestType.STEP)).isEqualTo(1);
+  }
+}
@@ -4,13 +4,22 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import nl.ramsolutions.sw.magik.debugadapter.slap.ErrorMessage;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.RequestType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.SlapErrorException;
+import nl.ramsolutions.sw.magik.debugadapter.slap.events.BreakpointEvent;
+import nl.ramsolutions.sw.magik.debugadapter.slap.events.ThreadEndedEvent;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ErrorResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.SourceFileResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadInfoResponse;
@@ -18,7 +27,9 @@ import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadListResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadStackResponse;
 import org.eclipse.lsp4j.debug.StackFrame;
 import org.eclipse.lsp4j.debug.Thread;
+import org.eclipse.lsp4j.debug.services.IDebugProtocolClient;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
 /** Tests for ThreadManager. */
 @SuppressWarnings("checkstyle:MagicNumber")
@@ -61,6 +72,44 @@ class ThreadManagerTest {
     assertThat(threads.get(1).getName()).isEqualTo("Thread: 2");
   }
 
+  @Test
+  void testThreadsForgottenWhenNotListed()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<List<Long>> threadLists =
+        new ArrayList<>(List.of(List.of(1L, 2L), List.of(2L), List.of(1L, 2L)));
+    final List<Long> requestedInfos = new ArrayList<>();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadList() throws IOException {
+            return CompletableFuture.completedFuture(new ThreadListResponse(threadLists.remove(0)));
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadInfo(long threadId) throws IOException {
+            requestedInfos.add(threadId);
+            final ThreadInfoResponse response =
+                new ThreadInfoResponse(
+                    1, // priority
+                    false, // daemon
+                    "Thread: " + threadId,
+                    ThreadInfoResponse.ThreadState.RUNNABLE,
+                    EnumSet.noneOf(ThreadInfoResponse.ThreadFlag.class));
+            return CompletableFuture.completedFuture(response);
+          }
+        };
+
+    final PathMapper pathMapper = new PathMapper(Collections.emptyMap());
+    final ThreadManager manager = new ThreadManager(slapProtocol, null, pathMapper);
+    manager.threads();
+    assertThat(manager.threads()).extracting(Thread::getId).containsExactly(2);
+
+    // Thread 1 was gone without a thread ended event, its info is requested again.
+    requestedInfos.clear();
+    assertThat(manager.threads()).extracting(Thread::getId).containsExactly(1, 2);
+    assertThat(requestedInfos).containsExactly(1L);
+  }
+
   @Test
   void testStackTrace() throws IOException, InterruptedException, ExecutionException {
     final TestSlapProtocol slapProtocol =
@@ -121,4 +170,194 @@ class ThreadManagerTest {
     final Path path1Expected = Path.of("/home/user/src/module/sources/file2.magik");
     assertThat(path1).isEqualTo(path1Expected);
   }
+
+  @Test
+  void testStackTraceCachedWhileSuspended()
+      throws IOException, InterruptedException, ExecutionException {
+    final Map<String, Integer> requestCounts = new HashMap<>();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadStack(long threadId) throws IOException {
+            requestCounts.merge("stack", 1, Integer::sum);
+            final ThreadStackResponse response =
+                new ThreadStackResponse(
+                    List.of(
+                        new ThreadStackResponse.StackElement(0, 0, "object.m1()", "Magik"),
+                        new ThreadStackResponse.StackElement(1, 10, "object.m1()", "Magik"),
+                        new ThreadStackResponse.StackElement(2, 20, "object.m2()", "Magik"),
+                        new ThreadStackResponse.StackElement(3, 30, "other.m1()", "Magik")));
+            return CompletableFuture.completedFuture(response);
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> evaluate(
+              final long threadId, final int level, final String expression) throws IOException {
+            requestCounts.merge("evaluate", 1, Integer::sum);
+            return CompletableFuture.completedFuture(new EvalResponse("sw"));
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> getSourceFile(final String method)
+              throws IOException {
+            requestCounts.merge("source", 1, Integer::sum);
+            return CompletableFuture.completedFuture(
+                new SourceFileResponse("/src/" + method + ".magik"));
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> resumeThread(final long threadId)
+              throws IOException {
+            return CompletableFuture.completedFuture(null);
+          }
+        };
+
+    final PathMapper pathMapper = new PathMapper(Collections.emptyMap());
+    final ThreadManager manager = new ThreadManager(slapProtocol, null, pathMapper);
+    manager.handleBreakpointEvent(new BreakpointEvent(1, 1), true);
+    final List<StackFrame> stackFrames = manager.stackTrace(1);
+    assertThat(stackFrames).hasSize(4);
+    assertThat(stackFrames.get(1).getName()).isEqualTo("sw:object.m1()");
+    assertThat(stackFrames.get(3).getSource().getPath()).isEqualTo("/src/sw:other.m1().magik");
+
+    // One package lookup per frame and one source lookup per method, stack is kept while
+    // suspended.
+    assertThat(manager.stackTrace(1)).isSameAs(stackFrames);
+    assertThat(requestCounts).containsEntry("stack", 1);
+    assertThat(requestCounts).containsEntry("evaluate", 4);
+    assertThat(requestCounts).containsEntry("source", 3);
+
+    // Continuing ends the suspension.
+    manager.continue_(1);
+    manager.handleBreakpointEvent(new BreakpointEvent(1, 1), true);
+    manager.stackTrace(1);
+    assertThat(requestCounts).containsEntry("stack", 2);
+    assertThat(requestCounts).containsEntry("evaluate", 8);
+  }
+
+  @Test
+  void testStackTracePackagePerFrame()
+      throws IOException, InterruptedException, ExecutionException {
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadStack(long threadId) throws IOException {
+            final ThreadStackResponse response =
+                new ThreadStackResponse(
+                    List.of(
+                        new ThreadStackResponse.StackElement(0, 0, "object.m1()", "Magik"),
+                        new ThreadStackResponse.StackElement(1, 10, "object.m1()", "Magik")));
+            return CompletableFuture.completedFuture(response);
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> evaluate(
+              final long threadId, final int level, final String expression) throws IOException {
+            // Same exemplar name, resolved in the package context of a different method.
+            final String packageName = level == 0 ? "user" : "sw";
+            return CompletableFuture.completedFuture(new EvalResponse(packageName));
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> getSourceFile(final String method)
+              throws IOException {
+            return CompletableFuture.completedFuture(new SourceFileResponse(null));
+          }
+        };
+
+    final PathMapper pathMapper = new PathMapper(Collections.emptyMap());
+    final ThreadManager manager = new ThreadManager(slapProtocol, null, pathMapper);
+    final List<StackFrame> stackFrames = manager.stackTrace(1);
+    assertThat(stackFrames)
+        .extracting(StackFrame::getName)
+        .containsExactly("user:object.m1()", "sw:object.m1()");
+  }
+
+  @Test
+  void testStackTraceNotCachedWhenResumedOnBreakpoint()
+      throws IOException, InterruptedException, ExecutionException {
+    final AtomicInteger stackRequests = new AtomicInteger();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadStack(long threadId) throws IOException {
+            stackRequests.incrementAndGet();
+            final ThreadStackResponse response =
+                new ThreadStackResponse(
+                    List.of(new ThreadStackResponse.StackElement(0, 0, "<loopbody>", "Magik")));
+            return CompletableFuture.completedFuture(response);
+          }
+        };
+
+    final PathMapper pathMapper = new PathMapper(Collections.emptyMap());
+    final ThreadManager manager = new ThreadManager(slapProtocol, null, pathMapper);
+
+    // Thread did not stop, e.g. condition of breakpoint not met, so nothing is kept.
+    manager.handleBreakpointEvent(new BreakpointEvent(1, 1), false);
+    manager.stackTrace(1);
+    manager.stackTrace(1);
+    assertThat(stackRequests).hasValue(2);
+  }
+
+  @Test
+  @Timeout(10)
+  void testThreadsRequestedConcurrently()
+      throws IOException, InterruptedException, ExecutionException {
+    final List<Runnable> pendingInfos = new ArrayList<>();
+    final AtomicInteger expectedInfos = new AtomicInteger(3);
+    final List<Long> requestedInfos = new ArrayList<>();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadList() throws IOException {
+            return CompletableFuture.completedFuture(new ThreadListResponse(List.of(1L, 2L, 3L)));
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> getThreadInfo(long threadId) throws IOException {
+            requestedInfos.add(threadId);
+            final CompletableFuture<ISlapResponse> future = new CompletableFuture<>();
+            if (threadId == 2) {
+              // Thread ended in the meantime.
+              final ErrorResponse errorResponse =
+                  new ErrorResponse(RequestType.GET_THREAD_INFO, ErrorMessage.UNKNOWN_ERROR);
+              future.completeExceptionally(new SlapErrorException(errorResponse));
+            } else {
+              final ThreadInfoResponse response =
+                  new ThreadInfoResponse(
+                      1, // priority
+                      false, // daemon
+                      "Thread: " + threadId,
+                      ThreadInfoResponse.ThreadState.RUNNABLE,
+                      EnumSet.noneOf(ThreadInfoResponse.ThreadFlag.class));
+              pendingInfos.add(() -> future.complete(response));
+            }
+
+            // Only reply once all thread info is requested.
+            if (requestedInfos.size() == expectedInfos.get()) {
+              pendingInfos.forEach(Runnable::run);
+            }
+            return future;
+          }
+        };
+
+    final PathMapper pathMapper = new PathMapper(Collections.emptyMap());
+    final ThreadManager manager =
+        new ThreadManager(slapProtocol, new IDebugProtocolClient() {}, pathMapper);
+    final List<Thread> threads = manager.threads();
+    assertThat(threads).extracting(Thread::getId).containsExactly(1, 3);
+    assertThat(requestedInfos).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+    // Info of known threads is kept, until the thread ends.
+    requestedInfos.clear();
+    manager.threads();
+    assertThat(requestedInfos).containsExactly(2L);
+
+    requestedInfos.clear();
+    pendingInfos.clear();
+    expectedInfos.set(2);
+    manager.handleThreadEndedEvent(new ThreadEndedEvent(3));
+    manager.threads();
+    assertThat(requestedInfos).containsExactlyInAnyOrder(2L, 3L);
+  }
 }
@@ -8,11 +8,16 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
 import nl.ramsolutions.sw.magik.debugadapter.VariableManager.MagikVariable;
+import nl.ramsolutions.sw.magik.debugadapter.VariableManager.VariableKind;
 import nl.ramsolutions.sw.magik.debugadapter.slap.ISlapResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse;
 import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.LocalType;
 import org.eclipse.lsp4j.debug.Scope;
+import org.eclipse.lsp4j.debug.Variable;
+import org.eclipse.lsp4j.debug.VariablesArgumentsFilter;
 import org.junit.jupiter.api.Test;
 
 /** Tests for VariableManager. */
@@ -74,4 +79,214 @@ class VariableManagerTest {
     assertThat(variable1.getName()).isEqualTo("var2");
     assertThat(variable1.getValue()).isEqualTo("value2");
   }
+
+  @Test
+  void testLocalsInvalidated() throws IOException, InterruptedException, ExecutionException {
+    final List<String> values = new ArrayList<>(List.of("value1", "value2"));
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getStackFrameLocals(long threadId, int level)
+              throws IOException {
+            final List<ISlapResponse> subResponses = new ArrayList<>();
+            subResponses.add(
+                new StackFrameLocalsResponse.Local(
+                    LocalType.TYPE_INT,
+                    "var1",
+                    values.remove(0),
+                    EnumSet.noneOf(StackFrameLocalsResponse.VariableType.class)));
+            return CompletableFuture.completedFuture(new StackFrameLocalsResponse(subResponses));
+          }
+        };
+    final VariableManager manager = new VariableManager(slapProtocol);
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final int reference = manager.getScopes(frameId)[0].getVariablesReference();
+    assertThat(manager.getVariables(reference).get(0).getValue()).isEqualTo("value1");
+    assertThat(manager.getVariables(reference).get(0).getValue()).isEqualTo("value1");
+
+    // After an evaluation, the locals are retrieved again.
+    manager.invalidateLocals();
+    assertThat(manager.getVariables(reference).get(0).getValue()).isEqualTo("value2");
+  }
+
+  private static String field(final String text) {
+    return text.length() + ":" + text;
+  }
+
+  private static TestSlapProtocol vectorSlapProtocol(
+      final List<String> expressions, final int size, final String pageResult) {
+    return new TestSlapProtocol() {
+      @Override
+      public CompletableFuture<ISlapResponse> getStackFrameLocals(long threadId, int level)
+          throws IOException {
+        final List<ISlapResponse> subResponses = new ArrayList<>();
+        subResponses.add(
+            new StackFrameLocalsResponse.Local(
+                LocalType.TYPE_OBJ,
+                "vec",
+                "simple_vector(1:" + size + ")",
+                EnumSet.noneOf(StackFrameLocalsResponse.VariableType.class)));
+        return CompletableFuture.completedFuture(new StackFrameLocalsResponse(subResponses));
+      }
+
+      @Override
+      public CompletableFuture<ISlapResponse> evaluate(
+          final long threadId, final int level, final String expression) throws IOException {
+        expressions.add(expression);
+        final String result =
+            expression.contains("{vec}")
+                ? field("indexed") + field(Integer.toString(size))
+                : pageResult;
+        return CompletableFuture.completedFuture(new EvalResponse(result));
+      }
+    };
+  }
+
+  @Test
+  void testIndexedVariablesPage() throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final String pageResult =
+        field("indexed")
+            + field("10000")
+            + field("indexed")
+            + field("2")
+            + field("10")
+            + field("{1,2}")
+            + field("none")
+            + field("0")
+            + field("11")
+            + field("\"a:b\"");
+    final TestSlapProtocol slapProtocol = vectorSlapProtocol(expressions, 10000, pageResult);
+    final VariableManager manager = new VariableManager(slapProtocol);
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final MagikVariable vec = manager.getVariables(localScope.getVariablesReference()).get(0);
+    assertThat(vec.getKind()).isEqualTo(VariableKind.INDEXED);
+    assertThat(vec.getChildCount()).isEqualTo(10000);
+    assertThat(expressions).hasSize(1);
+
+    final List<MagikVariable> variables =
+        manager.getVariables(vec.getId(), VariablesArgumentsFilter.INDEXED, 10, 2);
+    assertThat(expressions).hasSize(2);
+    assertThat(expressions.get(1))
+        .contains("_local slap!v << vec\n")
+        .contains("10.upto((12).min(slap!n) - 1)");
+    assertThat(variables).hasSize(2);
+
+    final MagikVariable variable0 = variables.get(0);
+    assertThat(variable0.getName()).isEqualTo("10");
+    assertThat(variable0.getValue()).isEqualTo("{1,2}");
+    assertThat(variable0.getExpression()).isEqualTo("vec.sys!at0(10)");
+    assertThat(variable0.getKind()).isEqualTo(VariableKind.INDEXED);
+    assertThat(variable0.getChildCount()).isEqualTo(2);
+
+    final MagikVariable variable1 = variables.get(1);
+    assertThat(variable1.getName()).isEqualTo("11");
+    assertThat(variable1.getValue()).isEqualTo("\"a:b\"");
+    assertThat(variable1.getKind()).isEqualTo(VariableKind.NONE);
+
+    // Children of a variable without children are not retrieved.
+    assertThat(manager.getVariables(variable1.getId())).isEmpty();
+    assertThat(expressions).hasSize(2);
+  }
+
+  @Test
+  void testIndexedLocalExpanded() throws IOException, InterruptedException, ExecutionException {
+    final int size = 12;
+    final StringBuilder pageResult =
+        new StringBuilder(field("indexed") + field(Integer.toString(size)));
+    for (int i = 0; i < size; ++i) {
+      pageResult
+          .append(field("none"))
+          .append(field("0"))
+          .append(field(Integer.toString(i)))
+          .append(field(Integer.toString(i * 2)));
+    }
+    final List<String> expressions = new ArrayList<>();
+    final TestSlapProtocol slapProtocol =
+        vectorSlapProtocol(expressions, size, pageResult.toString());
+    final VariableManager manager = new VariableManager(slapProtocol);
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final List<MagikVariable> locals = manager.getVariables(localScope.getVariablesReference());
+    final Variable vec = Lsp4jConversion.toLsp4j(locals)[0];
+    assertThat(vec.getIndexedVariables()).isEqualTo(size);
+    assertThat(vec.getNamedVariables()).isNull();
+
+    // Indexed children are kept in index order, not sorted by name.
+    final List<MagikVariable> variables = manager.getVariables(vec.getVariablesReference());
+    assertThat(variables)
+        .extracting(MagikVariable::getName)
+        .containsExactly("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11");
+  }
+
+  @Test
+  void testHelpersDoNotShadowLocals() throws IOException, InterruptedException, ExecutionException {
+    final List<String> expressions = new ArrayList<>();
+    final TestSlapProtocol slapProtocol =
+        new TestSlapProtocol() {
+          @Override
+          public CompletableFuture<ISlapResponse> getStackFrameLocals(long threadId, int level)
+              throws IOException {
+            final List<ISlapResponse> subResponses = new ArrayList<>();
+            for (final String name : List.of("e", "o", "v")) {
+              subResponses.add(
+                  new StackFrameLocalsResponse.Local(
+                      LocalType.TYPE_OBJ,
+                      name,
+                      "simple_vector(1:1)",
+                      EnumSet.noneOf(StackFrameLocalsResponse.VariableType.class)));
+            }
+            return CompletableFuture.completedFuture(new StackFrameLocalsResponse(subResponses));
+          }
+
+          @Override
+          public CompletableFuture<ISlapResponse> evaluate(
+              final long threadId, final int level, final String expression) throws IOException {
+            expressions.add(expression);
+            final String result =
+                expression.contains("fast_elements")
+                    ? (field("indexed") + field("1")).repeat(3)
+                    : field("indexed")
+                        + field("1")
+                        + field("none")
+                        + field("0")
+                        + field("0")
+                        + field("1");
+            return CompletableFuture.completedFuture(new EvalResponse(result));
+          }
+        };
+    final VariableManager manager = new VariableManager(slapProtocol);
+
+    final int frameId = Lsp4jConversion.threadIdLevelToFrameId(20, 0);
+    final Scope localScope = manager.getScopes(frameId)[0];
+    final List<MagikVariable> locals = manager.getVariables(localScope.getVariablesReference());
+    assertThat(locals).extracting(MagikVariable::getKind).containsOnly(VariableKind.INDEXED);
+    final MagikVariable v = locals.get(2);
+    assertThat(v.getName()).isEqualTo("v");
+    manager.getVariables(v.getId());
+
+    // User expressions are bound first, before any helper is declared.
+    assertThat(expressions).hasSize(2);
+    assertThat(expressions.get(0)).startsWith("_block\n  _local slap!values << {e, o, v}\n");
+    assertThat(expressions.get(1)).startsWith("_block\n  _local slap!v << v\n");
+
+    // Helpers never use plain names.
+    final Pattern helperDeclaration = Pattern.compile("(_local|_for) \\(?[a-z]+\\b(?!!)");
+    for (final String expression : expressions) {
+      final String afterBinding = expression.substring(expression.indexOf('\n', 8));
+      assertThat(helperDeclaration.matcher(afterBinding).find()).as(expression).isFalse();
+    }
+  }
+
+  @Test
+  void testParseFields() {
+    assertThat(VariableManager.parseFields("1:a0:3:b:c")).containsExactly("a", "", "b:c");
+    assertThat(VariableManager.parseFields("")).isEmpty();
+    assertThat(VariableManager.parseFields("5:abc")).isEmpty();
+    assertThat(VariableManager.parseFields("**** error")).isEmpty();
+  }
 }
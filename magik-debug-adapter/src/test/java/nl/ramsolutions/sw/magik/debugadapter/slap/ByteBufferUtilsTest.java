@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
 
 /** Tests for ByteBufferUtils. */
@@ -117,4 +118,19 @@ class ByteBufferUtilsTest {
     long readValue = ByteBufferHelper.readUInt32(buffer, 0);
     assertThat(readValue).isZero();
   }
+
+  @Test
+  void testDecodeStringDirect() {
+    final String small = "r\u00f6pe";
+    final String large = "\u20ac".repeat(50_000);
+    for (final String value : new String[] {small, large, small}) {
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 8);
+      buffer.position(4);
+      buffer.put(bytes);
+
+      assertThat(ByteBufferHelper.decodeString(buffer, 4, bytes.length)).isEqualTo(value);
+      assertThat(buffer.position()).isEqualTo(4 + bytes.length);
+    }
+  }
 }
@@ -0,0 +1,450 @@
+package nl.ramsolutions.sw.magik.debugadapter.slap;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.StackFrameLocalsResponse.LocalType;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadInfoResponse.ThreadState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process simulator of the SLAP debug agent of a Smallworld session.
+ *
+ * <p>Speaks the handshake, and replies to thread list/info/stack, frame locals, evaluate,
+ * breakpoint, source file, suspend/resume and step requests. Every reply and event is delayed by
+ * the configured latency, without blocking later requests, as a network round trip would.
+ *
+ * <p>A failure while handling a request closes the connection, failing the pending requests of the
+ * client, and is rethrown by {@link #close()}.
+ */
+@SuppressWarnings("checkstyle:MagicNumber")
+public class SlapAgentSimulator implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlapAgentSimulator.class);
+
+  private static final String DEBUG_CLIENT_ID = "DuckOnATricycle\0";
+  private static final String DEBUG_AGENT_ID = "SwanOnAUnicycle\0";
+  private static final int HANDSHAKE_RESPONSE_SIZE = 32;
+  private static final int REQUEST_HEADER_SIZE = 16;
+  private static final int END_MARKER = 0xFFFFFFFF;
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  /** Directory of the source files of methods, in the session. */
+  public static final String SOURCE_DIRECTORY = "/simulator/";
+
+  /** Package of exemplars, in the session. */
+  public static final String PACKAGE = "user";
+
+  private final ServerSocketChannel serverChannel;
+  private final ScheduledExecutorService replyExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            final Thread thread = new Thread(runnable, "slap-agent-simulator-reply");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private final Map<RequestType, AtomicInteger> requestCounts = new EnumMap<>(RequestType.class);
+  private final Map<Long, AtomicInteger> stepCounts = new ConcurrentHashMap<>();
+  private final AtomicLong nextBreakpointId = new AtomicLong();
+  private volatile SocketChannel channel;
+  private Duration latency = Duration.ZERO;
+  private int threadCount = 10;
+  private int stackDepth = 20;
+  private int localsCount = 10;
+  private int evalResultSize = 16;
+  private UnaryOperator<String> evaluator;
+  private volatile RuntimeException failure;
+
+  /**
+   * Constructor, starts listening on a free local port.
+   *
+   * @throws IOException -
+   */
+  public SlapAgentSimulator() throws IOException {
+    this.serverChannel = ServerSocketChannel.open();
+    this.serverChannel.bind(new InetSocketAddress("localhost", 0));
+    for (final RequestType requestType : RequestType.values()) {
+      this.requestCounts.put(requestType, new AtomicInteger());
+    }
+    this.evaluator =
+        expression ->
+            expression.startsWith("_self.define_method_target")
+                ? PACKAGE
+                : "x".repeat(this.evalResultSize);
+
+    final Thread acceptThread = new Thread(this::serve, "slap-agent-simulator");
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+  }
+
+  /**
+   * Get the port the simulator listens on.
+   *
+   * @return Port.
+   * @throws IOException -
+   */
+  public int getPort() throws IOException {
+    return ((InetSocketAddress) this.serverChannel.getLocalAddress()).getPort();
+  }
+
+  /**
+   * Set the latency of every reply and event.
+   *
+   * @param newLatency Latency.
+   * @return this
+   */
+  public SlapAgentSimulator setLatency(final Duration newLatency) {
+    this.latency = newLatency;
+    return this;
+  }
+
+  /**
+   * Set the number of threads in the session.
+   *
+   * @param newThreadCount Number of threads.
+   * @return this
+   */
+  public SlapAgentSimulator setThreadCount(final int newThreadCount) {
+    this.threadCount = newThreadCount;
+    return this;
+  }
+
+  /**
+   * Set the depth of the stack of each thread.
+   *
+   * @param newStackDepth Number of stack frames.
+   * @return this
+   */
+  public SlapAgentSimulator setStackDepth(final int newStackDepth) {
+    this.stackDepth = newStackDepth;
+    return this;
+  }
+
+  /**
+   * Set the number of locals in each stack frame.
+   *
+   * @param newLocalsCount Number of locals.
+   * @return this
+   */
+  public SlapAgentSimulator setLocalsCount(final int newLocalsCount) {
+    this.localsCount = newLocalsCount;
+    return this;
+  }
+
+  /**
+   * Set the size of the result of the default evaluator.
+   *
+   * @param newEvalResultSize Number of characters.
+   * @return this
+   */
+  public SlapAgentSimulator setEvalResultSize(final int newEvalResultSize) {
+    this.evalResultSize = newEvalResultSize;
+    return this;
+  }
+
+  /**
+   * Set the evaluator, giving the result of an evaluated expression.
+   *
+   * @param newEvaluator Evaluator.
+   * @return this
+   */
+  public SlapAgentSimulator setEvaluator(final UnaryOperator<String> newEvaluator) {
+    this.evaluator = newEvaluator;
+    return this;
+  }
+
+  /**
+   * Get the number of received requests of a type.
+   *
+   * @param requestType Request type.
+   * @return Number of received requests.
+   */
+  public int getRequestCount(final RequestType requestType) {
+    return this.requestCounts.get(requestType).get();
+  }
+
+  /**
+   * Wait until a number of requests of a type is received.
+   *
+   * @param requestType Request type.
+   * @param count Number of received requests.
+   * @throws InterruptedException -
+   */
+  public void awaitRequestCount(final RequestType requestType, final int count)
+      throws InterruptedException {
+    synchronized (this.requestCounts) {
+      while (this.getRequestCount(requestType) < count) {
+        this.requestCounts.wait();
+      }
+    }
+  }
+
+  /**
+   * Send a breakpoint event, as if a thread hit a breakpoint.
+   *
+   * @param breakpointId Breakpoint ID.
+   * @param threadId Thread ID.
+   */
+  public void sendBreakpointEvent(final long breakpointId, final long threadId) {
+    final ByteBuffer event = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+    SlapAgentSimulator.putMessage(
+        event,
+        ResponseType.EVENT,
+        EventType.BREAKPOINT.getVal(),
+        buffer -> {
+          buffer.putInt((int) breakpointId);
+          buffer.putInt((int) threadId);
+        });
+    this.schedule(event);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.replyExecutor.shutdownNow();
+    final SocketChannel currentChannel = this.channel;
+    if (currentChannel != null) {
+      currentChannel.close();
+    }
+    this.serverChannel.close();
+
+    final RuntimeException currentFailure = this.failure;
+    if (currentFailure != null) {
+      throw new IOException("Simulator failed: " + currentFailure.getMessage(), currentFailure);
+    }
+  }
+
+  @SuppressWarnings("checkstyle:IllegalCatch")
+  private void serve() {
+    try (SocketChannel socketChannel = this.serverChannel.accept()) {
+      // Do not let small replies and events wait for acknowledgements.
+      socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      this.channel = socketChannel;
+      this.handshake(socketChannel);
+
+      final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while (socketChannel.read(buffer) != -1) {
+        buffer.flip();
+        while (buffer.remaining() >= REQUEST_HEADER_SIZE
+            && buffer.remaining() >= buffer.getInt(buffer.position())) {
+          final int length = buffer.getInt(buffer.position());
+          final ByteBuffer request = buffer.slice(buffer.position(), length).order(buffer.order());
+          buffer.position(buffer.position() + length);
+          this.handleRequest(request);
+        }
+        buffer.compact();
+      }
+    } catch (final IOException exception) {
+      LOGGER.debug("Simulator stopped: {}", exception.getMessage());
+    } catch (final RuntimeException exception) {
+      LOGGER.error("Simulator failed", exception);
+      this.failure = exception;
+    }
+  }
+
+  private void handshake(final SocketChannel socketChannel) throws IOException {
+    final ByteBuffer clientId = ByteBuffer.allocate(DEBUG_CLIENT_ID.length());
+    while (clientId.hasRemaining()) {
+      socketChannel.read(clientId);
+    }
+
+    final ByteBuffer response =
+        ByteBuffer.allocate(HANDSHAKE_RESPONSE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    response.put(DEBUG_AGENT_ID.getBytes(StandardCharsets.UTF_8));
+    response.put((byte) 1); // Little endian.
+    response.putInt(20, 1); // Version.
+    response.rewind();
+    socketChannel.write(response);
+  }
+
+  private void handleRequest(final ByteBuffer request) {
+    final RequestType requestType = RequestType.valueOf(request.getInt(4));
+    final long param0 = ByteBufferHelper.readUInt32(request, 8);
+    synchronized (this.requestCounts) {
+      this.requestCounts.get(requestType).incrementAndGet();
+      this.requestCounts.notifyAll();
+    }
+
+    // Encode a string result up front, so the reply is sized to fit it.
+    final String resultString =
+        switch (requestType) {
+          case EVALUATE -> this.evaluator.apply(ByteBufferHelper.readString(request, 16));
+          case SOURCE_FILE -> SOURCE_DIRECTORY + ByteBufferHelper.readString(request, 16);
+          default -> "";
+        };
+    final byte[] result = resultString.getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer reply =
+        ByteBuffer.allocate(this.replyCapacity(result.length)).order(ByteOrder.LITTLE_ENDIAN);
+    switch (requestType) {
+      case GET_THREAD_LIST -> this.putThreadList(reply);
+      case GET_THREAD_INFO -> this.putThreadInfo(reply, param0);
+      case GET_THREAD_STACK -> this.putThreadStack(reply, param0);
+      case GET_FRAME_LOCALS -> this.putFrameLocals(reply);
+      case EVALUATE, SOURCE_FILE -> SlapAgentSimulator.putReply(reply, requestType, result);
+      case BREAKPOINT_SET ->
+          SlapAgentSimulator.putMessage(
+              reply,
+              ResponseType.REPLY,
+              requestType.getVal(),
+              buffer -> buffer.putInt((int) this.nextBreakpointId.incrementAndGet()));
+      case STEP -> {
+        // Every step moves the top frame of the thread to the next line.
+        this.stepCounts.computeIfAbsent(param0, key -> new AtomicInteger()).incrementAndGet();
+        SlapAgentSimulator.putMessage(
+            reply, ResponseType.REPLY, requestType.getVal(), buffer -> buffer.putInt(0));
+        SlapAgentSimulator.putMessage(
+            reply,
+            ResponseType.EVENT,
+            EventType.STEP_COMPLETED.getVal(),
+            buffer -> buffer.putInt((int) param0));
+      }
+      default ->
+          SlapAgentSimulator.putMessage(
+              reply, ResponseType.REPLY, requestType.getVal(), buffer -> buffer.putInt(0));
+    }
+    this.schedule(reply);
+  }
+
+  private int replyCapacity(final int resultSize) {
+    return 1024 + resultSize + (this.threadCount + this.stackDepth + this.localsCount) * 256;
+  }
+
+  private void putThreadList(final ByteBuffer reply) {
+    SlapAgentSimulator.putMessage(
+        reply,
+        ResponseType.REPLY,
+        RequestType.GET_THREAD_LIST.getVal(),
+        buffer -> {
+          buffer.putInt(this.threadCount);
+          for (int i = 1; i <= this.threadCount; ++i) {
+            buffer.putInt(i);
+          }
+        });
+  }
+
+  private void putThreadInfo(final ByteBuffer reply, final long threadId) {
+    SlapAgentSimulator.putMessage(
+        reply,
+        ResponseType.REPLY,
+        RequestType.GET_THREAD_INFO.getVal(),
+        buffer -> {
+          buffer.putInt(0);
+          buffer.putInt(5); // Priority.
+          buffer.putInt(0); // Daemon.
+          buffer.putInt(ThreadState.WAITING.getVal());
+          SlapAgentSimulator.putString(buffer, "thread-" + threadId);
+        });
+  }
+
+  private void putThreadStack(final ByteBuffer reply, final long threadId) {
+    final int steps = this.stepCounts.computeIfAbsent(threadId, key -> new AtomicInteger()).get();
+    final int requestType = RequestType.GET_THREAD_STACK.getVal();
+    SlapAgentSimulator.putMessage(
+        reply, ResponseType.REPLY, requestType, buffer -> buffer.putInt(0));
+    for (int level = 0; level < this.stackDepth; ++level) {
+      final int currentLevel = level;
+      final int offset = level == 0 ? 1 + steps : 1;
+      final byte[] nameBytes =
+          ("sim_object.method" + level + "()").getBytes(StandardCharsets.UTF_8);
+      final byte[] languageBytes = "Magik".getBytes(StandardCharsets.UTF_8);
+      SlapAgentSimulator.putMessage(
+          reply,
+          ResponseType.REPLY,
+          requestType,
+          buffer -> {
+            buffer.putInt(currentLevel);
+            buffer.putInt(offset);
+            buffer.putInt(nameBytes.length);
+            buffer.putInt(languageBytes.length);
+            buffer.put(nameBytes);
+            buffer.put(languageBytes);
+          });
+    }
+    SlapAgentSimulator.putMessage(
+        reply, ResponseType.REPLY, requestType, buffer -> buffer.putInt(END_MARKER));
+  }
+
+  private void putFrameLocals(final ByteBuffer reply) {
+    final int requestType = RequestType.GET_FRAME_LOCALS.getVal();
+    SlapAgentSimulator.putMessage(
+        reply, ResponseType.REPLY, requestType, buffer -> buffer.putInt(0));
+    for (int i = 0; i < this.localsCount; ++i) {
+      final String name = "local" + i;
+      SlapAgentSimulator.putMessage(
+          reply,
+          ResponseType.REPLY,
+          requestType,
+          buffer -> {
+            buffer.putInt(LocalType.TYPE_OBJ.getVal() << 8);
+            SlapAgentSimulator.putString(buffer, name);
+            SlapAgentSimulator.putString(buffer, "value of " + name);
+          });
+    }
+    SlapAgentSimulator.putMessage(
+        reply, ResponseType.REPLY, requestType, buffer -> buffer.putInt(END_MARKER));
+  }
+
+  private void schedule(final ByteBuffer reply) {
+    reply.flip();
+    this.replyExecutor.schedule(
+        () -> {
+          try {
+            while (reply.hasRemaining()) {
+              this.channel.write(reply);
+            }
+          } catch (final IOException exception) {
+            LOGGER.debug("Unable to send: {}", exception.getMessage());
+          }
+        },
+        this.latency.toNanos(),
+        TimeUnit.NANOSECONDS);
+  }
+
+  private static void putReply(
+      final ByteBuffer reply, final RequestType requestType, final byte[] result) {
+    SlapAgentSimulator.putMessage(
+        reply,
+        ResponseType.REPLY,
+        requestType.getVal(),
+        buffer -> {
+          buffer.putInt(0);
+          buffer.putInt(result.length);
+          buffer.put(result);
+        });
+  }
+
+  private static void putMessage(
+      final ByteBuffer reply,
+      final ResponseType responseType,
+      final int subType,
+      final Consumer<ByteBuffer> body) {
+    final int start = reply.position();
+    reply.putInt(0);
+    reply.putInt(responseType.getVal());
+    reply.putInt(subType);
+    body.accept(reply);
+    reply.putInt(start, reply.position() - start);
+  }
+
+  private static void putString(final ByteBuffer buffer, final String value) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+}
@@ -0,0 +1,145 @@
+package nl.ramsolutions.sw.magik.debugadapter.slap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.EvalResponse;
+import nl.ramsolutions.sw.magik.debugadapter.slap.responses.ThreadStackResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** Tests for SlapProtocol. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class SlapProtocolTest {
+
+  private static final int EVAL_RESULT_LENGTH = 200_000;
+  private static final int STACK_DEPTH = 2_000;
+
+  /** Debug agent stand-in, replying to an evaluate and a get thread stack request. */
+  private static void serve(final ServerSocketChannel serverChannel) {
+    try (SocketChannel channel = serverChannel.accept()) {
+      // Handshake.
+      channel.read(ByteBuffer.allocate(16));
+      final ByteBuffer handshake = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+      handshake.put("SwanOnAUnicycle\0".getBytes(StandardCharsets.UTF_8));
+      handshake.put((byte) 1);
+      handshake.putInt(20, 1);
+      handshake.rewind();
+      channel.write(handshake);
+
+      // Read both requests, before replying.
+      final ByteBuffer requests = ByteBuffer.allocate(65536).order(ByteOrder.LITTLE_ENDIAN);
+      int requestCount = 0;
+      while (requestCount < 2) {
+        channel.read(requests);
+        requestCount = SlapProtocolTest.countMessages(requests);
+      }
+
+      final String result = "x".repeat(EVAL_RESULT_LENGTH);
+      final ByteBuffer reply =
+          ByteBuffer.allocate(1024 + EVAL_RESULT_LENGTH + STACK_DEPTH * 128)
+              .order(ByteOrder.LITTLE_ENDIAN);
+      SlapProtocolTest.putReply(reply, RequestType.EVALUATE, 0, 0, result, "");
+      SlapProtocolTest.putReply(reply, RequestType.GET_THREAD_STACK, 0, 0, "", "");
+      for (int level = 0; level < STACK_DEPTH; ++level) {
+        SlapProtocolTest.putReply(
+            reply, RequestType.GET_THREAD_STACK, level, 10, "user:a.method" + level, "Magik");
+      }
+      SlapProtocolTest.putReply(reply, RequestType.GET_THREAD_STACK, -1, 0, "", "");
+      reply.flip();
+      while (reply.hasRemaining()) {
+        channel.write(reply);
+      }
+
+      // Wait for client to close.
+      channel.read(ByteBuffer.allocate(16));
+    } catch (final IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  private static int countMessages(final ByteBuffer buffer) {
+    int count = 0;
+    int position = 0;
+    while (position + 4 <= buffer.position()) {
+      position += buffer.getInt(position);
+      if (position <= buffer.position()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static void putReply(
+      final ByteBuffer buffer,
+      final RequestType requestType,
+      final int param0,
+      final int param1,
+      final String string0,
+      final String string1) {
+    final byte[] bytes0 = string0.getBytes(StandardCharsets.UTF_8);
+    final byte[] bytes1 = string1.getBytes(StandardCharsets.UTF_8);
+    final boolean isStackElement = !string0.isEmpty() && !string1.isEmpty();
+    final int start = buffer.position();
+    buffer.putInt(0);
+    buffer.putInt(ResponseType.REPLY.getVal());
+    buffer.putInt(requestType.getVal());
+    buffer.putInt(param0);
+    if (isStackElement) {
+      // Stack element: level, offset, name length, language length, name + language.
+      buffer.putInt(param1);
+      buffer.putInt(bytes0.length);
+      buffer.putInt(bytes1.length);
+      buffer.put(bytes0);
+      buffer.put(bytes1);
+    } else if (!string0.isEmpty()) {
+      // Eval: result length, result.
+      buffer.putInt(bytes0.length);
+      buffer.put(bytes0);
+    }
+    buffer.putInt(start, buffer.position() - start);
+  }
+
+  @Test
+  @Timeout(30)
+  void testLargePipelinedReplies() throws Exception {
+    try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+      serverChannel.bind(new InetSocketAddress("localhost", 0));
+      final int port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+      final CompletableFuture<Void> server =
+          CompletableFuture.runAsync(() -> SlapProtocolTest.serve(serverChannel));
+
+      final SlapProtocol protocol = new SlapProtocol("localhost", port, event -> {});
+      protocol.connect();
+      try {
+        final CompletableFuture<ISlapResponse> evalFuture = protocol.evaluate(1, 0, "expression");
+        final CompletableFuture<ISlapResponse> stackFuture = protocol.getThreadStack(1);
+
+        final EvalResponse eval = (EvalResponse) evalFuture.get();
+        assertThat(eval.getResult()).hasSize(EVAL_RESULT_LENGTH);
+
+        final ThreadStackResponse stack = (ThreadStackResponse) stackFuture.get();
+        assertThat(stack.getStackFrames()).hasSize(STACK_DEPTH);
+        final ThreadStackResponse.StackElement lastElement =
+            stack.getStackFrames().get(STACK_DEPTH - 1);
+        assertThat(lastElement.getLevel()).isEqualTo(STACK_DEPTH - 1);
+        assertThat(lastElement.getName()).isEqualTo("user:a.method" + (STACK_DEPTH - 1));
+        assertThat(lastElement.getLanguage()).isEqualTo("Magik");
+      } finally {
+        protocol.close();
+      }
+      server.get();
+    } catch (final ExecutionException exception) {
+      throw (Exception) exception.getCause();
+    }
+  }
+}
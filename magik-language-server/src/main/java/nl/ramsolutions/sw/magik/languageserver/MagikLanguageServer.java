@@ -8,6 +8,8 @@ import java.util.concurrent.CompletableFuture;
 import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
 import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.languageserver.indexer.IndexQueue;
+import nl.ramsolutions.sw.magik.languageserver.metrics.ServerMetrics;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.InitializeResult;
 import org.eclipse.lsp4j.InitializedParams;
@@ -30,6 +32,8 @@ public class MagikLanguageServer implements LanguageServer, LanguageClientAware
 
   private final MagikAnalysisConfiguration analysisConfiguration;
   private final IDefinitionKeeper definitionKeeper;
+  private final IndexQueue indexQueue;
+  private final ServerMetrics metrics;
   private final List<WorkspaceFolder> workspaceFolders = new ArrayList<>();
   private final MagikTextDocumentService magikTextDocumentService;
   private final MagikWorkspaceService magikWorkspaceService;
@@ -45,13 +49,31 @@ public class MagikLanguageServer implements LanguageServer, LanguageClientAware
     // We assume the DefinitionKeeper gets its types from a types database (.jsonl file).
     this.analysisConfiguration = new MagikAnalysisConfiguration();
     this.definitionKeeper = new DefinitionKeeper(false);
+    this.indexQueue = new IndexQueue();
+    this.metrics = new ServerMetrics();
+    this.registerGauges();
     this.magikTextDocumentService =
-        new MagikTextDocumentService(this, this.analysisConfiguration, this.definitionKeeper);
+        new MagikTextDocumentService(
+            this, this.analysisConfiguration, this.definitionKeeper, this.indexQueue);
     this.magikWorkspaceService =
-        new MagikWorkspaceService(this, this.analysisConfiguration, this.definitionKeeper);
+        new MagikWorkspaceService(
+            this, this.analysisConfiguration, this.definitionKeeper, this.indexQueue);
     this.magikNotebookDocumentService = new MagikNotebookDocumentService(this);
   }
 
+  private void registerGauges() {
+    this.metrics.registerGauge("indexQueue.size", this.indexQueue::size);
+    this.metrics.registerGauge(
+        "definitionKeeper.exemplars", () -> this.definitionKeeper.getExemplarDefinitions().size());
+    this.metrics.registerGauge(
+        "definitionKeeper.methods", () -> this.definitionKeeper.getMethodDefinitions().size());
+    this.metrics.registerGauge(
+        "definitionKeeper.globals", () -> this.definitionKeeper.getGlobalDefinitions().size());
+    this.metrics.registerGauge(
+        "definitionKeeper.procedures",
+        () -> this.definitionKeeper.getProcedureDefinitions().size());
+  }
+
   @SuppressWarnings("deprecation")
   @Override
   public CompletableFuture<InitializeResult> initialize(final InitializeParams params) {
@@ -154,6 +176,15 @@ public class MagikLanguageServer implements LanguageServer, LanguageClientAware
     return this.languageClient;
   }
 
+  /**
+   * Get the {@link ServerMetrics}.
+   *
+   * @return Server metrics.
+   */
+  public ServerMetrics getMetrics() {
+    return this.metrics;
+  }
+
   /**
    * Get the {@link WorkspaceFolder}s.
    *
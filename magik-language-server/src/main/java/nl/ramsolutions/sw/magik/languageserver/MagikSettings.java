@@ -18,6 +18,7 @@ public final class MagikSettings { // NOSONAR
   private static final String TOP_LEVEL = "magik";
   private static final String TYPING = "typing";
   private static final String LINT = "lint";
+  private static final String COMPLETION = "completion";
   private static final String SMALLWORLD_GIS = "smallworldGis";
   private static final String LIBS_DIRS = "libsDirs";
   private static final String TYPE_DATABASE_PATHS = "typeDatabasePaths";
@@ -29,6 +30,8 @@ public final class MagikSettings { // NOSONAR
   private static final String INDEX_METHOD_USAGES = "indexMethodUsages";
   private static final String INDEX_SLOT_USAGES = "indexSlotUsages";
   private static final String INDEX_CONDITION_USAGES = "indexConditionUsages";
+  private static final String MAX_ITEMS = "maxItems";
+  private static final int DEFAULT_COMPLETION_MAX_ITEMS = 100;
 
   private JsonObject settings = new JsonObject();
 
@@ -292,6 +295,30 @@ public final class MagikSettings { // NOSONAR
     return indexConditionUsages.getAsBoolean();
   }
 
+  /**
+   * Get magik.completion.maxItems, defaults to 100 if no config is provided.
+   *
+   * @return magik.completion.maxItems.
+   */
+  public int getCompletionMaxItems() {
+    final JsonObject magik = this.settings.getAsJsonObject(TOP_LEVEL);
+    if (magik == null) {
+      return DEFAULT_COMPLETION_MAX_ITEMS;
+    }
+
+    final JsonObject completion = magik.getAsJsonObject(COMPLETION);
+    if (completion == null) {
+      return DEFAULT_COMPLETION_MAX_ITEMS;
+    }
+
+    final JsonElement maxItems = completion.get(MAX_ITEMS);
+    if (maxItems == null) {
+      return DEFAULT_COMPLETION_MAX_ITEMS;
+    }
+
+    return maxItems.getAsInt();
+  }
+
   /**
    * Get magik.lint.overrideConfigFile.
    *
@@ -12,6 +12,7 @@ import nl.ramsolutions.sw.magik.ModuleDefFile;
 import nl.ramsolutions.sw.magik.ProductDefFile;
 import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver;
 import nl.ramsolutions.sw.magik.languageserver.codeactions.CodeActionProvider;
 import nl.ramsolutions.sw.magik.languageserver.completion.CompletionProvider;
 import nl.ramsolutions.sw.magik.languageserver.definitions.DefinitionsProvider;
@@ -21,7 +22,9 @@ import nl.ramsolutions.sw.magik.languageserver.folding.FoldingRangeProvider;
 import nl.ramsolutions.sw.magik.languageserver.formatting.FormattingProvider;
 import nl.ramsolutions.sw.magik.languageserver.hover.HoverProvider;
 import nl.ramsolutions.sw.magik.languageserver.implementation.ImplementationProvider;
+import nl.ramsolutions.sw.magik.languageserver.indexer.IndexQueue;
 import nl.ramsolutions.sw.magik.languageserver.inlayhint.InlayHintProvider;
+import nl.ramsolutions.sw.magik.languageserver.metrics.ServerMetrics;
 import nl.ramsolutions.sw.magik.languageserver.references.ReferencesProvider;
 import nl.ramsolutions.sw.magik.languageserver.rename.RenameProvider;
 import nl.ramsolutions.sw.magik.languageserver.selectionrange.SelectionRangeProvider;
@@ -99,6 +102,7 @@ public class MagikTextDocumentService implements TextDocumentService {
   private final MagikLanguageServer languageServer;
   private final MagikAnalysisConfiguration analysisConfiguration;
   private final IDefinitionKeeper definitionKeeper;
+  private final IndexQueue indexQueue;
   private final DiagnosticsProvider diagnosticsProvider;
   private final HoverProvider hoverProvider;
   private final ImplementationProvider implementationProvider;
@@ -122,12 +126,15 @@ public class MagikTextDocumentService implements TextDocumentService {
    *
    * @param languageServer Owning language server.
    * @param definitionKeeper IDefinitionKeeper to use.
+   * @param indexQueue IndexQueue to prioritize opened files in.
    */
   public MagikTextDocumentService(
       final MagikLanguageServer languageServer,
       final MagikAnalysisConfiguration analysisConfiguration,
-      final IDefinitionKeeper definitionKeeper) {
+      final IDefinitionKeeper definitionKeeper,
+      final IndexQueue indexQueue) {
     this.languageServer = languageServer;
+    this.indexQueue = indexQueue;
     this.analysisConfiguration = analysisConfiguration;
     this.definitionKeeper = definitionKeeper;
 
@@ -187,6 +194,10 @@ public class MagikTextDocumentService implements TextDocumentService {
     final URI uri = URI.create(uriStr);
     final TextDocumentIdentifier textDocumentIdentifier = new TextDocumentIdentifier(uriStr);
     final String text = textDocument.getText();
+
+    // Index the opened file, its module and product first.
+    this.indexQueue.opened(uri);
+
     final OpenedFile openedFile;
     switch (textDocument.getLanguageId()) {
       case "product.def":
@@ -292,6 +303,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     LOGGER.debug("didClose, uri: {}", textDocumentIdentifier.getUri());
 
     this.openedFiles.remove(textDocumentIdentifier);
+    this.indexQueue.closed(URI.create(textDocumentIdentifier.getUri()));
 
     // Clear published diagnostics.
     final List<Diagnostic> diagnostics = Collections.emptyList();
@@ -321,7 +333,26 @@ public class MagikTextDocumentService implements TextDocumentService {
   }
 
   private void publishDiagnostics(final MagikTypedFile magikFile) {
+    // Parse, reason and check, recording the time spent on each.
+    final ServerMetrics metrics = this.languageServer.getMetrics();
+    long phaseStart = System.nanoTime();
+    magikFile.getTopNode();
+    metrics.recordFileAnalysis(ServerMetrics.PHASE_PARSE, System.nanoTime() - phaseStart);
+
+    if (Boolean.TRUE.equals(MagikSettings.INSTANCE.getTypingEnableChecks())) {
+      phaseStart = System.nanoTime();
+      magikFile.getTypeReasonerState();
+      metrics.recordFileAnalysis(ServerMetrics.PHASE_REASON, System.nanoTime() - phaseStart);
+    }
+
+    phaseStart = System.nanoTime();
     final List<Diagnostic> diagnostics = this.diagnosticsProvider.provideDiagnostics(magikFile);
+    metrics.recordFileAnalysis(ServerMetrics.PHASE_CHECK, System.nanoTime() - phaseStart);
+
+    // Only record the lookups since the previous publish, the resolver outlives a single publish.
+    final TypeStringResolver resolver = magikFile.getTypeStringResolver();
+    metrics.recordCacheLookups(
+        "typeStringResolver", resolver.takeCacheHits(), resolver.takeCacheMisses());
 
     // Publish to client.
     final String uri = magikFile.getUri().toString();
@@ -644,7 +675,7 @@ public class MagikTextDocumentService implements TextDocumentService {
     final Position position = params.getPosition();
     return CompletableFuture.supplyAsync(
         () -> {
-          final List<CompletionItem> completions =
+          final CompletionList completions =
               this.completionProvider.provideCompletions(magikFile, position);
           LOGGER_DURATION.trace(
               "Duration: {} completion, uri: {}, position: {},{}",
@@ -652,7 +683,25 @@ public class MagikTextDocumentService implements TextDocumentService {
               textDocument.getUri(),
               params.getPosition().getLine(),
               params.getPosition().getCharacter());
-          return Either.forLeft(completions);
+          return Either.forRight(completions);
+        });
+  }
+
+  @Override
+  public CompletableFuture<CompletionItem> resolveCompletionItem(final CompletionItem unresolved) {
+    final long start = System.nanoTime();
+
+    LOGGER.debug("resolveCompletionItem, label: {}", unresolved.getLabel());
+
+    return CompletableFuture.supplyAsync(
+        () -> {
+          final CompletionItem item =
+              this.completionProvider.resolveCompletionItem(this.definitionKeeper, unresolved);
+          LOGGER_DURATION.trace(
+              "Duration: {} resolveCompletionItem, label: {}",
+              (System.nanoTime() - start) / 1000000000.0,
+              unresolved.getLabel());
+          return item;
         });
   }
 
@@ -7,9 +7,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
@@ -18,6 +22,9 @@ import nl.ramsolutions.sw.magik.analysis.definitions.io.JsonDefinitionReader;
 import nl.ramsolutions.sw.magik.analysis.indexer.MagikIndexer;
 import nl.ramsolutions.sw.magik.analysis.indexer.ProductIndexer;
 import nl.ramsolutions.sw.magik.analysis.typing.ClassInfoDefinitionReader;
+import nl.ramsolutions.sw.magik.languageserver.indexer.FileEventAggregator;
+import nl.ramsolutions.sw.magik.languageserver.indexer.IndexQueue;
+import nl.ramsolutions.sw.magik.languageserver.metrics.ServerMetrics;
 import nl.ramsolutions.sw.magik.languageserver.munit.MUnitTestItem;
 import nl.ramsolutions.sw.magik.languageserver.munit.MUnitTestItemProvider;
 import nl.ramsolutions.sw.magik.languageserver.symbol.SymbolProvider;
@@ -30,6 +37,7 @@ import org.eclipse.lsp4j.SymbolInformation;
 import org.eclipse.lsp4j.WorkDoneProgressBegin;
 import org.eclipse.lsp4j.WorkDoneProgressCreateParams;
 import org.eclipse.lsp4j.WorkDoneProgressEnd;
+import org.eclipse.lsp4j.WorkDoneProgressReport;
 import org.eclipse.lsp4j.WorkspaceFolder;
 import org.eclipse.lsp4j.WorkspaceSymbol;
 import org.eclipse.lsp4j.WorkspaceSymbolParams;
@@ -44,6 +52,7 @@ import org.slf4j.LoggerFactory;
 public class MagikWorkspaceService implements WorkspaceService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MagikWorkspaceService.class);
+  private static final int INDEX_BATCH_SIZE = 100;
 
   private final MagikLanguageServer languageServer;
   private final MagikAnalysisConfiguration analysisConfiguration;
@@ -53,19 +62,24 @@ public class MagikWorkspaceService implements WorkspaceService {
   private final MagikIndexer magikIndexer;
   private final SymbolProvider symbolProvider;
   private final MUnitTestItemProvider testItemProvider;
+  private final FileEventAggregator fileEventAggregator;
+  private final IndexQueue indexQueue;
 
   /**
    * Constructor.
    *
    * @param languageServer Owner language server.
    * @param definitionKeeper {@link IDefinitionKeeper} used for definition storage.
+   * @param indexQueue {@link IndexQueue} used to prioritize indexing.
    * @throws IOException
    */
   public MagikWorkspaceService(
       final MagikLanguageServer languageServer,
       final MagikAnalysisConfiguration analysisConfiguration,
-      final IDefinitionKeeper definitionKeeper) {
+      final IDefinitionKeeper definitionKeeper,
+      final IndexQueue indexQueue) {
     this.languageServer = languageServer;
+    this.indexQueue = indexQueue;
     this.analysisConfiguration = analysisConfiguration;
     this.definitionKeeper = definitionKeeper;
 
@@ -75,6 +89,10 @@ public class MagikWorkspaceService implements WorkspaceService {
         new MagikIndexer(this.definitionKeeper, this.analysisConfiguration, this.ignoreHandler);
     this.symbolProvider = new SymbolProvider(this.definitionKeeper);
     this.testItemProvider = new MUnitTestItemProvider(this.definitionKeeper);
+    this.fileEventAggregator = new FileEventAggregator(this::handleFileEvents);
+
+    final ServerMetrics metrics = this.languageServer.getMetrics();
+    metrics.registerGauge("fileEventAggregator.pending", this.fileEventAggregator::getPendingCount);
   }
 
   /**
@@ -145,18 +163,39 @@ public class MagikWorkspaceService implements WorkspaceService {
     }
   }
 
-  private void runMagikIndexer() {
+  private void runMagikIndexer(final ProgressReporter progressReporter) {
     for (final WorkspaceFolder workspaceFolder : this.languageServer.getWorkspaceFolders()) {
-      try {
-        LOGGER.debug("Running MagikIndexer from: {}", workspaceFolder.getUri());
-        final String uriStr = workspaceFolder.getUri();
-        final URI uri = URI.create(uriStr);
-        final FileEvent fileEvent = new FileEvent(uri, FileEvent.FileChangeType.CREATED);
-        this.magikIndexer.handleFileEvent(fileEvent);
+      LOGGER.debug("Running MagikIndexer from: {}", workspaceFolder.getUri());
+      final String uriStr = workspaceFolder.getUri();
+      final URI uri = URI.create(uriStr);
+      final Path path = Path.of(uri);
+      try (Stream<Path> stream = this.ignoreHandler.getIndexableFiles(path)) {
+        final List<Path> magikPaths = stream.filter(FileEventAggregator::isMagikFile).toList();
+        this.indexQueue.enqueue(magikPaths);
       } catch (final IOException exception) {
         LOGGER.error(exception.getMessage(), exception);
       }
     }
+
+    // Index in batches, highest priority first, reporting progress in between.
+    final int total = this.indexQueue.size();
+    int indexed = 0;
+    List<Path> batch = this.indexQueue.poll(INDEX_BATCH_SIZE);
+    while (!batch.isEmpty()) {
+      final long start = System.nanoTime();
+      final List<FileEvent> fileEvents =
+          batch.stream()
+              .map(batchPath -> new FileEvent(batchPath.toUri(), FileEvent.FileChangeType.CREATED))
+              .toList();
+      this.handleFileEvent(this.magikIndexer::handleFileEvents, fileEvents);
+      this.languageServer.getMetrics().recordIndexed(batch.size(), System.nanoTime() - start);
+
+      indexed += batch.size();
+      final int percentage = total != 0 ? indexed * 100 / total : 100;
+      progressReporter.report(indexed + "/" + total + " files", percentage);
+
+      batch = this.indexQueue.poll(INDEX_BATCH_SIZE);
+    }
   }
 
   private void readLibsClassInfos(final List<String> libsDirs) {
@@ -212,27 +251,91 @@ public class MagikWorkspaceService implements WorkspaceService {
 
               final FileChangeType fileChangeType = fileEvent.getType();
               final URI uri = URI.create(fileEvent.getUri());
-              final Path path = Path.of(uri);
-              if (fileChangeType != FileChangeType.Deleted && !Files.exists(path)) {
-                // Ensure file still exists. Files such as `.git/index.lock` are often already
-                // deleted before it reaches this method.
-                return;
-              }
-
               final nl.ramsolutions.sw.magik.FileEvent.FileChangeType magikFileChangeType =
                   Lsp4jConversion.fileChangeTypeFromLsp4j(fileChangeType);
               final nl.ramsolutions.sw.magik.FileEvent magikFileEvent =
                   new nl.ramsolutions.sw.magik.FileEvent(uri, magikFileChangeType);
-              try {
-                this.ignoreHandler.handleFileEvent(magikFileEvent);
-                this.productIndexer.handleFileEvent(magikFileEvent);
-                this.magikIndexer.handleFileEvent(magikFileEvent);
-              } catch (final IOException exception) {
-                LOGGER.error(exception.getMessage(), exception);
-              }
+              this.fileEventAggregator.add(magikFileEvent);
             });
   }
 
+  /**
+   * Handle an aggregated batch of file events, ordered by {@link FileEventAggregator}.
+   *
+   * @param fileEvents File events to handle.
+   */
+  private void handleFileEvents(final List<FileEvent> fileEvents) {
+    // Ensure files still exist. Files such as `.git/index.lock` are often already deleted before
+    // the batch is handled.
+    final List<FileEvent> existingFileEvents =
+        fileEvents.stream()
+            .filter(
+                fileEvent ->
+                    fileEvent.getFileChangeType() == FileEvent.FileChangeType.DELETED
+                        || Files.exists(Path.of(fileEvent.getUri())))
+            .toList();
+    if (existingFileEvents.isEmpty()) {
+      return;
+    }
+
+    this.runWithProgress(
+        "Indexing changed files",
+        progressReporter -> {
+          existingFileEvents.stream()
+              .filter(fileEvent -> this.isRelevantFor(fileEvent, FileEventAggregator::isIgnoreFile))
+              .forEach(
+                  fileEvent ->
+                      this.handleFileEvent(this.ignoreHandler::handleFileEvent, fileEvent));
+          existingFileEvents.stream()
+              .filter(
+                  fileEvent -> this.isRelevantFor(fileEvent, FileEventAggregator::isDefinitionFile))
+              .forEach(
+                  fileEvent ->
+                      this.handleFileEvent(this.productIndexer::handleFileEvent, fileEvent));
+          final List<FileEvent> magikFileEvents =
+              existingFileEvents.stream()
+                  .filter(
+                      fileEvent -> this.isRelevantFor(fileEvent, FileEventAggregator::isMagikFile))
+                  .toList();
+          this.handleFileEvent(this.magikIndexer::handleFileEvents, magikFileEvents);
+        });
+  }
+
+  /**
+   * Test if the file event is relevant for a handler. Directories, and deleted paths which might
+   * have been directories, are relevant for all handlers.
+   *
+   * @param fileEvent File event.
+   * @param fileTest Test for files the handler handles.
+   * @return True if relevant, false otherwise.
+   */
+  private boolean isRelevantFor(final FileEvent fileEvent, final Predicate<Path> fileTest) {
+    final Path path = Path.of(fileEvent.getUri());
+    if (fileTest.test(path)) {
+      return true;
+    }
+
+    return fileEvent.getFileChangeType() == FileEvent.FileChangeType.DELETED
+        ? !FileEventAggregator.isIgnoreFile(path)
+            && !FileEventAggregator.isDefinitionFile(path)
+            && !FileEventAggregator.isMagikFile(path)
+        : Files.isDirectory(path);
+  }
+
+  private <T> void handleFileEvent(final FileEventHandler<T> handler, final T fileEvents) {
+    try {
+      handler.handle(fileEvents);
+    } catch (final IOException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    }
+  }
+
+  /** File event handler, which might throw an {@link IOException}. */
+  @FunctionalInterface
+  private interface FileEventHandler<T> {
+    void handle(T fileEvents) throws IOException;
+  }
+
   @Override
   public CompletableFuture<
           Either<List<? extends SymbolInformation>, List<? extends WorkspaceSymbol>>>
@@ -259,11 +362,22 @@ public class MagikWorkspaceService implements WorkspaceService {
     return CompletableFuture.runAsync(
         () -> {
           this.definitionKeeper.clear();
+          this.indexQueue.clear();
 
           this.runIndexersInBackground();
         });
   }
 
+  /**
+   * Get the latency and throughput metrics of the language server.
+   *
+   * @return Snapshot of the metrics.
+   */
+  @JsonRequest(value = "custom/metrics")
+  public CompletableFuture<Map<String, Object>> getMetrics() {
+    return CompletableFuture.supplyAsync(() -> this.languageServer.getMetrics().getSnapshot());
+  }
+
   /**
    * Get test items.
    *
@@ -289,14 +403,16 @@ public class MagikWorkspaceService implements WorkspaceService {
 
   // endregion
 
-  private void runIndexers() {
+  private void runIndexers(final ProgressReporter progressReporter) {
     LOGGER.trace("Run indexers");
 
     // Read types db.
+    progressReporter.report("Reading type databases", 0);
     final List<String> typesDbPaths = MagikSettings.INSTANCE.getTypingTypeDatabasePaths();
     this.readTypesDbs(typesDbPaths);
 
     // Read class_infos from libs/ dirs.
+    progressReporter.report("Reading libs", 0);
     final List<String> libsDirs = MagikSettings.INSTANCE.getLibsDirs();
     this.readLibsClassInfos(libsDirs);
 
@@ -304,48 +420,77 @@ public class MagikWorkspaceService implements WorkspaceService {
     this.runIgnoreFilesIndexer();
 
     // Run product/module indexer.
+    progressReporter.report("Indexing products", 0);
     this.runProductIndexer();
 
     // Run magik indexer.
-    this.runMagikIndexer();
+    this.runMagikIndexer(progressReporter);
   }
 
-  @SuppressWarnings("IllegalCatch")
   private void runIndexersInBackground() {
     LOGGER.trace("Run background indexer");
 
+    CompletableFuture.runAsync(
+        () -> {
+          LOGGER.trace("Start indexing workspace in background");
+          this.runWithProgress("Indexing workspace", this::runIndexers);
+          LOGGER.trace("Done indexing workspace in background");
+        });
+  }
+
+  /**
+   * Run the task, reporting its progress to the client.
+   *
+   * @param title Title of the progress.
+   * @param task Task to run, receives a {@link ProgressReporter} to report intermediate progress.
+   */
+  @SuppressWarnings("IllegalCatch")
+  private void runWithProgress(final String title, final Consumer<ProgressReporter> task) {
     final LanguageClient languageClient = this.languageServer.getLanguageClient();
     final WorkDoneProgressCreateParams params = new WorkDoneProgressCreateParams();
     final String token = UUID.randomUUID().toString();
     params.setToken(token);
     languageClient.createProgress(params);
 
-    CompletableFuture.runAsync(
-        () -> {
-          LOGGER.trace("Start indexing workspace in background");
-          final ProgressParams progressParams = new ProgressParams();
-          progressParams.setToken(token);
-
-          final WorkDoneProgressBegin begin = new WorkDoneProgressBegin();
-          begin.setTitle("Indexing workspace");
-          progressParams.setValue(Either.forLeft(begin));
-          languageClient.notifyProgress(progressParams);
+    final ProgressParams progressParams = new ProgressParams();
+    progressParams.setToken(token);
+
+    final WorkDoneProgressBegin begin = new WorkDoneProgressBegin();
+    begin.setTitle(title);
+    begin.setPercentage(0);
+    progressParams.setValue(Either.forLeft(begin));
+    languageClient.notifyProgress(progressParams);
+
+    try {
+      task.accept(
+          (message, percentage) -> {
+            final WorkDoneProgressReport report = new WorkDoneProgressReport();
+            report.setMessage(message);
+            report.setPercentage(percentage);
+            final ProgressParams reportParams = new ProgressParams();
+            reportParams.setToken(token);
+            reportParams.setValue(Either.forLeft(report));
+            languageClient.notifyProgress(reportParams);
+          });
+    } catch (final Exception exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    }
 
-          try {
-            this.runIndexers();
-          } catch (final Exception exception) {
-            LOGGER.error(exception.getMessage(), exception);
-          }
+    final WorkDoneProgressEnd end = new WorkDoneProgressEnd();
+    end.setMessage("Done " + title.toLowerCase());
+    progressParams.setValue(Either.forLeft(end));
+    languageClient.notifyProgress(progressParams);
+  }
 
-          final WorkDoneProgressEnd end = new WorkDoneProgressEnd();
-          end.setMessage("Done indexing workspace");
-          progressParams.setValue(Either.forLeft(end));
-          languageClient.notifyProgress(progressParams);
-          LOGGER.trace("Done indexing workspace in background");
-        });
+  /** Progress reporter. */
+  @FunctionalInterface
+  private interface ProgressReporter {
+    void report(String message, int percentage);
   }
 
   public void shutdown() {
+    this.fileEventAggregator.shutdown();
+
     // TODO: Dump type database, and read it again when starting?
     //       Requires timestamping of definitions/files!
   }
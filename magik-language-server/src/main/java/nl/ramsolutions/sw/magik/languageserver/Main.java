@@ -3,6 +3,8 @@ package nl.ramsolutions.sw.magik.languageserver;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.logging.LogManager;
+import nl.ramsolutions.sw.magik.languageserver.metrics.MetricsMessageWrapper;
+import nl.ramsolutions.sw.magik.languageserver.metrics.ServerMetrics;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -83,8 +85,16 @@ public final class Main {
     }
 
     final MagikLanguageServer server = new MagikLanguageServer();
+    final ServerMetrics metrics = server.getMetrics();
+    metrics.registerMBean();
     final Launcher<LanguageClient> launcher =
-        LSPLauncher.createServerLauncher(server, System.in, System.out); // NOSONAR
+        new LSPLauncher.Builder<LanguageClient>()
+            .setLocalService(server)
+            .setRemoteInterface(LanguageClient.class)
+            .setInput(System.in) // NOSONAR
+            .setOutput(System.out) // NOSONAR
+            .wrapMessages(new MetricsMessageWrapper(metrics))
+            .create();
 
     final LanguageClient remoteProxy = launcher.getRemoteProxy();
     server.connect(remoteProxy);
@@ -1,5 +1,6 @@
 package nl.ramsolutions.sw.magik.languageserver.completion;
 
+import com.google.gson.JsonObject;
 import com.sonar.sslr.api.AstNode;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
@@ -7,17 +8,20 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.analysis.AstQuery;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
 import nl.ramsolutions.sw.magik.analysis.scope.Scope;
@@ -30,10 +34,12 @@ import nl.ramsolutions.sw.magik.api.MagikKeyword;
 import nl.ramsolutions.sw.magik.api.MagikOperator;
 import nl.ramsolutions.sw.magik.api.MagikPunctuator;
 import nl.ramsolutions.sw.magik.languageserver.Lsp4jConversion;
+import nl.ramsolutions.sw.magik.languageserver.MagikSettings;
 import nl.ramsolutions.sw.magik.parser.MagikCommentExtractor;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
 import org.eclipse.lsp4j.CompletionItemTag;
+import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionOptions;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.ServerCapabilities;
@@ -46,6 +52,9 @@ public class CompletionProvider {
   private static final Logger LOGGER = LoggerFactory.getLogger(CompletionProvider.class);
   private static final Set<Character> REMOVAL_STOP_CHARS = new HashSet<>();
   private static final String TOPIC_DEPRECATED = "deprecated";
+  private static final String DATA_PACKAGE = "package";
+  private static final String DATA_IDENTIFIER = "identifier";
+  private static final String DATA_METHOD_NAME = "methodName";
 
   static {
     REMOVAL_STOP_CHARS.add(' ');
@@ -76,6 +85,7 @@ public class CompletionProvider {
   public void setCapabilities(final ServerCapabilities capabilities) {
     final CompletionOptions completionOptions = new CompletionOptions();
     completionOptions.setTriggerCharacters(List.of("."));
+    completionOptions.setResolveProvider(true);
     capabilities.setCompletionProvider(completionOptions);
   }
 
@@ -84,9 +94,9 @@ public class CompletionProvider {
    *
    * @param magikFile Magik file.
    * @param position Position in file.
-   * @return List of completions.
+   * @return Completions.
    */
-  public List<CompletionItem> provideCompletions(
+  public CompletionList provideCompletions(
       final MagikTypedFile magikFile, final Position position) {
     // Do our best to get a token value, and clean up the source while we're at it.
     final Map.Entry<MagikTypedFile, String> usables = this.getUsableMagikFile(magikFile, position);
@@ -95,18 +105,19 @@ public class CompletionProvider {
     final Position newPosition =
         new Position(position.getLine(), position.getCharacter() - removedPart.length());
     final AstNode node = newMagikFile.getTopNode();
-    final AstNode tokenNode = AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(newPosition));
+    final AstNode tokenNode =
+        newMagikFile.getPositionIndex().nodeAt(Lsp4jConversion.positionFromLsp4j(newPosition));
     LOGGER.trace("Current token: {}", removedPart);
 
     // Ensure not in comment.
     if (this.inComment(node, position)) {
-      return Collections.emptyList();
+      return new CompletionList(Collections.emptyList());
     }
 
     // Keyword completion: '_'.
     if (removedPart.startsWith("_")) {
       LOGGER.debug("Providing keyword completions");
-      return this.provideKeywordCompletions();
+      return new CompletionList(this.provideKeywordCompletions());
     }
 
     // Method completion: METHOD_INVOCATION or '.'.
@@ -119,7 +130,9 @@ public class CompletionProvider {
       }
     }
 
-    return this.provideGlobalCompletion(newMagikFile, position, tokenNode);
+    final List<CompletionItem> globalItems =
+        this.provideGlobalCompletion(newMagikFile, position, tokenNode);
+    return new CompletionList(globalItems);
   }
 
   /**
@@ -165,9 +178,8 @@ public class CompletionProvider {
         .forEach(items::add);
 
     // Scope entries.
-    final AstNode topNode = magikFile.getTopNode();
     AstNode scopeNode =
-        AstQuery.nodeSurrounding(topNode, Lsp4jConversion.positionFromLsp4j(position));
+        magikFile.getPositionIndex().nodeSurrounding(Lsp4jConversion.positionFromLsp4j(position));
     if (scopeNode != null) {
       if (scopeNode.getFirstChild(MagikGrammar.BODY) != null) {
         scopeNode = scopeNode.getFirstChild(MagikGrammar.BODY);
@@ -253,9 +265,9 @@ public class CompletionProvider {
    * @param magikFile MagikFile.
    * @param tokenNode Token node.
    * @param tokenValue Token value.
-   * @return List with {@link CompletionItem}s.
+   * @return {@link CompletionList}, incomplete if the number of items was capped.
    */
-  private List<CompletionItem> provideMethodInvocationCompletion(
+  private CompletionList provideMethodInvocationCompletion(
       final MagikTypedFile magikFile, final AstNode tokenNode, final String tokenValue) {
     // Token -->
     // - parent: any --> parent: ATOM
@@ -273,7 +285,7 @@ public class CompletionProvider {
       // Asking the previous invocation.
       wantedNode = parentNode.getPreviousSibling();
     } else {
-      return Collections.emptyList();
+      return new CompletionList(Collections.emptyList());
     }
 
     final LocalTypeReasonerState reasonerState = magikFile.getTypeReasonerState();
@@ -285,26 +297,96 @@ public class CompletionProvider {
       typeStr = helper.getTypeString();
     }
 
-    // Convert all known methods to CompletionItems.
+    // Convert the best matching methods to lightweight CompletionItems, details are resolved later.
     LOGGER.debug("Providing method completions for type: {}", typeStr.getFullString());
     final String methodNamePart = tokenValue.startsWith(".") ? tokenValue.substring(1) : tokenValue;
     final TypeStringResolver resolver = magikFile.getTypeStringResolver();
-    return resolver.getMethodDefinitions(typeStr).stream()
-        .filter(methodDef -> methodDef.getMethodName().contains(methodNamePart))
-        .map(
+    final int maxItems = MagikSettings.INSTANCE.getCompletionMaxItems();
+    final List<MethodDefinition> methodDefs =
+        resolver.getMethodDefinitions(typeStr).stream()
+            .filter(methodDef -> methodDef.getMethodName().contains(methodNamePart))
+            .sorted(CompletionProvider.methodDefinitionRanking(methodNamePart))
+            .limit(maxItems + 1L)
+            .toList();
+    final boolean isIncomplete = methodDefs.size() > maxItems;
+    final List<CompletionItem> items =
+        IntStream.range(0, Math.min(methodDefs.size(), maxItems))
+            .mapToObj(index -> this.createMethodCompletionItem(methodDefs.get(index), index))
+            .toList();
+    return new CompletionList(isIncomplete, items);
+  }
+
+  /**
+   * Get a {@link Comparator} which ranks method definitions, prefix matches go first.
+   *
+   * @param methodNamePart Part of the method name typed so far.
+   * @return Comparator.
+   */
+  private static Comparator<MethodDefinition> methodDefinitionRanking(final String methodNamePart) {
+    final Comparator<MethodDefinition> prefixFirst =
+        Comparator.comparing(methodDef -> !methodDef.getMethodName().startsWith(methodNamePart));
+    return prefixFirst
+        .thenComparing(MethodDefinition::getMethodName)
+        .thenComparing(methodDef -> methodDef.getTypeName().getFullString());
+  }
+
+  /**
+   * Create a lightweight {@link CompletionItem} for a method definition. The detail and
+   * documentation are filled in by {@link #resolveCompletionItem}.
+   *
+   * @param methodDef Method definition.
+   * @param rank Rank of the item.
+   * @return Completion item.
+   */
+  private CompletionItem createMethodCompletionItem(
+      final MethodDefinition methodDef, final int rank) {
+    final String methodName = methodDef.getMethodNameWithParameters();
+    final CompletionItem item = new CompletionItem(methodName);
+    item.setInsertText(methodName);
+    item.setKind(CompletionItemKind.Method);
+    item.setSortText(String.format("%06d", rank));
+    if (methodDef.getTopics().contains(TOPIC_DEPRECATED)) {
+      item.setTags(List.of(CompletionItemTag.Deprecated));
+    }
+
+    final TypeString typeName = methodDef.getTypeName();
+    final JsonObject data = new JsonObject();
+    data.addProperty(DATA_PACKAGE, typeName.getPakkage());
+    data.addProperty(DATA_IDENTIFIER, typeName.getIdentifier());
+    data.addProperty(DATA_METHOD_NAME, methodDef.getMethodName());
+    item.setData(data);
+    return item;
+  }
+
+  /**
+   * Resolve a {@link CompletionItem}, filling in the detail and documentation.
+   *
+   * @param definitionKeeper Definition keeper to get the definition from.
+   * @param item Item to resolve.
+   * @return Resolved item.
+   */
+  public CompletionItem resolveCompletionItem(
+      final IDefinitionKeeper definitionKeeper, final CompletionItem item) {
+    if (!(item.getData() instanceof JsonObject data)
+        || !data.has(DATA_PACKAGE)
+        || !data.has(DATA_IDENTIFIER)
+        || !data.has(DATA_METHOD_NAME)) {
+      return item;
+    }
+
+    final TypeString typeName =
+        TypeString.ofIdentifier(
+            data.get(DATA_IDENTIFIER).getAsString(), data.get(DATA_PACKAGE).getAsString());
+    final String methodName = data.get(DATA_METHOD_NAME).getAsString();
+    definitionKeeper.getMethodDefinitions(typeName).stream()
+        .filter(methodDef -> methodDef.getMethodName().equals(methodName))
+        .findAny()
+        .ifPresent(
             methodDef -> {
-              final String methodName = methodDef.getMethodNameWithParameters();
-              final CompletionItem item = new CompletionItem(methodName);
-              item.setInsertText(methodName);
               item.setDetail(methodDef.getTypeName().getFullString());
               item.setDocumentation(methodDef.getDoc());
-              item.setKind(CompletionItemKind.Method);
-              if (methodDef.getTopics().contains(TOPIC_DEPRECATED)) {
-                item.setTags(List.of(CompletionItemTag.Deprecated));
-              }
-              return item;
-            })
-        .toList();
+            });
+    return item;
   }
 
   /**
@@ -394,8 +476,8 @@ public class CompletionProvider {
       final MagikTypedFile magikFile, final Position position) {
     MagikTypedFile newMagikFile = magikFile;
 
-    final AstNode node = magikFile.getTopNode();
-    final AstNode tokenNode = AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+    final AstNode tokenNode =
+        magikFile.getPositionIndex().nodeAt(Lsp4jConversion.positionFromLsp4j(position));
     String cleanedToken = "";
     if (tokenNode != null
         && tokenNode.getParent() != null
@@ -51,8 +51,7 @@ public class DefinitionsProvider {
    */
   public List<Location> provideDefinitions(
       final ProductDefFile productDefFile, final Position position) {
-    final AstNode node = productDefFile.getTopNode();
-    final AstNode hoveredTokenNode = AstQuery.nodeAt(node, position);
+    final AstNode hoveredTokenNode = productDefFile.getPositionIndex().nodeAt(position);
     if (hoveredTokenNode == null) {
       return Collections.emptyList();
     }
@@ -78,8 +77,7 @@ public class DefinitionsProvider {
    */
   public List<Location> provideDefinitions(
       final ModuleDefFile moduleDefFile, final Position position) {
-    final AstNode node = moduleDefFile.getTopNode();
-    final AstNode hoveredTokenNode = AstQuery.nodeAt(node, position);
+    final AstNode hoveredTokenNode = moduleDefFile.getPositionIndex().nodeAt(position);
     if (hoveredTokenNode == null) {
       return Collections.emptyList();
     }
@@ -106,8 +104,8 @@ public class DefinitionsProvider {
   public List<Location> provideDefinitions(
       final MagikTypedFile magikFile, final Position position) {
     // Should always be on an identifier.
-    final AstNode node = magikFile.getTopNode();
-    final AstNode currentNode = AstQuery.nodeAt(node, position, MagikGrammar.IDENTIFIER);
+    final AstNode currentNode =
+        magikFile.getPositionIndex().nodeAt(position, MagikGrammar.IDENTIFIER);
     if (currentNode == null) {
       return Collections.emptyList();
     }
@@ -65,9 +65,8 @@ public class HoverProvider {
    */
   @SuppressWarnings("java:S3776")
   public Hover provideHover(final ProductDefFile productDefFile, final Position position) {
-    final AstNode node = productDefFile.getTopNode();
     final AstNode hoveredTokenNode =
-        AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+        productDefFile.getPositionIndex().nodeAt(Lsp4jConversion.positionFromLsp4j(position));
     if (hoveredTokenNode == null) {
       return null;
     }
@@ -103,9 +102,8 @@ public class HoverProvider {
    */
   @SuppressWarnings("java:S3776")
   public Hover provideHover(final ModuleDefFile moduleDefFile, final Position position) {
-    final AstNode node = moduleDefFile.getTopNode();
     final AstNode hoveredTokenNode =
-        AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+        moduleDefFile.getPositionIndex().nodeAt(Lsp4jConversion.positionFromLsp4j(position));
     if (hoveredTokenNode == null) {
       return null;
     }
@@ -141,10 +139,8 @@ public class HoverProvider {
    */
   @SuppressWarnings("java:S3776")
   public Hover provideHover(final MagikTypedFile magikFile, final Position position) {
-    // Parse and reason magik.
-    final AstNode node = magikFile.getTopNode();
     final AstNode hoveredTokenNode =
-        AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+        magikFile.getPositionIndex().nodeAt(Lsp4jConversion.positionFromLsp4j(position));
     if (hoveredTokenNode == null) {
       return null;
     }
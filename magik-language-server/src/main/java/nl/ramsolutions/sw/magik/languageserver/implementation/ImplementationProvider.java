@@ -6,7 +6,6 @@ import java.util.List;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Position;
-import nl.ramsolutions.sw.magik.analysis.AstQuery;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
@@ -36,8 +35,8 @@ public class ImplementationProvider {
    */
   public List<Location> provideImplementations(
       final MagikTypedFile magikFile, final Position position) {
-    final AstNode node = magikFile.getTopNode();
-    final AstNode currentNode = AstQuery.nodeAt(node, position, MagikGrammar.IDENTIFIER);
+    final AstNode currentNode =
+        magikFile.getPositionIndex().nodeAt(position, MagikGrammar.IDENTIFIER);
     if (currentNode == null) {
       return Collections.emptyList();
     }
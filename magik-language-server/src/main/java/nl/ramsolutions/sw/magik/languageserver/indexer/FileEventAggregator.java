@@ -0,0 +1,203 @@
+package nl.ramsolutions.sw.magik.languageserver.indexer;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import nl.ramsolutions.sw.magik.FileEvent;
+import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates {@link FileEvent}s over a time window.
+ *
+ * <p>Events for the same URI are coalesced into a single event. When the window closes, the batch
+ * is ordered (ignore files, product/module definitions, others) and handed to the batch handler.
+ * Batches are handled one at a time, on a single background thread.
+ */
+public class FileEventAggregator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileEventAggregator.class);
+  private static final long DEFAULT_WINDOW_MILLIS = 250;
+  private static final String IGNORE_FILENAME = ".magik-tools-ignore";
+  private static final String PRODUCT_DEF_FILENAME = "product.def";
+  private static final String MODULE_DEF_FILENAME = "module.def";
+  private static final String MAGIK_EXTENSION = ".magik";
+
+  private final Consumer<List<FileEvent>> batchHandler;
+  private final long windowMillis;
+  private final ScheduledExecutorService executor;
+  private final Map<URI, FileEvent> pendingEvents = new LinkedHashMap<>();
+  private ScheduledFuture<?> scheduledFlush;
+
+  /**
+   * Constructor.
+   *
+   * @param batchHandler Handler for aggregated batches.
+   */
+  public FileEventAggregator(final Consumer<List<FileEvent>> batchHandler) {
+    this(batchHandler, DEFAULT_WINDOW_MILLIS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param batchHandler Handler for aggregated batches.
+   * @param windowMillis Time window to aggregate events over, in milliseconds.
+   */
+  public FileEventAggregator(
+      final Consumer<List<FileEvent>> batchHandler, final long windowMillis) {
+    this.batchHandler = batchHandler;
+    this.windowMillis = windowMillis;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "magik-file-event-aggregator");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Add a {@link FileEvent}. Starts the time window, if not already started.
+   *
+   * @param fileEvent Event to add.
+   */
+  public synchronized void add(final FileEvent fileEvent) {
+    final URI uri = fileEvent.getUri();
+    final FileEvent previousEvent = this.pendingEvents.remove(uri);
+    final FileEvent coalescedEvent = FileEventAggregator.coalesce(previousEvent, fileEvent);
+    this.pendingEvents.put(uri, coalescedEvent);
+
+    if (this.scheduledFlush == null) {
+      this.scheduledFlush =
+          this.executor.schedule(this::flush, this.windowMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Get the number of pending events.
+   *
+   * @return Number of pending events.
+   */
+  public synchronized int getPendingCount() {
+    return this.pendingEvents.size();
+  }
+
+  /** Flush the pending events to the batch handler. */
+  @SuppressWarnings("checkstyle:IllegalCatch")
+  public void flush() {
+    final List<FileEvent> batch;
+    synchronized (this) {
+      batch = FileEventAggregator.order(this.pendingEvents.values());
+      this.pendingEvents.clear();
+      this.scheduledFlush = null;
+    }
+
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    LOGGER.debug("Handling batch of {} file events", batch.size());
+    try {
+      this.batchHandler.accept(batch);
+    } catch (final Exception exception) {
+      LOGGER.error(exception.getMessage(), exception);
+    }
+  }
+
+  /** Shutdown, dropping any pending events. */
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Coalesce two events for the same URI. A deletion always wins, a creation followed by a change
+   * stays a creation.
+   *
+   * @param previousEvent Previous event, if any.
+   * @param nextEvent Next event.
+   * @return Coalesced event.
+   */
+  static FileEvent coalesce(final @Nullable FileEvent previousEvent, final FileEvent nextEvent) {
+    if (previousEvent == null
+        || nextEvent.getFileChangeType() == FileChangeType.DELETED
+        || previousEvent.getFileChangeType() != FileChangeType.CREATED) {
+      return nextEvent;
+    }
+
+    return new FileEvent(nextEvent.getUri(), FileChangeType.CREATED);
+  }
+
+  /**
+   * Order events: ignore files first, then product/module definitions, then others. The original
+   * order is kept within each group.
+   *
+   * @param fileEvents Events to order.
+   * @return Ordered events.
+   */
+  static List<FileEvent> order(final Iterable<FileEvent> fileEvents) {
+    final List<FileEvent> events = new ArrayList<>();
+    fileEvents.forEach(events::add);
+    events.sort(Comparator.comparingInt(FileEventAggregator::rank));
+    return events;
+  }
+
+  private static int rank(final FileEvent fileEvent) {
+    final Path path = Path.of(fileEvent.getUri());
+    if (FileEventAggregator.isIgnoreFile(path)) {
+      return 0;
+    } else if (FileEventAggregator.isDefinitionFile(path)) {
+      return 1;
+    }
+
+    return 2;
+  }
+
+  /**
+   * Test if path is a {@literal .magik-tools-ignore} file.
+   *
+   * @param path Path to test.
+   * @return True if it is, false otherwise.
+   */
+  public static boolean isIgnoreFile(final Path path) {
+    return FileEventAggregator.filenameOf(path).equalsIgnoreCase(IGNORE_FILENAME);
+  }
+
+  /**
+   * Test if path is a {@literal product.def} or {@literal module.def} file.
+   *
+   * @param path Path to test.
+   * @return True if it is, false otherwise.
+   */
+  public static boolean isDefinitionFile(final Path path) {
+    final String filename = FileEventAggregator.filenameOf(path);
+    return filename.equalsIgnoreCase(PRODUCT_DEF_FILENAME)
+        || filename.equalsIgnoreCase(MODULE_DEF_FILENAME);
+  }
+
+  /**
+   * Test if path is a {@literal .magik} file.
+   *
+   * @param path Path to test.
+   * @return True if it is, false otherwise.
+   */
+  public static boolean isMagikFile(final Path path) {
+    return FileEventAggregator.filenameOf(path).toLowerCase().endsWith(MAGIK_EXTENSION);
+  }
+
+  private static String filenameOf(final Path path) {
+    final Path filename = path.getFileName();
+    return filename != null ? filename.toString() : "";
+  }
+}
@@ -0,0 +1,189 @@
+package nl.ramsolutions.sw.magik.languageserver.indexer;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Prioritized queue of files to index.
+ *
+ * <p>Files of opened documents go first, then files in the modules of opened documents, then files
+ * in the products of opened documents, then the rest. Within a priority, files keep the order in
+ * which they were enqueued. The queue is re-prioritized when a document is opened or closed.
+ */
+public class IndexQueue {
+
+  private static final String MODULE_DEF = "module.def";
+  private static final String PRODUCT_DEF = "product.def";
+  private static final int PRIORITY_OPENED = 0;
+  private static final int PRIORITY_MODULE = 1;
+  private static final int PRIORITY_PRODUCT = 2;
+  private static final int PRIORITY_OTHER = 3;
+
+  private final Set<Path> openedPaths = ConcurrentHashMap.newKeySet();
+
+  /** Queued paths, in order of priority. */
+  private final List<QueuedPath> queuedPaths = new ArrayList<>();
+
+  private long enqueuedCount;
+  private boolean needsPrioritizing;
+
+  /**
+   * Register an opened document, re-prioritizing the queue.
+   *
+   * @param uri URI of the opened document.
+   */
+  public void opened(final URI uri) {
+    final Path path = IndexQueue.toPath(uri);
+    if (path == null) {
+      return;
+    }
+
+    this.openedPaths.add(path);
+    synchronized (this) {
+      this.needsPrioritizing = true;
+    }
+  }
+
+  /**
+   * Unregister a closed document, re-prioritizing the queue.
+   *
+   * @param uri URI of the closed document.
+   */
+  public void closed(final URI uri) {
+    final Path path = IndexQueue.toPath(uri);
+    if (path == null) {
+      return;
+    }
+
+    this.openedPaths.remove(path);
+    synchronized (this) {
+      this.needsPrioritizing = true;
+    }
+  }
+
+  /**
+   * Add paths to the queue.
+   *
+   * @param paths Paths to add.
+   */
+  public synchronized void enqueue(final Collection<Path> paths) {
+    paths.forEach(path -> this.queuedPaths.add(new QueuedPath(path, this.enqueuedCount++)));
+    this.needsPrioritizing = true;
+  }
+
+  /**
+   * Take at most {@code maxCount} paths with the highest priority from the queue.
+   *
+   * @param maxCount Maximum number of paths to take.
+   * @return Paths, highest priority first.
+   */
+  public synchronized List<Path> poll(final int maxCount) {
+    if (this.needsPrioritizing) {
+      this.prioritize();
+    }
+
+    final List<QueuedPath> head =
+        this.queuedPaths.subList(0, Math.min(maxCount, this.queuedPaths.size()));
+    final List<Path> paths = head.stream().map(queuedPath -> queuedPath.path).toList();
+    head.clear();
+    return paths;
+  }
+
+  /**
+   * Get the number of queued paths.
+   *
+   * @return Number of queued paths.
+   */
+  public synchronized int size() {
+    return this.queuedPaths.size();
+  }
+
+  /** Clear the queue. */
+  public synchronized void clear() {
+    this.queuedPaths.clear();
+  }
+
+  private void prioritize() {
+    final Set<Path> moduleDirs = this.getOpenedAncestorDirs(MODULE_DEF);
+    final Set<Path> productDirs = this.getOpenedAncestorDirs(PRODUCT_DEF);
+    final Map<Path, Integer> priorities = new HashMap<>();
+    this.queuedPaths.forEach(
+        queuedPath ->
+            priorities.computeIfAbsent(
+                queuedPath.path, path -> this.getPriority(path, moduleDirs, productDirs)));
+
+    // Keep the enqueued order within a priority.
+    final Comparator<QueuedPath> byPriority =
+        Comparator.comparing(queuedPath -> priorities.get(queuedPath.path));
+    this.queuedPaths.sort(byPriority.thenComparingLong(queuedPath -> queuedPath.order));
+    this.needsPrioritizing = false;
+  }
+
+  private int getPriority(
+      final Path path, final Set<Path> moduleDirs, final Set<Path> productDirs) {
+    if (this.openedPaths.contains(path)) {
+      return PRIORITY_OPENED;
+    } else if (IndexQueue.isBelowAny(path, moduleDirs)) {
+      return PRIORITY_MODULE;
+    } else if (IndexQueue.isBelowAny(path, productDirs)) {
+      return PRIORITY_PRODUCT;
+    }
+
+    return PRIORITY_OTHER;
+  }
+
+  private Set<Path> getOpenedAncestorDirs(final String filename) {
+    return this.openedPaths.stream()
+        .map(path -> IndexQueue.findAncestorDirWith(path, filename))
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+  }
+
+  private static boolean isBelowAny(final Path path, final Set<Path> dirs) {
+    return dirs.stream().anyMatch(path::startsWith);
+  }
+
+  @CheckForNull
+  private static Path findAncestorDirWith(final Path path, final String filename) {
+    for (Path dir = path.getParent(); dir != null; dir = dir.getParent()) {
+      if (Files.isRegularFile(dir.resolve(filename))) {
+        return dir;
+      }
+    }
+
+    return null;
+  }
+
+  @CheckForNull
+  private static Path toPath(final URI uri) {
+    if (!"file".equals(uri.getScheme())) {
+      return null;
+    }
+
+    return Path.of(uri).toAbsolutePath();
+  }
+
+  /** Queued path, with the order in which it was enqueued. */
+  private static final class QueuedPath {
+
+    private final Path path;
+    private final long order;
+
+    QueuedPath(final Path path, final long order) {
+      this.path = path;
+      this.order = order;
+    }
+  }
+}
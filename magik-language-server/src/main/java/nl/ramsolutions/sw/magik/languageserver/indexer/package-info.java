@@ -0,0 +1,4 @@
+/** Defaults. */
+@edu.umd.cs.findbugs.annotations.DefaultAnnotationForParameters(
+    edu.umd.cs.findbugs.annotations.NonNull.class)
+package nl.ramsolutions.sw.magik.languageserver.indexer;
@@ -0,0 +1,90 @@
+package nl.ramsolutions.sw.magik.languageserver.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram.
+ *
+ * <p>Durations are stored in logarithmic buckets, four per power of two microseconds, giving
+ * percentiles with an error of at most ~19%.
+ */
+public class LatencyHistogram {
+
+  private static final int BUCKETS_PER_POWER = 4;
+  private static final int BUCKET_COUNT = 32 * BUCKETS_PER_POWER;
+  private static final double LOG_2 = Math.log(2);
+  private static final double NANOS_PER_MICRO = 1_000.0;
+  private static final double MICROS_PER_MILLI = 1_000.0;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  /**
+   * Record a duration.
+   *
+   * @param nanos Duration in nanoseconds.
+   */
+  public void record(final long nanos) {
+    final double micros = Math.max(1.0, nanos / NANOS_PER_MICRO);
+    final int index =
+        Math.min(BUCKET_COUNT - 1, (int) (Math.log(micros) / LOG_2 * BUCKETS_PER_POWER));
+    this.buckets.incrementAndGet(index);
+    this.count.increment();
+    this.totalNanos.add(nanos);
+  }
+
+  /**
+   * Get the number of recorded durations.
+   *
+   * @return Number of recorded durations.
+   */
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  /**
+   * Get the mean of the recorded durations.
+   *
+   * @return Mean duration in milliseconds.
+   */
+  public double getMean() {
+    final long currentCount = this.count.sum();
+    if (currentCount == 0) {
+      return 0.0;
+    }
+
+    return this.totalNanos.sum() / NANOS_PER_MICRO / MICROS_PER_MILLI / currentCount;
+  }
+
+  /**
+   * Get the (upper bound of the) percentile of the recorded durations.
+   *
+   * @param percentile Percentile, between 0.0 and 1.0.
+   * @return Duration in milliseconds.
+   */
+  public double getPercentile(final double percentile) {
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; ++i) {
+      total += this.buckets.get(i);
+    }
+    if (total == 0) {
+      return 0.0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(percentile * total));
+    long seen = 0;
+    int index = 0;
+    while (index < BUCKET_COUNT - 1) {
+      seen += this.buckets.get(index);
+      if (seen >= rank) {
+        break;
+      }
+      index++;
+    }
+
+    final double upperBoundMicros = Math.pow(2, (index + 1) / (double) BUCKETS_PER_POWER);
+    return upperBoundMicros / MICROS_PER_MILLI;
+  }
+}
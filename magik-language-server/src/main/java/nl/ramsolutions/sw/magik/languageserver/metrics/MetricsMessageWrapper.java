@@ -0,0 +1,70 @@
+package nl.ramsolutions.sw.magik.languageserver.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.RequestMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseMessage;
+
+/**
+ * Message wrapper which measures the latency of incoming requests and notifications.
+ *
+ * <p>Requests are measured from receiving the request until sending the response. Notifications are
+ * handled synchronously, and are measured by the time it takes to consume them.
+ */
+public class MetricsMessageWrapper implements Function<MessageConsumer, MessageConsumer> {
+
+  private final ServerMetrics metrics;
+
+  /** Method and start time of pending requests, keyed by request id. */
+  private final Map<String, Map.Entry<String, Long>> pendingRequests = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param metrics {@link ServerMetrics} to record to.
+   */
+  public MetricsMessageWrapper(final ServerMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public MessageConsumer apply(final MessageConsumer consumer) {
+    if (consumer instanceof RemoteEndpoint) {
+      return message -> this.consumeIncoming(consumer, message);
+    }
+
+    return message -> this.consumeOutgoing(consumer, message);
+  }
+
+  private void consumeIncoming(final MessageConsumer consumer, final Message message) {
+    final long start = System.nanoTime();
+    if (message instanceof RequestMessage requestMessage) {
+      this.pendingRequests.put(
+          requestMessage.getId(), Map.entry(requestMessage.getMethod(), start));
+      consumer.consume(message);
+    } else if (message instanceof NotificationMessage notificationMessage) {
+      consumer.consume(message);
+      this.metrics.recordRequest(notificationMessage.getMethod(), System.nanoTime() - start);
+    } else {
+      consumer.consume(message);
+    }
+  }
+
+  private void consumeOutgoing(final MessageConsumer consumer, final Message message) {
+    if (message instanceof ResponseMessage responseMessage && responseMessage.getId() != null) {
+      final Map.Entry<String, Long> pendingRequest =
+          this.pendingRequests.remove(responseMessage.getId());
+      if (pendingRequest != null) {
+        this.metrics.recordRequest(
+            pendingRequest.getKey(), System.nanoTime() - pendingRequest.getValue());
+      }
+    }
+
+    consumer.consume(message);
+  }
+}
@@ -0,0 +1,210 @@
+package nl.ramsolutions.sw.magik.languageserver.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency and throughput metrics of the language server.
+ *
+ * <p>Exposed through the {@code custom/metrics} request and as a JMX MBean.
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+
+  /** Name under which the MBean is registered. */
+  public static final String OBJECT_NAME = "nl.ramsolutions.sw.magik.languageserver:type=Metrics";
+
+  /** File analysis phase: parsing. */
+  public static final String PHASE_PARSE = "parse";
+
+  /** File analysis phase: type reasoning. */
+  public static final String PHASE_REASON = "reason";
+
+  /** File analysis phase: running checks. */
+  public static final String PHASE_CHECK = "check";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServerMetrics.class);
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+  private static final Map<String, Double> PERCENTILES =
+      Map.of("p50", 0.50, "p95", 0.95, "p99", 0.99);
+
+  private final Map<String, LatencyHistogram> requestLatencies = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> fileAnalysisLatencies = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> cacheHits = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> cacheMisses = new ConcurrentHashMap<>();
+  private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+  private final LongAdder indexedFiles = new LongAdder();
+  private final LongAdder indexingNanos = new LongAdder();
+
+  /**
+   * Record the duration of handling a request or notification.
+   *
+   * @param method JSON-RPC method.
+   * @param nanos Duration in nanoseconds.
+   */
+  public void recordRequest(final String method, final long nanos) {
+    this.requestLatencies.computeIfAbsent(method, key -> new LatencyHistogram()).record(nanos);
+  }
+
+  /**
+   * Record the duration of a file analysis phase.
+   *
+   * @param phase Phase, one of {@link #PHASE_PARSE}, {@link #PHASE_REASON}, {@link #PHASE_CHECK}.
+   * @param nanos Duration in nanoseconds.
+   */
+  public void recordFileAnalysis(final String phase, final long nanos) {
+    this.fileAnalysisLatencies.computeIfAbsent(phase, key -> new LatencyHistogram()).record(nanos);
+  }
+
+  /**
+   * Record indexed files.
+   *
+   * @param fileCount Number of indexed files.
+   * @param nanos Duration of indexing in nanoseconds.
+   */
+  public void recordIndexed(final int fileCount, final long nanos) {
+    this.indexedFiles.add(fileCount);
+    this.indexingNanos.add(nanos);
+  }
+
+  /**
+   * Record cache lookups.
+   *
+   * @param cache Name of the cache.
+   * @param hits Number of hits.
+   * @param misses Number of misses.
+   */
+  public void recordCacheLookups(final String cache, final long hits, final long misses) {
+    this.cacheHits.computeIfAbsent(cache, key -> new LongAdder()).add(hits);
+    this.cacheMisses.computeIfAbsent(cache, key -> new LongAdder()).add(misses);
+  }
+
+  /**
+   * Register a gauge, such as a queue depth, which is sampled when the metrics are read.
+   *
+   * @param name Name of the gauge.
+   * @param supplier Supplier of the current value.
+   */
+  public void registerGauge(final String name, final LongSupplier supplier) {
+    this.gauges.put(name, supplier);
+  }
+
+  /** Register this as a MBean at the platform {@link MBeanServer}. */
+  public void registerMBean() {
+    final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      final ObjectName objectName = new ObjectName(OBJECT_NAME);
+      if (!mbeanServer.isRegistered(objectName)) {
+        mbeanServer.registerMBean(this, objectName);
+      }
+    } catch (final JMException exception) {
+      LOGGER.warn("Unable to register metrics MBean: {}", exception.getMessage());
+    }
+  }
+
+  @Override
+  public Map<String, Double> getRequestLatencies() {
+    return ServerMetrics.flattenPercentiles(this.requestLatencies);
+  }
+
+  @Override
+  public Map<String, Double> getFileAnalysisLatencies() {
+    return ServerMetrics.flattenPercentiles(this.fileAnalysisLatencies);
+  }
+
+  @Override
+  public long getIndexedFiles() {
+    return this.indexedFiles.sum();
+  }
+
+  @Override
+  public double getIndexedFilesPerSecond() {
+    final long nanos = this.indexingNanos.sum();
+    if (nanos == 0) {
+      return 0.0;
+    }
+
+    return this.indexedFiles.sum() / (nanos / NANOS_PER_SECOND);
+  }
+
+  @Override
+  public Map<String, Double> getCacheHitRatios() {
+    final Map<String, Double> ratios = new TreeMap<>();
+    this.cacheHits.forEach(
+        (cache, hits) -> {
+          final long hitCount = hits.sum();
+          final LongAdder misses = this.cacheMisses.get(cache);
+          final long missCount = misses != null ? misses.sum() : 0;
+          final long total = hitCount + missCount;
+          ratios.put(cache, total != 0 ? (double) hitCount / total : 0.0);
+        });
+    return ratios;
+  }
+
+  @Override
+  public Map<String, Long> getGauges() {
+    final Map<String, Long> values = new TreeMap<>();
+    this.gauges.forEach((name, supplier) -> values.put(name, supplier.getAsLong()));
+    return values;
+  }
+
+  @Override
+  public long getHeapUsed() {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Get a snapshot of all metrics, suitable for serializing to JSON.
+   *
+   * @return Snapshot of all metrics.
+   */
+  public Map<String, Object> getSnapshot() {
+    final Map<String, Object> indexer = new LinkedHashMap<>();
+    indexer.put("files", this.getIndexedFiles());
+    indexer.put("filesPerSecond", this.getIndexedFilesPerSecond());
+
+    final Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("requests", ServerMetrics.summarize(this.requestLatencies));
+    snapshot.put("fileAnalysis", ServerMetrics.summarize(this.fileAnalysisLatencies));
+    snapshot.put("indexer", indexer);
+    snapshot.put("cacheHitRatios", this.getCacheHitRatios());
+    snapshot.put("gauges", this.getGauges());
+    snapshot.put("heapUsed", this.getHeapUsed());
+    return snapshot;
+  }
+
+  private static Map<String, Map<String, Object>> summarize(
+      final Map<String, LatencyHistogram> histograms) {
+    final Map<String, Map<String, Object>> summaries = new TreeMap<>();
+    histograms.forEach(
+        (name, histogram) -> {
+          final Map<String, Object> summary = new LinkedHashMap<>();
+          summary.put("count", histogram.getCount());
+          summary.put("mean", histogram.getMean());
+          new TreeMap<>(PERCENTILES)
+              .forEach((key, percentile) -> summary.put(key, histogram.getPercentile(percentile)));
+          summaries.put(name, summary);
+        });
+    return summaries;
+  }
+
+  private static Map<String, Double> flattenPercentiles(
+      final Map<String, LatencyHistogram> histograms) {
+    final Map<String, Double> values = new TreeMap<>();
+    histograms.forEach(
+        (name, histogram) ->
+            PERCENTILES.forEach(
+                (key, percentile) ->
+                    values.put(name + " " + key, histogram.getPercentile(percentile))));
+    return values;
+  }
+}
@@ -0,0 +1,56 @@
+package nl.ramsolutions.sw.magik.languageserver.metrics;
+
+import java.util.Map;
+
+/** JMX view on the {@link ServerMetrics}. */
+public interface ServerMetricsMXBean {
+
+  /**
+   * Get the latency percentiles per request type, keyed by {@code <method> <percentile>}.
+   *
+   * @return Latencies in milliseconds.
+   */
+  Map<String, Double> getRequestLatencies();
+
+  /**
+   * Get the latency percentiles per file analysis phase, keyed by {@code <phase> <percentile>}.
+   *
+   * @return Latencies in milliseconds.
+   */
+  Map<String, Double> getFileAnalysisLatencies();
+
+  /**
+   * Get the number of indexed files.
+   *
+   * @return Number of indexed files.
+   */
+  long getIndexedFiles();
+
+  /**
+   * Get the indexer throughput.
+   *
+   * @return Indexed files per second.
+   */
+  double getIndexedFilesPerSecond();
+
+  /**
+   * Get the hit ratio per cache.
+   *
+   * @return Hit ratios, between 0.0 and 1.0.
+   */
+  Map<String, Double> getCacheHitRatios();
+
+  /**
+   * Get the current values of the gauges, such as queue depths.
+   *
+   * @return Gauge values.
+   */
+  Map<String, Long> getGauges();
+
+  /**
+   * Get the used heap memory.
+   *
+   * @return Used heap memory in bytes.
+   */
+  long getHeapUsed();
+}
@@ -61,8 +61,7 @@ public class ReferencesProvider {
   @SuppressWarnings("checkstyle:NestedIfDepth")
   public List<Location> provideReferences(
       final ProductDefFile productDefFile, final Position position) {
-    final AstNode node = productDefFile.getTopNode();
-    final AstNode hoveredTokenNode = AstQuery.nodeAt(node, position);
+    final AstNode hoveredTokenNode = productDefFile.getPositionIndex().nodeAt(position);
     if (hoveredTokenNode == null) {
       return Collections.emptyList();
     }
@@ -91,8 +90,7 @@ public class ReferencesProvider {
   @SuppressWarnings("checkstyle:NestedIfDepth")
   public List<Location> provideReferences(
       final ModuleDefFile moduleDefFile, final Position position) {
-    final AstNode node = moduleDefFile.getTopNode();
-    final AstNode hoveredTokenNode = AstQuery.nodeAt(node, position);
+    final AstNode hoveredTokenNode = moduleDefFile.getPositionIndex().nodeAt(position);
     if (hoveredTokenNode == null) {
       return Collections.emptyList();
     }
@@ -125,7 +123,8 @@ public class ReferencesProvider {
     final IDefinitionKeeper definitionKeeper = magikFile.getDefinitionKeeper();
 
     // Should always be on an identifier.
-    final AstNode currentNode = AstQuery.nodeAt(node, position, MagikGrammar.IDENTIFIER);
+    final AstNode currentNode =
+        magikFile.getPositionIndex().nodeAt(position, MagikGrammar.IDENTIFIER);
     if (currentNode == null) {
       return Collections.emptyList();
     }
@@ -7,7 +7,6 @@ import java.util.Map;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.Range;
-import nl.ramsolutions.sw.magik.analysis.AstQuery;
 import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
 import nl.ramsolutions.sw.magik.analysis.scope.Scope;
 import nl.ramsolutions.sw.magik.analysis.scope.ScopeEntry;
@@ -45,13 +44,11 @@ public class RenameProvider {
    */
   public Either3<org.eclipse.lsp4j.Range, PrepareRenameResult, PrepareRenameDefaultBehavior>
       providePrepareRename(final MagikTypedFile magikFile, final Position position) {
-    // Parse magik.
-    final AstNode topNode = magikFile.getTopNode();
-
     // Should always be on an identifier.
     final AstNode node =
-        AstQuery.nodeAt(
-            topNode, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
+        magikFile
+            .getPositionIndex()
+            .nodeAt(Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
     if (node == null) {
       return null;
     }
@@ -83,13 +80,11 @@ public class RenameProvider {
    */
   public WorkspaceEdit provideRename(
       final MagikTypedFile magikFile, final Position position, final String newName) {
-    // Parse magik.
-    final AstNode topNode = magikFile.getTopNode();
-
     // Should always be on an identifier.
     final AstNode node =
-        AstQuery.nodeAt(
-            topNode, Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
+        magikFile
+            .getPositionIndex()
+            .nodeAt(Lsp4jConversion.positionFromLsp4j(position), MagikGrammar.IDENTIFIER);
     if (node == null) {
       return null;
     }
@@ -4,7 +4,6 @@ import com.sonar.sslr.api.AstNode;
 import java.util.Collections;
 import java.util.List;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
-import nl.ramsolutions.sw.magik.analysis.AstQuery;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodInvocationNodeHelper;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
@@ -47,8 +46,8 @@ public class SignatureHelpProvider {
   public SignatureHelp provideSignatureHelp(
       final MagikTypedFile magikFile, final Position position) {
     // Get intended method and called type.
-    final AstNode node = magikFile.getTopNode();
-    AstNode currentNode = AstQuery.nodeAt(node, Lsp4jConversion.positionFromLsp4j(position));
+    AstNode currentNode =
+        magikFile.getPositionIndex().nodeAt(Lsp4jConversion.positionFromLsp4j(position));
     if (currentNode != null && currentNode.isNot(MagikGrammar.METHOD_INVOCATION)) {
       currentNode = currentNode.getFirstAncestor(MagikGrammar.METHOD_INVOCATION);
     }
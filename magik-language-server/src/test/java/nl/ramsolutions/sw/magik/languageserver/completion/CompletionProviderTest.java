@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
@@ -17,8 +18,10 @@ import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
 import nl.ramsolutions.sw.magik.api.MagikKeyword;
+import nl.ramsolutions.sw.magik.languageserver.MagikSettings;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
+import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.Position;
 import org.junit.jupiter.api.Test;
 
@@ -32,7 +35,14 @@ class CompletionProviderTest {
       final String code, final IDefinitionKeeper definitionKeeper, final Position position) {
     final MagikTypedFile magikFile = new MagikTypedFile(DEFAULT_URI, code, definitionKeeper);
     final CompletionProvider provider = new CompletionProvider();
-    return provider.provideCompletions(magikFile, position);
+    final CompletionList completionList = provider.provideCompletions(magikFile, position);
+    return completionList.getItems();
+  }
+
+  private CompletionItem resolve(
+      final IDefinitionKeeper definitionKeeper, final CompletionItem item) {
+    final CompletionProvider provider = new CompletionProvider();
+    return provider.resolveCompletionItem(definitionKeeper, item);
   }
 
   private List<CompletionItem> getCompletions(final String code, final Position position) {
@@ -88,7 +98,10 @@ class CompletionProviderTest {
     assertThat(item.getKind()).isEqualTo(CompletionItemKind.Method);
     assertThat(item.getInsertText()).isEqualTo("find_me()");
     assertThat(item.getLabel()).isEqualTo("find_me()");
-    assertThat(item.getDetail()).isEqualTo("sw:integer");
+    assertThat(item.getDetail()).isNull();
+
+    final CompletionItem resolvedItem = this.resolve(definitionKeeper, item);
+    assertThat(resolvedItem.getDetail()).isEqualTo("sw:integer");
   }
 
   @Test
@@ -132,7 +145,10 @@ class CompletionProviderTest {
     assertThat(item.getKind()).isEqualTo(CompletionItemKind.Method);
     assertThat(item.getInsertText()).isEqualTo("find_me()");
     assertThat(item.getLabel()).isEqualTo("find_me()");
-    assertThat(item.getDetail()).isEqualTo("user:a");
+    assertThat(item.getDetail()).isNull();
+
+    final CompletionItem resolvedItem = this.resolve(definitionKeeper, item);
+    assertThat(resolvedItem.getDetail()).isEqualTo("user:a");
   }
 
   @Test
@@ -166,7 +182,10 @@ class CompletionProviderTest {
     assertThat(item.getKind()).isEqualTo(CompletionItemKind.Method);
     assertThat(item.getInsertText()).isEqualTo("find_me()");
     assertThat(item.getLabel()).isEqualTo("find_me()");
-    assertThat(item.getDetail()).isEqualTo("sw:integer");
+    assertThat(item.getDetail()).isNull();
+
+    final CompletionItem resolvedItem = this.resolve(definitionKeeper, item);
+    assertThat(resolvedItem.getDetail()).isEqualTo("sw:integer");
   }
 
   @Test
@@ -255,4 +274,39 @@ class CompletionProviderTest {
     final List<CompletionItem> completions = this.getCompletions(code, definitionKeeper, position);
     assertThat(completions).isEmpty();
   }
+
+  @Test
+  void testMethodCompletionCapped() {
+    final String code =
+        """
+        _method a.b
+            1.
+        _endmethod""";
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final int maxItems = MagikSettings.INSTANCE.getCompletionMaxItems();
+    IntStream.range(0, maxItems + 5)
+        .forEach(
+            index ->
+                definitionKeeper.add(
+                    new MethodDefinition(
+                        null,
+                        null,
+                        null,
+                        null,
+                        TypeString.SW_INTEGER,
+                        "m" + index + "()",
+                        Collections.emptySet(),
+                        Collections.emptyList(),
+                        null,
+                        Collections.emptySet(),
+                        ExpressionResultString.UNDEFINED,
+                        ExpressionResultString.EMPTY)));
+    final MagikTypedFile magikFile = new MagikTypedFile(DEFAULT_URI, code, definitionKeeper);
+    final CompletionProvider provider = new CompletionProvider();
+    final Position position = new Position(1, 6); // On '.'.
+    final CompletionList completionList = provider.provideCompletions(magikFile, position);
+
+    assertThat(completionList.isIncomplete()).isTrue();
+    assertThat(completionList.getItems()).hasSize(maxItems);
+  }
 }
@@ -0,0 +1,79 @@
+package nl.ramsolutions.sw.magik.languageserver.indexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import nl.ramsolutions.sw.magik.FileEvent;
+import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
+import org.junit.jupiter.api.Test;
+
+/** Test FileEventAggregator. */
+class FileEventAggregatorTest {
+
+  private static final long LONG_WINDOW = 60_000L;
+  private static final URI MAGIK_URI = URI.create("file:///product/module/source/file.magik");
+  private static final URI MODULE_DEF_URI = URI.create("file:///product/module/module.def");
+  private static final URI IGNORE_URI = URI.create("file:///product/.magik-tools-ignore");
+
+  @Test
+  void testCoalesce() {
+    final List<List<FileEvent>> batches = new ArrayList<>();
+    final FileEventAggregator aggregator = new FileEventAggregator(batches::add, LONG_WINDOW);
+    aggregator.add(new FileEvent(MAGIK_URI, FileChangeType.CREATED));
+    aggregator.add(new FileEvent(MAGIK_URI, FileChangeType.CHANGED));
+    aggregator.add(new FileEvent(MAGIK_URI, FileChangeType.CHANGED));
+    assertThat(aggregator.getPendingCount()).isEqualTo(1);
+
+    aggregator.flush();
+    aggregator.shutdown();
+
+    assertThat(batches).hasSize(1);
+    final List<FileEvent> batch = batches.get(0);
+    assertThat(batch).hasSize(1);
+    assertThat(batch.get(0).getUri()).isEqualTo(MAGIK_URI);
+    assertThat(batch.get(0).getFileChangeType()).isEqualTo(FileChangeType.CREATED);
+  }
+
+  @Test
+  void testCoalesceDeleted() {
+    final List<List<FileEvent>> batches = new ArrayList<>();
+    final FileEventAggregator aggregator = new FileEventAggregator(batches::add, LONG_WINDOW);
+    aggregator.add(new FileEvent(MAGIK_URI, FileChangeType.CREATED));
+    aggregator.add(new FileEvent(MAGIK_URI, FileChangeType.DELETED));
+
+    aggregator.flush();
+    aggregator.shutdown();
+
+    final List<FileEvent> batch = batches.get(0);
+    assertThat(batch).hasSize(1);
+    assertThat(batch.get(0).getFileChangeType()).isEqualTo(FileChangeType.DELETED);
+  }
+
+  @Test
+  void testOrder() {
+    final List<List<FileEvent>> batches = new ArrayList<>();
+    final FileEventAggregator aggregator = new FileEventAggregator(batches::add, LONG_WINDOW);
+    aggregator.add(new FileEvent(MAGIK_URI, FileChangeType.CHANGED));
+    aggregator.add(new FileEvent(MODULE_DEF_URI, FileChangeType.CHANGED));
+    aggregator.add(new FileEvent(IGNORE_URI, FileChangeType.CHANGED));
+
+    aggregator.flush();
+    aggregator.shutdown();
+
+    final List<URI> uris = batches.get(0).stream().map(FileEvent::getUri).toList();
+    assertThat(uris).containsExactly(IGNORE_URI, MODULE_DEF_URI, MAGIK_URI);
+  }
+
+  @Test
+  void testFlushEmpty() {
+    final List<List<FileEvent>> batches = new ArrayList<>();
+    final FileEventAggregator aggregator = new FileEventAggregator(batches::add, LONG_WINDOW);
+
+    aggregator.flush();
+    aggregator.shutdown();
+
+    assertThat(batches).isEmpty();
+  }
+}
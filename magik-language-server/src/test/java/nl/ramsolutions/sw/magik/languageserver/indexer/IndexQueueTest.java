@@ -0,0 +1,87 @@
+package nl.ramsolutions.sw.magik.languageserver.indexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test IndexQueue. */
+class IndexQueueTest {
+
+  @TempDir private Path tempDir;
+
+  private Path createFile(final String relativePath) throws IOException {
+    final Path path = this.tempDir.resolve(relativePath).toAbsolutePath();
+    Files.createDirectories(path.getParent());
+    Files.createFile(path);
+    return path;
+  }
+
+  @Test
+  void testPrioritizeOpened() throws IOException {
+    this.createFile("product_a/product.def");
+    this.createFile("product_a/module_a/module.def");
+    this.createFile("product_a/module_b/module.def");
+    this.createFile("product_b/product.def");
+    final Path otherPath = this.createFile("product_b/module_c/source/c.magik");
+    final Path productPath = this.createFile("product_a/module_b/source/b.magik");
+    final Path modulePath = this.createFile("product_a/module_a/source/a2.magik");
+    final Path openedPath = this.createFile("product_a/module_a/source/a1.magik");
+
+    final IndexQueue queue = new IndexQueue();
+    queue.enqueue(List.of(otherPath, productPath, modulePath, openedPath));
+    queue.opened(openedPath.toUri());
+
+    assertThat(queue.poll(2)).containsExactly(openedPath, modulePath);
+    assertThat(queue.poll(10)).containsExactly(productPath, otherPath);
+    assertThat(queue.size()).isZero();
+  }
+
+  @Test
+  void testReprioritizeOnOpen() throws IOException {
+    final Path path1 = this.createFile("module_a/source/a.magik");
+    final Path path2 = this.createFile("module_b/source/b.magik");
+    final Path path3 = this.createFile("module_c/source/c.magik");
+
+    final IndexQueue queue = new IndexQueue();
+    queue.enqueue(List.of(path1, path2, path3));
+    assertThat(queue.poll(1)).containsExactly(path1);
+
+    queue.opened(path3.toUri());
+    assertThat(queue.poll(1)).containsExactly(path3);
+    assertThat(queue.poll(1)).containsExactly(path2);
+  }
+
+  @Test
+  void testClosedNoLongerPrioritized() throws IOException {
+    final Path path1 = this.createFile("module_a/source/a.magik");
+    final Path path2 = this.createFile("module_b/source/b.magik");
+
+    final IndexQueue queue = new IndexQueue();
+    queue.opened(path2.toUri());
+    queue.closed(path2.toUri());
+    queue.enqueue(List.of(path1, path2));
+
+    assertThat(queue.poll(2)).containsExactly(path1, path2);
+  }
+
+  @Test
+  void testReprioritizeOnClose() throws IOException {
+    final Path path1 = this.createFile("module_a/source/a.magik");
+    final Path path2 = this.createFile("module_b/source/b.magik");
+    final Path path3 = this.createFile("module_c/source/c.magik");
+
+    final IndexQueue queue = new IndexQueue();
+    queue.enqueue(List.of(path1, path2, path3));
+    queue.opened(path3.toUri());
+    assertThat(queue.poll(0)).isEmpty();
+
+    // Closed document loses its priority, enqueued order is restored.
+    queue.closed(path3.toUri());
+    assertThat(queue.poll(3)).containsExactly(path1, path2, path3);
+  }
+}
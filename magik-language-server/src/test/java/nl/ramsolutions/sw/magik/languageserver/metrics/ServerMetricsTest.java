@@ -0,0 +1,97 @@
+package nl.ramsolutions.sw.magik.languageserver.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.eclipse.lsp4j.jsonrpc.Endpoint;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.RequestMessage;
+import org.junit.jupiter.api.Test;
+
+/** Test ServerMetrics. */
+class ServerMetricsTest {
+
+  private static final long MILLI = 1_000_000L;
+
+  @Test
+  void testHistogramPercentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 99; ++i) {
+      histogram.record(1 * MILLI);
+    }
+    histogram.record(100 * MILLI);
+
+    assertThat(histogram.getCount()).isEqualTo(100);
+    assertThat(histogram.getPercentile(0.50)).isBetween(1.0, 1.25);
+    assertThat(histogram.getPercentile(0.99)).isBetween(1.0, 1.25);
+    assertThat(histogram.getPercentile(1.0)).isBetween(100.0, 125.0);
+    assertThat(histogram.getMean()).isEqualTo(1.99);
+  }
+
+  @Test
+  void testHistogramEmpty() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+
+    assertThat(histogram.getPercentile(0.95)).isZero();
+    assertThat(histogram.getMean()).isZero();
+  }
+
+  @Test
+  void testSnapshot() {
+    final ServerMetrics metrics = new ServerMetrics();
+    metrics.recordRequest("textDocument/hover", 2 * MILLI);
+    metrics.recordFileAnalysis(ServerMetrics.PHASE_PARSE, 5 * MILLI);
+    metrics.recordIndexed(10, 1_000 * MILLI);
+    metrics.recordCacheLookups("cache", 3, 1);
+    metrics.registerGauge("queue", () -> 7);
+
+    final Map<String, Object> snapshot = metrics.getSnapshot();
+    assertThat(snapshot)
+        .containsKeys(
+            "requests", "fileAnalysis", "indexer", "cacheHitRatios", "gauges", "heapUsed");
+    assertThat(metrics.getRequestLatencies()).containsKey("textDocument/hover p95");
+    assertThat(metrics.getFileAnalysisLatencies()).containsKey("parse p50");
+    assertThat(metrics.getIndexedFilesPerSecond()).isEqualTo(10.0);
+    assertThat(metrics.getCacheHitRatios()).containsEntry("cache", 0.75);
+    assertThat(metrics.getGauges()).containsEntry("queue", 7L);
+  }
+
+  @Test
+  void testMessageWrapper() {
+    final ServerMetrics metrics = new ServerMetrics();
+    final MetricsMessageWrapper wrapper = new MetricsMessageWrapper(metrics);
+    final List<Message> sent = new ArrayList<>();
+    final MessageConsumer outgoing = wrapper.apply(sent::add);
+    final Endpoint localEndpoint =
+        new Endpoint() {
+          @Override
+          public CompletableFuture<?> request(final String method, final Object parameter) {
+            return CompletableFuture.completedFuture(null);
+          }
+
+          @Override
+          public void notify(final String method, final Object parameter) {
+            // Do nothing.
+          }
+        };
+    final MessageConsumer incoming = wrapper.apply(new RemoteEndpoint(outgoing, localEndpoint));
+
+    final RequestMessage requestMessage = new RequestMessage();
+    requestMessage.setId("1");
+    requestMessage.setMethod("textDocument/completion");
+    incoming.consume(requestMessage);
+    final NotificationMessage notificationMessage = new NotificationMessage();
+    notificationMessage.setMethod("textDocument/didOpen");
+    incoming.consume(notificationMessage);
+
+    assertThat(sent).hasSize(1);
+    assertThat(metrics.getRequestLatencies())
+        .containsKeys("textDocument/completion p50", "textDocument/didOpen p50");
+  }
+}
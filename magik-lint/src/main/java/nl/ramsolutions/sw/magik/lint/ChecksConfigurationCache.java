@@ -0,0 +1,101 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.ramsolutions.sw.magik.checks.MagikCheck;
+import nl.ramsolutions.sw.magik.checks.MagikChecksConfiguration;
+
+/**
+ * Process wide cache of {@link MagikChecksConfiguration}s, keyed by configuration path.
+ *
+ * <p>A {@link LintDaemon} serves many requests in a single process. Keeping the configurations, and
+ * thus their check holders, between requests avoids reading the configuration and the check
+ * metadata again for each request. An entry is read again when its configuration file is modified.
+ */
+final class ChecksConfigurationCache {
+
+  private static final Path DEFAULT_CONFIG_KEY = Path.of("");
+  private static final Map<Key, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+  private ChecksConfigurationCache() {}
+
+  /**
+   * Get the checks configuration for {@code configPath}.
+   *
+   * @param configPath Path to configuration, or null for the default configuration.
+   * @param checkClasses Check classes in the configuration.
+   * @return Checks configuration.
+   * @throws IOException If the configuration cannot be read.
+   */
+  static MagikChecksConfiguration get(
+      final @Nullable Path configPath, final List<Class<? extends MagikCheck>> checkClasses)
+      throws IOException {
+    final Key key =
+        new Key(
+            configPath != null ? configPath.toAbsolutePath() : DEFAULT_CONFIG_KEY, checkClasses);
+    final FileTime lastModified =
+        configPath != null ? Files.getLastModifiedTime(configPath) : FileTime.fromMillis(0);
+    final Entry entry = ENTRIES.get(key);
+    if (entry != null && entry.lastModified.equals(lastModified)) {
+      return entry.checksConfig;
+    }
+
+    final MagikChecksConfiguration checksConfig =
+        configPath != null
+            ? new MagikChecksConfiguration(checkClasses, configPath)
+            : new MagikChecksConfiguration(checkClasses);
+    ENTRIES.put(key, new Entry(lastModified, checksConfig));
+    return checksConfig;
+  }
+
+  /** Cache key. */
+  private static final class Key {
+
+    private final Path configPath;
+    private final List<Class<? extends MagikCheck>> checkClasses;
+
+    Key(final Path configPath, final List<Class<? extends MagikCheck>> checkClasses) {
+      this.configPath = configPath;
+      this.checkClasses = List.copyOf(checkClasses);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.configPath, this.checkClasses);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+
+      if (obj == null || this.getClass() != obj.getClass()) {
+        return false;
+      }
+
+      final Key other = (Key) obj;
+      return Objects.equals(this.configPath, other.configPath)
+          && Objects.equals(this.checkClasses, other.checkClasses);
+    }
+  }
+
+  /** Cache entry. */
+  private static final class Entry {
+
+    private final FileTime lastModified;
+    private final MagikChecksConfiguration checksConfig;
+
+    Entry(final FileTime lastModified, final MagikChecksConfiguration checksConfig) {
+      this.lastModified = lastModified;
+      this.checksConfig = checksConfig;
+    }
+  }
+}
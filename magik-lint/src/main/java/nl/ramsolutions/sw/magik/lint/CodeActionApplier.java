@@ -1,6 +1,9 @@
 package nl.ramsolutions.sw.magik.lint;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import nl.ramsolutions.sw.magik.CodeAction;
 import nl.ramsolutions.sw.magik.Position;
 import nl.ramsolutions.sw.magik.Range;
@@ -35,34 +38,58 @@ public class CodeActionApplier {
    * @param codeAction CodeAction to apply.
    */
   public void applyCodeAction(final CodeAction codeAction) {
+    this.applyTextEdits(codeAction.getEdits());
+  }
+
+  /**
+   * Apply {@link TextEdit}s to the current source, in a single pass.
+   *
+   * <p>The ranges of all edits refer to the current source, and should not overlap.
+   *
+   * @param textEdits Edits to apply.
+   */
+  public void applyTextEdits(final Collection<TextEdit> textEdits) {
+    final List<Integer> lineOffsets = this.getLineOffsets();
     final Comparator<TextEdit> byEndPosition =
         Comparator.comparing(textEdit -> textEdit.getRange().getEndPosition());
-    codeAction.getEdits().stream()
+    final StringBuilder builder = new StringBuilder(this.source);
+    textEdits.stream()
         .sorted(byEndPosition.reversed()) // Apply edits from back to front.
-        .forEach(this::applyTextEdit);
+        .forEachOrdered(
+            textEdit -> {
+              final Range range = textEdit.getRange();
+              final int startIndex = this.getIndexOfPosition(lineOffsets, range.getStartPosition());
+              final int endIndex = this.getIndexOfPosition(lineOffsets, range.getEndPosition());
+              builder.replace(startIndex, endIndex, textEdit.getNewText());
+            });
+    this.source = builder.toString();
   }
 
-  private void applyTextEdit(final TextEdit textEdit) {
-    final String[] lines = this.source.split("\r\n|\n|\r");
-    final Range range = textEdit.getRange();
-    final Position startPosition = range.getStartPosition();
-    final Position endPosition = range.getEndPosition();
-    final int startPositionIndex = this.getIndexOfPosition(lines, startPosition);
-    final int endPositionIndex = this.getIndexOfPosition(lines, endPosition);
-    this.source =
-        this.source.substring(0, startPositionIndex)
-            + textEdit.getNewText()
-            + this.source.substring(endPositionIndex);
+  /** Get the offset of the start of each line, handling {@code \r\n}, {@code \n} and {@code \r}. */
+  private List<Integer> getLineOffsets() {
+    final List<Integer> lineOffsets = new ArrayList<>();
+    lineOffsets.add(0);
+    final int length = this.source.length();
+    for (int i = 0; i < length; ++i) {
+      final char chr = this.source.charAt(i);
+      if (chr == '\r' && i + 1 < length && this.source.charAt(i + 1) == '\n') {
+        continue;
+      }
+
+      if (chr == '\r' || chr == '\n') {
+        lineOffsets.add(i + 1);
+      }
+    }
+    return lineOffsets;
   }
 
-  private int getIndexOfPosition(final String[] lines, final Position position) {
-    final int line = position.getLine();
-    final int column = position.getColumn();
-    int index = 0;
-    for (int i = 0; i < line - 1; i++) {
-      index += lines[i].length();
+  private int getIndexOfPosition(final List<Integer> lineOffsets, final Position position) {
+    final int lineIndex = position.getLine() - 1;
+    if (lineIndex >= lineOffsets.size()) {
+      return this.source.length();
     }
-    index += column;
-    return index;
+
+    final int index = lineOffsets.get(lineIndex) + position.getColumn();
+    return Math.min(index, this.source.length());
   }
 }
@@ -0,0 +1,247 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import nl.ramsolutions.sw.magik.checks.MagikIssue;
+
+/**
+ * Files and lines changed since a git revision, read from {@code git diff}.
+ *
+ * <p>Only added and modified lines are tracked, deleted lines do not exist in the working tree.
+ */
+public final class GitChangeSet {
+
+  /** Range of changed lines, 1-based, inclusive. */
+  private static final class LineRange {
+
+    private final int startLine;
+    private final int endLine;
+
+    LineRange(final int startLine, final int endLine) {
+      this.startLine = startLine;
+      this.endLine = endLine;
+    }
+
+    boolean overlaps(final int otherStartLine, final int otherEndLine) {
+      return this.startLine <= otherEndLine && otherStartLine <= this.endLine;
+    }
+  }
+
+  private static final String FILE_PREFIX = "+++ ";
+  private static final String NEW_FILE_PREFIX = "b/";
+  private static final Map<Character, Character> ESCAPES =
+      Map.of(
+          'a', '\u0007',
+          'b', '\b',
+          't', '\t',
+          'n', '\n',
+          'v', '\u000B',
+          'f', '\f',
+          'r', '\r',
+          '"', '"',
+          '\\', '\\');
+  private static final int OCTAL_RADIX = 8;
+  private static final int OCTAL_DIGITS = 3;
+  private static final Pattern HUNK_PATTERN =
+      Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@.*");
+
+  private final Map<Path, List<LineRange>> changedLines;
+
+  private GitChangeSet(final Map<Path, List<LineRange>> changedLines) {
+    this.changedLines = changedLines;
+  }
+
+  /**
+   * Read the changes since {@code revision} from the git repository containing {@code workingPath}.
+   *
+   * @param workingPath Directory in the git repository.
+   * @param revision Revision to compare the working tree to.
+   * @return Changes since the revision.
+   * @throws IOException If git could not be run, or failed.
+   */
+  public static GitChangeSet read(final Path workingPath, final String revision)
+      throws IOException {
+    // Relative to the working path, so paths keep any symbolic links in the working path.
+    final List<String> cdUp = GitChangeSet.runGit(workingPath, List.of("rev-parse", "--show-cdup"));
+    final String relativeRepositoryPath = cdUp.isEmpty() ? "" : cdUp.get(0);
+    final Path repositoryPath = workingPath.resolve(relativeRepositoryPath);
+    final List<String> diffLines =
+        GitChangeSet.runGit(
+            workingPath,
+            List.of(
+                "-c",
+                "core.quotePath=false",
+                "diff",
+                "--unified=0",
+                "--no-color",
+                "--no-ext-diff",
+                "--diff-filter=ACMR",
+                revision,
+                "--"));
+    return GitChangeSet.parse(repositoryPath, diffLines);
+  }
+
+  private static List<String> runGit(final Path workingPath, final List<String> args)
+      throws IOException {
+    final List<String> command = new ArrayList<>();
+    command.add("git");
+    command.addAll(args);
+
+    // Stderr goes to a file, so a full stderr pipe cannot block git while stdout is read.
+    final Path errorPath = Files.createTempFile("magik-lint-git", ".err");
+    try {
+      final Process process =
+          new ProcessBuilder(command)
+              .directory(workingPath.toAbsolutePath().toFile())
+              .redirectError(errorPath.toFile())
+              .start();
+      final String output;
+      try (InputStream outputStream = process.getInputStream()) {
+        output = new String(outputStream.readAllBytes(), StandardCharsets.UTF_8);
+      }
+
+      if (GitChangeSet.waitFor(process) != 0) {
+        final String error = Files.readString(errorPath, StandardCharsets.UTF_8);
+        throw new IOException("git " + String.join(" ", args) + " failed: " + error.trim());
+      }
+
+      return output.lines().toList();
+    } finally {
+      Files.deleteIfExists(errorPath);
+    }
+  }
+
+  private static int waitFor(final Process process) throws IOException {
+    try {
+      return process.waitFor();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IOException(exception);
+    }
+  }
+
+  /**
+   * Parse {@code git diff --unified=0} output.
+   *
+   * @param repositoryPath Root of the repository, paths in the diff are relative to this.
+   * @param diffLines Lines of the diff.
+   * @return Changes from the diff.
+   */
+  static GitChangeSet parse(final Path repositoryPath, final List<String> diffLines) {
+    final Map<Path, List<LineRange>> changedLines = new HashMap<>();
+    List<LineRange> currentRanges = null;
+    for (final String line : diffLines) {
+      if (line.startsWith(FILE_PREFIX)) {
+        final String filename = GitChangeSet.parseFilename(line.substring(FILE_PREFIX.length()));
+        currentRanges =
+            filename != null
+                ? changedLines.computeIfAbsent(
+                    repositoryPath.resolve(filename).toAbsolutePath().normalize(),
+                    key -> new ArrayList<>())
+                : null;
+        continue;
+      }
+
+      final Matcher matcher = HUNK_PATTERN.matcher(line);
+      if (currentRanges != null && matcher.matches()) {
+        final int startLine = Integer.parseInt(matcher.group(1));
+        final int lineCount = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1;
+        if (lineCount > 0) {
+          currentRanges.add(new LineRange(startLine, startLine + lineCount - 1));
+        }
+      }
+    }
+    return new GitChangeSet(changedLines);
+  }
+
+  /**
+   * Parse the filename from a {@code +++} line. Git quotes filenames with special characters, such
+   * as {@code "b/a\tb.magik"}, and ends filenames containing spaces with a tab.
+   *
+   * @param value Filename part of the line.
+   * @return Filename relative to the repository, or null if not a new file, i.e., {@code
+   *     /dev/null}.
+   */
+  @CheckForNull
+  static String parseFilename(final String value) {
+    final String filename =
+        value.startsWith("\"")
+            ? GitChangeSet.unquote(value.substring(1, value.lastIndexOf('"')))
+            : value.endsWith("\t") ? value.substring(0, value.length() - 1) : value;
+    if (!filename.startsWith(NEW_FILE_PREFIX)) {
+      return null;
+    }
+
+    return filename.substring(NEW_FILE_PREFIX.length());
+  }
+
+  /** Undo the C-style quoting of git, octal escapes are bytes of the UTF-8 encoded name. */
+  private static String unquote(final String value) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int index = 0;
+    while (index < value.length()) {
+      final char chr = value.charAt(index);
+      if (chr != '\\' || index + 1 == value.length()) {
+        bytes.writeBytes(String.valueOf(chr).getBytes(StandardCharsets.UTF_8));
+        index += 1;
+        continue;
+      }
+
+      final char escaped = value.charAt(index + 1);
+      if (Character.isDigit(escaped) && index + 1 + OCTAL_DIGITS <= value.length()) {
+        final String octal = value.substring(index + 1, index + 1 + OCTAL_DIGITS);
+        bytes.write(Integer.parseInt(octal, OCTAL_RADIX));
+        index += 1 + OCTAL_DIGITS;
+      } else {
+        final char unescaped = ESCAPES.getOrDefault(escaped, escaped);
+        bytes.writeBytes(String.valueOf(unescaped).getBytes(StandardCharsets.UTF_8));
+        index += 2;
+      }
+    }
+    return bytes.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get the changed files, as absolute paths.
+   *
+   * @return Changed files.
+   */
+  public Set<Path> getChangedFiles() {
+    return Collections.unmodifiableSet(this.changedLines.keySet());
+  }
+
+  /**
+   * Test if {@code path} is changed.
+   *
+   * @param path Path to test.
+   * @return True if changed, false otherwise.
+   */
+  public boolean isChanged(final Path path) {
+    return this.changedLines.containsKey(path.toAbsolutePath().normalize());
+  }
+
+  /**
+   * Test if the lines of the {@link MagikIssue} overlap any changed line.
+   *
+   * @param issue Issue to test.
+   * @return True if on a changed line, false otherwise.
+   */
+  public boolean isOnChangedLine(final MagikIssue issue) {
+    final Path path = issue.location().getPath().toAbsolutePath().normalize();
+    final List<LineRange> ranges = this.changedLines.getOrDefault(path, Collections.emptyList());
+    return ranges.stream().anyMatch(range -> range.overlaps(issue.startLine(), issue.endLine()));
+  }
+}
@@ -0,0 +1,74 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Client forwarding a lint request to a {@link LintDaemon}. */
+public final class LintClient {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LintClient.class);
+
+  private LintClient() {}
+
+  /**
+   * Forward the arguments to the daemon, streaming its output to {@code outStream} and {@code
+   * errStream}.
+   *
+   * @param socketPath Socket of the daemon.
+   * @param args Arguments.
+   * @param workingPath Working directory to resolve relative paths against.
+   * @param outStream Stream to write output to.
+   * @param errStream Stream to write errors to.
+   * @return Exit code, or null if no daemon is running.
+   * @throws IOException -
+   */
+  @CheckForNull
+  public static Integer forward(
+      final Path socketPath,
+      final String[] args,
+      final Path workingPath,
+      final PrintStream outStream,
+      final PrintStream errStream)
+      throws IOException {
+    final SocketChannel channel;
+    try {
+      channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+    } catch (final IOException exception) {
+      LOGGER.debug("No daemon running on: {}, error: {}", socketPath, exception.getMessage());
+      return null;
+    }
+
+    try (channel;
+        DataInputStream input = new DataInputStream(Channels.newInputStream(channel));
+        DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+      output.writeUTF(workingPath.toString());
+      output.writeInt(args.length);
+      for (final String arg : args) {
+        output.writeUTF(arg);
+      }
+      output.flush();
+
+      byte kind = input.readByte();
+      while (kind != LintDaemon.FRAME_EXIT) {
+        final byte[] chunk = input.readNBytes(input.readInt());
+        final PrintStream stream = kind == LintDaemon.FRAME_ERR ? errStream : outStream;
+        stream.write(chunk);
+        stream.flush();
+        kind = input.readByte();
+      }
+
+      return input.readInt();
+    }
+  }
+}
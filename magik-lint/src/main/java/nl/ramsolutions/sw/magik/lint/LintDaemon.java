@@ -0,0 +1,285 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import nl.ramsolutions.sw.ConfigurationLocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lint daemon, serving lint requests from {@link LintClient}s on a Unix domain socket.
+ *
+ * <p>Keeping the process alive avoids paying JVM startup, class loading, building the grammar and
+ * JIT warm-up for every invocation. The daemon stops after being idle for the idle timeout.
+ *
+ * <p>A request consists of the working directory and the arguments. The response is a stream of
+ * frames: output ({@link #FRAME_OUT}) and error ({@link #FRAME_ERR}) chunks, ended by an exit code
+ * ({@link #FRAME_EXIT}).
+ *
+ * <p>Requests are handled one at a time, in the order they are accepted. A request resets the
+ * process wide configuration cache and may reconfigure logging, which would affect concurrent
+ * requests. A single lint run already uses all processors.
+ */
+public class LintDaemon {
+
+  /** Frame holding the exit code, ends the response. */
+  static final byte FRAME_EXIT = 0;
+
+  /** Frame holding an output chunk. */
+  static final byte FRAME_OUT = 1;
+
+  /** Frame holding an error chunk. */
+  static final byte FRAME_ERR = 2;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LintDaemon.class);
+  private static final long IDLE_CHECK_INTERVAL = 1;
+  private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY =
+      PosixFilePermissions.fromString("rwx------");
+  private static final Set<PosixFilePermission> OWNER_ONLY_FILE =
+      PosixFilePermissions.fromString("rw-------");
+
+  private final Path socketPath;
+  private final Duration idleTimeout;
+  private final AtomicInteger activeRequests = new AtomicInteger();
+  private final AtomicLong lastActivity = new AtomicLong(System.nanoTime());
+  private final CountDownLatch listening = new CountDownLatch(1);
+
+  /**
+   * Constructor.
+   *
+   * @param socketPath Path of the socket to listen on.
+   * @param idleTimeout Time after which an idle daemon stops.
+   */
+  public LintDaemon(final Path socketPath, final Duration idleTimeout) {
+    this.socketPath = socketPath;
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * Serve requests until idle for the idle timeout.
+   *
+   * @throws IOException If the socket cannot be bound, or another daemon is already running.
+   */
+  public void run() throws IOException {
+    this.createSocketDirectory();
+    this.removeStaleSocket();
+
+    final ScheduledExecutorService idleChecker =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "magik-lint-daemon-idle");
+              thread.setDaemon(true);
+              return thread;
+            });
+    final ExecutorService requestExecutor =
+        Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "magik-lint-daemon-request"));
+    try (ServerSocketChannel serverChannel =
+        ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      serverChannel.bind(UnixDomainSocketAddress.of(this.socketPath));
+      if (LintDaemon.isPosix()) {
+        Files.setPosixFilePermissions(this.socketPath, OWNER_ONLY_FILE);
+      }
+      LOGGER.info("Listening on: {}", this.socketPath);
+      this.listening.countDown();
+
+      idleChecker.scheduleAtFixedRate(
+          () -> this.closeIfIdle(serverChannel),
+          IDLE_CHECK_INTERVAL,
+          IDLE_CHECK_INTERVAL,
+          TimeUnit.SECONDS);
+      this.acceptConnections(serverChannel, requestExecutor);
+    } finally {
+      idleChecker.shutdownNow();
+      requestExecutor.shutdown();
+      Files.deleteIfExists(this.socketPath);
+    }
+  }
+
+  /**
+   * Wait until the daemon is listening for requests.
+   *
+   * @param timeout Maximum time to wait.
+   * @return True if the daemon is listening, false if the timeout elapsed.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public boolean awaitListening(final Duration timeout) throws InterruptedException {
+    return this.listening.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Create the directory of the socket, if it does not exist. Only the owner can access it, so
+   * other users cannot connect to the socket before its own permissions are restricted.
+   */
+  private void createSocketDirectory() throws IOException {
+    final Path directory = this.socketPath.toAbsolutePath().getParent();
+    if (directory == null || Files.isDirectory(directory)) {
+      return;
+    }
+
+    if (LintDaemon.isPosix()) {
+      Files.createDirectories(
+          directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+    } else {
+      Files.createDirectories(directory);
+    }
+  }
+
+  private static boolean isPosix() {
+    return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+  }
+
+  private void removeStaleSocket() throws IOException {
+    if (!Files.exists(this.socketPath)) {
+      return;
+    }
+
+    if (LintDaemon.isListening(this.socketPath)) {
+      throw new IOException("Daemon already running on: " + this.socketPath);
+    }
+
+    Files.delete(this.socketPath);
+  }
+
+  private static boolean isListening(final Path socketPath) {
+    try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+      return true;
+    } catch (final IOException exception) {
+      return false;
+    }
+  }
+
+  private void acceptConnections(
+      final ServerSocketChannel serverChannel, final ExecutorService requestExecutor)
+      throws IOException {
+    while (serverChannel.isOpen()) {
+      final SocketChannel channel;
+      try {
+        channel = serverChannel.accept();
+      } catch (final ClosedChannelException exception) {
+        // Closed due to being idle.
+        break;
+      }
+
+      this.activeRequests.incrementAndGet();
+      this.lastActivity.set(System.nanoTime());
+      requestExecutor.execute(() -> this.handleConnection(channel));
+    }
+  }
+
+  private void closeIfIdle(final ServerSocketChannel serverChannel) {
+    final long idleNanos = System.nanoTime() - this.lastActivity.get();
+    if (this.activeRequests.get() != 0 || idleNanos < this.idleTimeout.toNanos()) {
+      return;
+    }
+
+    LOGGER.info("Idle for {}, stopping", this.idleTimeout);
+    try {
+      serverChannel.close();
+    } catch (final IOException exception) {
+      LOGGER.warn("Unable to close socket: {}", exception.getMessage());
+    }
+  }
+
+  @SuppressWarnings("checkstyle:IllegalCatch")
+  private void handleConnection(final SocketChannel channel) {
+    try (channel;
+        DataInputStream input = new DataInputStream(Channels.newInputStream(channel));
+        DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+      final Path workingPath = Path.of(input.readUTF());
+      final String[] args = new String[input.readInt()];
+      for (int i = 0; i < args.length; ++i) {
+        args[i] = input.readUTF();
+      }
+
+      final PrintStream outStream =
+          new PrintStream(new FrameOutputStream(output, FRAME_OUT), true, StandardCharsets.UTF_8);
+      final PrintStream errStream =
+          new PrintStream(new FrameOutputStream(output, FRAME_ERR), true, StandardCharsets.UTF_8);
+
+      // Configuration files may have been added or removed since the previous request.
+      ConfigurationLocator.resetCache();
+
+      int exitCode;
+      try {
+        exitCode = Main.run(args, workingPath, outStream, errStream);
+      } catch (final Exception exception) {
+        LOGGER.error(exception.getMessage(), exception);
+        errStream.println("Error: " + exception.getMessage());
+        exitCode = 1;
+      }
+
+      outStream.flush();
+      errStream.flush();
+      synchronized (output) {
+        output.writeByte(FRAME_EXIT);
+        output.writeInt(exitCode);
+        output.flush();
+      }
+    } catch (final IOException exception) {
+      LOGGER.warn("Error handling request: {}", exception.getMessage());
+    } finally {
+      this.lastActivity.set(System.nanoTime());
+      this.activeRequests.decrementAndGet();
+    }
+  }
+
+  /** Output stream writing each chunk as a frame. */
+  private static final class FrameOutputStream extends OutputStream {
+
+    private final DataOutputStream output;
+    private final byte kind;
+
+    FrameOutputStream(final DataOutputStream output, final byte kind) {
+      this.output = output;
+      this.kind = kind;
+    }
+
+    @Override
+    public void write(final int value) throws IOException {
+      this.write(new byte[] {(byte) value}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+      synchronized (this.output) {
+        this.output.writeByte(this.kind);
+        this.output.writeInt(length);
+        this.output.write(bytes, offset, length);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      synchronized (this.output) {
+        this.output.flush();
+      }
+    }
+  }
+}
@@ -3,10 +3,12 @@ package nl.ramsolutions.sw.magik.lint;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -32,6 +34,44 @@ public final class MagikFileScanner {
     return files;
   }
 
+  /**
+   * Select the .magik files from {@code candidates} which are within the paths from the args,
+   * without walking the paths. Like {@link #scanMagikFiles(Path)}, files in hidden directories and
+   * symbolic links are skipped, as are files which do not exist.
+   *
+   * @param args Arguments.
+   * @param candidates Candidate files, as absolute paths.
+   * @return Paths to magik files.
+   */
+  public static Collection<Path> selectMagikFiles(
+      final String[] args, final Collection<Path> candidates) {
+    final List<Path> starts =
+        Arrays.stream(args).map(arg -> Path.of(arg).toAbsolutePath().normalize()).toList();
+    return candidates.stream()
+        .filter(file -> file.getFileName().toString().toLowerCase().endsWith(".magik"))
+        .filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+        .filter(
+            file ->
+                starts.stream()
+                    .anyMatch(
+                        start ->
+                            file.startsWith(start) && !MagikFileScanner.isInHiddenDir(start, file)))
+        .sorted()
+        .toList();
+  }
+
+  private static boolean isInHiddenDir(final Path start, final Path file) {
+    for (Path dir = file.getParent();
+        dir != null && dir.startsWith(start) && !dir.equals(start);
+        dir = dir.getParent()) {
+      if (dir.toFile().isHidden()) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
   /**
    * Scan for .magik files from the start path.
    *
@@ -1,20 +1,33 @@
 package nl.ramsolutions.sw.magik.lint;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystemException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.FileOwnerAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.ConfigurationLocator;
 import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.Position;
 import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.TextEdit;
 import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
 import nl.ramsolutions.sw.magik.checks.CheckList;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
@@ -29,54 +42,208 @@ public class MagikFixer {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MagikFixer.class);
 
+  private static final Path DEFAULT_CONFIG_KEY = Path.of("");
+  private static final Range FULL_RANGE =
+      new Range(new Position(1, 0), new Position(Integer.MAX_VALUE, Integer.MAX_VALUE));
+
   private final MagikLintConfiguration config;
 
+  /** Checks configurations, keyed by configuration path, shared by all files during a run. */
+  private final Map<Path, MagikChecksConfiguration> checksConfigs = new ConcurrentHashMap<>();
+
   public MagikFixer(final MagikLintConfiguration config) {
     this.config = config;
   }
 
   /**
-   * Run on all the files.
+   * Run on all the files. Files are fixed in parallel.
    *
    * @param paths Paths to run on.
    * @throws IOException -
    */
   public void run(final Collection<Path> paths) throws IOException {
-    for (final Path path : paths) {
-      if (this.isFileIgnored(path)) {
-        continue;
-      }
-
-      this.runOnFile(path);
+    try {
+      paths.parallelStream()
+          .filter(path -> !this.isFileIgnored(path))
+          .forEach(
+              path -> {
+                try {
+                  this.runOnFile(path);
+                } catch (final IOException exception) {
+                  throw new UncheckedIOException(exception);
+                }
+              });
+    } catch (final UncheckedIOException exception) {
+      throw exception.getCause();
     }
   }
 
+  /**
+   * Run all fixers on a file.
+   *
+   * <p>The edits of all fixers are collected against a single parse of the file and applied in one
+   * pass. Only fixers with edits overlapping those of an earlier fixer are run again, on a parse of
+   * the updated source.
+   */
   private void runOnFile(final Path path) throws IOException {
+    LOGGER.trace("Thread: {}, fixing file: {}", Thread.currentThread().getName(), path);
+
     final MagikFile originalMagikFile = this.buildMagikFile(path);
+    final URI uri = originalMagikFile.getUri();
     MagikFile magikFile = originalMagikFile;
-    final URI uri = magikFile.getUri();
-    for (final MagikCheckFixer fixer : this.getFixers(magikFile)) {
-      final String newSource = this.applyFixer(fixer, magikFile);
-      magikFile = new MagikFile(uri, newSource);
+    String newSource = originalMagikFile.getSource();
+    List<MagikCheckFixer> fixers = this.getFixers(magikFile);
+    while (!fixers.isEmpty()) {
+      final List<TextEdit> edits = new ArrayList<>();
+      final List<MagikCheckFixer> conflictingFixers = new ArrayList<>();
+      for (final MagikCheckFixer fixer : fixers) {
+        final List<TextEdit> fixerEdits = this.getEdits(fixer, magikFile);
+        if (MagikFixer.overlaps(edits, fixerEdits)) {
+          conflictingFixers.add(fixer);
+        } else {
+          edits.addAll(fixerEdits);
+        }
+      }
+
+      final CodeActionApplier applier = new CodeActionApplier(newSource);
+      applier.applyTextEdits(edits);
+      newSource = applier.getSource();
+      if (!conflictingFixers.isEmpty()) {
+        magikFile = new MagikFile(uri, newSource);
+      }
+      fixers = conflictingFixers;
     }
 
     // Write file, if changed.
-    final String newSource = magikFile.getSource();
     if (originalMagikFile.getSource().equals(newSource)) {
       return;
     }
 
     final Charset charset = FileCharsetDeterminer.determineCharset(newSource);
-    Files.writeString(path, newSource, charset);
+    MagikFixer.writeAtomically(path, newSource, charset);
+  }
+
+  private List<TextEdit> getEdits(final MagikCheckFixer fixer, final MagikFile magikFile) {
+    return fixer.provideCodeActions(magikFile, FULL_RANGE).stream()
+        .flatMap(codeAction -> codeAction.getEdits().stream())
+        .toList();
   }
 
-  private String applyFixer(final MagikCheckFixer fixer, final MagikFile magikFile) {
-    final String source = magikFile.getSource();
-    final CodeActionApplier applier = new CodeActionApplier(source);
-    final Range range =
-        new Range(new Position(1, 0), new Position(Integer.MAX_VALUE, Integer.MAX_VALUE));
-    fixer.provideCodeActions(magikFile, range).stream().forEach(applier::applyCodeAction);
-    return applier.getSource();
+  /**
+   * Test if any of {@code edits} overlaps, or touches, any of {@code otherEdits}.
+   *
+   * <p>Touching edits are treated as overlapping, as the order of applying them matters.
+   */
+  private static boolean overlaps(final List<TextEdit> edits, final List<TextEdit> otherEdits) {
+    return otherEdits.stream()
+        .map(TextEdit::getRange)
+        .anyMatch(
+            otherRange ->
+                edits.stream()
+                    .map(TextEdit::getRange)
+                    .anyMatch(
+                        range ->
+                            range.getStartPosition().compareTo(otherRange.getEndPosition()) <= 0
+                                && otherRange.getStartPosition().compareTo(range.getEndPosition())
+                                    <= 0));
+  }
+
+  /**
+   * Write the source to a temporary file next to {@code path}, and move it over {@code path}. A
+   * failed or interrupted run never leaves a partially written file.
+   *
+   * <p>A symbolic link is followed, so the file it points to is replaced, not the link. The
+   * permissions, owner, group and ACL of the file are kept. If the owner or group cannot be set on
+   * the temporary file, the file is overwritten in place instead.
+   */
+  private static void writeAtomically(final Path path, final String source, final Charset charset)
+      throws IOException {
+    final Path realPath = path.toRealPath();
+    final Path directory = realPath.getParent();
+    final Path tempPath =
+        Files.createTempFile(directory, realPath.getFileName().toString(), ".tmp");
+    try {
+      Files.writeString(tempPath, source, charset);
+      if (!MagikFixer.copyAttributes(realPath, tempPath)) {
+        Files.writeString(realPath, source, charset);
+        return;
+      }
+
+      try {
+        Files.move(
+            tempPath,
+            realPath,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (final AtomicMoveNotSupportedException exception) {
+        Files.move(tempPath, realPath, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tempPath);
+    }
+  }
+
+  /**
+   * Copy the owner, group, permissions and ACL of {@code source} to {@code target}, as far as
+   * supported by the file system.
+   *
+   * @param source File to copy attributes from.
+   * @param target File to copy attributes to.
+   * @return False if the owner or group could not be copied.
+   * @throws IOException -
+   */
+  private static boolean copyAttributes(final Path source, final Path target) throws IOException {
+    final PosixFileAttributeView posixView =
+        Files.getFileAttributeView(source, PosixFileAttributeView.class);
+    if (posixView != null) {
+      final PosixFileAttributes attributes = posixView.readAttributes();
+      final PosixFileAttributeView targetView =
+          Files.getFileAttributeView(target, PosixFileAttributeView.class);
+      if (!MagikFixer.copyOwner(attributes.owner(), targetView)) {
+        return false;
+      }
+
+      try {
+        if (!attributes.group().equals(targetView.readAttributes().group())) {
+          targetView.setGroup(attributes.group());
+        }
+      } catch (final FileSystemException exception) {
+        LOGGER.debug("Unable to set group of {}: {}", target, exception.getMessage());
+        return false;
+      }
+
+      // Set permissions last, changing the owner might clear some.
+      targetView.setPermissions(attributes.permissions());
+    }
+
+    final AclFileAttributeView aclView =
+        Files.getFileAttributeView(source, AclFileAttributeView.class);
+    if (aclView != null) {
+      final AclFileAttributeView targetView =
+          Files.getFileAttributeView(target, AclFileAttributeView.class);
+      if (!MagikFixer.copyOwner(aclView.getOwner(), targetView)) {
+        return false;
+      }
+
+      targetView.setAcl(aclView.getAcl());
+    }
+
+    return true;
+  }
+
+  private static boolean copyOwner(final UserPrincipal owner, final FileOwnerAttributeView view)
+      throws IOException {
+    if (owner.equals(view.getOwner())) {
+      return true;
+    }
+
+    try {
+      view.setOwner(owner);
+      return true;
+    } catch (final FileSystemException exception) {
+      LOGGER.debug("Unable to set owner: {}", exception.getMessage());
+      return false;
+    }
   }
 
   private List<MagikCheckFixer> getFixers(final MagikFile magikFile) {
@@ -153,12 +320,17 @@ public class MagikFixer {
         this.config.getPath() != null
             ? this.config.getPath()
             : ConfigurationLocator.locateConfiguration(path);
-    try {
-      return configPath != null
-          ? new MagikChecksConfiguration(CheckList.getChecks(), configPath)
-          : new MagikChecksConfiguration(CheckList.getChecks());
-    } catch (final IOException exception) {
-      throw new IllegalStateException(exception);
-    }
+    final Path key = configPath != null ? configPath : DEFAULT_CONFIG_KEY;
+    return this.checksConfigs.computeIfAbsent(
+        key,
+        cfgKey -> {
+          try {
+            return configPath != null
+                ? new MagikChecksConfiguration(CheckList.getChecks(), configPath)
+                : new MagikChecksConfiguration(CheckList.getChecks());
+          } catch (final IOException exception) {
+            throw new IllegalStateException(exception);
+          }
+        });
   }
 }
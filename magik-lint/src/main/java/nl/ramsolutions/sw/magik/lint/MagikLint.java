@@ -1,5 +1,7 @@
 package nl.ramsolutions.sw.magik.lint;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.Writer;
 import java.net.URI;
@@ -8,14 +10,27 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import nl.ramsolutions.sw.ConfigurationLocator;
 import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver;
 import nl.ramsolutions.sw.magik.checks.CheckList;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
 import nl.ramsolutions.sw.magik.checks.MagikCheckHolder;
@@ -32,8 +47,22 @@ public class MagikLint {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MagikLint.class);
 
+  private static final Path DEFAULT_CONFIG_KEY = Path.of("");
+  private static final int WINDOW_SIZE_PER_PROCESSOR = 4;
+  private static final String LOAD_LIST_FILENAME = "load_list.txt";
+
   private final MagikLintConfiguration config;
+
+  /**
+   * Checks configurations, keyed by configuration path, shared by all files during a run. Taken
+   * from the process wide {@link ChecksConfigurationCache}, so a daemon reuses them between runs.
+   */
+  private final Map<Path, MagikChecksConfiguration> checksConfigs = new ConcurrentHashMap<>();
+
   private final Reporter reporter;
+  private Predicate<MagikIssue> issueFilter = issue -> true;
+  private IDefinitionKeeper definitionKeeper;
+  private TypeStringResolver typeStringResolver;
 
   /**
    * Constructor, parses command line and reads configuration.
@@ -46,23 +75,48 @@ public class MagikLint {
     this.reporter = reporter;
   }
 
+  /**
+   * Set the filter for issues, only issues matching the filter are reported.
+   *
+   * @param issueFilter Filter for issues.
+   */
+  public void setIssueFilter(final Predicate<MagikIssue> issueFilter) {
+    this.issueFilter = issueFilter;
+  }
+
+  /**
+   * Enable typed checks, using the definitions from {@code definitionKeeper}.
+   *
+   * <p>All files share a single {@link TypeStringResolver}, so types resolved for one file are
+   * reused by the others.
+   *
+   * @param definitionKeeper Definition keeper holding the indexed definitions.
+   */
+  public void setDefinitionKeeper(final IDefinitionKeeper definitionKeeper) {
+    this.definitionKeeper = definitionKeeper;
+    this.typeStringResolver = new TypeStringResolver(definitionKeeper);
+  }
+
+  private List<Class<? extends MagikCheck>> getCheckClasses() {
+    if (this.definitionKeeper == null) {
+      return CheckList.getChecks();
+    }
+
+    final List<Class<? extends MagikCheck>> checkClasses = new ArrayList<>(CheckList.getChecks());
+    checkClasses.addAll(nl.ramsolutions.sw.magik.typedchecks.CheckList.getChecks());
+    return checkClasses;
+  }
+
   /**
    * Build context for a file.
    *
    * @param path Path to file
+   * @param encoded Contents of the file.
    * @return Visitor context for file.
-   * @throws IOException -
    */
-  private MagikFile buildMagikFile(final Path path) {
+  private MagikFile buildMagikFile(final Path path, final byte[] encoded) {
     final Charset charset = FileCharsetDeterminer.determineCharset(path);
 
-    byte[] encoded = null;
-    try {
-      encoded = Files.readAllBytes(path);
-    } catch (final IOException exception) {
-      LOGGER.error(exception.getMessage(), exception);
-    }
-
     final URI uri = path.toUri();
     final String fileContents = new String(encoded, charset);
     final MagikAnalysisConfiguration configuration;
@@ -72,6 +126,11 @@ public class MagikLint {
       throw new IllegalStateException(exception);
     }
 
+    if (this.definitionKeeper != null) {
+      return new MagikTypedFile(
+          configuration, uri, fileContents, this.definitionKeeper, this.typeStringResolver);
+    }
+
     return new MagikFile(configuration, uri, fileContents);
   }
 
@@ -101,9 +160,7 @@ public class MagikLint {
       throws ReflectiveOperationException, IOException {
     final Path configPath = this.config.getPath();
     final MagikChecksConfiguration checksConfig =
-        configPath != null
-            ? new MagikChecksConfiguration(CheckList.getChecks(), configPath)
-            : new MagikChecksConfiguration(CheckList.getChecks());
+        ChecksConfigurationCache.get(configPath, this.getCheckClasses());
     final Iterable<MagikCheckHolder> holders = checksConfig.getAllChecks();
     for (final MagikCheckHolder holder : holders) {
       final MagikCheckMetadata metadata = holder.getMetadata();
@@ -154,22 +211,190 @@ public class MagikLint {
   /**
    * Run the linter on {@code paths}.
    *
+   * <p>Files are checked in parallel, but issues are reported in path order as soon as all
+   * preceding files are done. At most a window of files is being checked or waiting to be reported
+   * at any time, bounding memory use. Checking stops once max-infractions issues are reported.
+   *
+   * <p>When a cache location is configured, files which are unchanged since the previous run, under
+   * the same configuration, replay their cached issues instead of being checked.
+   *
    * @throws IOException -
    * @throws ReflectiveOperationException -
    */
   public void run(final Collection<Path> paths) throws IOException, ReflectiveOperationException {
+    final MagikLintCache cache = this.loadCache();
     final long maxInfractions = this.config.getMaxInfractions();
+    final int windowSize = Runtime.getRuntime().availableProcessors() * WINDOW_SIZE_PER_PROCESSOR;
+    final Iterator<Path> pathIterator =
+        paths.stream().sorted(Comparator.comparing(Path::toUri)).iterator();
+    final Deque<CompletableFuture<List<MagikIssue>>> window = new ArrayDeque<>();
+    long reported = 0;
+    try {
+      this.fillWindow(window, windowSize, pathIterator, cache);
+      while (!window.isEmpty() && reported < maxInfractions) {
+        final List<MagikIssue> issues = window.removeFirst().join();
+        this.fillWindow(window, windowSize, pathIterator, cache);
+        reported += this.reportIssues(issues, maxInfractions - reported);
+      }
+    } finally {
+      // Short-circuited, do not start files which are not needed anymore.
+      window.forEach(future -> future.cancel(false));
+    }
+
+    if (cache != null) {
+      cache.save();
+    }
+  }
+
+  private void fillWindow(
+      final Deque<CompletableFuture<List<MagikIssue>>> window,
+      final int windowSize,
+      final Iterator<Path> pathIterator,
+      final @Nullable MagikLintCache cache) {
+    while (window.size() < windowSize && pathIterator.hasNext()) {
+      final Path path = pathIterator.next();
+      window.addLast(CompletableFuture.supplyAsync(() -> this.lintFile(path, cache)));
+    }
+  }
+
+  private long reportIssues(final List<MagikIssue> issues, final long maxCount) {
+    final List<MagikIssue> reportedIssues = issues.stream().limit(maxCount).toList();
+    reportedIssues.forEach(this.reporter::reportIssue);
+    return reportedIssues.size();
+  }
+
+  /**
+   * Lint a single file, unless ignored.
+   *
+   * @param path Path to file.
+   * @param cache Cache, if enabled.
+   * @return Issues for the file matching the issue filter, ordered by location.
+   */
+  private List<MagikIssue> lintFile(final Path path, final @Nullable MagikLintCache cache) {
+    if (this.isFileIgnored(path)) {
+      return Collections.emptyList();
+    }
+
     final Location.LocationRangeComparator locationCompare = new Location.LocationRangeComparator();
-    paths.stream()
-        .parallel()
-        .filter(path -> !this.isFileIgnored(path))
-        .map(this::buildMagikFile)
-        .map(this::runChecksOnFile)
-        .flatMap(List::stream)
+    return this.checkFile(path, cache).stream()
+        .filter(this.issueFilter)
         .sorted((issue0, issue1) -> locationCompare.compare(issue0.location(), issue1.location()))
-        .sequential()
-        .limit(maxInfractions)
-        .forEach(this.reporter::reportIssue);
+        .toList();
+  }
+
+  @CheckForNull
+  private MagikLintCache loadCache() throws IOException {
+    final Path cacheLocation = this.config.getCacheLocation();
+    if (cacheLocation == null) {
+      return null;
+    }
+
+    if (this.definitionKeeper != null) {
+      // Typed issues depend on the definitions in other files, not only on the file itself.
+      LOGGER.debug("Not using cache, as typed checks are enabled");
+      return null;
+    }
+
+    final MagikLintCache cache = new MagikLintCache(cacheLocation);
+    cache.load();
+    return cache;
+  }
+
+  /**
+   * Check a file, or replay its issues from the cache.
+   *
+   * @param path Path to file.
+   * @param cache Cache, if enabled.
+   * @return Issues for the file.
+   */
+  private List<MagikIssue> checkFile(final Path path, final @Nullable MagikLintCache cache) {
+    final byte[] encoded;
+    try {
+      encoded = Files.readAllBytes(path);
+    } catch (final IOException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      return Collections.emptyList();
+    }
+
+    final MagikChecksConfiguration checksConfig = this.getChecksConfig(path);
+    if (cache == null) {
+      final MagikFile magikFile = this.buildMagikFile(path, encoded);
+      return this.runChecksOnFile(magikFile, checksConfig);
+    }
+
+    // FileNotInLoadListCheck depends on the sibling load_list.txt.
+    final byte[] loadListEncoded = MagikLint.readLoadList(path);
+    final String key = MagikLintCache.computeKey(encoded, loadListEncoded, checksConfig);
+    final List<MagikLintCache.CachedIssue> cachedIssues = cache.get(path, key);
+    if (cachedIssues != null) {
+      final List<MagikIssue> replayedIssues = this.replayIssues(path, cachedIssues, checksConfig);
+      if (replayedIssues != null) {
+        LOGGER.trace("Thread: {}, replaying file: {}", Thread.currentThread().getName(), path);
+        return replayedIssues;
+      }
+    }
+
+    final MagikFile magikFile = this.buildMagikFile(path, encoded);
+    final List<MagikIssue> issues = this.runChecksOnFile(magikFile, checksConfig);
+    cache.put(path, key, issues);
+    return issues;
+  }
+
+  private static byte[] readLoadList(final Path path) {
+    final Path loadListPath = path.resolveSibling(LOAD_LIST_FILENAME);
+    if (!Files.isRegularFile(loadListPath)) {
+      return new byte[0];
+    }
+
+    try {
+      return Files.readAllBytes(loadListPath);
+    } catch (final IOException exception) {
+      LOGGER.error(exception.getMessage(), exception);
+      return new byte[0];
+    }
+  }
+
+  /**
+   * Recreate {@link MagikIssue}s from cached issues.
+   *
+   * @return Issues, or null if the issues could not be recreated.
+   */
+  @CheckForNull
+  private List<MagikIssue> replayIssues(
+      final Path path,
+      final List<MagikLintCache.CachedIssue> cachedIssues,
+      final MagikChecksConfiguration checksConfig) {
+    final Map<String, MagikCheck> checks = new HashMap<>();
+    final List<MagikIssue> issues = new ArrayList<>();
+    final URI uri = path.toUri();
+    for (final MagikLintCache.CachedIssue cachedIssue : cachedIssues) {
+      final MagikCheck check =
+          checks.computeIfAbsent(
+              cachedIssue.getCheckKey(), checkKey -> this.createCheck(checkKey, checksConfig));
+      if (check == null) {
+        return null;
+      }
+
+      final Location location = new Location(uri, cachedIssue.getRange());
+      issues.add(new MagikIssue(location, cachedIssue.getMessage(), check));
+    }
+    return issues;
+  }
+
+  @CheckForNull
+  private MagikCheck createCheck(
+      final String checkKey, final MagikChecksConfiguration checksConfig) {
+    for (final MagikCheckHolder holder : checksConfig.getAllChecks()) {
+      if (holder.getCheckKey().equals(checkKey)) {
+        try {
+          return holder.createCheck();
+        } catch (final ReflectiveOperationException exception) {
+          LOGGER.error(exception.getMessage(), exception);
+        }
+      }
+    }
+
+    return null;
   }
 
   private MagikChecksConfiguration getChecksConfig(final Path path) {
@@ -177,13 +402,16 @@ public class MagikLint {
         this.config.getPath() != null
             ? this.config.getPath()
             : ConfigurationLocator.locateConfiguration(path);
-    try {
-      return configPath != null
-          ? new MagikChecksConfiguration(CheckList.getChecks(), configPath)
-          : new MagikChecksConfiguration(CheckList.getChecks());
-    } catch (final IOException exception) {
-      throw new IllegalStateException(exception);
-    }
+    final Path key = configPath != null ? configPath : DEFAULT_CONFIG_KEY;
+    return this.checksConfigs.computeIfAbsent(
+        key,
+        cfgKey -> {
+          try {
+            return ChecksConfigurationCache.get(configPath, this.getCheckClasses());
+          } catch (final IOException exception) {
+            throw new IllegalStateException(exception);
+          }
+        });
   }
 
   private boolean isFileIgnored(final Path path) {
@@ -203,18 +431,16 @@ public class MagikLint {
    * Run {@link MagikCheckHolder}s on {@link MagikFile}.
    *
    * @param magikFile File to run on.
-   * @param holders {@link MagikCheckHolder}s to run.
+   * @param checksConfig {@link MagikChecksConfiguration} with the checks to run.
    * @return List of {@link MagikIssue}s for the given file.
    */
-  private List<MagikIssue> runChecksOnFile(final MagikFile magikFile) {
+  private List<MagikIssue> runChecksOnFile(
+      final MagikFile magikFile, final MagikChecksConfiguration checksConfig) {
     LOGGER.trace("Thread: {}, checking file: {}", Thread.currentThread().getName(), magikFile);
 
     final List<MagikIssue> magikIssues = new ArrayList<>();
 
     // run checks on files
-    final URI uri = magikFile.getUri();
-    final Path path = Path.of(uri);
-    final MagikChecksConfiguration checksConfig = this.getChecksConfig(path);
     final Iterable<MagikCheckHolder> holders = checksConfig.getAllChecks();
     for (final MagikCheckHolder holder : holders) {
       if (!holder.isEnabled()) {
@@ -0,0 +1,277 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.checks.MagikCheckHolder;
+import nl.ramsolutions.sw.magik.checks.MagikChecksConfiguration;
+import nl.ramsolutions.sw.magik.checks.MagikIssue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of {@link MagikIssue}s per file.
+ *
+ * <p>Entries are keyed by a hash over the file contents, the contents of the sibling {@code
+ * load_list.txt}, the effective {@link MagikChecksConfiguration} and the tool version. A file whose
+ * key is unchanged can replay its issues without being parsed or checked.
+ */
+public class MagikLintCache {
+
+  /** Cached issue, without the {@link nl.ramsolutions.sw.magik.checks.MagikCheck} instance. */
+  static final class CachedIssue {
+
+    private final String checkKey;
+    private final Range range;
+    private final String message;
+
+    CachedIssue(final String checkKey, final Range range, final String message) {
+      this.checkKey = checkKey;
+      this.range = range;
+      this.message = message;
+    }
+
+    String getCheckKey() {
+      return this.checkKey;
+    }
+
+    Range getRange() {
+      return this.range;
+    }
+
+    String getMessage() {
+      return this.message;
+    }
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MagikLintCache.class);
+  private static final int MAGIC = 0x4d4c4331; // MLC1
+  private static final int FORMAT_VERSION = 1;
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private final Path cachePath;
+  private final Map<Path, Map.Entry<String, List<CachedIssue>>> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param cachePath Path to the cache file.
+   */
+  public MagikLintCache(final Path cachePath) {
+    this.cachePath = cachePath;
+  }
+
+  /**
+   * Load the cache file, if it exists. A corrupt or incompatible cache file is ignored.
+   *
+   * @throws IOException -
+   */
+  public void load() throws IOException {
+    this.entries.clear();
+    if (!Files.exists(this.cachePath)) {
+      return;
+    }
+
+    try (DataInputStream input =
+        new DataInputStream(
+            new GZIPInputStream(new BufferedInputStream(Files.newInputStream(this.cachePath))))) {
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+        LOGGER.debug("Ignoring incompatible cache file: {}", this.cachePath);
+        return;
+      }
+
+      final int entryCount = input.readInt();
+      for (int i = 0; i < entryCount; ++i) {
+        final Path path = Path.of(input.readUTF());
+        final String key = input.readUTF();
+        final List<CachedIssue> issues = MagikLintCache.readIssues(input);
+        this.entries.put(path, Map.entry(key, issues));
+      }
+    } catch (final IOException exception) {
+      LOGGER.warn("Ignoring corrupt cache file: {}, error: {}", this.cachePath, exception);
+      this.entries.clear();
+    }
+  }
+
+  private static List<CachedIssue> readIssues(final DataInputStream input) throws IOException {
+    final int issueCount = input.readInt();
+    final List<CachedIssue> issues = new ArrayList<>(issueCount);
+    for (int i = 0; i < issueCount; ++i) {
+      final String checkKey = input.readUTF();
+      final Position startPosition = new Position(input.readInt(), input.readInt());
+      final Position endPosition = new Position(input.readInt(), input.readInt());
+      final String message = input.readUTF();
+      issues.add(new CachedIssue(checkKey, new Range(startPosition, endPosition), message));
+    }
+    return issues;
+  }
+
+  /**
+   * Save the cache file. The file is replaced atomically. Entries of files which no longer exist
+   * are dropped.
+   *
+   * @throws IOException -
+   */
+  public void save() throws IOException {
+    final Path parentPath = this.cachePath.toAbsolutePath().getParent();
+    if (parentPath != null) {
+      Files.createDirectories(parentPath);
+    }
+
+    final Path tempPath = Path.of(this.cachePath.toString() + ".tmp");
+    try (DataOutputStream output =
+        new DataOutputStream(
+            new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath))))) {
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+
+      final List<Map.Entry<Path, Map.Entry<String, List<CachedIssue>>>> existingEntries =
+          this.entries.entrySet().stream()
+              .filter(entry -> Files.isRegularFile(entry.getKey()))
+              .map(Map.Entry::copyOf)
+              .toList();
+      output.writeInt(existingEntries.size());
+      for (final Map.Entry<Path, Map.Entry<String, List<CachedIssue>>> entry : existingEntries) {
+        output.writeUTF(entry.getKey().toString());
+        output.writeUTF(entry.getValue().getKey());
+        MagikLintCache.writeIssues(output, entry.getValue().getValue());
+      }
+    }
+
+    Files.move(
+        tempPath,
+        this.cachePath,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeIssues(final DataOutputStream output, final List<CachedIssue> issues)
+      throws IOException {
+    output.writeInt(issues.size());
+    for (final CachedIssue issue : issues) {
+      output.writeUTF(issue.getCheckKey());
+      output.writeInt(issue.getRange().getStartPosition().getLine());
+      output.writeInt(issue.getRange().getStartPosition().getColumn());
+      output.writeInt(issue.getRange().getEndPosition().getLine());
+      output.writeInt(issue.getRange().getEndPosition().getColumn());
+      output.writeUTF(issue.getMessage());
+    }
+  }
+
+  /**
+   * Get the cached issues for {@code path}.
+   *
+   * @param path Path to the file.
+   * @param key Cache key, see {@link #computeKey}.
+   * @return Cached issues, or null if not cached or the key does not match.
+   */
+  @CheckForNull
+  List<CachedIssue> get(final Path path, final String key) {
+    final Map.Entry<String, List<CachedIssue>> entry = this.entries.get(path.toAbsolutePath());
+    if (entry == null || !entry.getKey().equals(key)) {
+      return null;
+    }
+
+    return entry.getValue();
+  }
+
+  /**
+   * Store the issues for {@code path}.
+   *
+   * @param path Path to the file.
+   * @param key Cache key, see {@link #computeKey}.
+   * @param issues Issues found in the file.
+   */
+  void put(final Path path, final String key, final List<MagikIssue> issues) {
+    final List<CachedIssue> cachedIssues =
+        issues.stream()
+            .map(
+                issue -> {
+                  final MagikCheckHolder holder = issue.check().getHolder();
+                  final String checkKey = holder != null ? holder.getCheckKey() : "";
+                  return new CachedIssue(checkKey, issue.range(), issue.message());
+                })
+            .toList();
+    this.entries.put(path.toAbsolutePath(), Map.entry(key, cachedIssues));
+  }
+
+  /**
+   * Get the number of cached files.
+   *
+   * @return Number of cached files.
+   */
+  public int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Compute the cache key for a file.
+   *
+   * @param contents Contents of the file.
+   * @param loadListContents Contents of the sibling {@code load_list.txt}, empty if none.
+   * @param checksConfig Effective {@link MagikChecksConfiguration} for the file.
+   * @return Cache key.
+   */
+  static String computeKey(
+      final byte[] contents,
+      final byte[] loadListContents,
+      final MagikChecksConfiguration checksConfig) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (final NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+
+    final String version = MagikLintCache.class.getPackage().getImplementationVersion();
+    digest.update(String.valueOf(version).getBytes(StandardCharsets.UTF_8));
+    digest.update(MagikLintCache.fingerprint(checksConfig).getBytes(StandardCharsets.UTF_8));
+    digest.update(contents);
+    // Separate contents from load list.
+    digest.update((byte) 0);
+    digest.update(loadListContents);
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Fingerprint the {@link MagikChecksConfiguration}: the set of checks, whether these are enabled
+   * and their parameters.
+   */
+  private static String fingerprint(final MagikChecksConfiguration checksConfig) {
+    final StringBuilder builder = new StringBuilder();
+    for (final MagikCheckHolder holder : checksConfig.getAllChecks()) {
+      builder.append(holder.getCheckClass().getName()).append(':').append(holder.isEnabled());
+      try {
+        // Parameters are unordered, sort for a stable fingerprint.
+        final List<String> parameters = new ArrayList<>();
+        holder
+            .getParameters()
+            .forEach(parameter -> parameters.add(parameter.getName() + "=" + parameter.getValue()));
+        parameters.sort(null);
+        parameters.forEach(parameter -> builder.append(';').append(parameter));
+      } catch (final IllegalAccessException exception) {
+        throw new IllegalStateException(exception);
+      }
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+}
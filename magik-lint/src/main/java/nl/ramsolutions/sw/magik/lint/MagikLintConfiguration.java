@@ -1,6 +1,7 @@
 package nl.ramsolutions.sw.magik.lint;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import nl.ramsolutions.sw.MagikToolsProperties;
@@ -11,6 +12,7 @@ public class MagikLintConfiguration {
   private static final String KEY_MAX_INFRACTIONS = "max-infractions";
   private static final String KEY_COLUMN_OFFSET = "column-offset";
   private static final String KEY_MSG_TEMPLATE = "msg-template";
+  private static final String KEY_CACHE_LOCATION = "cache-location";
 
   private final Path path;
   private final MagikToolsProperties properties;
@@ -90,4 +92,24 @@ public class MagikLintConfiguration {
   public void setReporterFormat(final String reporterFormat) {
     this.properties.setProperty(KEY_MSG_TEMPLATE, reporterFormat);
   }
+
+  /**
+   * Get the location of the result cache.
+   *
+   * @return Path to the cache file, or null if caching is disabled.
+   */
+  @CheckForNull
+  public Path getCacheLocation() {
+    final String cacheLocation = this.properties.getPropertyString(KEY_CACHE_LOCATION);
+    if (cacheLocation == null) {
+      return null;
+    }
+
+    return Path.of(cacheLocation);
+  }
+
+  public void setCacheLocation(final @Nullable Path cacheLocation) {
+    this.properties.setProperty(
+        KEY_CACHE_LOCATION, cacheLocation != null ? cacheLocation.toString() : null);
+  }
 }
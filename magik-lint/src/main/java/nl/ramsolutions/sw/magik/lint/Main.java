@@ -1,5 +1,7 @@
 package nl.ramsolutions.sw.magik.lint;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -8,10 +10,16 @@ import java.io.PrintWriter;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.LogManager;
 import nl.ramsolutions.sw.ConfigurationLocator;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.indexer.WorkspaceIndexer;
 import nl.ramsolutions.sw.magik.lint.output.MessageFormatReporter;
 import nl.ramsolutions.sw.magik.lint.output.NullReporter;
 import nl.ramsolutions.sw.magik.lint.output.Reporter;
@@ -29,6 +37,8 @@ import org.apache.commons.cli.UnrecognizedOptionException;
 public final class Main {
 
   private static final Options OPTIONS;
+  private static final String DEFAULT_CACHE_LOCATION = ".magik-lint-cache";
+  private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
   private static final Option OPTION_MSG_TEMPLATE =
       Option.builder()
           .longOpt("msg-template")
@@ -65,6 +75,80 @@ public final class Main {
       Option.builder().longOpt("version").desc("Show version and exit").build();
   private static final Option OPTION_HELP =
       Option.builder().longOpt("help").desc("Show this help and exit").build();
+  private static final Option OPTION_CACHE =
+      Option.builder()
+          .longOpt("cache")
+          .desc("Cache results of unchanged files, in " + Main.DEFAULT_CACHE_LOCATION)
+          .build();
+  private static final Option OPTION_CACHE_LOCATION =
+      Option.builder()
+          .longOpt("cache-location")
+          .desc("Cache results of unchanged files, in the given file")
+          .hasArg()
+          .type(PatternOptionBuilder.FILE_VALUE)
+          .build();
+  private static final Option OPTION_DAEMON =
+      Option.builder()
+          .longOpt("daemon")
+          .desc("Run as daemon, serving lint requests from clients")
+          .build();
+  private static final Option OPTION_CLIENT =
+      Option.builder()
+          .longOpt("client")
+          .desc("Forward to a running daemon, lint in this process if no daemon is running")
+          .build();
+  private static final Option OPTION_SOCKET =
+      Option.builder()
+          .longOpt("socket")
+          .desc("Socket of the daemon")
+          .hasArg()
+          .type(PatternOptionBuilder.FILE_VALUE)
+          .build();
+  private static final Option OPTION_IDLE_TIMEOUT =
+      Option.builder()
+          .longOpt("idle-timeout")
+          .desc("Stop the daemon after being idle for the given number of seconds")
+          .hasArg()
+          .type(PatternOptionBuilder.NUMBER_VALUE)
+          .build();
+  private static final Option OPTION_CHANGED_SINCE =
+      Option.builder()
+          .longOpt("changed-since")
+          .desc("Only lint files changed since the given git revision")
+          .hasArg()
+          .type(PatternOptionBuilder.STRING_VALUE)
+          .build();
+  private static final Option OPTION_CHANGED_LINES_ONLY =
+      Option.builder()
+          .longOpt("changed-lines-only")
+          .desc("Only report issues on lines changed since the --changed-since revision")
+          .build();
+  private static final Option OPTION_TYPED =
+      Option.builder()
+          .longOpt("typed")
+          .desc("Also run typed checks, indexing the linted paths first")
+          .build();
+  private static final Option OPTION_TYPED_ROOT =
+      Option.builder()
+          .longOpt("typed-root")
+          .desc("Index the given path for typed checks, instead of the linted paths")
+          .hasArg()
+          .type(PatternOptionBuilder.FILE_VALUE)
+          .build();
+  private static final Option OPTION_TYPES_DB =
+      Option.builder()
+          .longOpt("types-db")
+          .desc("Read types database for typed checks")
+          .hasArg()
+          .type(PatternOptionBuilder.FILE_VALUE)
+          .build();
+  private static final Option OPTION_LIBS_DIR =
+      Option.builder()
+          .longOpt("libs-dir")
+          .desc("Read class_infos from libs directory for typed checks")
+          .hasArg()
+          .type(PatternOptionBuilder.FILE_VALUE)
+          .build();
   private static final Option OPTION_APPLY_FIXES =
       Option.builder().longOpt("apply-fixes").desc("Apply fixes automatically").build();
 
@@ -79,6 +163,18 @@ public final class Main {
     OPTIONS.addOption(OPTION_DEBUG);
     OPTIONS.addOption(OPTION_VERSION);
     OPTIONS.addOption(OPTION_APPLY_FIXES);
+    OPTIONS.addOption(OPTION_CACHE);
+    OPTIONS.addOption(OPTION_CACHE_LOCATION);
+    OPTIONS.addOption(OPTION_DAEMON);
+    OPTIONS.addOption(OPTION_CLIENT);
+    OPTIONS.addOption(OPTION_SOCKET);
+    OPTIONS.addOption(OPTION_IDLE_TIMEOUT);
+    OPTIONS.addOption(OPTION_CHANGED_SINCE);
+    OPTIONS.addOption(OPTION_CHANGED_LINES_ONLY);
+    OPTIONS.addOption(OPTION_TYPED);
+    OPTIONS.addOption(OPTION_TYPED_ROOT);
+    OPTIONS.addOption(OPTION_TYPES_DB);
+    OPTIONS.addOption(OPTION_LIBS_DIR);
   }
 
   private static final Map<String, Integer> SEVERITY_EXIT_CODE_MAPPING =
@@ -120,16 +216,17 @@ public final class Main {
    * Create the reporter.
    *
    * @param configuration Configuration.
+   * @param outStream Stream to report to.
    * @return Reporter.
    */
-  private static Reporter createReporter(final MagikLintConfiguration configuration) {
+  private static Reporter createReporter(
+      final MagikLintConfiguration configuration, final PrintStream outStream) {
     final String configReporterFormat = configuration.getReporterFormat();
     final String format =
         configReporterFormat != null ? configReporterFormat : MessageFormatReporter.DEFAULT_FORMAT;
 
     final Long columnOffset = configuration.getColumnOffset();
 
-    final PrintStream outStream = Main.getOutStream();
     return new MessageFormatReporter(outStream, format, columnOffset);
   }
 
@@ -158,78 +255,271 @@ public final class Main {
       Main.initDebugLogger();
     }
 
+    // Daemon.
+    final Path socketPath = Main.getSocketPath(commandLine);
+    if (commandLine.hasOption(OPTION_DAEMON)) {
+      final LintDaemon daemon = new LintDaemon(socketPath, Main.getIdleTimeout(commandLine));
+      daemon.run();
+
+      System.exit(0);
+    }
+
+    // Client, falls back to linting in this process when no daemon is running.
+    final Path workingPath = Path.of("").toAbsolutePath();
+    if (commandLine.hasOption(OPTION_CLIENT)) {
+      final Integer exitCode =
+          LintClient.forward(
+              socketPath, args, workingPath, Main.getOutStream(), Main.getErrStream());
+      if (exitCode != null) {
+        System.exit(exitCode);
+      }
+    }
+
+    final int exitCode =
+        Main.run(commandLine, Path.of(""), Main.getOutStream(), Main.getErrStream());
+    System.exit(exitCode);
+  }
+
+  /**
+   * Run magik-lint with the given arguments, as if started from {@code workingPath}.
+   *
+   * @param args Arguments.
+   * @param workingPath Working directory to resolve relative paths against.
+   * @param outStream Stream to write output to.
+   * @param errStream Stream to write errors to.
+   * @return Exit code.
+   * @throws IOException -
+   * @throws ParseException -
+   * @throws ReflectiveOperationException -
+   */
+  static int run(
+      final String[] args,
+      final Path workingPath,
+      final PrintStream outStream,
+      final PrintStream errStream)
+      throws ParseException, IOException, ReflectiveOperationException {
+    final CommandLine commandLine;
+    try {
+      commandLine = Main.parseCommandline(args);
+    } catch (UnrecognizedOptionException exception) {
+      errStream.println("Unrecognized option: " + exception.getMessage());
+      return 1;
+    }
+
+    return Main.run(commandLine, workingPath, outStream, errStream);
+  }
+
+  private static int run(
+      final CommandLine commandLine,
+      final Path workingPath,
+      final PrintStream outStream,
+      final PrintStream errStream)
+      throws ParseException, IOException, ReflectiveOperationException {
     if (commandLine.hasOption(OPTION_VERSION)) {
       final String version = Main.class.getPackage().getImplementationVersion();
-      final PrintStream errStream = Main.getErrStream();
       errStream.println("Version: " + version);
-      System.exit(0);
+      return 0;
+    }
+
+    final String optionsError = Main.checkOptions(commandLine);
+    if (optionsError != null) {
+      errStream.println(optionsError);
+      return 1;
     }
 
     // Read configuration.
-    final MagikLintConfiguration config;
-    if (commandLine.hasOption(OPTION_RCFILE)) {
+    final MagikLintConfiguration config = Main.readConfiguration(commandLine, workingPath);
+    if (config == null) {
       final File rcfile = (File) commandLine.getParsedOptionValue(OPTION_RCFILE);
-      final Path path = rcfile.toPath();
-      if (!Files.exists(path)) {
-        final PrintStream errStream = Main.getErrStream();
-        errStream.println("RC File does not exist: " + path);
-
-        System.exit(1);
-      }
-      config = new MagikLintConfiguration(path);
-    } else {
-      final Path currentWorkingPath = Path.of("");
-      final Path path = ConfigurationLocator.locateConfiguration(currentWorkingPath);
-      config = path != null ? new MagikLintConfiguration(path) : new MagikLintConfiguration();
+      errStream.println("RC File does not exist: " + workingPath.resolve(rcfile.toPath()));
+      return 1;
     }
 
     // Copy configuration from command line.
-    Main.copyOptionsToConfig(commandLine, config);
+    Main.copyOptionsToConfig(commandLine, config, workingPath);
 
     // Show checks.
     if (commandLine.hasOption(OPTION_SHOW_CHECKS)) {
       final Reporter reporter = new NullReporter();
       final MagikLint lint = new MagikLint(config, reporter);
-      final PrintStream outStream = Main.getOutStream();
       final Writer writer = new PrintWriter(outStream);
       lint.showEnabledChecks(writer);
       lint.showDisabledChecks(writer);
       writer.flush();
-      System.exit(0);
+      return 0;
     }
 
     // Help.
-    if (commandLine.hasOption(OPTION_HELP) || commandLine.getArgs().length == 0) {
+    if (commandLine.hasOption(OPTION_HELP)
+        || commandLine.getArgs().length == 0 && !commandLine.hasOption(OPTION_CHANGED_SINCE)) {
+      final PrintWriter writer = new PrintWriter(outStream);
       final HelpFormatter formatter = new HelpFormatter();
-      formatter.printHelp("magik-lint", Main.OPTIONS);
-
-      System.exit(0);
+      formatter.printHelp(
+          writer,
+          formatter.getWidth(),
+          "magik-lint",
+          null,
+          Main.OPTIONS,
+          formatter.getLeftPadding(),
+          formatter.getDescPadding(),
+          null);
+      writer.flush();
+      return 0;
     }
 
     // Apply fixes.
-    final String[] leftOverArgs = commandLine.getArgs();
-    final Collection<Path> paths = MagikFileScanner.getFilesFromArgs(leftOverArgs);
+    final GitChangeSet changeSet =
+        commandLine.hasOption(OPTION_CHANGED_SINCE)
+            ? GitChangeSet.read(workingPath, commandLine.getOptionValue(OPTION_CHANGED_SINCE))
+            : null;
+    final Collection<Path> paths = Main.getPaths(commandLine, workingPath, changeSet);
     if (commandLine.hasOption(OPTION_APPLY_FIXES)) {
       final MagikFixer fixer = new MagikFixer(config);
       fixer.run(paths);
-
-      System.exit(0);
+      return 0;
     }
 
     // Actual linting.
-    final Reporter reporter = Main.createReporter(config);
+    final Reporter reporter = Main.createReporter(config, outStream);
     final MagikLint lint = new MagikLint(config, reporter);
+    Main.configureLint(commandLine, workingPath, lint, changeSet);
     lint.run(paths);
 
-    final int exitCode =
-        reporter.reportedSeverities().stream()
-            .map(Main.SEVERITY_EXIT_CODE_MAPPING::get)
-            .reduce(0, (partial, sum) -> sum | partial);
-    System.exit(exitCode);
+    return reporter.reportedSeverities().stream()
+        .map(Main.SEVERITY_EXIT_CODE_MAPPING::get)
+        .reduce(0, (partial, sum) -> sum | partial);
+  }
+
+  /**
+   * Check the combination of options.
+   *
+   * @return Error message, or null if the options are valid.
+   */
+  @CheckForNull
+  private static String checkOptions(final CommandLine commandLine) {
+    if (commandLine.hasOption(OPTION_CHANGED_LINES_ONLY)
+        && !commandLine.hasOption(OPTION_CHANGED_SINCE)) {
+      return "Option --changed-lines-only requires --changed-since";
+    }
+
+    return null;
+  }
+
+  /** Configure the optional behavior of {@code lint} from the command line. */
+  private static void configureLint(
+      final CommandLine commandLine,
+      final Path workingPath,
+      final MagikLint lint,
+      final @Nullable GitChangeSet changeSet)
+      throws IOException {
+    if (changeSet != null && commandLine.hasOption(OPTION_CHANGED_LINES_ONLY)) {
+      lint.setIssueFilter(changeSet::isOnChangedLine);
+    }
+
+    if (commandLine.hasOption(OPTION_TYPED)) {
+      Main.indexForTypedChecks(commandLine, workingPath, lint);
+    }
+  }
+
+  /** Index the typed roots, or else the linted paths, and enable typed checks. */
+  private static void indexForTypedChecks(
+      final CommandLine commandLine, final Path workingPath, final MagikLint lint)
+      throws IOException {
+    final List<Path> typedRoots =
+        Main.getPathOptionValues(commandLine, OPTION_TYPED_ROOT, workingPath);
+    final List<Path> roots =
+        !typedRoots.isEmpty()
+            ? typedRoots
+            : Main.getArgsOrWorkingPath(commandLine, workingPath).stream().map(Path::of).toList();
+    final List<Path> typesDbPaths =
+        Main.getPathOptionValues(commandLine, OPTION_TYPES_DB, workingPath);
+    final List<Path> libsDirs = Main.getPathOptionValues(commandLine, OPTION_LIBS_DIR, workingPath);
+    final WorkspaceIndexer indexer = new WorkspaceIndexer(typesDbPaths, libsDirs);
+    final IDefinitionKeeper definitionKeeper = indexer.index(roots);
+    lint.setDefinitionKeeper(definitionKeeper);
+  }
+
+  private static List<Path> getPathOptionValues(
+      final CommandLine commandLine, final Option option, final Path workingPath) {
+    final String[] values = commandLine.getOptionValues(option);
+    if (values == null) {
+      return Collections.emptyList();
+    }
+
+    return Arrays.stream(values).map(workingPath::resolve).toList();
+  }
+
+  /**
+   * Read the configuration, from the rc file if given, else from a located configuration.
+   *
+   * @return Configuration, or null if the given rc file does not exist.
+   */
+  @CheckForNull
+  private static MagikLintConfiguration readConfiguration(
+      final CommandLine commandLine, final Path workingPath) throws ParseException, IOException {
+    if (commandLine.hasOption(OPTION_RCFILE)) {
+      final File rcfile = (File) commandLine.getParsedOptionValue(OPTION_RCFILE);
+      final Path path = workingPath.resolve(rcfile.toPath());
+      if (!Files.exists(path)) {
+        return null;
+      }
+
+      return new MagikLintConfiguration(path);
+    }
+
+    final Path path = ConfigurationLocator.locateConfiguration(workingPath);
+    return path != null ? new MagikLintConfiguration(path) : new MagikLintConfiguration();
+  }
+
+  /**
+   * Get the files to lint from the arguments. When a change set is given, only changed files are
+   * linted, selected from the change set instead of walking the paths. Without arguments, all
+   * changed files are linted.
+   */
+  private static Collection<Path> getPaths(
+      final CommandLine commandLine, final Path workingPath, final @Nullable GitChangeSet changeSet)
+      throws IOException {
+    final String[] resolvedArgs =
+        Main.getArgsOrWorkingPath(commandLine, workingPath).toArray(String[]::new);
+    if (changeSet == null) {
+      return MagikFileScanner.getFilesFromArgs(resolvedArgs);
+    }
+
+    return MagikFileScanner.selectMagikFiles(resolvedArgs, changeSet.getChangedFiles());
+  }
+
+  /** Get the arguments, resolved against the working path, or else the working path itself. */
+  private static List<String> getArgsOrWorkingPath(
+      final CommandLine commandLine, final Path workingPath) {
+    final String[] args = commandLine.getArgs();
+    if (args.length == 0) {
+      return List.of(workingPath.toAbsolutePath().toString());
+    }
+
+    return Arrays.stream(args).map(arg -> workingPath.resolve(arg).toString()).toList();
+  }
+
+  private static Path getSocketPath(final CommandLine commandLine) {
+    if (commandLine.hasOption(OPTION_SOCKET)) {
+      return Path.of(commandLine.getOptionValue(OPTION_SOCKET));
+    }
+
+    final String tempDir = System.getProperty("java.io.tmpdir");
+    final String userName = System.getProperty("user.name");
+    return Path.of(tempDir, "magik-lint-" + userName, "daemon.sock");
+  }
+
+  private static Duration getIdleTimeout(final CommandLine commandLine) {
+    if (commandLine.hasOption(OPTION_IDLE_TIMEOUT)) {
+      final String value = commandLine.getOptionValue(OPTION_IDLE_TIMEOUT);
+      return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    return DEFAULT_IDLE_TIMEOUT;
   }
 
   private static void copyOptionsToConfig(
-      final CommandLine commandLine, final MagikLintConfiguration config) {
+      final CommandLine commandLine, final MagikLintConfiguration config, final Path workingPath) {
     if (commandLine.hasOption(OPTION_MAX_INFRACTIONS)) {
       final String value = commandLine.getOptionValue(OPTION_MAX_INFRACTIONS);
       final Long maxInfractions = Long.parseLong(value);
@@ -246,5 +536,12 @@ public final class Main {
       final String value = commandLine.getOptionValue(OPTION_MSG_TEMPLATE);
       config.setReporterFormat(value);
     }
+
+    if (commandLine.hasOption(OPTION_CACHE_LOCATION)) {
+      final String value = commandLine.getOptionValue(OPTION_CACHE_LOCATION);
+      config.setCacheLocation(workingPath.resolve(value));
+    } else if (commandLine.hasOption(OPTION_CACHE)) {
+      config.setCacheLocation(workingPath.resolve(DEFAULT_CACHE_LOCATION));
+    }
   }
 }
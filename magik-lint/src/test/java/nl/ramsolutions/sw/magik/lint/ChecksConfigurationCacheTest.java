@@ -0,0 +1,52 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.checks.MagikCheck;
+import nl.ramsolutions.sw.magik.checks.MagikChecksConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test ChecksConfigurationCache. */
+class ChecksConfigurationCacheTest {
+
+  @TempDir private Path tempDir;
+
+  @Test
+  void testReusedBetweenRuns() throws IOException {
+    final Path configPath = this.tempDir.resolve("magik-lint.properties");
+    Files.writeString(configPath, "disabled=line-length\n");
+    final List<Class<? extends MagikCheck>> checkClasses = CheckList.getChecks();
+
+    final MagikChecksConfiguration checksConfig0 =
+        ChecksConfigurationCache.get(configPath, checkClasses);
+    final MagikChecksConfiguration checksConfig1 =
+        ChecksConfigurationCache.get(configPath, checkClasses);
+
+    assertThat(checksConfig1).isSameAs(checksConfig0);
+  }
+
+  @Test
+  void testReadAgainWhenModified() throws IOException {
+    final Path configPath = this.tempDir.resolve("magik-lint.properties");
+    Files.writeString(configPath, "disabled=line-length\n");
+    Files.setLastModifiedTime(configPath, FileTime.fromMillis(1000));
+    final List<Class<? extends MagikCheck>> checkClasses = CheckList.getChecks();
+    final MagikChecksConfiguration checksConfig0 =
+        ChecksConfigurationCache.get(configPath, checkClasses);
+
+    Files.writeString(configPath, "disabled=all\n");
+    Files.setLastModifiedTime(configPath, FileTime.fromMillis(2000));
+    final MagikChecksConfiguration checksConfig1 =
+        ChecksConfigurationCache.get(configPath, checkClasses);
+
+    assertThat(checksConfig1).isNotSameAs(checksConfig0);
+    assertThat(checksConfig1.getAllChecks()).noneMatch(holder -> holder.isEnabled());
+  }
+}
@@ -51,4 +51,17 @@ class CodeActionApplierTest {
     final String newSource = codeActionApplier.getSource();
     assertThat(newSource).isEqualTo("New line!\nHello, world!\nNew line!\n");
   }
+
+  @Test
+  void testApplyTextEditsOnLaterLines() {
+    final String source = "_block\r\n\twrite(1 ,2)\r\n_endblock\r\n";
+    final CodeActionApplier codeActionApplier = new CodeActionApplier(source);
+    codeActionApplier.applyTextEdits(
+        List.of(
+            new TextEdit(new Range(new Position(2, 8), new Position(2, 9)), ""),
+            new TextEdit(new Range(new Position(2, 10), new Position(2, 10)), " "),
+            new TextEdit(new Range(new Position(3, 0), new Position(3, 9)), "_endproc")));
+    final String newSource = codeActionApplier.getSource();
+    assertThat(newSource).isEqualTo("_block\r\n\twrite(1, 2)\r\n_endproc\r\n");
+  }
 }
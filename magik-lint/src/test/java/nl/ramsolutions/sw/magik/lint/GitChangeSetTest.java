@@ -0,0 +1,108 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import nl.ramsolutions.sw.magik.Location;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.checks.MagikIssue;
+import nl.ramsolutions.sw.magik.checks.checks.LineLengthCheck;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test GitChangeSet. */
+class GitChangeSetTest {
+
+  private static final Path REPOSITORY_PATH = Path.of("/repo");
+
+  private static final List<String> DIFF =
+      List.of(
+          "diff --git a/src/a.magik b/src/a.magik",
+          "index 1111111..2222222 100644",
+          "--- a/src/a.magik",
+          "+++ b/src/a.magik",
+          "@@ -3 +3 @@ _method a.b",
+          "-\told",
+          "+\tnew",
+          "@@ -10,0 +11,3 @@ _method a.c",
+          "+\tadded1",
+          "+\tadded2",
+          "+\tadded3",
+          "@@ -20,2 +22,0 @@",
+          "-\tremoved1",
+          "-\tremoved2",
+          "diff --git a/src/b.magik b/src/b.magik",
+          "new file mode 100644",
+          "--- /dev/null",
+          "+++ b/src/b.magik",
+          "@@ -0,0 +1,2 @@",
+          "+_block",
+          "+_endblock");
+
+  private static MagikIssue issue(final String filename, final int startLine, final int endLine) {
+    final Path path = REPOSITORY_PATH.resolve(filename);
+    final Range range = new Range(new Position(startLine, 0), new Position(endLine, 1));
+    final Location location = new Location(path.toUri(), range);
+    return new MagikIssue(location, "message", new LineLengthCheck());
+  }
+
+  @Test
+  void testChangedFiles() {
+    final GitChangeSet changeSet = GitChangeSet.parse(REPOSITORY_PATH, DIFF);
+
+    assertThat(changeSet.getChangedFiles())
+        .containsExactlyInAnyOrder(
+            REPOSITORY_PATH.resolve("src/a.magik"), REPOSITORY_PATH.resolve("src/b.magik"));
+    assertThat(changeSet.isChanged(REPOSITORY_PATH.resolve("src/../src/a.magik"))).isTrue();
+    assertThat(changeSet.isChanged(REPOSITORY_PATH.resolve("src/c.magik"))).isFalse();
+  }
+
+  @Test
+  void testQuotedFilenames() {
+    final List<String> diff =
+        List.of(
+            "+++ b/src/with space.magik\t",
+            "@@ -1 +1 @@",
+            "+++ \"b/src/tab\\there.magik\"",
+            "@@ -1 +1 @@",
+            "+++ \"b/src/quote\\\"d.magik\"",
+            "@@ -1 +1 @@",
+            "+++ /dev/null");
+    final GitChangeSet changeSet = GitChangeSet.parse(REPOSITORY_PATH, diff);
+
+    assertThat(changeSet.getChangedFiles())
+        .containsExactlyInAnyOrder(
+            REPOSITORY_PATH.resolve("src/with space.magik"),
+            REPOSITORY_PATH.resolve("src/tab\there.magik"),
+            REPOSITORY_PATH.resolve("src/quote\"d.magik"));
+    // Octal escapes are the bytes of the UTF-8 encoded name.
+    assertThat(GitChangeSet.parseFilename("\"b/src/caf\\303\\251.magik\""))
+        .isEqualTo("src/caf\u00e9.magik");
+  }
+
+  @Test
+  void testChangedLines() {
+    final GitChangeSet changeSet = GitChangeSet.parse(REPOSITORY_PATH, DIFF);
+
+    assertThat(changeSet.isOnChangedLine(issue("src/a.magik", 3, 3))).isTrue();
+    assertThat(changeSet.isOnChangedLine(issue("src/a.magik", 4, 10))).isFalse();
+    assertThat(changeSet.isOnChangedLine(issue("src/a.magik", 8, 11))).isTrue();
+    assertThat(changeSet.isOnChangedLine(issue("src/a.magik", 13, 13))).isTrue();
+    assertThat(changeSet.isOnChangedLine(issue("src/a.magik", 14, 30))).isFalse();
+    assertThat(changeSet.isOnChangedLine(issue("src/b.magik", 2, 2))).isTrue();
+    assertThat(changeSet.isOnChangedLine(issue("src/c.magik", 1, 1))).isFalse();
+  }
+
+  @Test
+  void testReadFailureReportsGitError(@TempDir final Path tempDir) {
+    // Not a repository, git fails with a message on stderr.
+    assertThatThrownBy(() -> GitChangeSet.read(tempDir, "HEAD"))
+        .isInstanceOf(IOException.class)
+        .hasMessageStartingWith("git rev-parse --show-cdup failed: ")
+        .hasMessageContaining("not a git repository");
+  }
+}
@@ -0,0 +1,130 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test LintDaemon and LintClient. */
+class LintDaemonTest {
+
+  private static final String CODE =
+      "_block\n" + "\twrite(\"" + "x".repeat(150) + "\")\n" + "_endblock\n";
+
+  private static final int REQUEST_COUNT = 6;
+
+  @TempDir private Path tempDir;
+
+  @Test
+  void testNoDaemonRunning() throws IOException {
+    final Path socketPath = this.tempDir.resolve("daemon.sock");
+    final PrintStream stream = new PrintStream(new ByteArrayOutputStream());
+
+    final Integer exitCode =
+        LintClient.forward(socketPath, new String[] {"a.magik"}, this.tempDir, stream, stream);
+
+    assertThat(exitCode).isNull();
+  }
+
+  @Test
+  void testForwardToDaemon() throws Exception {
+    Files.writeString(this.tempDir.resolve("magik-lint.properties"), "");
+    Files.writeString(this.tempDir.resolve("a.magik"), CODE);
+    final Path socketPath = this.tempDir.resolve("daemon").resolve("daemon.sock");
+    final LintDaemon daemon = new LintDaemon(socketPath, Duration.ofSeconds(1));
+    final CompletableFuture<Void> daemonFuture =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                daemon.run();
+              } catch (final IOException exception) {
+                throw new IllegalStateException(exception);
+              }
+            });
+    assertThat(daemon.awaitListening(Duration.ofSeconds(10))).isTrue();
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      // Only the owner can connect.
+      assertThat(Files.getPosixFilePermissions(socketPath.getParent()))
+          .isEqualTo(PosixFilePermissions.fromString("rwx------"));
+      assertThat(Files.getPosixFilePermissions(socketPath))
+          .isEqualTo(PosixFilePermissions.fromString("rw-------"));
+    }
+
+    // Relative paths are resolved against the working directory of the client.
+    final String[] args = {"--rcfile", "magik-lint.properties", "a.magik"};
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    final Integer exitCode =
+        LintClient.forward(
+            socketPath, args, this.tempDir, new PrintStream(out), new PrintStream(err));
+
+    assertThat(exitCode).isNotNull().isNotZero();
+    assertThat(out.toString(StandardCharsets.UTF_8)).contains("Line is too long");
+    assertThat(err.toString(StandardCharsets.UTF_8)).isEmpty();
+
+    // Stops when idle.
+    daemonFuture.get(10, TimeUnit.SECONDS);
+    assertThat(socketPath).doesNotExist();
+  }
+
+  @Test
+  void testConcurrentRequestsKeepOwnConfiguration() throws Exception {
+    Files.writeString(this.tempDir.resolve("magik-lint.properties"), "");
+    Files.writeString(this.tempDir.resolve("disabled.properties"), "disabled=line-length\n");
+    Files.writeString(this.tempDir.resolve("a.magik"), CODE);
+    final Path socketPath = this.tempDir.resolve("daemon").resolve("daemon.sock");
+    final LintDaemon daemon = new LintDaemon(socketPath, Duration.ofSeconds(1));
+    final CompletableFuture<Void> daemonFuture =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                daemon.run();
+              } catch (final IOException exception) {
+                throw new IllegalStateException(exception);
+              }
+            });
+    assertThat(daemon.awaitListening(Duration.ofSeconds(10))).isTrue();
+
+    final List<CompletableFuture<String>> outputs = new ArrayList<>();
+    for (int i = 0; i < REQUEST_COUNT; ++i) {
+      final String rcFile = i % 2 == 0 ? "magik-lint.properties" : "disabled.properties";
+      outputs.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final PrintStream stream = new PrintStream(out);
+                final String[] args = {"--rcfile", rcFile, "a.magik"};
+                try {
+                  LintClient.forward(socketPath, args, this.tempDir, stream, stream);
+                } catch (final IOException exception) {
+                  throw new IllegalStateException(exception);
+                }
+                return out.toString(StandardCharsets.UTF_8);
+              }));
+    }
+
+    for (int i = 0; i < REQUEST_COUNT; ++i) {
+      final String output = outputs.get(i).get(30, TimeUnit.SECONDS);
+      if (i % 2 == 0) {
+        assertThat(output).contains("Line is too long");
+      } else {
+        assertThat(output).doesNotContain("Line is too long");
+      }
+    }
+
+    daemonFuture.get(10, TimeUnit.SECONDS);
+  }
+}
@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 /** Test MagikFileScanner. */
@@ -60,4 +61,21 @@ class MagikFileScannerTest {
             this.getPath(
                 "magik-lint/src/test/resources/test_product/test_module/source/sw/integer.magik"));
   }
+
+  @Test
+  void testSelectMagikFiles() {
+    final Path sourcePath =
+        this.getPath("magik-lint/src/test/resources/test_product/test_module/source");
+    final String[] args = new String[] {sourcePath.resolve("sw").toString()};
+    final Path integerPath = sourcePath.resolve("sw/integer.magik").toAbsolutePath().normalize();
+    final List<Path> candidates =
+        List.of(
+            sourcePath.resolve("a.magik").toAbsolutePath().normalize(),
+            integerPath,
+            sourcePath.resolve("sw/removed.magik").toAbsolutePath().normalize(),
+            sourcePath.resolve("../module.def").toAbsolutePath().normalize());
+    final Collection<Path> actual = MagikFileScanner.selectMagikFiles(args, candidates);
+
+    assertThat(actual).containsExactly(integerPath);
+  }
 }
@@ -0,0 +1,114 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.abort;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test MagikFixer. */
+class MagikFixerTest {
+
+  @TempDir private Path tempDir;
+
+  private MagikLintConfiguration config;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    final Path rcPath = this.tempDir.resolve("magik-lint.properties");
+    Files.writeString(rcPath, "");
+    this.config = new MagikLintConfiguration(rcPath);
+  }
+
+  @Test
+  void testFixFiles() throws IOException {
+    final List<Path> paths = new ArrayList<>();
+    for (int i = 0; i < 20; ++i) {
+      final Path path = this.tempDir.resolve("file_" + i + ".magik");
+      Files.writeString(path, "_block\n\twrite(" + i + " ,2)\n_endblock\n");
+      paths.add(path);
+    }
+
+    final MagikFixer fixer = new MagikFixer(this.config);
+    fixer.run(paths);
+
+    for (int i = 0; i < 20; ++i) {
+      assertThat(paths.get(i)).hasContent("_block\n\twrite(" + i + ", 2)\n_endblock\n");
+    }
+    try (Stream<Path> stream = Files.list(this.tempDir)) {
+      assertThat(stream.filter(path -> path.toString().endsWith(".tmp"))).isEmpty();
+    }
+  }
+
+  @Test
+  void testUnchangedFileNotWritten() throws IOException {
+    final Path path = this.tempDir.resolve("fixed.magik");
+    Files.writeString(path, "_block\n\twrite(1, 2)\n_endblock\n");
+    final long lastModified = Files.getLastModifiedTime(path).toMillis() - 10000L;
+    Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified));
+
+    final MagikFixer fixer = new MagikFixer(this.config);
+    fixer.run(List.of(path));
+
+    assertThat(Files.getLastModifiedTime(path).toMillis()).isEqualTo(lastModified);
+  }
+
+  @Test
+  void testFixKeepsSymbolicLinkAndPermissions() throws IOException {
+    final Path path = this.tempDir.resolve("real.magik");
+    Files.writeString(path, "_block\n\twrite(1 ,2)\n_endblock\n");
+    final PosixFileAttributeView view =
+        Files.getFileAttributeView(path, PosixFileAttributeView.class);
+    assumeTrue(view != null, "POSIX file attributes not supported");
+    view.setPermissions(PosixFilePermissions.fromString("rw-r-----"));
+    final Path link = Files.createSymbolicLink(this.tempDir.resolve("link.magik"), path);
+
+    final MagikFixer fixer = new MagikFixer(this.config);
+    fixer.run(List.of(link));
+
+    assertThat(Files.isSymbolicLink(link)).isTrue();
+    assertThat(path).hasContent("_block\n\twrite(1, 2)\n_endblock\n");
+    assertThat(view.readAttributes().permissions())
+        .isEqualTo(PosixFilePermissions.fromString("rw-r-----"));
+  }
+
+  @Test
+  void testFixKeepsOwnerAndGroup() throws IOException {
+    final Path path = this.tempDir.resolve("owned.magik");
+    Files.writeString(path, "_block\n\twrite(1 ,2)\n_endblock\n");
+    final PosixFileAttributeView view =
+        Files.getFileAttributeView(path, PosixFileAttributeView.class);
+    assumeTrue(view != null, "POSIX file attributes not supported");
+    final UserPrincipalLookupService lookupService =
+        path.getFileSystem().getUserPrincipalLookupService();
+    try {
+      view.setOwner(lookupService.lookupPrincipalByName("65534"));
+      view.setGroup(lookupService.lookupPrincipalByGroupName("65534"));
+    } catch (final FileSystemException exception) {
+      abort("Not allowed to change owner: " + exception.getMessage());
+    }
+    final PosixFileAttributes before = view.readAttributes();
+
+    final MagikFixer fixer = new MagikFixer(this.config);
+    fixer.run(List.of(path));
+
+    final PosixFileAttributes after = view.readAttributes();
+    assertThat(path).hasContent("_block\n\twrite(1, 2)\n_endblock\n");
+    assertThat(after.owner()).isEqualTo(before.owner());
+    assertThat(after.group()).isEqualTo(before.group());
+  }
+}
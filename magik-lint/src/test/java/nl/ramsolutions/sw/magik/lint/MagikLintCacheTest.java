@@ -0,0 +1,171 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.checks.MagikChecksConfiguration;
+import nl.ramsolutions.sw.magik.checks.MagikIssue;
+import nl.ramsolutions.sw.magik.lint.output.Reporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test MagikLintCache. */
+class MagikLintCacheTest {
+
+  private static final String CODE =
+      "_block\n" + "\twrite(\"" + "x".repeat(150) + "\")\n" + "_endblock\n";
+
+  private static final byte[] NO_LOAD_LIST = new byte[0];
+
+  @TempDir private Path tempDir;
+
+  /** Reporter collecting the reported issues. */
+  private static final class CollectingReporter implements Reporter {
+
+    private final List<MagikIssue> issues = new ArrayList<>();
+
+    @Override
+    public void reportIssue(final MagikIssue magikIssue) {
+      this.issues.add(magikIssue);
+    }
+
+    @Override
+    public Set<String> reportedSeverities() {
+      return Collections.emptySet();
+    }
+  }
+
+  private List<String> lint(final MagikLintConfiguration config, final Path path)
+      throws IOException, ReflectiveOperationException {
+    final CollectingReporter reporter = new CollectingReporter();
+    final MagikLint lint = new MagikLint(config, reporter);
+    lint.run(List.of(path));
+    return reporter.issues.stream()
+        .map(
+            issue -> {
+              assertThat(issue.check().getHolder()).isNotNull();
+              return issue.startLine() + ":" + issue.startColumn() + ":" + issue.message();
+            })
+        .toList();
+  }
+
+  private Path writeFile(final String filename, final String contents) throws IOException {
+    final Path path = this.tempDir.resolve(filename);
+    Files.writeString(path, contents, StandardCharsets.UTF_8);
+    return path;
+  }
+
+  @Test
+  void testReplayIssues() throws IOException, ReflectiveOperationException {
+    final Path rcPath = this.writeFile("magik-lint.properties", "");
+    final Path magikPath = this.writeFile("a.magik", CODE);
+    final Path cachePath = this.tempDir.resolve("cache");
+    final MagikLintConfiguration config = new MagikLintConfiguration(rcPath);
+    config.setCacheLocation(cachePath);
+
+    final List<String> checkedIssues = this.lint(config, magikPath);
+    assertThat(checkedIssues).anyMatch(issue -> issue.contains("Line is too long"));
+    assertThat(cachePath).exists();
+
+    final MagikLintCache cache = new MagikLintCache(cachePath);
+    cache.load();
+    final MagikChecksConfiguration checksConfig =
+        new MagikChecksConfiguration(CheckList.getChecks(), rcPath);
+    final String key =
+        MagikLintCache.computeKey(
+            CODE.getBytes(StandardCharsets.UTF_8), NO_LOAD_LIST, checksConfig);
+    assertThat(cache.get(magikPath, key)).hasSize(checkedIssues.size());
+
+    final List<String> replayedIssues = this.lint(config, magikPath);
+    assertThat(replayedIssues).containsExactlyElementsOf(checkedIssues);
+  }
+
+  @Test
+  void testPruneRemovedFiles() throws IOException, ReflectiveOperationException {
+    final Path rcPath = this.writeFile("magik-lint.properties", "");
+    final Path magikPath = this.writeFile("a.magik", CODE);
+    final Path removedPath = this.writeFile("b.magik", CODE);
+    final Path cachePath = this.tempDir.resolve("cache");
+    final MagikLintConfiguration config = new MagikLintConfiguration(rcPath);
+    config.setCacheLocation(cachePath);
+    this.lint(config, magikPath);
+    this.lint(config, removedPath);
+
+    final MagikLintCache cache = new MagikLintCache(cachePath);
+    cache.load();
+    assertThat(cache.size()).isEqualTo(2);
+
+    Files.delete(removedPath);
+    cache.save();
+    cache.load();
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void testKeyChangesWithConfiguration() throws IOException {
+    final byte[] contents = CODE.getBytes(StandardCharsets.UTF_8);
+    final Path rcPath = this.writeFile("magik-lint.properties", "");
+    final String key =
+        MagikLintCache.computeKey(
+            contents, NO_LOAD_LIST, new MagikChecksConfiguration(CheckList.getChecks(), rcPath));
+    final String keySame =
+        MagikLintCache.computeKey(
+            contents, NO_LOAD_LIST, new MagikChecksConfiguration(CheckList.getChecks(), rcPath));
+    assertThat(keySame).isEqualTo(key);
+
+    final Path rcParameterPath =
+        this.writeFile("parameter.properties", "line-length.line-length=200\n");
+    final String keyParameter =
+        MagikLintCache.computeKey(
+            contents,
+            NO_LOAD_LIST,
+            new MagikChecksConfiguration(CheckList.getChecks(), rcParameterPath));
+    assertThat(keyParameter).isNotEqualTo(key);
+
+    final Path rcDisabledPath = this.writeFile("disabled.properties", "disabled=line-length\n");
+    final String keyDisabled =
+        MagikLintCache.computeKey(
+            contents,
+            NO_LOAD_LIST,
+            new MagikChecksConfiguration(CheckList.getChecks(), rcDisabledPath));
+    assertThat(keyDisabled).isNotEqualTo(key).isNotEqualTo(keyParameter);
+
+    final String keyContents =
+        MagikLintCache.computeKey(
+            "_block\n_endblock\n".getBytes(StandardCharsets.UTF_8),
+            NO_LOAD_LIST,
+            new MagikChecksConfiguration(CheckList.getChecks(), rcPath));
+    assertThat(keyContents).isNotEqualTo(key);
+
+    final String keyLoadList =
+        MagikLintCache.computeKey(
+            contents,
+            "a\n".getBytes(StandardCharsets.UTF_8),
+            new MagikChecksConfiguration(CheckList.getChecks(), rcPath));
+    assertThat(keyLoadList).isNotEqualTo(key);
+  }
+
+  @Test
+  void testCheckedAgainOnChangedLoadList() throws IOException, ReflectiveOperationException {
+    final Path rcPath = this.writeFile("magik-lint.properties", "");
+    final Path magikPath = this.writeFile("a.magik", CODE);
+    final Path loadListPath = this.writeFile("load_list.txt", "b\n");
+    final Path cachePath = this.tempDir.resolve("cache");
+    final MagikLintConfiguration config = new MagikLintConfiguration(rcPath);
+    config.setCacheLocation(cachePath);
+    assertThat(this.lint(config, magikPath))
+        .anyMatch(issue -> issue.contains("File is not included in load_list."));
+
+    Files.writeString(loadListPath, "a\nb\n", StandardCharsets.UTF_8);
+    assertThat(this.lint(config, magikPath))
+        .noneMatch(issue -> issue.contains("File is not included in load_list."));
+  }
+}
@@ -0,0 +1,123 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import nl.ramsolutions.sw.magik.analysis.indexer.WorkspaceIndexer;
+import nl.ramsolutions.sw.magik.checks.MagikIssue;
+import nl.ramsolutions.sw.magik.lint.output.Reporter;
+import nl.ramsolutions.sw.magik.typedchecks.LintObjectFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test MagikLint. */
+class MagikLintTest {
+
+  private static final String LONG_LINE = "\twrite(\"" + "x".repeat(150) + "\")\n";
+
+  @TempDir private Path tempDir;
+
+  private MagikLintConfiguration config;
+
+  /** Reporter collecting the reported issues. */
+  private static final class CollectingReporter implements Reporter {
+
+    private final List<MagikIssue> issues = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void reportIssue(final MagikIssue magikIssue) {
+      this.issues.add(magikIssue);
+    }
+
+    @Override
+    public Set<String> reportedSeverities() {
+      return Collections.emptySet();
+    }
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    final Path rcPath = this.tempDir.resolve("magik-lint.properties");
+    Files.writeString(rcPath, "");
+    this.config = new MagikLintConfiguration(rcPath);
+  }
+
+  private Path writeFile(final String filename, final int longLines) throws IOException {
+    final Path path = this.tempDir.resolve(filename);
+    Files.writeString(path, "_block\n" + LONG_LINE.repeat(longLines) + "_endblock\n");
+    return path;
+  }
+
+  private List<String> lint(final List<Path> paths)
+      throws IOException, ReflectiveOperationException {
+    final CollectingReporter reporter = new CollectingReporter();
+    final MagikLint lint = new MagikLint(this.config, reporter);
+    lint.run(paths);
+    return reporter.issues.stream()
+        .filter(issue -> issue.message().startsWith("Line is too long"))
+        .map(issue -> issue.location().getPath().getFileName() + ":" + issue.startLine())
+        .toList();
+  }
+
+  @Test
+  void testReportInPathOrder() throws IOException, ReflectiveOperationException {
+    final List<Path> paths = new ArrayList<>();
+    IntStream.range(0, 50)
+        .mapToObj(i -> String.format("file_%02d.magik", 49 - i))
+        .forEach(
+            filename -> {
+              try {
+                paths.add(this.writeFile(filename, 2));
+              } catch (final IOException exception) {
+                throw new IllegalStateException(exception);
+              }
+            });
+
+    final List<String> issues = this.lint(paths);
+
+    final List<String> expected =
+        IntStream.range(0, 50)
+            .mapToObj(i -> String.format("file_%02d.magik", i))
+            .flatMap(filename -> List.of(filename + ":2", filename + ":3").stream())
+            .toList();
+    assertThat(issues).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  void testMaxInfractions() throws IOException, ReflectiveOperationException {
+    final Path path0 = this.writeFile("a.magik", 2);
+    final Path path1 = this.writeFile("b.magik", 2);
+    this.config.setMaxInfractions(3L);
+
+    final CollectingReporter reporter = new CollectingReporter();
+    final MagikLint lint = new MagikLint(this.config, reporter);
+    lint.run(List.of(path1, path0));
+
+    assertThat(reporter.issues).hasSize(3);
+  }
+
+  @Test
+  void testTypedChecks() throws IOException, ReflectiveOperationException {
+    final Path usagePath = LintObjectFixture.write(this.tempDir);
+    final WorkspaceIndexer indexer =
+        new WorkspaceIndexer(Collections.emptyList(), Collections.emptyList());
+
+    final CollectingReporter reporter = new CollectingReporter();
+    final MagikLint lint = new MagikLint(this.config, reporter);
+    lint.setDefinitionKeeper(indexer.index(List.of(this.tempDir)));
+    lint.run(List.of(usagePath));
+
+    assertThat(reporter.issues)
+        .filteredOn(issue -> issue.message().startsWith("Unknown method"))
+        .extracting(MagikIssue::startLine)
+        .containsExactly(LintObjectFixture.UNKNOWN_METHOD_LINE);
+  }
+}
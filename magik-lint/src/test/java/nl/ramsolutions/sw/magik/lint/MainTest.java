@@ -0,0 +1,29 @@
+package nl.ramsolutions.sw.magik.lint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test Main. */
+class MainTest {
+
+  @TempDir private Path tempDir;
+
+  @Test
+  void testChangedLinesOnlyRequiresChangedSince() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    final String[] args = {"--changed-lines-only", "a.magik"};
+
+    final int exitCode = Main.run(args, this.tempDir, new PrintStream(out), new PrintStream(err));
+
+    assertThat(exitCode).isEqualTo(1);
+    assertThat(err.toString(StandardCharsets.UTF_8)).contains("--changed-since");
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEmpty();
+  }
+}
@@ -4,12 +4,19 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.util.HashMap;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.FileEvent;
@@ -21,7 +28,8 @@ import org.slf4j.LoggerFactory;
  * .magik-tools-ignore file handler.
  *
  * <p>Keeps track of added {@literal .magik-tools-ignore} files and determines whether a file should
- * be ignored.
+ * be ignored. Rules are kept per directory, only the ignore files in the ancestor directories of a
+ * path are consulted.
  */
 public final class IgnoreHandler {
 
@@ -29,38 +37,106 @@ public final class IgnoreHandler {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(IgnoreHandler.class);
 
-  private final Map<Path, Set<PathMatcher>> entries = new HashMap<>();
+  /** Rules, keyed by the directory of the {@literal .magik-tools-ignore} file. */
+  private final Map<Path, Set<PathMatcher>> entries = new ConcurrentHashMap<>();
 
   /**
-   * Constructor.
+   * Handle a file event, (un)registering any {@literal .magik-tools-ignore} file at or below the
+   * path of the event.
    *
    * @param fileEvent File event.
    * @throws IOException -
    */
   public void handleFileEvent(final FileEvent fileEvent) throws IOException {
     final URI uri = fileEvent.getUri();
-    final Path path = Path.of(uri);
+    final Path path = Path.of(uri).toAbsolutePath();
     final FileChangeType fileChangeType = fileEvent.getFileChangeType();
     if (fileChangeType == FileChangeType.DELETED) {
-      this.getIndexableFiles(path)
-          .filter(indexablePath -> indexablePath.toString().equalsIgnoreCase(IGNORE_FILENAME))
-          .forEach(this::removeIgnoreFile);
+      // Path no longer exists, remove any ignore file at or below path.
+      this.entries.keySet().stream()
+          .filter(
+              directory ->
+                  directory.startsWith(path) || directory.resolve(IGNORE_FILENAME).equals(path))
+          .toList()
+          .forEach(directory -> this.removeIgnoreFile(directory.resolve(IGNORE_FILENAME)));
     } else {
-      this.getIndexableFiles(path)
-          .filter(indexablePath -> indexablePath.toString().equalsIgnoreCase(IGNORE_FILENAME))
-          .forEach(this::addIgnoreFile);
+      this.walk(path, this::addIgnoreFileInDirectory, this::addIgnoreFileIfIgnoreFile);
     }
   }
 
   /**
-   * Get all (indexable) files, under {@link fromPath}, which are not ignored.
+   * Get all (indexable) files, under {@link fromPath}, which are not ignored. Ignored directories
+   * are not traversed.
    *
    * @param fromPath Path to walk from, most likely a directory.
    * @return Stream of indexable files.
    * @throws IOException -
    */
   public Stream<Path> getIndexableFiles(final Path fromPath) throws IOException {
-    return Files.walk(fromPath).filter(path -> !this.isIgnored(path));
+    final List<Path> indexableFiles = new ArrayList<>();
+    this.walk(
+        fromPath.toAbsolutePath(),
+        directory -> {},
+        file -> {
+          if (!this.isIgnored(file)) {
+            indexableFiles.add(file);
+          }
+        });
+    return indexableFiles.stream();
+  }
+
+  /**
+   * Walk the file tree from {@code fromPath}, skipping ignored directories.
+   *
+   * @param fromPath Path to walk from.
+   * @param directoryVisitor Visitor for (non-ignored) directories, before its contents are visited.
+   * @param fileVisitor Visitor for files.
+   * @throws IOException -
+   */
+  private void walk(
+      final Path fromPath, final Consumer<Path> directoryVisitor, final Consumer<Path> fileVisitor)
+      throws IOException {
+    Files.walkFileTree(
+        fromPath,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult preVisitDirectory(
+              final Path directory, final BasicFileAttributes attrs) {
+            if (!directory.equals(fromPath) && IgnoreHandler.this.isIgnored(directory)) {
+              LOGGER.trace("Skipping ignored directory: {}", directory);
+              return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            directoryVisitor.accept(directory);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+            fileVisitor.accept(file);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(final Path file, final IOException exception) {
+            LOGGER.warn("Unable to visit: {}, error: {}", file, exception.getMessage());
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private void addIgnoreFileInDirectory(final Path directory) {
+    final Path ignorePath = directory.resolve(IGNORE_FILENAME);
+    if (Files.isRegularFile(ignorePath)) {
+      this.addIgnoreFile(ignorePath);
+    }
+  }
+
+  private void addIgnoreFileIfIgnoreFile(final Path file) {
+    final Path filename = file.getFileName();
+    if (filename != null && filename.toString().equalsIgnoreCase(IGNORE_FILENAME)) {
+      this.addIgnoreFile(file);
+    }
   }
 
   /**
@@ -95,8 +171,8 @@ public final class IgnoreHandler {
                       (basePath.toString() + fileSystem.getSeparator() + line)
                           .replace("\\", "\\\\"))
               .map(pattern -> fileSystem.getPathMatcher("glob:" + pattern))
-              .collect(Collectors.toSet());
-      this.entries.put(path, pathMatchers);
+              .collect(Collectors.toUnmodifiableSet());
+      this.entries.put(basePath, pathMatchers);
     } catch (final IOException exception) {
       LOGGER.error("Error indexing created file: " + path, exception);
     }
@@ -116,15 +192,20 @@ public final class IgnoreHandler {
       throw new IllegalArgumentException();
     }
 
-    this.entries.remove(path);
+    final Path parentPath = path.getParent();
+    if (parentPath == null) {
+      throw new IllegalArgumentException();
+    }
+
+    this.entries.remove(parentPath.toAbsolutePath());
   }
 
   /**
    * Test if {@code path} is ignored.
    *
-   * <p>A file is either ignored when: - It is a non-regular file - Starts with {@literal .} -
-   * Starts with {@literal #} - Is not a {@literal .magik} file - It is matched through a {@literal
-   * .magik-tools-ignore} file
+   * <p>A file is either ignored when: - Starts with {@literal .} - Starts with {@literal #} - It,
+   * or any of its ancestors, is matched through a {@literal .magik-tools-ignore} file in an
+   * ancestor directory
    *
    * @param path Path to check.
    * @return true if ignored, false otherwise.
@@ -132,13 +213,48 @@ public final class IgnoreHandler {
   public boolean isIgnored(final Path path) {
     // Try defaults first.
     final Path filename = path.getFileName();
-    if (filename.startsWith(".") || filename.startsWith("#")) {
+    if (filename != null
+        && (filename.toString().startsWith(".") || filename.toString().startsWith("#"))) {
       return true;
     }
 
-    // Consult all ignore files and check for a match.
-    return this.entries.entrySet().stream()
+    // Only consult the ignore files in the ancestor directories.
+    final Path absolutePath = path.toAbsolutePath();
+    final List<Map.Entry<Path, Set<PathMatcher>>> applicableEntries =
+        this.getApplicableEntries(absolutePath);
+    if (applicableEntries.isEmpty()) {
+      return false;
+    }
+
+    for (Path candidate = absolutePath; candidate != null; candidate = candidate.getParent()) {
+      if (IgnoreHandler.isMatched(candidate, applicableEntries)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private List<Map.Entry<Path, Set<PathMatcher>>> getApplicableEntries(final Path path) {
+    if (this.entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final List<Map.Entry<Path, Set<PathMatcher>>> applicableEntries = new ArrayList<>();
+    for (Path directory = path.getParent(); directory != null; directory = directory.getParent()) {
+      final Set<PathMatcher> pathMatchers = this.entries.get(directory);
+      if (pathMatchers != null) {
+        applicableEntries.add(Map.entry(directory, pathMatchers));
+      }
+    }
+    return applicableEntries;
+  }
+
+  private static boolean isMatched(
+      final Path candidate, final List<Map.Entry<Path, Set<PathMatcher>>> applicableEntries) {
+    return applicableEntries.stream()
+        .filter(entry -> candidate.startsWith(entry.getKey()) && !candidate.equals(entry.getKey()))
         .flatMap(entry -> entry.getValue().stream())
-        .anyMatch(pathMatcher -> pathMatcher.matches(path));
+        .anyMatch(pathMatcher -> pathMatcher.matches(candidate));
   }
 }
@@ -34,92 +34,117 @@ import com.sonar.sslr.api.Trivia;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 
 /**
- * A {@link AstNode} tree walker with pre- and post-methods to iterate a parse tree.
- * Note that this is generated by the {@code generate_ast_walker.py} script,
- * do not edit this file manually!
+ * A {@link AstNode} tree walker with pre- and post-methods to iterate a parse tree. Note that this
+ * is generated by the {@code generate_ast_walker.py} script, do not edit this file manually!
  */
-public abstract class AstWalker {
-
-    /**
-     * Walk children of node.
-     */
-    protected void walkChildren(final AstNode node) {
-        for (final AstNode childNode : node.getChildren()) {
-            this.walkAst(childNode);
-        }
-    }
+public abstract class MagikAstWalker {
 
-    /**
-     * Walk trivia and tokens of node.
-     */
-    protected void walkTokens(final AstNode tokenNode) {
-        // Assume there can be only one token.
-        final Token token = tokenNode.getToken();
-        token.getTrivia().forEach(this::walkTrivia);
-        this.walkToken(token);
+  /** Walk children of node. */
+  protected void walkChildren(final AstNode node) {
+    for (final AstNode childNode : node.getChildren()) {
+      this.walkAst(childNode);
+    }
+  }
+
+  /** Walk trivia and tokens of node. */
+  protected void walkTokens(final AstNode tokenNode) {
+    // Assume there can be only one token.
+    final Token token = tokenNode.getToken();
+    token.getTrivia().forEach(this::walkTrivia);
+    this.walkToken(token);
+  }
+
+  /**
+   * Start walking the node. The pre- and post-methods are called upon tree traversal.
+   *
+   * @param node Node to start walking.
+   */
+  public void walkAst(final AstNode node) {
+    final AstNodeType nodeType = node.getType();
+    if (!(nodeType instanceof MagikGrammar)) {
+      this.walkTokens(node);
+      return;
     }
 
-    /**
-     * Start walking the node. The pre- and post-methods are called upon tree traversal.
-     * @param node Node to start walking.
-     */
-    @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
-    public void walkAst(final AstNode node) {
-        final AstNodeType nodeType = node.getType();
-        if (!(nodeType instanceof MagikGrammar)) {
-            this.walkTokens(node);
-            return;
-        }
-
-        final MagikGrammar value = (MagikGrammar) nodeType;
-        switch (value) {""")
-
-# generate cases
+    this.walkPre(node);
+    this.walkChildren(node);
+    this.walkPost(node);
+  }
+
+  /**
+   * Call the pre-method for a {@link MagikGrammar} node, without walking its children.
+   *
+   * @param node Node to call the pre-method for.
+   */
+  @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
+  public void walkPre(final AstNode node) {
+    final MagikGrammar value = (MagikGrammar) node.getType();
+    switch (value) {""")
+
+# generate pre cases
 for element in elements:
   java_name = to_java_name(element)
-  print(f"""
-            case {element}:
-                this.walkPre{java_name}(node);
-                this.walkChildren(node);
-                this.walkPost{java_name}(node);
-                break;""")
+  print(f"""      case {element}:
+        this.walkPre{java_name}(node);
+        break;
+""")
 
-print("""
-            default:
-                this.walkPreDefault(node);
-                this.walkChildren(node);
-                this.walkPostDefault(node);
-                break;
-        }
-    }""")
+print("""      default:
+        this.walkPreDefault(node);
+        break;
+    }
+  }
+
+  /**
+   * Call the post-method for a {@link MagikGrammar} node, without walking its children.
+   *
+   * @param node Node to call the post-method for.
+   */
+  @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
+  public void walkPost(final AstNode node) {
+    final MagikGrammar value = (MagikGrammar) node.getType();
+    switch (value) {""")
+
+# generate post cases
+for element in elements:
+  java_name = to_java_name(element)
+  print(f"""      case {element}:
+        this.walkPost{java_name}(node);
+        break;
+""")
+
+print("""      default:
+        this.walkPostDefault(node);
+        break;
+    }
+  }""")
 
 # generate pre- and post-walk-methods
 for element in elements:
   java_name = to_java_name(element)
   print(f"""
-    protected void walkPre{java_name}(final AstNode node) {{
-        this.walkPreDefault(node);
-    }}
+  protected void walkPre{java_name}(final AstNode node) {{
+    this.walkPreDefault(node);
+  }}
 
-    protected void walkPost{java_name}(final AstNode node) {{
-        this.walkPostDefault(node);
-    }}""")
+  protected void walkPost{java_name}(final AstNode node) {{
+    this.walkPostDefault(node);
+  }}""")
 
 print("""
-    protected void walkPreDefault(final AstNode node) {
-        // pass
-    }
+  protected void walkPreDefault(final AstNode node) {
+    // pass
+  }
 
-    protected void walkPostDefault(final AstNode node) {
-        // pass
-    }
-
-    protected void walkToken(final Token token) {
-        // pass
-    }
+  protected void walkPostDefault(final AstNode node) {
+    // pass
+  }
 
-    protected void walkTrivia(final Trivia trivia) {
-        // pass
-    }
+  protected void walkToken(final Token token) {
+    // pass
+  }
 
+  protected void walkTrivia(final Trivia trivia) {
+    // pass
+  }
 }""")
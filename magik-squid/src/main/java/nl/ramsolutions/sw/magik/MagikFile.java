@@ -5,16 +5,18 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import nl.ramsolutions.sw.FileCharsetDeterminer;
 import nl.ramsolutions.sw.OpenedFile;
+import nl.ramsolutions.sw.magik.analysis.AstPositionIndex;
 import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
 import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionReader;
 import nl.ramsolutions.sw.magik.analysis.definitions.MagikDefinition;
@@ -31,14 +33,22 @@ public class MagikFile extends OpenedFile {
   private static final URI DEFAULT_URI = URI.create("memory://source.magik");
   public static final Location DEFAULT_LOCATION = new Location(DEFAULT_URI, Range.DEFAULT_RANGE);
 
+  /** Parser per thread, building the grammar only once per thread. */
+  private static final ThreadLocal<MagikParser> PARSER = ThreadLocal.withInitial(MagikParser::new);
+
   private final MagikAnalysisConfiguration configuration;
   private AstNode astNode;
+  private AstPositionIndex positionIndex;
   private GlobalScope globalScope;
   private List<MagikDefinition> definitions;
   private final Map<CommentInstructionReader.Instruction, Map<Integer, Map<String, String>>>
       statementInstructions = new HashMap<>();
   private final Map<CommentInstructionReader.Instruction, Map<Scope, Map<String, String>>>
       scopeInstructions = new HashMap<>();
+  private final Map<CommentInstructionReader.Instruction, Map<String, Map<Integer, Set<String>>>>
+      statementInstructionValues = new HashMap<>();
+  private final Map<CommentInstructionReader.Instruction, Map<String, Map<Scope, Set<String>>>>
+      scopeInstructionValues = new HashMap<>();
 
   /**
    * Constructor.
@@ -106,7 +116,7 @@ public class MagikFile extends OpenedFile {
    */
   public synchronized AstNode getTopNode() {
     if (this.astNode == null) {
-      final MagikParser parser = new MagikParser();
+      final MagikParser parser = PARSER.get();
       final String magikSource = this.getSource();
       final URI uri = this.getUri();
       this.astNode = parser.parseSafe(magikSource, uri);
@@ -115,6 +125,20 @@ public class MagikFile extends OpenedFile {
     return this.astNode;
   }
 
+  /**
+   * Get the {@link AstPositionIndex} for this file, to look up nodes by position.
+   *
+   * @return {@link AstPositionIndex} for this file.
+   */
+  public synchronized AstPositionIndex getPositionIndex() {
+    if (this.positionIndex == null) {
+      final AstNode topNode = this.getTopNode();
+      this.positionIndex = new AstPositionIndex(topNode);
+    }
+
+    return this.positionIndex;
+  }
+
   /**
    * Get the {@link GlobalScope} for this file.
    *
@@ -151,7 +175,7 @@ public class MagikFile extends OpenedFile {
    * Get all the statement instructions for {@link CommentInstructionReader.Instruction}.
    *
    * @param instruction Instruction to get.
-   * @return Map with all instructions, keyed by line number.
+   * @return Map with all instructions, keyed by line number. Lines without instructions are absent.
    */
   public synchronized Map<Integer, Map<String, String>> getStatementInstructions(
       final CommentInstructionReader.Instruction instruction) {
@@ -159,38 +183,52 @@ public class MagikFile extends OpenedFile {
       throw new IllegalArgumentException("Excepted Statement instruction");
     }
 
-    if (!this.statementInstructions.containsKey(instruction)) {
-      final Map<Integer, Map<String, String>> instructions =
-          this.readStatementInstructions(instruction);
-      this.statementInstructions.put(instruction, instructions);
-    }
-
-    return Collections.unmodifiableMap(this.statementInstructions.get(instruction));
+    return this.statementInstructions.computeIfAbsent(
+        instruction,
+        instr ->
+            this.readInstructions(instr).entrySet().stream()
+                .collect(
+                    Collectors.toUnmodifiableMap(
+                        Map.Entry::getKey,
+                        entry ->
+                            Map.copyOf(
+                                CommentInstructionReader.parseInstructions(entry.getValue())))));
   }
 
-  private Map<Integer, Map<String, String>> readStatementInstructions(
-      final Instruction instruction) {
-    final CommentInstructionReader instructionReader =
-        new CommentInstructionReader(this, Set.of(instruction));
-
-    final String[] sourceLines = this.getSourceLines();
-    return IntStream.range(0, sourceLines.length)
-        .mapToObj(
-            line -> {
-              final String instrAtLine = instructionReader.getInstructionsAtLine(line, instruction);
-              final String lineInstrsStr = Objects.requireNonNullElse(instrAtLine, "");
-              final Map<String, String> lineInstrs =
-                  CommentInstructionReader.parseInstructions(lineInstrsStr);
-              return Map.entry(line, lineInstrs);
-            })
-        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+  /**
+   * Get the values of {@code key} of all statement instructions for {@link
+   * CommentInstructionReader.Instruction}. Values are separated by a `,`, such as {@code
+   * disable=a,b}.
+   *
+   * @param instruction Instruction to get.
+   * @param key Key in instruction.
+   * @return Map with all values, keyed by line number. Lines without the key are absent.
+   */
+  public synchronized Map<Integer, Set<String>> getStatementInstructionValues(
+      final CommentInstructionReader.Instruction instruction, final String key) {
+    final Map<Integer, Map<String, String>> instructions =
+        this.getStatementInstructions(instruction);
+    return this.statementInstructionValues
+        .computeIfAbsent(instruction, instr -> new HashMap<>())
+        .computeIfAbsent(
+            key,
+            k ->
+                instructions.entrySet().stream()
+                    .filter(entry -> entry.getValue().containsKey(k))
+                    .collect(
+                        Collectors.toUnmodifiableMap(
+                            Map.Entry::getKey,
+                            entry ->
+                                CommentInstructionReader.parseInstructionValues(
+                                    entry.getValue().get(k)))));
   }
 
   /**
    * Get all the Scope instructions for {@link CommentInstructionReader.Instruction}.
    *
    * @param instruction Instruction to get.
-   * @return Map with all instructions, keyed by {@link Scope}.
+   * @return Map with all instructions, keyed by {@link Scope}. Scopes without instructions are
+   *     absent.
    */
   public synchronized Map<Scope, Map<String, String>> getScopeInstructions(
       final CommentInstructionReader.Instruction instruction) {
@@ -199,33 +237,90 @@ public class MagikFile extends OpenedFile {
     }
 
     if (!this.scopeInstructions.containsKey(instruction)) {
-      final Map<Scope, Map<String, String>> instructions = this.readScopeInstructions(instruction);
-      this.scopeInstructions.put(instruction, instructions);
+      final Map<Scope, Map<String, String>> instructions = new HashMap<>();
+      this.readScopeInstructions(instruction)
+          .forEach(
+              (scope, instrs) -> {
+                final Map<String, String> scopeInstrs = new HashMap<>();
+                instrs.forEach(
+                    instr -> scopeInstrs.putAll(CommentInstructionReader.parseInstructions(instr)));
+                instructions.put(scope, Map.copyOf(scopeInstrs));
+              });
+      this.scopeInstructions.put(instruction, Map.copyOf(instructions));
     }
 
-    return Collections.unmodifiableMap(this.scopeInstructions.get(instruction));
+    return this.scopeInstructions.get(instruction);
   }
 
-  private Map<Scope, Map<String, String>> readScopeInstructions(final Instruction instruction) {
-    final Map<Scope, Map<String, String>> instructions = new HashMap<>();
-    final GlobalScope glblScope = this.getGlobalScope();
-    Objects.requireNonNull(glblScope);
+  /**
+   * Get the values of {@code key} of all Scope instructions for {@link
+   * CommentInstructionReader.Instruction}. Values are separated by a `,`, such as {@code
+   * disable=a,b}. Values of multiple instructions in the same {@link Scope} are combined.
+   *
+   * @param instruction Instruction to get.
+   * @param key Key in instruction.
+   * @return Map with all values, keyed by {@link Scope}. Scopes without the key are absent.
+   */
+  public synchronized Map<Scope, Set<String>> getScopeInstructionValues(
+      final CommentInstructionReader.Instruction instruction, final String key) {
+    if (instruction.getSort() != CommentInstructionReader.Instruction.Sort.SCOPE) {
+      throw new IllegalArgumentException("Excepted Scope instruction");
+    }
+
+    final Map<String, Map<Scope, Set<String>>> valuesByKey =
+        this.scopeInstructionValues.computeIfAbsent(instruction, instr -> new HashMap<>());
+    if (!valuesByKey.containsKey(key)) {
+      final Map<Scope, Set<String>> values = new HashMap<>();
+      this.readScopeInstructions(instruction)
+          .forEach(
+              (scope, instrs) -> {
+                final Set<String> scopeValues =
+                    instrs.stream()
+                        .map(CommentInstructionReader::parseInstructions)
+                        .map(scopeInstrs -> scopeInstrs.get(key))
+                        .filter(Objects::nonNull)
+                        .flatMap(
+                            value ->
+                                CommentInstructionReader.parseInstructionValues(value).stream())
+                        .collect(Collectors.toUnmodifiableSet());
+                if (!scopeValues.isEmpty()) {
+                  values.put(scope, scopeValues);
+                }
+              });
+      valuesByKey.put(key, Map.copyOf(values));
+    }
+
+    return valuesByKey.get(key);
+  }
 
+  private Map<Integer, String> readInstructions(final Instruction instruction) {
     final CommentInstructionReader instructionReader =
         new CommentInstructionReader(this, Set.of(instruction));
-    glblScope.getSelfAndDescendantScopes().stream()
+    return instructionReader.getInstructions(instruction);
+  }
+
+  /**
+   * Read the instructions, grouped by the most specific {@link Scope} of their line. A Scope
+   * instruction is the only thing on its line, so the start of the line determines the Scope.
+   */
+  private Map<Scope, List<String>> readScopeInstructions(final Instruction instruction) {
+    final Map<Integer, String> instructions = this.readInstructions(instruction);
+    if (instructions.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    final GlobalScope glblScope = this.getGlobalScope();
+    Objects.requireNonNull(glblScope);
+    final Map<Scope, List<String>> scopeInstrs = new HashMap<>();
+    new TreeMap<>(instructions)
         .forEach(
-            scope -> {
-              final Map<String, String> scopeInstrs =
-                  instructionReader.getScopeInstructions(scope, instruction).stream()
-                      .map(instr -> Objects.requireNonNullElse(instr, ""))
-                      .map(CommentInstructionReader::parseInstructions)
-                      .flatMap(instrs -> instrs.entrySet().stream())
-                      .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-              instructions.put(scope, scopeInstrs);
+            (lineNo, instr) -> {
+              final Scope scope = glblScope.getScopeForLineColumn(lineNo + 1, 0); // 0- to 1-based.
+              if (scope != null) {
+                scopeInstrs.computeIfAbsent(scope, k -> new ArrayList<>()).add(instr);
+              }
             });
-
-    return instructions;
+    return scopeInstrs;
   }
 
   @Override
@@ -29,9 +29,27 @@ public class MagikTypedFile extends MagikFile {
       final URI uri,
       final String text,
       final IDefinitionKeeper definitionKeeper) {
+    this(configuration, uri, text, definitionKeeper, new TypeStringResolver(definitionKeeper));
+  }
+
+  /**
+   * Constructor, sharing a {@link TypeStringResolver} with other files.
+   *
+   * @param configuration Magik analysis configuration.
+   * @param uri URI.
+   * @param text Text.
+   * @param definitionKeeper {@link IDefinitionKeeper}.
+   * @param typeStringResolver {@link TypeStringResolver} using {@code definitionKeeper}.
+   */
+  public MagikTypedFile(
+      final MagikAnalysisConfiguration configuration,
+      final URI uri,
+      final String text,
+      final IDefinitionKeeper definitionKeeper,
+      final TypeStringResolver typeStringResolver) {
     super(configuration, uri, text);
     this.definitionKeeper = definitionKeeper;
-    this.typeStringResolver = new TypeStringResolver(definitionKeeper);
+    this.typeStringResolver = typeStringResolver;
   }
 
   /**
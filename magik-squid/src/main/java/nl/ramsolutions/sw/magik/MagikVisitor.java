@@ -12,13 +12,24 @@ public abstract class MagikVisitor extends MagikAstWalker {
     return this.magikFile;
   }
 
+  /**
+   * Start scanning a file, without walking it.
+   *
+   * <p>Called by {@link #scanFile}, and by {@link MagikVisitorGroup} for each of its visitors.
+   *
+   * @param scannedMagikFile File to scan.
+   */
+  protected void startFile(final MagikFile scannedMagikFile) {
+    this.magikFile = scannedMagikFile;
+  }
+
   /**
    * Scan the file.
    *
    * @param scannedMagikFile Context to use.
    */
   public void scanFile(final MagikFile scannedMagikFile) {
-    this.magikFile = scannedMagikFile;
+    this.startFile(scannedMagikFile);
 
     final AstNode topNode = this.magikFile.getTopNode();
     this.walkAst(topNode);
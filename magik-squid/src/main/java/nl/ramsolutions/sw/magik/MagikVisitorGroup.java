@@ -0,0 +1,44 @@
+package nl.ramsolutions.sw.magik;
+
+import com.sonar.sslr.api.AstNode;
+import java.util.List;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+
+/**
+ * Group of {@link MagikVisitor}s, walking all visitors over a file in a single pass over the tree.
+ *
+ * <p>Each visitor sees the same sequence of pre-, post-, token- and trivia-calls as when it would
+ * scan the file on its own. Visitors which steer the walk themselves, by overriding {@code
+ * walkAst()} or {@code walkChildren()}, cannot be grouped.
+ */
+public class MagikVisitorGroup extends MagikVisitor {
+
+  private final List<MagikVisitor> visitors;
+
+  /**
+   * Constructor.
+   *
+   * @param visitors Visitors to group.
+   */
+  public MagikVisitorGroup(final List<? extends MagikVisitor> visitors) {
+    this.visitors = List.copyOf(visitors);
+  }
+
+  @Override
+  protected void startFile(final MagikFile scannedMagikFile) {
+    super.startFile(scannedMagikFile);
+    this.visitors.forEach(visitor -> visitor.startFile(scannedMagikFile));
+  }
+
+  @Override
+  public void walkAst(final AstNode node) {
+    if (!(node.getType() instanceof MagikGrammar)) {
+      this.visitors.forEach(visitor -> visitor.walkAst(node));
+      return;
+    }
+
+    this.visitors.forEach(visitor -> visitor.walkPre(node));
+    this.walkChildren(node);
+    this.visitors.forEach(visitor -> visitor.walkPost(node));
+  }
+}
@@ -4,6 +4,7 @@ import com.sonar.sslr.api.AstNode;
 import java.net.URI;
 import nl.ramsolutions.sw.OpenedFile;
 import nl.ramsolutions.sw.definitions.parser.SwModuleDefParser;
+import nl.ramsolutions.sw.magik.analysis.AstPositionIndex;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 
 public class ModuleDefFile extends OpenedFile {
@@ -13,6 +14,7 @@ public class ModuleDefFile extends OpenedFile {
 
   private final IDefinitionKeeper definitionKeeper;
   private AstNode astNode;
+  private AstPositionIndex positionIndex;
 
   /**
    * Constructor.
@@ -42,6 +44,20 @@ public class ModuleDefFile extends OpenedFile {
     return this.astNode;
   }
 
+  /**
+   * Get the {@link AstPositionIndex} for this file, to look up nodes by position.
+   *
+   * @return {@link AstPositionIndex} for this file.
+   */
+  public synchronized AstPositionIndex getPositionIndex() {
+    if (this.positionIndex == null) {
+      final AstNode topNode = this.getTopNode();
+      this.positionIndex = new AstPositionIndex(topNode);
+    }
+
+    return this.positionIndex;
+  }
+
   /** Get the {@link IDefinitionKeeper}. */
   public IDefinitionKeeper getDefinitionKeeper() {
     return this.definitionKeeper;
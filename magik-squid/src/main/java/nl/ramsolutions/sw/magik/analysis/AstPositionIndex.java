@@ -0,0 +1,279 @@
+package nl.ramsolutions.sw.magik.analysis;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.Token;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+
+/**
+ * Position index over the token nodes of a tree.
+ *
+ * <p>Token nodes are stored in source order, together with their start and end positions. Lookups
+ * of the token at/before/after a position are done with a binary search, instead of walking the
+ * whole tree. Surrounding nodes are found by descending only into the children which contain the
+ * position.
+ *
+ * <p>The index is immutable and is intended to be built once per parsed tree, see {@link
+ * nl.ramsolutions.sw.magik.MagikFile#getPositionIndex()}.
+ */
+public final class AstPositionIndex {
+
+  private static final int COLUMN_BITS = 32;
+
+  private final AstNode topNode;
+  private final AstNode[] tokenNodes;
+  private final long[] starts;
+  private final long[] ends;
+
+  /**
+   * Ends, as the running maximum. Used to binary search on ends, even if a token would end before
+   * its predecessor.
+   */
+  private final long[] maxEnds;
+
+  /**
+   * Constructor.
+   *
+   * @param topNode Top node to index.
+   */
+  public AstPositionIndex(final AstNode topNode) {
+    this.topNode = topNode;
+
+    final List<AstNode> nodes = new ArrayList<>();
+    final Deque<AstNode> stack = new ArrayDeque<>();
+    stack.push(topNode);
+    while (!stack.isEmpty()) {
+      final AstNode node = stack.pop();
+      if (AstQuery.isTokenNode(node)) {
+        nodes.add(node);
+      }
+
+      final List<AstNode> children = node.getChildren();
+      for (int i = children.size() - 1; i >= 0; --i) {
+        stack.push(children.get(i));
+      }
+    }
+
+    final int size = nodes.size();
+    this.tokenNodes = nodes.toArray(AstNode[]::new);
+    this.starts = new long[size];
+    this.ends = new long[size];
+    this.maxEnds = new long[size];
+    long maxEnd = Long.MIN_VALUE;
+    for (int i = 0; i < size; ++i) {
+      final Token token = this.tokenNodes[i].getToken();
+      this.starts[i] = AstPositionIndex.key(token.getLine(), token.getColumn());
+      this.ends[i] = AstPositionIndex.endKey(token);
+      maxEnd = Math.max(maxEnd, this.ends[i]);
+      this.maxEnds[i] = maxEnd;
+    }
+  }
+
+  /**
+   * Get the top node this index was built for.
+   *
+   * @return Top node.
+   */
+  public AstNode getTopNode() {
+    return this.topNode;
+  }
+
+  /**
+   * Get the token node at {@code position}.
+   *
+   * @param position Position for node.
+   * @return Token node at position.
+   */
+  @CheckForNull
+  public AstNode nodeAt(final Position position) {
+    final long key = AstPositionIndex.key(position);
+
+    // First token which might end at/after position.
+    int low = 0;
+    int high = this.tokenNodes.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.maxEnds[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    for (int i = low; i < this.tokenNodes.length && this.starts[i] <= key; ++i) {
+      if (this.ends[i] >= key) {
+        return this.tokenNodes[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the token node at {@code position}, of which the parent is one of {@code nodeTypes}.
+   *
+   * @param position Position for node.
+   * @param nodeTypes Parent node types to look for.
+   * @return Token node at position.
+   */
+  @CheckForNull
+  public AstNode nodeAt(final Position position, final AstNodeType... nodeTypes) {
+    final AstNode node = this.nodeAt(position);
+    if (node == null) {
+      return null;
+    }
+    final AstNode parentNode = node.getParent();
+    if (parentNode == null || parentNode.isNot(nodeTypes)) {
+      return null;
+    }
+    return node;
+  }
+
+  /**
+   * Get the last token node which ends before {@code position}.
+   *
+   * @param position Position for node.
+   * @return Token node before position.
+   */
+  @CheckForNull
+  public AstNode nodeBefore(final Position position) {
+    final long key = AstPositionIndex.key(position);
+
+    // Last token which starts before position.
+    int low = 0;
+    int high = this.tokenNodes.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.starts[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    for (int i = low - 1; i >= 0; --i) {
+      if (this.ends[i] < key) {
+        return this.tokenNodes[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the first token node which starts after {@code position}.
+   *
+   * @param position Position for node.
+   * @return Token node after position.
+   */
+  @CheckForNull
+  public AstNode nodeAfter(final Position position) {
+    final long key = AstPositionIndex.key(position);
+
+    int low = 0;
+    int high = this.tokenNodes.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.starts[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    return low < this.tokenNodes.length ? this.tokenNodes[low] : null;
+  }
+
+  /**
+   * Get the outermost grammar node surrounding {@code position}. If this is the {@link
+   * MagikGrammar#MAGIK} node, then the outermost node within it is returned, if any.
+   *
+   * @param position Position to look at.
+   * @return Node containing position.
+   */
+  @CheckForNull
+  public AstNode nodeSurrounding(final Position position) {
+    final AstNode node = AstPositionIndex.findSurrounding(this.topNode, position, null);
+    if (node == null || node.isNot(MagikGrammar.MAGIK)) {
+      return node;
+    }
+
+    for (final AstNode childNode : node.getChildren()) {
+      final AstNode innerNode = AstPositionIndex.findSurrounding(childNode, position, null);
+      if (innerNode != null) {
+        return innerNode;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Get the outermost grammar node surrounding {@code position} of a specific type.
+   *
+   * @param position Position to look at.
+   * @param nodeTypes Wanted node types.
+   * @return Node containing position.
+   */
+  @CheckForNull
+  public AstNode nodeSurrounding(final Position position, final AstNodeType... nodeTypes) {
+    return AstPositionIndex.findSurrounding(this.topNode, position, nodeTypes);
+  }
+
+  /**
+   * Find the first grammar node, in pre-order, containing {@code position}. Subtrees not containing
+   * the position are skipped, as children never extend beyond their parent.
+   */
+  @CheckForNull
+  private static AstNode findSurrounding(
+      final AstNode node, final Position position, final @Nullable AstNodeType[] nodeTypes) {
+    final Token firstToken = node.getToken();
+    final Token lastToken = node.getLastToken();
+    if (firstToken == null || lastToken == null) {
+      return null;
+    }
+
+    final long key = AstPositionIndex.key(position);
+    final long start = AstPositionIndex.key(firstToken.getLine(), firstToken.getColumn());
+    final long end =
+        AstPositionIndex.key(
+            lastToken.getLine(), lastToken.getColumn() + lastToken.getOriginalValue().length());
+    if (key < start || key > end) {
+      return null;
+    }
+
+    if (AstQuery.isGrammarNode(node) && (nodeTypes == null || node.is(nodeTypes))) {
+      return node;
+    }
+
+    for (final AstNode childNode : node.getChildren()) {
+      final AstNode foundNode = AstPositionIndex.findSurrounding(childNode, position, nodeTypes);
+      if (foundNode != null) {
+        return foundNode;
+      }
+    }
+    return null;
+  }
+
+  private static long key(final Position position) {
+    return AstPositionIndex.key(position.getLine(), position.getColumn());
+  }
+
+  private static long key(final int line, final int column) {
+    return (long) line << COLUMN_BITS | column & 0xFFFFFFFFL;
+  }
+
+  private static long endKey(final Token token) {
+    final String value = token.getOriginalValue();
+    if (value.indexOf('\n') == -1 && value.indexOf('\r') == -1) {
+      return AstPositionIndex.key(token.getLine(), token.getColumn() + value.length());
+    }
+
+    final Position end = Position.fromTokenEnd(token);
+    return AstPositionIndex.key(end);
+  }
+}
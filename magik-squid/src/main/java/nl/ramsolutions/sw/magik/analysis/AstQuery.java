@@ -2,17 +2,14 @@ package nl.ramsolutions.sw.magik.analysis;
 
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AstNodeType;
-import com.sonar.sslr.api.Token;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.definitions.api.SwModuleDefinitionGrammar;
 import nl.ramsolutions.sw.definitions.api.SwProductDefinitionGrammar;
 import nl.ramsolutions.sw.magik.Position;
-import nl.ramsolutions.sw.magik.Range;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 
 /** AstNode query utility functions. */
@@ -108,7 +105,9 @@ public final class AstQuery {
   }
 
   /**
-   * Get the node in {@code topNode} before {@code position}.
+   * Get the last token node in {@code topNode} which ends before {@code position}.
+   *
+   * <p>Builds a {@link AstPositionIndex} for each call, prefer a cached index for repeated lookups.
    *
    * @param topNode Top node.
    * @param position Position for node.
@@ -116,50 +115,28 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeBefore(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isTokenNode)
-            .filter(
-                node -> {
-                  final Token token = node.getToken();
-                  final Range range = new Range(token);
-                  return position.isBeforeRange(range);
-                })
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
-    }
-    return nodes.get(nodes.size() - 1);
+    return new AstPositionIndex(topNode).nodeBefore(position);
   }
 
   /**
    * Get the node in {@code topNode} at {@code position}.
    *
+   * <p>Builds a {@link AstPositionIndex} for each call, prefer a cached index for repeated lookups.
+   *
    * @param topNode Top node.
    * @param position Position for node.
    * @return Token-Node at position.
    */
   @CheckForNull
   public static AstNode nodeAt(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isTokenNode)
-            .filter(
-                node -> {
-                  final Token token = node.getToken();
-                  final Range range = new Range(token);
-                  return !position.isBeforeRange(range) && !position.isAfterRange(range);
-                })
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
-    }
-    return nodes.get(0);
+    return new AstPositionIndex(topNode).nodeAt(position);
   }
 
   /**
    * Get the (token) node in {@code node} at {@code position} of a specific type.
    *
+   * <p>Builds a {@link AstPositionIndex} for each call, prefer a cached index for repeated lookups.
+   *
    * @param topNode Top node.
    * @param position Position for node.
    * @param nodeTypes Node type to look for.
@@ -168,19 +145,13 @@ public final class AstQuery {
   @CheckForNull
   public static AstNode nodeAt(
       final AstNode topNode, final Position position, final AstNodeType... nodeTypes) {
-    final AstNode node = AstQuery.nodeAt(topNode, position);
-    if (node == null) {
-      return null;
-    }
-    final AstNode parentNode = node.getParent();
-    if (parentNode.isNot(nodeTypes)) {
-      return null;
-    }
-    return node;
+    return new AstPositionIndex(topNode).nodeAt(position, nodeTypes);
   }
 
   /**
-   * Get the node in {@code topNode} after {@code position}.
+   * Get the first token node in {@code topNode} which starts after {@code position}.
+   *
+   * <p>Builds a {@link AstPositionIndex} for each call, prefer a cached index for repeated lookups.
    *
    * @param topNode Top node.
    * @param position Position for node.
@@ -188,20 +159,7 @@ public final class AstQuery {
    */
   @CheckForNull
   public static AstNode nodeAfter(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isTokenNode)
-            .filter(
-                node -> {
-                  final Token token = node.getToken();
-                  final Range range = new Range(token);
-                  return position.isAfterRange(range);
-                })
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
-    }
-    return nodes.get(0);
+    return new AstPositionIndex(topNode).nodeAfter(position);
   }
 
   /**
@@ -209,38 +167,11 @@ public final class AstQuery {
    *
    * @param topNode Top node.
    * @param position Position to look at.
-   * @return 'Finest' node containing position.
+   * @return Outermost node containing position.
    */
   @CheckForNull
   public static AstNode nodeSurrounding(final AstNode topNode, final Position position) {
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isGrammarNode)
-            .filter(node -> node.getToken() != null && node.getLastToken() != null)
-            .filter(
-                node -> {
-                  final Token firstToken = node.getToken();
-                  final int firstLine = firstToken.getLine();
-                  final int firstColumn = firstToken.getColumn();
-
-                  final Token lastToken = node.getLastToken();
-                  final int lastLine = lastToken.getLine();
-                  final int lastColumn =
-                      lastToken.getColumn() + lastToken.getOriginalValue().length();
-
-                  return (position.getLine() > firstLine
-                          || position.getLine() == firstLine && position.getColumn() >= firstColumn)
-                      && (position.getLine() < lastLine
-                          || position.getLine() == lastLine && position.getColumn() <= lastColumn);
-                })
-            .collect(Collectors.toList());
-    if (nodes.isEmpty()) {
-      return null;
-    }
-    if (nodes.size() > 1 && nodes.get(0).is(MagikGrammar.MAGIK)) {
-      nodes.remove(0);
-    }
-    return nodes.get(0);
+    return new AstPositionIndex(topNode).nodeSurrounding(position);
   }
 
   /**
@@ -249,38 +180,12 @@ public final class AstQuery {
    * @param topNode Top node.
    * @param position Position to look at.
    * @param nodeTypes Wanted node types.
-   * @return 'Finest' node containing position.
+   * @return Outermost node containing position.
    */
   @CheckForNull
   public static AstNode nodeSurrounding(
       final AstNode topNode, final Position position, final AstNodeType... nodeTypes) {
-    final List<AstNodeType> nodeTypesList = List.of(nodeTypes);
-    final List<AstNode> nodes =
-        AstQuery.dfs(topNode)
-            .filter(AstQuery::isGrammarNode)
-            .filter(node -> node.getToken() != null && node.getLastToken() != null)
-            .filter(
-                node -> {
-                  final Token firstToken = node.getToken();
-                  final int firstLine = firstToken.getLine();
-                  final int firstColumn = firstToken.getColumn();
-
-                  final Token lastToken = node.getLastToken();
-                  final int lastLine = lastToken.getLine();
-                  final int lastColumn =
-                      lastToken.getColumn() + lastToken.getOriginalValue().length();
-
-                  return (position.getLine() > firstLine
-                          || position.getLine() == firstLine && position.getColumn() >= firstColumn)
-                      && (position.getLine() < lastLine
-                          || position.getLine() == lastLine && position.getColumn() <= lastColumn);
-                })
-            .filter(node -> nodeTypesList.contains(node.getType()))
-            .toList();
-    if (nodes.isEmpty()) {
-      return null;
-    }
-    return nodes.get(0);
+    return new AstPositionIndex(topNode).nodeSurrounding(position, nodeTypes);
   }
 
   /**
@@ -309,15 +214,14 @@ public final class AstQuery {
         parentStream, childStream.flatMap(childNode -> AstQuery.dfs(childNode, predicate)));
   }
 
-  private static boolean isGrammarNode(final AstNode node) {
-    return node.is(SwProductDefinitionGrammar.values())
-        || node.is(SwModuleDefinitionGrammar.values())
-        || node.is(MagikGrammar.values());
+  static boolean isGrammarNode(final AstNode node) {
+    final AstNodeType type = node.getType();
+    return type instanceof SwProductDefinitionGrammar
+        || type instanceof SwModuleDefinitionGrammar
+        || type instanceof MagikGrammar;
   }
 
-  private static boolean isTokenNode(final AstNode node) {
-    return node.isNot(SwProductDefinitionGrammar.values())
-        && node.isNot(SwModuleDefinitionGrammar.values())
-        && node.isNot(MagikGrammar.values());
+  static boolean isTokenNode(final AstNode node) {
+    return !AstQuery.isGrammarNode(node);
   }
 }
@@ -32,7 +32,6 @@ public abstract class MagikAstWalker {
    *
    * @param node Node to start walking.
    */
-  @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
   public void walkAst(final AstNode node) {
     final AstNodeType nodeType = node.getType();
     if (!(nodeType instanceof MagikGrammar)) {
@@ -40,755 +39,1028 @@ public abstract class MagikAstWalker {
       return;
     }
 
-    final MagikGrammar value = (MagikGrammar) nodeType;
+    this.walkPre(node);
+    this.walkChildren(node);
+    this.walkPost(node);
+  }
+
+  /**
+   * Call the pre-method for a {@link MagikGrammar} node, without walking its children.
+   *
+   * @param node Node to call the pre-method for.
+   */
+  @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
+  public void walkPre(final AstNode node) {
+    final MagikGrammar value = (MagikGrammar) node.getType();
     switch (value) {
       case NEWLINE:
         this.walkPreNewline(node);
-        this.walkChildren(node);
-        this.walkPostNewline(node);
         break;
 
       case COMMENT:
         this.walkPreComment(node);
-        this.walkChildren(node);
-        this.walkPostComment(node);
         break;
 
       case SPACING_NO_LB_2:
         this.walkPreSpacingNoLb2(node);
-        this.walkChildren(node);
-        this.walkPostSpacingNoLb2(node);
         break;
 
       case NEXT_NOT_COMMENT:
         this.walkPreNextNotComment(node);
-        this.walkChildren(node);
-        this.walkPostNextNotComment(node);
         break;
 
       case SYNTAX_ERROR:
         this.walkPreSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostSyntaxError(node);
         break;
 
       case MAGIK:
         this.walkPreMagik(node);
-        this.walkChildren(node);
-        this.walkPostMagik(node);
         break;
 
       case PACKAGE_SPECIFICATION:
         this.walkPrePackageSpecification(node);
-        this.walkChildren(node);
-        this.walkPostPackageSpecification(node);
         break;
 
       case PACKAGE_IDENTIFIER:
         this.walkPrePackageIdentifier(node);
-        this.walkChildren(node);
-        this.walkPostPackageIdentifier(node);
         break;
 
       case METHOD_DEFINITION:
         this.walkPreMethodDefinition(node);
-        this.walkChildren(node);
-        this.walkPostMethodDefinition(node);
         break;
 
       case EXEMPLAR_NAME:
         this.walkPreExemplarName(node);
-        this.walkChildren(node);
-        this.walkPostExemplarName(node);
         break;
 
       case METHOD_NAME:
         this.walkPreMethodName(node);
-        this.walkChildren(node);
-        this.walkPostMethodName(node);
         break;
 
       case CONDITION_NAME:
         this.walkPreConditionName(node);
-        this.walkChildren(node);
-        this.walkPostConditionName(node);
         break;
 
       case METHOD_DEFINITION_SYNTAX_ERROR:
         this.walkPreMethodDefinitionSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostMethodDefinitionSyntaxError(node);
         break;
 
       case TRANSMIT:
         this.walkPreTransmit(node);
-        this.walkChildren(node);
-        this.walkPostTransmit(node);
         break;
 
       case PRAGMA:
         this.walkPrePragma(node);
-        this.walkChildren(node);
-        this.walkPostPragma(node);
         break;
 
       case PRAGMA_PARAMS:
         this.walkPrePragmaParams(node);
-        this.walkChildren(node);
-        this.walkPostPragmaParams(node);
         break;
 
       case PRAGMA_PARAM:
         this.walkPrePragmaParam(node);
-        this.walkChildren(node);
-        this.walkPostPragmaParam(node);
         break;
 
       case PRAGMA_VALUE:
         this.walkPrePragmaValue(node);
-        this.walkChildren(node);
-        this.walkPostPragmaValue(node);
         break;
 
       case PARAMETERS:
         this.walkPreParameters(node);
-        this.walkChildren(node);
-        this.walkPostParameters(node);
         break;
 
       case PARAMETERS_PAREN:
         this.walkPreParametersParen(node);
-        this.walkChildren(node);
-        this.walkPostParametersParen(node);
         break;
 
       case PARAMETERS_PAREN_SYNTAX_ERROR:
         this.walkPreParametersParenSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostParametersParenSyntaxError(node);
         break;
 
       case PARAMETERS_SQUARE:
         this.walkPreParametersSquare(node);
-        this.walkChildren(node);
-        this.walkPostParametersSquare(node);
         break;
 
       case PARAMETERS_SQUARE_SYNTAX_ERROR:
         this.walkPreParametersSquareSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostParametersSquareSyntaxError(node);
         break;
 
       case PARAMETER:
         this.walkPreParameter(node);
-        this.walkChildren(node);
-        this.walkPostParameter(node);
         break;
 
       case ASSIGNMENT_PARAMETER:
         this.walkPreAssignmentParameter(node);
-        this.walkChildren(node);
-        this.walkPostAssignmentParameter(node);
         break;
 
       case ARGUMENTS:
         this.walkPreArguments(node);
-        this.walkChildren(node);
-        this.walkPostArguments(node);
         break;
 
       case ARGUMENTS_PAREN:
         this.walkPreArgumentsParen(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsParen(node);
         break;
 
       case ARGUMENTS_PAREN_SYNTAX_ERROR:
         this.walkPreArgumentsParenSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsParenSyntaxError(node);
         break;
 
       case ARGUMENTS_SQUARE:
         this.walkPreArgumentsSquare(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsSquare(node);
         break;
 
       case ARGUMENTS_SQUARE_SYNTAX_ERROR:
         this.walkPreArgumentsSquareSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostArgumentsSquareSyntaxError(node);
         break;
 
       case ARGUMENT:
         this.walkPreArgument(node);
-        this.walkChildren(node);
-        this.walkPostArgument(node);
         break;
 
       case ASSIGNMENT_ARGUMENT:
         this.walkPreAssignmentArgument(node);
-        this.walkChildren(node);
-        this.walkPostAssignmentArgument(node);
         break;
 
       case BODY:
         this.walkPreBody(node);
-        this.walkChildren(node);
-        this.walkPostBody(node);
         break;
 
       case OPERATOR:
         this.walkPreOperator(node);
-        this.walkChildren(node);
-        this.walkPostOperator(node);
         break;
 
       case TUPLE:
         this.walkPreTuple(node);
-        this.walkChildren(node);
-        this.walkPostTuple(node);
         break;
 
       case IDENTIFIERS:
         this.walkPreIdentifiers(node);
-        this.walkChildren(node);
-        this.walkPostIdentifiers(node);
         break;
 
       case IDENTIFIERS_WITH_GATHER:
         this.walkPreIdentifiersWithGather(node);
-        this.walkChildren(node);
-        this.walkPostIdentifiersWithGather(node);
         break;
 
       case METHOD_INVOCATION:
         this.walkPreMethodInvocation(node);
-        this.walkChildren(node);
-        this.walkPostMethodInvocation(node);
         break;
 
       case PROCEDURE_INVOCATION:
         this.walkPreProcedureInvocation(node);
-        this.walkChildren(node);
-        this.walkPostProcedureInvocation(node);
         break;
 
       case PROCEDURE_MODIFIERS:
         this.walkPreProcedureModifiers(node);
-        this.walkChildren(node);
-        this.walkPostProcedureModifiers(node);
         break;
 
       case METHOD_MODIFIERS:
         this.walkPreMethodModifiers(node);
-        this.walkChildren(node);
-        this.walkPostMethodModifiers(node);
         break;
 
       case PARAMETER_MODIFIER:
         this.walkPreParameterModifier(node);
-        this.walkChildren(node);
-        this.walkPostParameterModifier(node);
         break;
 
       case VARIABLE_DEFINITION_MODIFIER:
         this.walkPreVariableDefinitionModifier(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinitionModifier(node);
         break;
 
       case VARIABLE_DEFINITION_MULTI:
         this.walkPreVariableDefinitionMulti(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinitionMulti(node);
         break;
 
       case VARIABLE_DEFINITION:
         this.walkPreVariableDefinition(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinition(node);
         break;
 
       case MULTIPLE_ASSIGNMENT_ASSIGNABLES:
         this.walkPreMultipleAssignmentAssignables(node);
-        this.walkChildren(node);
-        this.walkPostMultipleAssignmentAssignables(node);
         break;
 
       case TRY_VARIABLE:
         this.walkPreTryVariable(node);
-        this.walkChildren(node);
-        this.walkPostTryVariable(node);
         break;
 
       case FOR_VARIABLES:
         this.walkPreForVariables(node);
-        this.walkChildren(node);
-        this.walkPostForVariables(node);
         break;
 
       case CONDITIONAL_EXPRESSION:
         this.walkPreConditionalExpression(node);
-        this.walkChildren(node);
-        this.walkPostConditionalExpression(node);
         break;
 
       case ITERABLE_EXPRESSION:
         this.walkPreIterableExpression(node);
-        this.walkChildren(node);
-        this.walkPostIterableExpression(node);
         break;
 
       case STATEMENT:
         this.walkPreStatement(node);
-        this.walkChildren(node);
-        this.walkPostStatement(node);
         break;
 
       case STATEMENT_SYNTAX_ERROR:
         this.walkPreStatementSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostStatementSyntaxError(node);
         break;
 
       case STATEMENT_SEPARATOR:
         this.walkPreStatementSeparator(node);
-        this.walkChildren(node);
-        this.walkPostStatementSeparator(node);
         break;
 
       case VARIABLE_DEFINITION_STATEMENT:
         this.walkPreVariableDefinitionStatement(node);
-        this.walkChildren(node);
-        this.walkPostVariableDefinitionStatement(node);
         break;
 
       case MULTIPLE_ASSIGNMENT_STATEMENT:
         this.walkPreMultipleAssignmentStatement(node);
-        this.walkChildren(node);
-        this.walkPostMultipleAssignmentStatement(node);
         break;
 
       case RETURN_STATEMENT:
         this.walkPreReturnStatement(node);
-        this.walkChildren(node);
-        this.walkPostReturnStatement(node);
         break;
 
       case EMIT_STATEMENT:
         this.walkPreEmitStatement(node);
-        this.walkChildren(node);
-        this.walkPostEmitStatement(node);
         break;
 
       case EXPRESSION_STATEMENT:
         this.walkPreExpressionStatement(node);
-        this.walkChildren(node);
-        this.walkPostExpressionStatement(node);
         break;
 
       case PRIMITIVE_STATEMENT:
         this.walkPrePrimitiveStatement(node);
-        this.walkChildren(node);
-        this.walkPostPrimitiveStatement(node);
         break;
 
       case LEAVE_STATEMENT:
         this.walkPreLeaveStatement(node);
-        this.walkChildren(node);
-        this.walkPostLeaveStatement(node);
         break;
 
       case CONTINUE_STATEMENT:
         this.walkPreContinueStatement(node);
-        this.walkChildren(node);
-        this.walkPostContinueStatement(node);
         break;
 
       case THROW_STATEMENT:
         this.walkPreThrowStatement(node);
-        this.walkChildren(node);
-        this.walkPostThrowStatement(node);
         break;
 
       case HANDLING:
         this.walkPreHandling(node);
-        this.walkChildren(node);
-        this.walkPostHandling(node);
         break;
 
       case BLOCK:
         this.walkPreBlock(node);
-        this.walkChildren(node);
-        this.walkPostBlock(node);
         break;
 
       case BLOCK_SYNTAX_ERROR:
         this.walkPreBlockSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostBlockSyntaxError(node);
         break;
 
       case PROTECT:
         this.walkPreProtect(node);
-        this.walkChildren(node);
-        this.walkPostProtect(node);
         break;
 
       case PROTECT_SYNTAX_ERROR:
         this.walkPreProtectSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostProtectSyntaxError(node);
         break;
 
       case PROTECTION:
         this.walkPreProtection(node);
-        this.walkChildren(node);
-        this.walkPostProtection(node);
         break;
 
       case TRY:
         this.walkPreTry(node);
-        this.walkChildren(node);
-        this.walkPostTry(node);
         break;
 
       case TRY_SYNTAX_ERROR:
         this.walkPreTrySyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostTrySyntaxError(node);
         break;
 
       case WHEN:
         this.walkPreWhen(node);
-        this.walkChildren(node);
-        this.walkPostWhen(node);
         break;
 
       case CATCH:
         this.walkPreCatch(node);
-        this.walkChildren(node);
-        this.walkPostCatch(node);
         break;
 
       case CATCH_SYNTAX_ERROR:
         this.walkPreCatchSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostCatchSyntaxError(node);
         break;
 
       case LOCK:
         this.walkPreLock(node);
-        this.walkChildren(node);
-        this.walkPostLock(node);
         break;
 
       case LOCK_SYNTAX_ERROR:
         this.walkPreLockSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostLockSyntaxError(node);
         break;
 
       case IF:
         this.walkPreIf(node);
-        this.walkChildren(node);
-        this.walkPostIf(node);
         break;
 
       case IF_SYNTAX_ERROR:
         this.walkPreIfSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostIfSyntaxError(node);
         break;
 
       case ELIF:
         this.walkPreElif(node);
-        this.walkChildren(node);
-        this.walkPostElif(node);
         break;
 
       case ELSE:
         this.walkPreElse(node);
-        this.walkChildren(node);
-        this.walkPostElse(node);
         break;
 
       case FOR:
         this.walkPreFor(node);
-        this.walkChildren(node);
-        this.walkPostFor(node);
         break;
 
       case WHILE:
         this.walkPreWhile(node);
-        this.walkChildren(node);
-        this.walkPostWhile(node);
         break;
 
       case OVER:
         this.walkPreOver(node);
-        this.walkChildren(node);
-        this.walkPostOver(node);
         break;
 
       case LOOP:
         this.walkPreLoop(node);
-        this.walkChildren(node);
-        this.walkPostLoop(node);
         break;
 
       case LOOP_SYNTAX_ERROR:
         this.walkPreLoopSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostLoopSyntaxError(node);
         break;
 
       case FINALLY:
         this.walkPreFinally(node);
-        this.walkChildren(node);
-        this.walkPostFinally(node);
         break;
 
       case EXPRESSION:
         this.walkPreExpression(node);
-        this.walkChildren(node);
-        this.walkPostExpression(node);
         break;
 
       case ASSIGNMENT_EXPRESSION:
         this.walkPreAssignmentExpression(node);
-        this.walkChildren(node);
-        this.walkPostAssignmentExpression(node);
         break;
 
       case AUGMENTED_ASSIGNMENT_EXPRESSION:
         this.walkPreAugmentedAssignmentExpression(node);
-        this.walkChildren(node);
-        this.walkPostAugmentedAssignmentExpression(node);
         break;
 
       case OR_EXPRESSION:
         this.walkPreOrExpression(node);
-        this.walkChildren(node);
-        this.walkPostOrExpression(node);
         break;
 
       case XOR_EXPRESSION:
         this.walkPreXorExpression(node);
-        this.walkChildren(node);
-        this.walkPostXorExpression(node);
         break;
 
       case AND_EXPRESSION:
         this.walkPreAndExpression(node);
-        this.walkChildren(node);
-        this.walkPostAndExpression(node);
         break;
 
       case EQUALITY_EXPRESSION:
         this.walkPreEqualityExpression(node);
-        this.walkChildren(node);
-        this.walkPostEqualityExpression(node);
         break;
 
       case RELATIONAL_EXPRESSION:
         this.walkPreRelationalExpression(node);
-        this.walkChildren(node);
-        this.walkPostRelationalExpression(node);
         break;
 
       case ADDITIVE_EXPRESSION:
         this.walkPreAdditiveExpression(node);
-        this.walkChildren(node);
-        this.walkPostAdditiveExpression(node);
         break;
 
       case MULTIPLICATIVE_EXPRESSION:
         this.walkPreMultiplicativeExpression(node);
-        this.walkChildren(node);
-        this.walkPostMultiplicativeExpression(node);
         break;
 
       case EXPONENTIAL_EXPRESSION:
         this.walkPreExponentialExpression(node);
-        this.walkChildren(node);
-        this.walkPostExponentialExpression(node);
         break;
 
       case UNARY_EXPRESSION:
         this.walkPreUnaryExpression(node);
-        this.walkChildren(node);
-        this.walkPostUnaryExpression(node);
         break;
 
       case POSTFIX_EXPRESSION:
         this.walkPrePostfixExpression(node);
-        this.walkChildren(node);
-        this.walkPostPostfixExpression(node);
         break;
 
       case ATOM:
         this.walkPreAtom(node);
-        this.walkChildren(node);
-        this.walkPostAtom(node);
         break;
 
       case STRING:
         this.walkPreString(node);
-        this.walkChildren(node);
-        this.walkPostString(node);
         break;
 
       case NUMBER:
         this.walkPreNumber(node);
-        this.walkChildren(node);
-        this.walkPostNumber(node);
         break;
 
       case CHARACTER:
         this.walkPreCharacter(node);
-        this.walkChildren(node);
-        this.walkPostCharacter(node);
         break;
 
       case SYMBOL:
         this.walkPreSymbol(node);
-        this.walkChildren(node);
-        this.walkPostSymbol(node);
         break;
 
       case REGEXP:
         this.walkPreRegexp(node);
-        this.walkChildren(node);
-        this.walkPostRegexp(node);
         break;
 
       case IDENTIFIER:
         this.walkPreIdentifier(node);
-        this.walkChildren(node);
-        this.walkPostIdentifier(node);
         break;
 
       case LABEL:
         this.walkPreLabel(node);
-        this.walkChildren(node);
-        this.walkPostLabel(node);
         break;
 
       case SLOT:
         this.walkPreSlot(node);
-        this.walkChildren(node);
-        this.walkPostSlot(node);
         break;
 
       case GLOBAL_REF:
         this.walkPreGlobalRef(node);
-        this.walkChildren(node);
-        this.walkPostGlobalRef(node);
         break;
 
       case SIMPLE_VECTOR:
         this.walkPreSimpleVector(node);
-        this.walkChildren(node);
-        this.walkPostSimpleVector(node);
         break;
 
       case SIMPLE_VECTOR_SYNTAX_ERROR:
         this.walkPreSimpleVectorSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostSimpleVectorSyntaxError(node);
         break;
 
       case GATHER_EXPRESSION:
         this.walkPreGatherExpression(node);
-        this.walkChildren(node);
-        this.walkPostGatherExpression(node);
         break;
 
       case CLASS:
         this.walkPreClass(node);
-        this.walkChildren(node);
-        this.walkPostClass(node);
         break;
 
       case LOOPBODY:
         this.walkPreLoopbody(node);
-        this.walkChildren(node);
-        this.walkPostLoopbody(node);
         break;
 
       case PROCEDURE_DEFINITION:
         this.walkPreProcedureDefinition(node);
-        this.walkChildren(node);
-        this.walkPostProcedureDefinition(node);
         break;
 
       case PROCEDURE_NAME:
         this.walkPreProcedureName(node);
-        this.walkChildren(node);
-        this.walkPostProcedureName(node);
         break;
 
       case PROCEDURE_DEFINITION_SYNTAX_ERROR:
         this.walkPreProcedureDefinitionSyntaxError(node);
-        this.walkChildren(node);
-        this.walkPostProcedureDefinitionSyntaxError(node);
         break;
 
       case SELF:
         this.walkPreSelf(node);
-        this.walkChildren(node);
-        this.walkPostSelf(node);
         break;
 
       case CLONE:
         this.walkPreClone(node);
-        this.walkChildren(node);
-        this.walkPostClone(node);
         break;
 
       case UNSET:
         this.walkPreUnset(node);
-        this.walkChildren(node);
-        this.walkPostUnset(node);
         break;
 
       case TRUE:
         this.walkPreTrue(node);
-        this.walkChildren(node);
-        this.walkPostTrue(node);
         break;
 
       case FALSE:
         this.walkPreFalse(node);
-        this.walkChildren(node);
-        this.walkPostFalse(node);
         break;
 
       case MAYBE:
         this.walkPreMaybe(node);
-        this.walkChildren(node);
-        this.walkPostMaybe(node);
         break;
 
       case THISTHREAD:
         this.walkPreThisthread(node);
-        this.walkChildren(node);
-        this.walkPostThisthread(node);
         break;
 
       case SUPER:
         this.walkPreSuper(node);
-        this.walkChildren(node);
-        this.walkPostSuper(node);
         break;
 
       default:
         this.walkPreDefault(node);
-        this.walkChildren(node);
+        break;
+    }
+  }
+
+  /**
+   * Call the post-method for a {@link MagikGrammar} node, without walking its children.
+   *
+   * @param node Node to call the post-method for.
+   */
+  @SuppressWarnings({"java:S1479", "checkstyle:MethodLength"})
+  public void walkPost(final AstNode node) {
+    final MagikGrammar value = (MagikGrammar) node.getType();
+    switch (value) {
+      case NEWLINE:
+        this.walkPostNewline(node);
+        break;
+
+      case COMMENT:
+        this.walkPostComment(node);
+        break;
+
+      case SPACING_NO_LB_2:
+        this.walkPostSpacingNoLb2(node);
+        break;
+
+      case NEXT_NOT_COMMENT:
+        this.walkPostNextNotComment(node);
+        break;
+
+      case SYNTAX_ERROR:
+        this.walkPostSyntaxError(node);
+        break;
+
+      case MAGIK:
+        this.walkPostMagik(node);
+        break;
+
+      case PACKAGE_SPECIFICATION:
+        this.walkPostPackageSpecification(node);
+        break;
+
+      case PACKAGE_IDENTIFIER:
+        this.walkPostPackageIdentifier(node);
+        break;
+
+      case METHOD_DEFINITION:
+        this.walkPostMethodDefinition(node);
+        break;
+
+      case EXEMPLAR_NAME:
+        this.walkPostExemplarName(node);
+        break;
+
+      case METHOD_NAME:
+        this.walkPostMethodName(node);
+        break;
+
+      case CONDITION_NAME:
+        this.walkPostConditionName(node);
+        break;
+
+      case METHOD_DEFINITION_SYNTAX_ERROR:
+        this.walkPostMethodDefinitionSyntaxError(node);
+        break;
+
+      case TRANSMIT:
+        this.walkPostTransmit(node);
+        break;
+
+      case PRAGMA:
+        this.walkPostPragma(node);
+        break;
+
+      case PRAGMA_PARAMS:
+        this.walkPostPragmaParams(node);
+        break;
+
+      case PRAGMA_PARAM:
+        this.walkPostPragmaParam(node);
+        break;
+
+      case PRAGMA_VALUE:
+        this.walkPostPragmaValue(node);
+        break;
+
+      case PARAMETERS:
+        this.walkPostParameters(node);
+        break;
+
+      case PARAMETERS_PAREN:
+        this.walkPostParametersParen(node);
+        break;
+
+      case PARAMETERS_PAREN_SYNTAX_ERROR:
+        this.walkPostParametersParenSyntaxError(node);
+        break;
+
+      case PARAMETERS_SQUARE:
+        this.walkPostParametersSquare(node);
+        break;
+
+      case PARAMETERS_SQUARE_SYNTAX_ERROR:
+        this.walkPostParametersSquareSyntaxError(node);
+        break;
+
+      case PARAMETER:
+        this.walkPostParameter(node);
+        break;
+
+      case ASSIGNMENT_PARAMETER:
+        this.walkPostAssignmentParameter(node);
+        break;
+
+      case ARGUMENTS:
+        this.walkPostArguments(node);
+        break;
+
+      case ARGUMENTS_PAREN:
+        this.walkPostArgumentsParen(node);
+        break;
+
+      case ARGUMENTS_PAREN_SYNTAX_ERROR:
+        this.walkPostArgumentsParenSyntaxError(node);
+        break;
+
+      case ARGUMENTS_SQUARE:
+        this.walkPostArgumentsSquare(node);
+        break;
+
+      case ARGUMENTS_SQUARE_SYNTAX_ERROR:
+        this.walkPostArgumentsSquareSyntaxError(node);
+        break;
+
+      case ARGUMENT:
+        this.walkPostArgument(node);
+        break;
+
+      case ASSIGNMENT_ARGUMENT:
+        this.walkPostAssignmentArgument(node);
+        break;
+
+      case BODY:
+        this.walkPostBody(node);
+        break;
+
+      case OPERATOR:
+        this.walkPostOperator(node);
+        break;
+
+      case TUPLE:
+        this.walkPostTuple(node);
+        break;
+
+      case IDENTIFIERS:
+        this.walkPostIdentifiers(node);
+        break;
+
+      case IDENTIFIERS_WITH_GATHER:
+        this.walkPostIdentifiersWithGather(node);
+        break;
+
+      case METHOD_INVOCATION:
+        this.walkPostMethodInvocation(node);
+        break;
+
+      case PROCEDURE_INVOCATION:
+        this.walkPostProcedureInvocation(node);
+        break;
+
+      case PROCEDURE_MODIFIERS:
+        this.walkPostProcedureModifiers(node);
+        break;
+
+      case METHOD_MODIFIERS:
+        this.walkPostMethodModifiers(node);
+        break;
+
+      case PARAMETER_MODIFIER:
+        this.walkPostParameterModifier(node);
+        break;
+
+      case VARIABLE_DEFINITION_MODIFIER:
+        this.walkPostVariableDefinitionModifier(node);
+        break;
+
+      case VARIABLE_DEFINITION_MULTI:
+        this.walkPostVariableDefinitionMulti(node);
+        break;
+
+      case VARIABLE_DEFINITION:
+        this.walkPostVariableDefinition(node);
+        break;
+
+      case MULTIPLE_ASSIGNMENT_ASSIGNABLES:
+        this.walkPostMultipleAssignmentAssignables(node);
+        break;
+
+      case TRY_VARIABLE:
+        this.walkPostTryVariable(node);
+        break;
+
+      case FOR_VARIABLES:
+        this.walkPostForVariables(node);
+        break;
+
+      case CONDITIONAL_EXPRESSION:
+        this.walkPostConditionalExpression(node);
+        break;
+
+      case ITERABLE_EXPRESSION:
+        this.walkPostIterableExpression(node);
+        break;
+
+      case STATEMENT:
+        this.walkPostStatement(node);
+        break;
+
+      case STATEMENT_SYNTAX_ERROR:
+        this.walkPostStatementSyntaxError(node);
+        break;
+
+      case STATEMENT_SEPARATOR:
+        this.walkPostStatementSeparator(node);
+        break;
+
+      case VARIABLE_DEFINITION_STATEMENT:
+        this.walkPostVariableDefinitionStatement(node);
+        break;
+
+      case MULTIPLE_ASSIGNMENT_STATEMENT:
+        this.walkPostMultipleAssignmentStatement(node);
+        break;
+
+      case RETURN_STATEMENT:
+        this.walkPostReturnStatement(node);
+        break;
+
+      case EMIT_STATEMENT:
+        this.walkPostEmitStatement(node);
+        break;
+
+      case EXPRESSION_STATEMENT:
+        this.walkPostExpressionStatement(node);
+        break;
+
+      case PRIMITIVE_STATEMENT:
+        this.walkPostPrimitiveStatement(node);
+        break;
+
+      case LEAVE_STATEMENT:
+        this.walkPostLeaveStatement(node);
+        break;
+
+      case CONTINUE_STATEMENT:
+        this.walkPostContinueStatement(node);
+        break;
+
+      case THROW_STATEMENT:
+        this.walkPostThrowStatement(node);
+        break;
+
+      case HANDLING:
+        this.walkPostHandling(node);
+        break;
+
+      case BLOCK:
+        this.walkPostBlock(node);
+        break;
+
+      case BLOCK_SYNTAX_ERROR:
+        this.walkPostBlockSyntaxError(node);
+        break;
+
+      case PROTECT:
+        this.walkPostProtect(node);
+        break;
+
+      case PROTECT_SYNTAX_ERROR:
+        this.walkPostProtectSyntaxError(node);
+        break;
+
+      case PROTECTION:
+        this.walkPostProtection(node);
+        break;
+
+      case TRY:
+        this.walkPostTry(node);
+        break;
+
+      case TRY_SYNTAX_ERROR:
+        this.walkPostTrySyntaxError(node);
+        break;
+
+      case WHEN:
+        this.walkPostWhen(node);
+        break;
+
+      case CATCH:
+        this.walkPostCatch(node);
+        break;
+
+      case CATCH_SYNTAX_ERROR:
+        this.walkPostCatchSyntaxError(node);
+        break;
+
+      case LOCK:
+        this.walkPostLock(node);
+        break;
+
+      case LOCK_SYNTAX_ERROR:
+        this.walkPostLockSyntaxError(node);
+        break;
+
+      case IF:
+        this.walkPostIf(node);
+        break;
+
+      case IF_SYNTAX_ERROR:
+        this.walkPostIfSyntaxError(node);
+        break;
+
+      case ELIF:
+        this.walkPostElif(node);
+        break;
+
+      case ELSE:
+        this.walkPostElse(node);
+        break;
+
+      case FOR:
+        this.walkPostFor(node);
+        break;
+
+      case WHILE:
+        this.walkPostWhile(node);
+        break;
+
+      case OVER:
+        this.walkPostOver(node);
+        break;
+
+      case LOOP:
+        this.walkPostLoop(node);
+        break;
+
+      case LOOP_SYNTAX_ERROR:
+        this.walkPostLoopSyntaxError(node);
+        break;
+
+      case FINALLY:
+        this.walkPostFinally(node);
+        break;
+
+      case EXPRESSION:
+        this.walkPostExpression(node);
+        break;
+
+      case ASSIGNMENT_EXPRESSION:
+        this.walkPostAssignmentExpression(node);
+        break;
+
+      case AUGMENTED_ASSIGNMENT_EXPRESSION:
+        this.walkPostAugmentedAssignmentExpression(node);
+        break;
+
+      case OR_EXPRESSION:
+        this.walkPostOrExpression(node);
+        break;
+
+      case XOR_EXPRESSION:
+        this.walkPostXorExpression(node);
+        break;
+
+      case AND_EXPRESSION:
+        this.walkPostAndExpression(node);
+        break;
+
+      case EQUALITY_EXPRESSION:
+        this.walkPostEqualityExpression(node);
+        break;
+
+      case RELATIONAL_EXPRESSION:
+        this.walkPostRelationalExpression(node);
+        break;
+
+      case ADDITIVE_EXPRESSION:
+        this.walkPostAdditiveExpression(node);
+        break;
+
+      case MULTIPLICATIVE_EXPRESSION:
+        this.walkPostMultiplicativeExpression(node);
+        break;
+
+      case EXPONENTIAL_EXPRESSION:
+        this.walkPostExponentialExpression(node);
+        break;
+
+      case UNARY_EXPRESSION:
+        this.walkPostUnaryExpression(node);
+        break;
+
+      case POSTFIX_EXPRESSION:
+        this.walkPostPostfixExpression(node);
+        break;
+
+      case ATOM:
+        this.walkPostAtom(node);
+        break;
+
+      case STRING:
+        this.walkPostString(node);
+        break;
+
+      case NUMBER:
+        this.walkPostNumber(node);
+        break;
+
+      case CHARACTER:
+        this.walkPostCharacter(node);
+        break;
+
+      case SYMBOL:
+        this.walkPostSymbol(node);
+        break;
+
+      case REGEXP:
+        this.walkPostRegexp(node);
+        break;
+
+      case IDENTIFIER:
+        this.walkPostIdentifier(node);
+        break;
+
+      case LABEL:
+        this.walkPostLabel(node);
+        break;
+
+      case SLOT:
+        this.walkPostSlot(node);
+        break;
+
+      case GLOBAL_REF:
+        this.walkPostGlobalRef(node);
+        break;
+
+      case SIMPLE_VECTOR:
+        this.walkPostSimpleVector(node);
+        break;
+
+      case SIMPLE_VECTOR_SYNTAX_ERROR:
+        this.walkPostSimpleVectorSyntaxError(node);
+        break;
+
+      case GATHER_EXPRESSION:
+        this.walkPostGatherExpression(node);
+        break;
+
+      case CLASS:
+        this.walkPostClass(node);
+        break;
+
+      case LOOPBODY:
+        this.walkPostLoopbody(node);
+        break;
+
+      case PROCEDURE_DEFINITION:
+        this.walkPostProcedureDefinition(node);
+        break;
+
+      case PROCEDURE_NAME:
+        this.walkPostProcedureName(node);
+        break;
+
+      case PROCEDURE_DEFINITION_SYNTAX_ERROR:
+        this.walkPostProcedureDefinitionSyntaxError(node);
+        break;
+
+      case SELF:
+        this.walkPostSelf(node);
+        break;
+
+      case CLONE:
+        this.walkPostClone(node);
+        break;
+
+      case UNSET:
+        this.walkPostUnset(node);
+        break;
+
+      case TRUE:
+        this.walkPostTrue(node);
+        break;
+
+      case FALSE:
+        this.walkPostFalse(node);
+        break;
+
+      case MAYBE:
+        this.walkPostMaybe(node);
+        break;
+
+      case THISTHREAD:
+        this.walkPostThisthread(node);
+        break;
+
+      case SUPER:
+        this.walkPostSuper(node);
+        break;
+
+      default:
         this.walkPostDefault(node);
         break;
     }
@@ -4,12 +4,15 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.magik.FileEvent;
@@ -88,6 +91,61 @@ public class MagikIndexer {
     }
   }
 
+  /**
+   * Handle a batch of file events. The files are parsed in parallel, after which the definitions
+   * are registered.
+   *
+   * @param fileEvents File events to handle, later events for the same path take precedence.
+   * @throws IOException -
+   */
+  public synchronized void handleFileEvents(final Collection<FileEvent> fileEvents)
+      throws IOException {
+    final Map<Path, FileChangeType> indexablePaths = new LinkedHashMap<>();
+    for (final FileEvent fileEvent : fileEvents) {
+      this.collectIndexablePaths(fileEvent, indexablePaths);
+    }
+
+    final Map<Path, List<MagikDefinition>> parsedDefinitions =
+        indexablePaths.entrySet().parallelStream()
+            .filter(entry -> entry.getValue() != FileChangeType.DELETED)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toConcurrentMap(path -> path, this::parseDefinitions));
+
+    indexablePaths.keySet().stream()
+        .forEach(
+            path -> {
+              LOGGER.debug("Indexing file: {}, change: {}", path, indexablePaths.get(path));
+              this.scrubDefinitions(path);
+              final List<MagikDefinition> definitions = parsedDefinitions.get(path);
+              if (definitions != null) {
+                this.storeDefinitions(path, definitions);
+              }
+            });
+  }
+
+  private void collectIndexablePaths(
+      final FileEvent fileEvent, final Map<Path, FileChangeType> indexablePaths)
+      throws IOException {
+    final Path path = Path.of(fileEvent.getUri());
+    if (this.ignoreHandler.isIgnored(path)) {
+      return;
+    }
+
+    final FileChangeType fileChangeType = fileEvent.getFileChangeType();
+    if (fileChangeType == FileChangeType.DELETED) {
+      this.getIndexedFiles(path)
+          .distinct()
+          .forEach(indexedPath -> indexablePaths.put(indexedPath, fileChangeType));
+      return;
+    }
+
+    try (Stream<Path> stream = this.ignoreHandler.getIndexableFiles(path)) {
+      stream
+          .filter(indexablePath -> indexablePath.toString().toLowerCase().endsWith(".magik"))
+          .forEach(indexablePath -> indexablePaths.put(indexablePath, fileChangeType));
+    }
+  }
+
   private Stream<Path> getIndexedFiles(final Path path) {
     // Get all previously indexed files at or below path.
     return Stream.of(
@@ -113,7 +171,7 @@ public class MagikIndexer {
 
     try {
       this.scrubDefinitions(path);
-      this.readDefinitions(analysisConfiguration, path);
+      this.readDefinitions(path);
     } catch (final Exception exception) {
       LOGGER.error("Error indexing created file: " + path, exception);
     }
@@ -130,7 +188,7 @@ public class MagikIndexer {
 
     try {
       this.scrubDefinitions(path);
-      this.readDefinitions(analysisConfiguration, path);
+      this.readDefinitions(path);
     } catch (final Exception exception) {
       LOGGER.error("Error indexing changed file: " + path, exception);
     }
@@ -152,11 +210,7 @@ public class MagikIndexer {
     }
   }
 
-  private void handleDefinition(final MagikFile magikFile, final MagikDefinition rawDefinition) {
-    // Strip off AstNode, we don't want to store this.
-    final MagikDefinition definition = rawDefinition.getWithoutNode();
-
-    final Path path = Path.of(magikFile.getUri());
+  private void handleDefinition(final Path path, final MagikDefinition definition) {
     if (definition instanceof PackageDefinition packageDefinition) {
       this.definitionKeeper.add(packageDefinition);
 
@@ -207,31 +261,54 @@ public class MagikIndexer {
    *
    * @param path Path to magik file.
    */
-  private void readDefinitions(
-      final MagikAnalysisConfiguration analysisConfiguration, final Path path) {
-    this.indexedMethods.put(path, new HashSet<>());
-    this.indexedGlobals.put(path, new HashSet<>());
-    this.indexedBinaryOperators.put(path, new HashSet<>());
-    this.indexedPackages.put(path, new HashSet<>());
-    this.indexedTypes.put(path, new HashSet<>());
-    this.indexedConditions.put(path, new HashSet<>());
-    this.indexedProcedures.put(path, new HashSet<>());
+  private void readDefinitions(final Path path) {
+    final List<MagikDefinition> definitions = this.parseDefinitions(path);
+    this.storeDefinitions(path, definitions);
+  }
 
+  /**
+   * Parse definitions from path. Does not alter any state, safe to call concurrently.
+   *
+   * @param path Path to magik file.
+   * @return Parsed definitions, stripped of their nodes.
+   */
+  @SuppressWarnings("checkstyle:IllegalCatch")
+  private List<MagikDefinition> parseDefinitions(final Path path) {
     try {
       final long size = Files.size(path);
       if (size > MagikIndexer.MAX_SIZE) {
         LOGGER.warn(
             "Ignoring file: {}, due to size: {}, max size: {}", path, size, MagikIndexer.MAX_SIZE);
-        return;
+        return Collections.emptyList();
       }
 
-      final MagikFile magikFile = new MagikFile(analysisConfiguration, path);
-      magikFile
-          .getDefinitions()
-          .forEach(definition -> this.handleDefinition(magikFile, definition));
+      final MagikFile magikFile = new MagikFile(this.analysisConfiguration, path);
+      return magikFile.getDefinitions().stream().map(MagikDefinition::getWithoutNode).toList();
     } catch (final IOException exception) {
       LOGGER.error(exception.getMessage(), exception);
+    } catch (final Exception exception) {
+      LOGGER.error("Error indexing file: " + path, exception);
     }
+
+    return Collections.emptyList();
+  }
+
+  /**
+   * Store parsed definitions for path.
+   *
+   * @param path Path to magik file.
+   * @param definitions Definitions read from the file.
+   */
+  private void storeDefinitions(final Path path, final List<MagikDefinition> definitions) {
+    this.indexedMethods.put(path, new HashSet<>());
+    this.indexedGlobals.put(path, new HashSet<>());
+    this.indexedBinaryOperators.put(path, new HashSet<>());
+    this.indexedPackages.put(path, new HashSet<>());
+    this.indexedTypes.put(path, new HashSet<>());
+    this.indexedConditions.put(path, new HashSet<>());
+    this.indexedProcedures.put(path, new HashSet<>());
+
+    definitions.forEach(definition -> this.handleDefinition(path, definition));
   }
 
   /**
@@ -1,12 +1,16 @@
 package nl.ramsolutions.sw.magik.analysis.indexer;
 
 import com.sonar.sslr.api.RecognitionException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.IgnoreHandler;
 import nl.ramsolutions.sw.definitions.ModuleDefinition;
@@ -15,6 +19,7 @@ import nl.ramsolutions.sw.definitions.ProductDefinition;
 import nl.ramsolutions.sw.definitions.ProductDefinitionScanner;
 import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -128,54 +133,146 @@ public class ProductIndexer {
     }
   }
 
+  /**
+   * Handle a batch of file events. The definition files are parsed in parallel, after which the
+   * definitions are registered.
+   *
+   * @param fileEvents File events to handle, later events for the same path take precedence.
+   * @throws IOException -
+   */
+  public synchronized void handleFileEvents(final Collection<FileEvent> fileEvents)
+      throws IOException {
+    final Map<Path, FileChangeType> indexablePaths = new LinkedHashMap<>();
+    for (final FileEvent fileEvent : fileEvents) {
+      this.collectIndexablePaths(fileEvent, indexablePaths);
+    }
+
+    final Map<Path, IDefinition> parsedDefinitions = new ConcurrentHashMap<>();
+    indexablePaths.entrySet().parallelStream()
+        .filter(entry -> entry.getValue() != FileChangeType.DELETED)
+        .map(Map.Entry::getKey)
+        .forEach(
+            path -> {
+              final IDefinition definition = this.parseDefinition(path);
+              if (definition != null) {
+                parsedDefinitions.put(path, definition);
+              }
+            });
+
+    indexablePaths.keySet().stream()
+        .forEach(
+            path -> {
+              LOGGER.debug("Indexing file: {}, change: {}", path, indexablePaths.get(path));
+              this.scrubDefinition(path);
+              final IDefinition definition = parsedDefinitions.get(path);
+              if (definition != null) {
+                this.storeDefinition(path, definition);
+              }
+            });
+  }
+
+  private void collectIndexablePaths(
+      final FileEvent fileEvent, final Map<Path, FileChangeType> indexablePaths)
+      throws IOException {
+    final Path path = Path.of(fileEvent.getUri());
+    if (this.ignoreHandler.isIgnored(path)) {
+      return;
+    }
+
+    final FileChangeType fileChangeType = fileEvent.getFileChangeType();
+    if (fileChangeType == FileChangeType.DELETED) {
+      this.getIndexedFiles(path)
+          .distinct()
+          .forEach(indexedPath -> indexablePaths.put(indexedPath, fileChangeType));
+      return;
+    }
+
+    try (Stream<Path> stream = this.ignoreHandler.getIndexableFiles(path)) {
+      stream
+          .filter(indexablePath -> indexablePath.toString().toLowerCase().endsWith(".def"))
+          .forEach(indexablePath -> indexablePaths.put(indexablePath, fileChangeType));
+    }
+  }
+
   /**
    * Read definitions from path.
    *
    * @param path Path to magik file.
    */
   private void readDefinition(final Path path) {
+    final IDefinition definition = this.parseDefinition(path);
+    if (definition != null) {
+      this.storeDefinition(path, definition);
+    }
+  }
+
+  /**
+   * Parse the definition from path. Does not alter any state, safe to call concurrently.
+   *
+   * <p>Errors are logged per file, so a single erroneous file does not abort a whole batch.
+   *
+   * @param path Path to product.def/module.def file.
+   * @return Parsed definition, or null if it could not be parsed.
+   */
+  @CheckForNull
+  @SuppressWarnings("checkstyle:IllegalCatch")
+  private IDefinition parseDefinition(final Path path) {
     final Path filename = path.getFileName();
     try {
       if (filename.toString().equalsIgnoreCase("product.def")) {
-        this.readProductDefinition(path);
+        return this.parseProductDefinition(path);
       } else if (filename.toString().equalsIgnoreCase("module.def")) {
-        this.readModuleDefinition(path);
+        return this.parseModuleDefinition(path);
       } else {
-        throw new IllegalArgumentException();
+        throw new IllegalArgumentException("Not a product.def or module.def file: " + path);
       }
     } catch (final IOException exception) {
       LOGGER.error(exception.getMessage(), exception);
+    } catch (final Exception exception) {
+      LOGGER.error("Error indexing file: " + path, exception);
     }
+
+    return null;
   }
 
-  private void readProductDefinition(final Path path) throws IOException {
-    final ProductDefinition definition;
+  @CheckForNull
+  private ProductDefinition parseProductDefinition(final Path path) throws IOException {
     try {
       final String separator = path.getFileSystem().getSeparator();
       final Path parentPath = path.resolve(".." + separator + "..");
       final ProductDefinition parentDefinition =
           ProductDefinitionScanner.productForPath(parentPath);
-      definition = ProductDefinitionScanner.readProductDefinition(path, parentDefinition);
+      return ProductDefinitionScanner.readProductDefinition(path, parentDefinition);
     } catch (final RecognitionException exception) {
       LOGGER.warn("Error parsing defintion at: {}", path);
-      return;
+      return null;
     }
-
-    this.definitionKeeper.add(definition);
-    this.indexedProducts.put(path, definition);
   }
 
-  private void readModuleDefinition(final Path path) throws IOException {
-    final ModuleDefinition definition;
+  @CheckForNull
+  private ModuleDefinition parseModuleDefinition(final Path path) throws IOException {
     try {
-      definition = ModuleDefinitionScanner.readModuleDefinition(path);
+      return ModuleDefinitionScanner.readModuleDefinition(path);
     } catch (final RecognitionException exception) {
       LOGGER.warn("Error parsing defintion at: {}", path);
-      return;
+      return null;
     }
+  }
 
-    this.definitionKeeper.add(definition);
-    this.indexedModules.put(path, definition);
+  /**
+   * Store a parsed definition for path.
+   *
+   * @param path Path to product.def/module.def file.
+   * @param definition Definition read from the file.
+   */
+  private void storeDefinition(final Path path, final IDefinition definition) {
+    if (definition instanceof ProductDefinition productDefinition) {
+      this.definitionKeeper.add(productDefinition);
+      this.indexedProducts.put(path, productDefinition);
+    } else if (definition instanceof ModuleDefinition moduleDefinition) {
+      this.definitionKeeper.add(moduleDefinition);
+      this.indexedModules.put(path, moduleDefinition);
+    }
   }
 
   /**
@@ -0,0 +1,93 @@
+package nl.ramsolutions.sw.magik.analysis.indexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import nl.ramsolutions.sw.IgnoreHandler;
+import nl.ramsolutions.sw.magik.FileEvent;
+import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.io.JsonDefinitionReader;
+import nl.ramsolutions.sw.magik.analysis.typing.ClassInfoDefinitionReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indexes a workspace in one go, to provide the definitions for typed checks outside of the
+ * language server, such as in magik-lint and the Sonar plugin.
+ *
+ * <p>Uses the same indexers as the language server, parsing the {@code product.def}, {@code
+ * module.def} and {@code .magik} files in parallel.
+ */
+public class WorkspaceIndexer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceIndexer.class);
+
+  private final List<Path> typesDbPaths;
+  private final List<Path> libsDirs;
+
+  /**
+   * Constructor.
+   *
+   * @param typesDbPaths Paths to types databases to read.
+   * @param libsDirs Paths to libs directories to read class_infos from.
+   */
+  public WorkspaceIndexer(final List<Path> typesDbPaths, final List<Path> libsDirs) {
+    this.typesDbPaths = typesDbPaths;
+    this.libsDirs = libsDirs;
+  }
+
+  /**
+   * Build a {@link IDefinitionKeeper} from the types databases, libs directories, and all files at
+   * or below {@code roots}.
+   *
+   * @param roots Paths to index.
+   * @return Definition keeper with all definitions.
+   * @throws IOException -
+   */
+  public IDefinitionKeeper index(final Collection<Path> roots) throws IOException {
+    final long start = System.nanoTime();
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+
+    for (final Path typesDbPath : this.typesDbPaths) {
+      if (!Files.exists(typesDbPath)) {
+        LOGGER.warn("Path to types database does not exist: {}", typesDbPath);
+        continue;
+      }
+
+      JsonDefinitionReader.readTypes(typesDbPath, definitionKeeper);
+    }
+
+    for (final Path libsDir : this.libsDirs) {
+      if (!Files.exists(libsDir)) {
+        LOGGER.warn("Path to libs dir does not exist: {}", libsDir);
+        continue;
+      }
+
+      ClassInfoDefinitionReader.readLibsDirectory(libsDir, definitionKeeper);
+    }
+
+    final List<FileEvent> fileEvents =
+        roots.stream()
+            .map(root -> new FileEvent(root.toUri(), FileEvent.FileChangeType.CREATED))
+            .toList();
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+    for (final FileEvent fileEvent : fileEvents) {
+      ignoreHandler.handleFileEvent(fileEvent);
+    }
+
+    final ProductIndexer productIndexer = new ProductIndexer(definitionKeeper, ignoreHandler);
+    productIndexer.handleFileEvents(fileEvents);
+
+    final MagikAnalysisConfiguration analysisConfiguration = new MagikAnalysisConfiguration();
+    final MagikIndexer magikIndexer =
+        new MagikIndexer(definitionKeeper, analysisConfiguration, ignoreHandler);
+    magikIndexer.handleFileEvents(fileEvents);
+
+    LOGGER.debug("Indexed {} in {}s", roots, (System.nanoTime() - start) / 1000000000.0);
+    return definitionKeeper;
+  }
+}
@@ -13,6 +13,7 @@ import nl.ramsolutions.sw.magik.api.MagikGrammar;
 public class GlobalScope extends Scope {
 
   private final Map<AstNode, Scope> scopeIndex;
+  private ScopeIntervalIndex intervalIndex;
 
   GlobalScope(final Map<AstNode, Scope> scopeIndex, final AstNode node) {
     super(node);
@@ -80,6 +81,42 @@ public class GlobalScope extends Scope {
     return this.scopeIndex.get(searchNode);
   }
 
+  /**
+   * Build the {@link ScopeIntervalIndex}, to be called when all scopes are added.
+   *
+   * @return Built index.
+   */
+  synchronized ScopeIntervalIndex buildIntervalIndex() {
+    this.intervalIndex = new ScopeIntervalIndex(this);
+    return this.intervalIndex;
+  }
+
+  private synchronized ScopeIntervalIndex getIntervalIndex() {
+    if (this.intervalIndex == null) {
+      return this.buildIntervalIndex();
+    }
+
+    return this.intervalIndex;
+  }
+
+  @Override
+  @Nullable
+  public Scope getScopeForLineColumn(final int line, final int column) {
+    if (line < this.getStartLine()
+        || line > this.getEndLine()
+        || line == this.getEndLine() && column > this.getEndColumn()) {
+      // outside of our scope
+      return null;
+    }
+
+    final Scope scope = this.getIntervalIndex().getScopeForLineColumn(line, column);
+    if (scope != null) {
+      return scope;
+    }
+
+    return this;
+  }
+
   @Override
   public int getStartLine() {
     return 1;
@@ -117,11 +117,11 @@ public abstract class Scope {
    */
   public List<Scope> getSelfAndAncestorScopes() {
     final List<Scope> scopes = new ArrayList<>();
-    scopes.add(this);
-
-    final List<Scope> ancestorScopes = this.getAncestorScopes();
-    scopes.addAll(ancestorScopes);
-
+    Scope scope = this;
+    while (scope != null) {
+      scopes.add(scope);
+      scope = scope.getParentScope();
+    }
     return scopes;
   }
 
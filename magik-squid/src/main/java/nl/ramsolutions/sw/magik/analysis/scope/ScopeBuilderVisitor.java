@@ -52,6 +52,12 @@ public class ScopeBuilderVisitor extends MagikVisitor {
     this.scopeIndex.put(node, this.globalScope);
   }
 
+  @Override
+  protected void walkPostMagik(final AstNode node) {
+    // All scopes are known, index them for position lookups.
+    this.globalScope.buildIntervalIndex();
+  }
+
   @Override
   protected void walkPreBody(final AstNode node) {
     // Push new scope.
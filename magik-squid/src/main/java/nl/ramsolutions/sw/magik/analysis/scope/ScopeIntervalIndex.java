@@ -0,0 +1,98 @@
+package nl.ramsolutions.sw.magik.analysis.scope;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interval index over all descendant {@link Scope}s of a {@link GlobalScope}.
+ *
+ * <p>Scopes are stored in pre-order, which is ordered by start position, together with their start
+ * and end positions and the index of their parent. The most specific scope at a position is found
+ * with a binary search, followed by a walk over the parent indices.
+ */
+final class ScopeIntervalIndex {
+
+  private static final int NO_PARENT = -1;
+  private static final int COLUMN_BITS = 32;
+
+  private final Scope[] scopes;
+  private final long[] starts;
+  private final long[] ends;
+  private final int[] parents;
+
+  /**
+   * Constructor.
+   *
+   * @param globalScope Global scope to index.
+   */
+  ScopeIntervalIndex(final GlobalScope globalScope) {
+    final List<Scope> preOrderScopes = new ArrayList<>();
+    final Deque<Scope> stack = new ArrayDeque<>();
+    ScopeIntervalIndex.pushChildScopes(stack, globalScope);
+    while (!stack.isEmpty()) {
+      final Scope scope = stack.pop();
+      preOrderScopes.add(scope);
+      ScopeIntervalIndex.pushChildScopes(stack, scope);
+    }
+
+    final int size = preOrderScopes.size();
+    this.scopes = preOrderScopes.toArray(Scope[]::new);
+    this.starts = new long[size];
+    this.ends = new long[size];
+    this.parents = new int[size];
+    final Map<Scope, Integer> indices = new IdentityHashMap<>(size);
+    for (int i = 0; i < size; ++i) {
+      final Scope scope = this.scopes[i];
+      indices.put(scope, i);
+      this.starts[i] = ScopeIntervalIndex.key(scope.getStartLine(), scope.getStartColumn());
+      this.ends[i] = ScopeIntervalIndex.key(scope.getEndLine(), scope.getEndColumn());
+      this.parents[i] = indices.getOrDefault(scope.getParentScope(), NO_PARENT);
+    }
+  }
+
+  private static void pushChildScopes(final Deque<Scope> stack, final Scope scope) {
+    final List<Scope> childScopes = scope.getChildScopes();
+    for (int i = childScopes.size() - 1; i >= 0; --i) {
+      stack.push(childScopes.get(i));
+    }
+  }
+
+  /**
+   * Get the most specific descendant {@link Scope} at {@code line}/{@code column}.
+   *
+   * @param line Line to target.
+   * @param column Column to target.
+   * @return Most specific scope, or {@code null} if no descendant scope contains the position.
+   */
+  Scope getScopeForLineColumn(final int line, final int column) {
+    final long key = ScopeIntervalIndex.key(line, column);
+
+    // Last scope starting at/before position.
+    int low = 0;
+    int high = this.scopes.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.starts[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    // Nested scopes are contained by their parents, walk up until the position is contained.
+    for (int i = low - 1; i != NO_PARENT; i = this.parents[i]) {
+      if (this.ends[i] >= key) {
+        return this.scopes[i];
+      }
+    }
+    return null;
+  }
+
+  private static long key(final int line, final int column) {
+    return (long) line << COLUMN_BITS | column & 0xFFFFFFFFL;
+  }
+}
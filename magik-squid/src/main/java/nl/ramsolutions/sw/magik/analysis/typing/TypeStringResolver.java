@@ -13,6 +13,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import nl.ramsolutions.sw.magik.analysis.definitions.ExemplarDefinition;
@@ -30,14 +33,72 @@ public class TypeStringResolver {
   private static final String ALL_METHODS = "_all_methods";
 
   private final IDefinitionKeeper definitionKeeper;
-  private final Map<TypeString, Set<ITypeStringDefinition>> typeCache = new HashMap<>();
+  private final Map<TypeString, Set<ITypeStringDefinition>> typeCache = new ConcurrentHashMap<>();
   private final Map<Map.Entry<TypeString, String>, Collection<MethodDefinition>> methodsCache =
-      new HashMap<>();
+      new ConcurrentHashMap<>();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
 
   public TypeStringResolver(final IDefinitionKeeper definitionKeeper) {
     this.definitionKeeper = definitionKeeper;
   }
 
+  /**
+   * Get the number of lookups served from the cache.
+   *
+   * @return Number of cache hits.
+   */
+  public long getCacheHits() {
+    return this.cacheHits.sum();
+  }
+
+  /**
+   * Get the number of lookups which had to be resolved.
+   *
+   * @return Number of cache misses.
+   */
+  public long getCacheMisses() {
+    return this.cacheMisses.sum();
+  }
+
+  /**
+   * Get the number of lookups served from the cache since the previous call, and reset it.
+   *
+   * @return Number of cache hits since the previous call.
+   */
+  public long takeCacheHits() {
+    return this.cacheHits.sumThenReset();
+  }
+
+  /**
+   * Get the number of lookups which had to be resolved since the previous call, and reset it.
+   *
+   * @return Number of cache misses since the previous call.
+   */
+  public long takeCacheMisses() {
+    return this.cacheMisses.sumThenReset();
+  }
+
+  /**
+   * Get the value for {@code key} from {@code cache}, computing it when absent.
+   *
+   * <p>The value is computed without holding a lock, so a resolver can be shared by threads
+   * checking different files. Concurrent misses for the same key might both compute the value, only
+   * the first one is kept.
+   */
+  private <K, V> V getCached(final Map<K, V> cache, final K key, final Function<K, V> compute) {
+    final V cachedValue = cache.get(key);
+    if (cachedValue != null) {
+      this.cacheHits.increment();
+      return cachedValue;
+    }
+
+    this.cacheMisses.increment();
+    final V value = compute.apply(key);
+    final V previousValue = cache.putIfAbsent(key, value);
+    return previousValue != null ? previousValue : value;
+  }
+
   private List<PackageDefinition> getPackageHierarchy(final TypeString typeString) {
     final Deque<String> packages = new ArrayDeque<>();
     final String startPackage = typeString.getPakkage();
@@ -119,8 +180,9 @@ public class TypeStringResolver {
    * @param typeString Reference to look for.
    * @return A {@link ExemplarDefinition}/{@link ProcedureDefinition}/{@link GlobalDefinition}.
    */
-  public synchronized Collection<ITypeStringDefinition> resolve(final TypeString typeString) {
-    return this.typeCache.computeIfAbsent(
+  public Collection<ITypeStringDefinition> resolve(final TypeString typeString) {
+    return this.getCached(
+        this.typeCache,
         typeString,
         typeStr -> {
           final Collection<ExemplarDefinition> exemplarDefinitions =
@@ -234,10 +296,10 @@ public class TypeStringResolver {
    * @param typeString {@link TypeString} to resolve.
    * @return {@link MethodDefinition}s the {@link TypeString} responds to.
    */
-  public synchronized Collection<MethodDefinition> getMethodDefinitions(
-      final TypeString typeString) {
+  public Collection<MethodDefinition> getMethodDefinitions(final TypeString typeString) {
     final Entry<TypeString, String> cacheKey = Map.entry(typeString, ALL_METHODS);
-    return this.methodsCache.computeIfAbsent(
+    return this.getCached(
+        this.methodsCache,
         cacheKey,
         entry -> {
           // Try to resolve the typeString to an actual type.
@@ -262,11 +324,12 @@ public class TypeStringResolver {
    * @param methodName Method name to resolve.
    * @return {@link MethodDefinition}s for the given type and method name.
    */
-  public synchronized Collection<MethodDefinition> getMethodDefinitions(
+  public Collection<MethodDefinition> getMethodDefinitions(
       final TypeString typeString, final String methodName) {
     final Entry<TypeString, String> cacheKey = Map.entry(typeString, methodName);
     final Collection<MethodDefinition> methodDefinitions = this.getMethodDefinitions(typeString);
-    return this.methodsCache.computeIfAbsent(
+    return this.getCached(
+        this.methodsCache,
         cacheKey,
         entry ->
             methodDefinitions.stream()
@@ -1,6 +1,7 @@
 package nl.ramsolutions.sw.magik.analysis.typing.reasoner;
 
 import com.sonar.sslr.api.AstNode;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
 import nl.ramsolutions.sw.magik.analysis.definitions.MethodDefinition;
 import nl.ramsolutions.sw.magik.analysis.helpers.MethodDefinitionNodeHelper;
@@ -31,8 +32,9 @@ abstract class LocalTypeReasonerHandler {
   LocalTypeReasonerHandler(final LocalTypeReasonerState state) {
     this.state = state;
 
-    this.definitionKeeper = state.getMagikFile().getDefinitionKeeper();
-    this.typeResolver = new TypeStringResolver(this.definitionKeeper);
+    final MagikTypedFile magikFile = state.getMagikFile();
+    this.definitionKeeper = magikFile.getDefinitionKeeper();
+    this.typeResolver = magikFile.getTypeStringResolver();
   }
 
   /**
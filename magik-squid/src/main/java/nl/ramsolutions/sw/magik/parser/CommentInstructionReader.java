@@ -1,8 +1,11 @@
 package nl.ramsolutions.sw.magik.parser;
 
 import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -10,7 +13,6 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.analysis.scope.Scope;
 
@@ -34,6 +36,7 @@ public class CommentInstructionReader {
     private final String name;
     private final Sort sort;
     private final Pattern pattern;
+    private final Pattern commentPattern;
 
     /**
      * Constructor.
@@ -48,6 +51,7 @@ public class CommentInstructionReader {
           sort == Sort.SCOPE
               ? Pattern.compile("^\\s*#\\s*" + Pattern.quote(name) + ":\\s*(.*)$")
               : Pattern.compile("^\\s*[^\\s].*#\\s*" + Pattern.quote(name) + ":\\s*(.*)$");
+      this.commentPattern = Pattern.compile("^.*#\\s*" + Pattern.quote(name) + ":\\s*(.*)$");
     }
 
     public String getName() {
@@ -62,6 +66,17 @@ public class CommentInstructionReader {
       return this.pattern;
     }
 
+    /**
+     * Get the pattern to match a comment {@link Token} against. Whether the comment is the only
+     * thing on its line, {@link Sort#SCOPE}, or follows code, {@link Sort#STATEMENT}, is determined
+     * by the reader.
+     *
+     * @return Pattern for a comment.
+     */
+    public Pattern getCommentPattern() {
+      return this.commentPattern;
+    }
+
     @Override
     public int hashCode() {
       return Objects.hash(this.name, this.sort, this.pattern);
@@ -128,15 +143,32 @@ public class CommentInstructionReader {
   public String getInstructionsAtLine(final int lineNo, final Instruction instruction) {
     this.ensureRead();
 
-    if (!this.lineInstructions.containsKey(lineNo)) {
+    final Map<Instruction, String> instructionsAtLine = this.lineInstructions.get(lineNo);
+    if (instructionsAtLine == null) {
       return null;
     }
 
-    return this.lineInstructions.get(lineNo).entrySet().stream()
-        .filter(entry -> entry.getKey() == instruction)
-        .map(Map.Entry::getValue)
-        .findAny()
-        .orElse(null);
+    return instructionsAtLine.get(instruction);
+  }
+
+  /**
+   * Get all instructions of {@code instruction}.
+   *
+   * @param instruction Instruction.
+   * @return Instructions, keyed by line number.
+   */
+  public Map<Integer, String> getInstructions(final Instruction instruction) {
+    this.ensureRead();
+
+    final Map<Integer, String> instructionsByLine = new HashMap<>();
+    this.lineInstructions.forEach(
+        (lineNo, instructionsAtLine) -> {
+          final String readInstruction = instructionsAtLine.get(instruction);
+          if (readInstruction != null) {
+            instructionsByLine.put(lineNo, readInstruction);
+          }
+        });
+    return Collections.unmodifiableMap(instructionsByLine);
   }
 
   /**
@@ -151,9 +183,13 @@ public class CommentInstructionReader {
       throw new IllegalStateException("Excepted Scope instruction");
     }
 
+    this.ensureRead();
+
     final int fromLine = scope.getStartLine();
     final int toLine = scope.getEndLine();
-    return IntStream.range(fromLine, toLine)
+    return this.lineInstructions.keySet().stream()
+        .map(lineNo -> lineNo + 1) // 0-based to 1-based.
+        .filter(line -> line >= fromLine && line < toLine)
         .filter(
             line ->
                 // Filter any lines where a child scope lives.
@@ -161,41 +197,63 @@ public class CommentInstructionReader {
                     .noneMatch(
                         childScope ->
                             line >= childScope.getStartLine() && line < childScope.getEndLine()))
-        .mapToObj(line -> this.getInstructionsAtLine(line - 1, instruction))
+        .map(line -> this.getInstructionsAtLine(line - 1, instruction))
         .filter(Objects::nonNull)
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Read all instructions, in a single pass over the comments. Only comments which mention an
+   * instruction are matched against its pattern.
+   */
   private void ensureRead() {
     if (this.isRead) {
       return;
     }
 
-    final String[] lines = this.magikFile.getSourceLines();
-    if (lines == null) {
-      return;
-    }
+    final AstNode topNode = this.magikFile.getTopNode();
+    int lastContentLine = 0;
+    for (final Token token : topNode.getTokens()) {
+      for (final Trivia trivia : token.getTrivia()) {
+        if (!trivia.isComment()) {
+          continue;
+        }
 
-    this.instructions.forEach(
-        instruction -> {
-          final Pattern pattern = instruction.getPattern();
-          for (int lineNo = 0; lineNo < lines.length; ++lineNo) {
-            final String line = lines[lineNo];
-            final Matcher matcher = pattern.matcher(line);
-            if (!matcher.find()) {
-              continue;
-            }
-
-            final Map<Instruction, String> instructionsAtLine =
-                this.lineInstructions.computeIfAbsent(lineNo, k -> new HashMap<>());
-            final String readInstruction = matcher.group(1);
-            instructionsAtLine.put(instruction, readInstruction);
-          }
-        });
+        final Token commentToken = trivia.getToken();
+        final int line = commentToken.getLine();
+        final Instruction.Sort sort =
+            line == lastContentLine ? Instruction.Sort.STATEMENT : Instruction.Sort.SCOPE;
+        this.readComment(commentToken, sort);
+        lastContentLine = line;
+      }
+
+      final String value = token.getOriginalValue();
+      lastContentLine = token.getLine() + (int) value.chars().filter(chr -> chr == '\n').count();
+    }
 
     this.isRead = true;
   }
 
+  private void readComment(final Token commentToken, final Instruction.Sort sort) {
+    final String comment = commentToken.getOriginalValue();
+    for (final Instruction instruction : this.instructions) {
+      if (instruction.getSort() != sort || !comment.contains(instruction.getName())) {
+        continue;
+      }
+
+      final Matcher matcher = instruction.getCommentPattern().matcher(comment);
+      if (!matcher.find()) {
+        continue;
+      }
+
+      final int lineNo = commentToken.getLine() - 1; // 1-based to 0-based.
+      final Map<Instruction, String> instructionsAtLine =
+          this.lineInstructions.computeIfAbsent(lineNo, k -> new HashMap<>());
+      final String readInstruction = matcher.group(1);
+      instructionsAtLine.put(instruction, readInstruction);
+    }
+  }
+
   /**
    * Parse a instruction(s) with the form: `a=b; c=d`. An instruction is a key/value pair bound by a
    * `=` character. Instructions are separated with a `;`.
@@ -222,4 +280,17 @@ public class CommentInstructionReader {
 
     return instructions;
   }
+
+  /**
+   * Parse the values of an instruction with the form: `a,b`. Values are separated with a `,`.
+   *
+   * @param str Values to parse.
+   * @return Set of parsed values.
+   */
+  public static Set<String> parseInstructionValues(final String str) {
+    return Arrays.stream(str.split(","))
+        .map(String::trim)
+        .filter(value -> !value.isEmpty())
+        .collect(Collectors.toUnmodifiableSet());
+  }
 }
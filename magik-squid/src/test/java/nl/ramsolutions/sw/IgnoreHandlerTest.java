@@ -0,0 +1,80 @@
+package nl.ramsolutions.sw;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import nl.ramsolutions.sw.magik.FileEvent;
+import nl.ramsolutions.sw.magik.FileEvent.FileChangeType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test IgnoreHandler. */
+class IgnoreHandlerTest {
+
+  @TempDir private Path tempDir;
+
+  private Path createFile(final String relativePath, final String contents) throws IOException {
+    final Path path = this.tempDir.resolve(relativePath);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, contents);
+    return path;
+  }
+
+  @Test
+  void testIgnoreDirectory() throws IOException {
+    this.createFile("product/.magik-tools-ignore", "build\n");
+    final Path sourcePath = this.createFile("product/module/source/file.magik", "");
+    final Path buildPath = this.createFile("product/build/module/file.magik", "");
+
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+    ignoreHandler.handleFileEvent(new FileEvent(this.tempDir.toUri(), FileChangeType.CREATED));
+
+    assertThat(ignoreHandler.isIgnored(sourcePath)).isFalse();
+    assertThat(ignoreHandler.isIgnored(buildPath)).isTrue();
+
+    final List<Path> indexableFiles = ignoreHandler.getIndexableFiles(this.tempDir).toList();
+    assertThat(indexableFiles).containsExactly(sourcePath);
+  }
+
+  @Test
+  void testIgnoreOnlyAncestors() throws IOException {
+    this.createFile("product_a/.magik-tools-ignore", "*.magik\n");
+    final Path pathA = this.createFile("product_a/file.magik", "");
+    final Path pathB = this.createFile("product_b/file.magik", "");
+
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+    ignoreHandler.handleFileEvent(new FileEvent(this.tempDir.toUri(), FileChangeType.CREATED));
+
+    assertThat(ignoreHandler.isIgnored(pathA)).isTrue();
+    assertThat(ignoreHandler.isIgnored(pathB)).isFalse();
+  }
+
+  @Test
+  void testIgnoreDefaults() throws IOException {
+    final Path hiddenPath = this.createFile(".git/file.magik", "");
+    final Path backupPath = this.createFile("#file.magik", "");
+
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+
+    assertThat(ignoreHandler.isIgnored(hiddenPath.getParent())).isTrue();
+    assertThat(ignoreHandler.isIgnored(backupPath)).isTrue();
+    assertThat(ignoreHandler.getIndexableFiles(this.tempDir).toList()).isEmpty();
+  }
+
+  @Test
+  void testIgnoreFileDeleted() throws IOException {
+    final Path ignorePath = this.createFile("product/.magik-tools-ignore", "*.magik\n");
+    final Path sourcePath = this.createFile("product/file.magik", "");
+
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+    ignoreHandler.handleFileEvent(new FileEvent(this.tempDir.toUri(), FileChangeType.CREATED));
+    assertThat(ignoreHandler.isIgnored(sourcePath)).isTrue();
+
+    Files.delete(ignorePath);
+    ignoreHandler.handleFileEvent(new FileEvent(ignorePath.toUri(), FileChangeType.DELETED));
+    assertThat(ignoreHandler.isIgnored(sourcePath)).isFalse();
+  }
+}
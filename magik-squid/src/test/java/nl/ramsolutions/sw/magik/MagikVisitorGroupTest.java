@@ -0,0 +1,74 @@
+package nl.ramsolutions.sw.magik;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Test MagikVisitorGroup. */
+class MagikVisitorGroupTest {
+
+  private static final URI DEFAULT_URI = URI.create("memory://source.magik");
+
+  /** Visitor recording all calls. */
+  private static final class RecordingVisitor extends MagikVisitor {
+
+    private final List<String> calls = new ArrayList<>();
+
+    @Override
+    protected void walkPreDefault(final AstNode node) {
+      this.calls.add("pre " + node.getType() + " " + this.getMagikFile().getUri());
+    }
+
+    @Override
+    protected void walkPostDefault(final AstNode node) {
+      this.calls.add("post " + node.getType());
+    }
+
+    @Override
+    protected void walkPreMethodDefinition(final AstNode node) {
+      this.calls.add("pre method");
+    }
+
+    @Override
+    protected void walkToken(final Token token) {
+      this.calls.add("token " + token.getValue());
+    }
+
+    @Override
+    protected void walkTrivia(final Trivia trivia) {
+      this.calls.add("trivia " + trivia.getToken().getValue());
+    }
+  }
+
+  @Test
+  void testGroupMatchesSingleVisitors() {
+    final String code =
+        """
+        # comment
+        _method a.b(p)
+          _return p + 1
+        _endmethod
+        """;
+    final MagikFile magikFile = new MagikFile(DEFAULT_URI, code);
+
+    final RecordingVisitor singleVisitor = new RecordingVisitor();
+    singleVisitor.scanFile(magikFile);
+
+    final RecordingVisitor groupedVisitor1 = new RecordingVisitor();
+    final RecordingVisitor groupedVisitor2 = new RecordingVisitor();
+    final MagikVisitorGroup group =
+        new MagikVisitorGroup(List.of(groupedVisitor1, groupedVisitor2));
+    group.scanFile(magikFile);
+
+    assertThat(singleVisitor.calls).contains("pre method").isNotEmpty();
+    assertThat(groupedVisitor1.calls).containsExactlyElementsOf(singleVisitor.calls);
+    assertThat(groupedVisitor2.calls).containsExactlyElementsOf(singleVisitor.calls);
+    assertThat(groupedVisitor1.getMagikFile()).isSameAs(magikFile);
+  }
+}
@@ -0,0 +1,130 @@
+package nl.ramsolutions.sw.magik.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sonar.sslr.api.AstNode;
+import java.util.List;
+import nl.ramsolutions.sw.magik.Position;
+import nl.ramsolutions.sw.magik.Range;
+import nl.ramsolutions.sw.magik.api.MagikGrammar;
+import nl.ramsolutions.sw.magik.parser.MagikParser;
+import org.junit.jupiter.api.Test;
+
+/** Test AstPositionIndex. */
+@SuppressWarnings("checkstyle:MagicNumber")
+class AstPositionIndexTest {
+
+  private static final String CODE =
+      """
+      _method a.b(p1)
+        _local x << p1.c(10)
+        _return x + "multi
+      line"
+      _endmethod
+      b << a.b(20)
+      """;
+
+  private AstPositionIndex index(final String code) {
+    final MagikParser parser = new MagikParser();
+    final AstNode node = parser.parseSafe(code);
+    return new AstPositionIndex(node);
+  }
+
+  @Test
+  void testNodeAtMatchesTreeWalk() {
+    final AstPositionIndex index = this.index(CODE);
+    final List<AstNode> tokenNodes =
+        AstQuery.dfs(index.getTopNode()).filter(AstQuery::isTokenNode).toList();
+
+    final String[] lines = CODE.split("\n");
+    for (int line = 1; line <= lines.length + 1; ++line) {
+      for (int column = 0; column <= 25; ++column) {
+        final Position position = new Position(line, column);
+        final AstNode expected =
+            tokenNodes.stream()
+                .filter(
+                    node -> {
+                      final Range range = new Range(node.getToken());
+                      return !position.isBeforeRange(range) && !position.isAfterRange(range);
+                    })
+                .findFirst()
+                .orElse(null);
+
+        assertThat(index.nodeAt(position)).as(position.toString()).isSameAs(expected);
+      }
+    }
+  }
+
+  @Test
+  void testNodeAtAdjacentTokens() {
+    final AstPositionIndex index = this.index("a.b");
+
+    final AstNode node = index.nodeAt(new Position(1, 1));
+    assertThat(node).isNotNull();
+    assertThat(node.getTokenOriginalValue()).isEqualTo("a");
+  }
+
+  @Test
+  void testNodeAtParentType() {
+    final AstPositionIndex index = this.index(CODE);
+
+    final AstNode node = index.nodeAt(new Position(2, 10), MagikGrammar.IDENTIFIER);
+    assertThat(node).isNotNull();
+    assertThat(node.getTokenOriginalValue()).isEqualTo("x");
+    assertThat(index.nodeAt(new Position(2, 12), MagikGrammar.IDENTIFIER)).isNull();
+  }
+
+  @Test
+  void testNodeAtMultiLineToken() {
+    final AstPositionIndex index = this.index(CODE);
+
+    final AstNode node = index.nodeAt(new Position(4, 2));
+    assertThat(node).isNotNull();
+    assertThat(node.getTokenOriginalValue()).isEqualTo("\"multi\nline\"");
+  }
+
+  @Test
+  void testNodeBeforeAfter() {
+    final AstPositionIndex index = this.index("a << 10\nb << 20");
+
+    final AstNode before = index.nodeBefore(new Position(2, 0));
+    assertThat(before).isNotNull();
+    assertThat(before.getTokenOriginalValue()).isEqualTo("10");
+
+    final AstNode after = index.nodeAfter(new Position(1, 7));
+    assertThat(after).isNotNull();
+    assertThat(after.getTokenOriginalValue()).isEqualTo("b");
+
+    assertThat(index.nodeBefore(new Position(1, 0))).isNull();
+  }
+
+  @Test
+  void testNodeSurrounding() {
+    final AstPositionIndex index = this.index(CODE);
+
+    final AstNode node = index.nodeSurrounding(new Position(2, 10));
+    assertThat(node).isNotNull();
+    assertThat(node.is(MagikGrammar.METHOD_DEFINITION)).isTrue();
+
+    final AstNode outsideNode = index.nodeSurrounding(new Position(6, 2));
+    assertThat(outsideNode).isNotNull();
+    assertThat(outsideNode.getTokenLine()).isEqualTo(6);
+  }
+
+  @Test
+  void testNodeSurroundingType() {
+    final AstPositionIndex index = this.index(CODE);
+
+    final AstNode methodNode =
+        index.nodeSurrounding(new Position(3, 0), MagikGrammar.METHOD_DEFINITION);
+    assertThat(methodNode).isNotNull();
+    assertThat(methodNode.getTokenLine()).isEqualTo(1);
+
+    final AstNode invocationNode =
+        index.nodeSurrounding(new Position(2, 18), MagikGrammar.METHOD_INVOCATION);
+    assertThat(invocationNode).isNotNull();
+    assertThat(invocationNode.getTokenOriginalValue()).isEqualTo(".");
+
+    assertThat(index.nodeSurrounding(new Position(6, 2), MagikGrammar.METHOD_DEFINITION)).isNull();
+  }
+}
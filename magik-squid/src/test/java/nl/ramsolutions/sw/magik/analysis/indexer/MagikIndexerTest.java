@@ -2,6 +2,7 @@ package nl.ramsolutions.sw.magik.analysis.indexer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
@@ -9,6 +10,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.IgnoreHandler;
+import nl.ramsolutions.sw.magik.FileEvent;
 import nl.ramsolutions.sw.magik.Location;
 import nl.ramsolutions.sw.magik.Position;
 import nl.ramsolutions.sw.magik.Range;
@@ -375,4 +377,37 @@ class MagikIndexerTest {
         definitionKeeper.getExemplarDefinitions(typeString);
     assertThat(postExemplarDefs).isEmpty();
   }
+
+  @Test
+  void testFileEvents() throws IOException {
+    final Path path = Path.of("magik-squid/src/test/resources/test_magik_indexer.magik");
+    final Path fixedPath = this.getPath(path).toAbsolutePath();
+    final Path pathWithTypeDoc =
+        Path.of("magik-squid/src/test/resources/test_magik_indexer_with_type_doc.magik");
+    final Path fixedPathWithTypeDoc = this.getPath(pathWithTypeDoc).toAbsolutePath();
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final IgnoreHandler ignoreHandler = new IgnoreHandler();
+    final MagikIndexer magikIndexer =
+        new MagikIndexer(
+            definitionKeeper, MagikAnalysisConfiguration.DEFAULT_CONFIGURATION, ignoreHandler);
+
+    // Index both files in one batch.
+    magikIndexer.handleFileEvents(
+        List.of(
+            new FileEvent(fixedPath.toUri(), FileEvent.FileChangeType.CREATED),
+            new FileEvent(fixedPathWithTypeDoc.toUri(), FileEvent.FileChangeType.CREATED)));
+    final TypeString typeString = TypeString.ofIdentifier("test_exemplar", "user");
+    assertThat(definitionKeeper.getExemplarDefinitions(typeString)).hasSize(2);
+
+    // Delete one, change the other.
+    magikIndexer.handleFileEvents(
+        List.of(
+            new FileEvent(fixedPath.toUri(), FileEvent.FileChangeType.DELETED),
+            new FileEvent(fixedPathWithTypeDoc.toUri(), FileEvent.FileChangeType.CHANGED)));
+    final Collection<ExemplarDefinition> exemplarDefs =
+        definitionKeeper.getExemplarDefinitions(typeString);
+    assertThat(exemplarDefs).hasSize(1);
+    final ExemplarDefinition exemplarDef = exemplarDefs.stream().findAny().orElseThrow();
+    assertThat(exemplarDef.getLocation().getUri()).isEqualTo(fixedPathWithTypeDoc.toUri());
+  }
 }
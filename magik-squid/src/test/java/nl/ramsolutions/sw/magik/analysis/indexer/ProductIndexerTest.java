@@ -0,0 +1,45 @@
+package nl.ramsolutions.sw.magik.analysis.indexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import nl.ramsolutions.sw.IgnoreHandler;
+import nl.ramsolutions.sw.definitions.ModuleDefinition;
+import nl.ramsolutions.sw.definitions.ProductDefinition;
+import nl.ramsolutions.sw.magik.FileEvent;
+import nl.ramsolutions.sw.magik.analysis.definitions.DefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Test ProductIndexer. */
+class ProductIndexerTest {
+
+  @TempDir private Path tempDir;
+
+  @Test
+  void testHandleFileEventsStrayDefFile() throws IOException {
+    final Path productPath = this.tempDir.resolve("test_product");
+    final Path modulePath = productPath.resolve("test_module");
+    Files.createDirectories(modulePath);
+    Files.writeString(productPath.resolve("product.def"), "test_product layered_product\n");
+    Files.writeString(modulePath.resolve("module.def"), "test_module 1\n");
+    Files.writeString(modulePath.resolve("stray.def"), "not a definition\n");
+
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper(false);
+    final ProductIndexer productIndexer = new ProductIndexer(definitionKeeper, new IgnoreHandler());
+    final FileEvent fileEvent =
+        new FileEvent(this.tempDir.toUri(), FileEvent.FileChangeType.CREATED);
+    productIndexer.handleFileEvents(List.of(fileEvent));
+
+    assertThat(definitionKeeper.getProductDefinitions())
+        .extracting(ProductDefinition::getName)
+        .containsExactly("test_product");
+    assertThat(definitionKeeper.getModuleDefinitions())
+        .extracting(ModuleDefinition::getName)
+        .containsExactly("test_module");
+  }
+}
@@ -542,4 +542,67 @@ class ScopeBuilderVisitorTest {
     final ScopeEntry loopXEntry = loopScope.getScopeEntry("x");
     assertThat(bodyXEntry).isEqualTo(loopXEntry);
   }
+
+  @Test
+  void testScopeForLineColumn() {
+    final String code =
+        """
+        _method a.b
+          _block
+            _proc()
+              _return 1
+            _endproc
+          _endblock
+        _endmethod
+        x << 10""";
+    final ScopeBuilderVisitor visitor = this.buildCode(code);
+    final GlobalScope globalScope = visitor.getGlobalScope();
+    final Scope methodScope = globalScope.getChildScopes().get(0);
+    final Scope blockScope = methodScope.getChildScopes().get(0);
+    final Scope procScope = blockScope.getChildScopes().get(0);
+
+    assertThat(globalScope.getScopeForLineColumn(1, 0)).isSameAs(globalScope);
+    assertThat(globalScope.getScopeForLineColumn(2, 2)).isSameAs(methodScope);
+    assertThat(globalScope.getScopeForLineColumn(3, 4)).isSameAs(blockScope);
+    assertThat(globalScope.getScopeForLineColumn(4, 6)).isSameAs(procScope);
+    assertThat(globalScope.getScopeForLineColumn(5, 6)).isSameAs(blockScope);
+    assertThat(globalScope.getScopeForLineColumn(8, 0)).isSameAs(globalScope);
+    assertThat(globalScope.getScopeForLineColumn(9, 0)).isNull();
+  }
+
+  @Test
+  void testScopeForLineColumnMatchesTreeWalk() {
+    final String code =
+        """
+        _method a.b(p)
+          _if p _then _return 1
+          _elif p.c _then
+            _for i _over p.elements() _loop show(i) _endloop
+          _else _return _proc() _return 2 _endproc
+          _endif
+        _endmethod
+        _block _local y << 10 _endblock""";
+    final ScopeBuilderVisitor visitor = this.buildCode(code);
+    final GlobalScope globalScope = visitor.getGlobalScope();
+
+    for (int line = 1; line <= 9; ++line) {
+      for (int column = 0; column <= 60; ++column) {
+        Scope expected = line <= globalScope.getEndLine() ? globalScope : null;
+        for (final Scope childScope : globalScope.getChildScopes()) {
+          final Scope foundScope = childScope.getScopeForLineColumn(line, column);
+          if (foundScope != null) {
+            expected = foundScope;
+            break;
+          }
+        }
+        if (line == globalScope.getEndLine() && column > globalScope.getEndColumn()) {
+          expected = null;
+        }
+
+        assertThat(globalScope.getScopeForLineColumn(line, column))
+            .as(line + ":" + column)
+            .isSameAs(expected);
+      }
+    }
+  }
 }
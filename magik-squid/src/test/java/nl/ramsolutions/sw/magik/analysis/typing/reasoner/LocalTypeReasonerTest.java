@@ -18,6 +18,7 @@ import nl.ramsolutions.sw.magik.analysis.definitions.ParameterDefinition;
 import nl.ramsolutions.sw.magik.analysis.definitions.SlotDefinition;
 import nl.ramsolutions.sw.magik.analysis.typing.ExpressionResultString;
 import nl.ramsolutions.sw.magik.analysis.typing.TypeString;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver;
 import nl.ramsolutions.sw.magik.api.MagikGrammar;
 import org.junit.jupiter.api.Test;
 
@@ -56,6 +57,52 @@ class LocalTypeReasonerTest {
     assertThat(result).isEqualTo(ExpressionResultString.EMPTY);
   }
 
+  @Test
+  void testReasonUsesTypeStringResolverOfFile() {
+    final String code =
+        """
+        _package sw
+        _method object.test
+            _return rope.new()
+        _endmethod
+        """;
+
+    // Set up.
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+
+    // Do analysis.
+    final MagikTypedFile magikFile = this.createMagikFile(code, definitionKeeper);
+    magikFile.getTypeReasonerState();
+
+    // Assert lookups are done through the resolver of the file.
+    final TypeStringResolver resolver = magikFile.getTypeStringResolver();
+    assertThat(resolver.getCacheMisses()).isPositive();
+  }
+
+  @Test
+  void testTakeCacheLookupsResetsCounts() {
+    final String code =
+        """
+        _package sw
+        _method object.test
+            _return rope.new()
+        _endmethod
+        """;
+
+    // Set up.
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+
+    // Do analysis.
+    final MagikTypedFile magikFile = this.createMagikFile(code, definitionKeeper);
+    magikFile.getTypeReasonerState();
+
+    // Assert lookups are only taken once.
+    final TypeStringResolver resolver = magikFile.getTypeStringResolver();
+    assertThat(resolver.takeCacheMisses()).isPositive();
+    assertThat(resolver.takeCacheMisses()).isZero();
+    assertThat(resolver.getCacheMisses()).isZero();
+  }
+
   @Test
   void testReasonMethodReturnRope() {
     final String code =
@@ -3,6 +3,7 @@ package nl.ramsolutions.sw.magik.parser;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.net.URI;
+import java.util.Map;
 import java.util.Set;
 import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.analysis.scope.GlobalScope;
@@ -106,4 +107,27 @@ class CommentInstructionReaderTest {
         instructionReader.getInstructionsAtLine(4, MLINT_STATEMENT_INSTRUCTION);
     assertThat(instructionAtLine4).isNull();
   }
+
+  @Test
+  void testReadInstructionsFromCommentsOnly() {
+    final String code =
+        """
+        _proc()
+          write("# mlint: disable=forbidden-call")
+          print(10)  # mlint: disable=forbidden-call
+        _endproc""";
+    final MagikFile magikFile = new MagikFile(DEFAULT_URI, code);
+
+    final CommentInstructionReader instructionReader =
+        new CommentInstructionReader(magikFile, Set.of(MLINT_STATEMENT_INSTRUCTION));
+
+    assertThat(instructionReader.getInstructions(MLINT_STATEMENT_INSTRUCTION))
+        .containsOnly(Map.entry(2, "disable=forbidden-call"));
+  }
+
+  @Test
+  void testParseInstructionValues() {
+    assertThat(CommentInstructionReader.parseInstructionValues("a, b,,c "))
+        .containsOnly("a", "b", "c");
+  }
 }
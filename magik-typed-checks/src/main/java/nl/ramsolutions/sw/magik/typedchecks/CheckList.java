@@ -24,6 +24,9 @@ import nl.ramsolutions.sw.magik.typedchecks.fixers.TypeDocReturnTypeFixer;
 /** Check list. */
 public final class CheckList {
 
+  @SuppressWarnings("checkstyle:JavadocVariable")
+  public static final String REPOSITORY_KEY = "magik-typed";
+
   private CheckList() {}
 
   /**
@@ -25,6 +25,12 @@ public class GlobalExistsTypedCheck extends MagikTypedCheck {
 
   private String currentPakkage = DEFAULT_PACKAGE;
 
+  @Override
+  protected void walkPreMagik(final AstNode node) {
+    // Instances are reused for multiple files.
+    this.currentPakkage = DEFAULT_PACKAGE;
+  }
+
   @Override
   protected void walkPostPackageSpecification(final AstNode node) {
     final PackageNodeHelper helper = new PackageNodeHelper(node);
@@ -0,0 +1,59 @@
+package nl.ramsolutions.sw.magik.typedchecks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Workspace fixture for running typed checks on files, shared with the tests of the tools running
+ * the typed checks.
+ *
+ * <p>{@code definition.magik} defines {@code lint_object} with the method {@code known()}, {@code
+ * usage.magik} invokes {@code known()} and the unknown method {@code unknown()}.
+ */
+public final class LintObjectFixture {
+
+  /** Filename of the file defining {@code lint_object}. */
+  public static final String DEFINITION_FILENAME = "definition.magik";
+
+  /** Contents of the file defining {@code lint_object}. */
+  public static final String DEFINITION =
+      """
+      def_slotted_exemplar(:lint_object, {})
+      $
+      _method lint_object.known()
+      _endmethod
+      $
+      """;
+
+  /** Filename of the file using {@code lint_object}. */
+  public static final String USAGE_FILENAME = "usage.magik";
+
+  /** Contents of the file using {@code lint_object}. */
+  public static final String USAGE =
+      """
+      _block
+      \tlint_object.known()
+      \tlint_object.unknown()
+      _endblock
+      """;
+
+  /** Line in {@link #USAGE} invoking the unknown method. */
+  public static final int UNKNOWN_METHOD_LINE = 3;
+
+  private LintObjectFixture() {}
+
+  /**
+   * Write the fixture files to {@code directory}.
+   *
+   * @param directory Directory to write to.
+   * @return Path to the usage file.
+   * @throws IOException -
+   */
+  public static Path write(final Path directory) throws IOException {
+    Files.writeString(directory.resolve(DEFINITION_FILENAME), DEFINITION);
+    final Path usagePath = directory.resolve(USAGE_FILENAME);
+    Files.writeString(usagePath, USAGE);
+    return usagePath;
+  }
+}
@@ -31,4 +31,15 @@ class GlobalExistsTypedCheckTest extends MagikTypedCheckTestBase {
     final List<MagikIssue> checkResults = this.runCheck(code, definitionKeeper, check);
     assertThat(checkResults).hasSize(1);
   }
+
+  @Test
+  void testPackageResetForNextFile() {
+    final IDefinitionKeeper definitionKeeper = new DefinitionKeeper();
+    final MagikTypedCheck check = new GlobalExistsTypedCheck();
+    this.runCheck("_package unknown_package\n$\n", definitionKeeper, check);
+
+    // Same instance, the package of the previous file does not apply.
+    final List<MagikIssue> checkResults = this.runCheck("float.m", definitionKeeper, check);
+    assertThat(checkResults).isEmpty();
+  }
 }
@@ -2,7 +2,9 @@ package nl.ramsolutions.sw.sonar;
 
 import nl.ramsolutions.sw.sonar.language.Magik;
 import nl.ramsolutions.sw.sonar.sensors.MagikSensor;
+import nl.ramsolutions.sw.sonar.sensors.MagikWorkspaceIndex;
 import org.sonar.api.Plugin;
+import org.sonar.api.PropertyType;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
 
@@ -23,8 +25,52 @@ public class MagikPlugin implements Plugin {
             .subCategory("General")
             .onQualifiers(Qualifiers.PROJECT)
             .build());
+    context.addExtension(
+        PropertyDefinition.builder(Magik.ANALYSIS_THREADS_KEY)
+            .category(Magik.MAGIK_CATEGORY)
+            .name("Analysis threads")
+            .type(PropertyType.INTEGER)
+            .description(
+                "Number of threads to analyze files with. Defaults to the number of processors.")
+            .subCategory("General")
+            .onQualifiers(Qualifiers.PROJECT)
+            .build());
+    context.addExtension(
+        PropertyDefinition.builder(Magik.TYPED_ENABLED_KEY)
+            .defaultValue("false")
+            .category(Magik.MAGIK_CATEGORY)
+            .name("Enable typed analysis")
+            .type(PropertyType.BOOLEAN)
+            .description(
+                "Index the project before analysis, and run the rules from the typed repository.")
+            .subCategory("Typed analysis")
+            .onQualifiers(Qualifiers.PROJECT)
+            .build());
+    context.addExtension(
+        PropertyDefinition.builder(Magik.TYPED_INDEX_PATHS_KEY)
+            .category(Magik.MAGIK_CATEGORY)
+            .name("Index paths")
+            .multiValues(true)
+            .description(
+                "Paths to index for typed analysis, relative to the project base directory. "
+                    + "Defaults to the project base directory.")
+            .subCategory("Typed analysis")
+            .onQualifiers(Qualifiers.PROJECT)
+            .build());
+    context.addExtension(
+        PropertyDefinition.builder(Magik.TYPED_TYPES_DB_PATHS_KEY)
+            .category(Magik.MAGIK_CATEGORY)
+            .name("Types database paths")
+            .multiValues(true)
+            .description(
+                "Paths to types databases to read for typed analysis, relative to the project "
+                    + "base directory.")
+            .subCategory("Typed analysis")
+            .onQualifiers(Qualifiers.PROJECT)
+            .build());
     context.addExtension(MagikSonarWayProfile.class);
     context.addExtension(MagikRulesDefinition.class);
+    context.addExtension(MagikWorkspaceIndex.class);
     context.addExtension(MagikSensor.class);
   }
 }
@@ -3,6 +3,7 @@ package nl.ramsolutions.sw.sonar;
 import java.util.List;
 import java.util.stream.Collectors;
 import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.checks.MagikCheck;
 import nl.ramsolutions.sw.sonar.language.Magik;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonarsource.analyzer.commons.RuleMetadataLoader;
@@ -11,6 +12,7 @@ import org.sonarsource.analyzer.commons.RuleMetadataLoader;
 public class MagikRulesDefinition implements RulesDefinition {
 
   private static final String REPOSITORY_NAME = "SonarAnalyzer";
+  private static final String TYPED_REPOSITORY_NAME = "SonarAnalyzer (typed)";
 
   @Override
   public void define(final Context context) {
@@ -24,10 +26,26 @@ public class MagikRulesDefinition implements RulesDefinition {
     loader.addRulesByAnnotatedClass(repository, MagikRulesDefinition.getCheckClasses());
 
     repository.done();
+
+    // Typed checks, only run when typed analysis is enabled.
+    final NewRepository typedRepository =
+        context
+            .createRepository(
+                nl.ramsolutions.sw.magik.typedchecks.CheckList.REPOSITORY_KEY, Magik.KEY)
+            .setName(MagikRulesDefinition.TYPED_REPOSITORY_NAME);
+    loader.addRulesByAnnotatedClass(
+        typedRepository,
+        MagikRulesDefinition.getCheckClasses(
+            nl.ramsolutions.sw.magik.typedchecks.CheckList.getChecks()));
+    typedRepository.done();
   }
 
   private static List<Class<?>> getCheckClasses() {
-    return CheckList.getChecks().stream()
+    return MagikRulesDefinition.getCheckClasses(CheckList.getChecks());
+  }
+
+  private static List<Class<?>> getCheckClasses(final List<Class<? extends MagikCheck>> checks) {
+    return checks.stream()
         .map(clazz -> (Class<?>) clazz)
         .collect(Collectors.toUnmodifiableList()); // NOSONAR: Keep VSCode/Java plugin sane.
   }
@@ -23,6 +23,18 @@ public class Magik extends AbstractLanguage {
   /** Default file suffixes. */
   public static final String DEFAULT_FILE_SUFFIXES = ".magik";
 
+  /** Analysis threads key. */
+  public static final String ANALYSIS_THREADS_KEY = "sonar.magik.analysis.threads";
+
+  /** Typed analysis enabled key. */
+  public static final String TYPED_ENABLED_KEY = "sonar.magik.typed.enabled";
+
+  /** Typed analysis index paths key. */
+  public static final String TYPED_INDEX_PATHS_KEY = "sonar.magik.typed.indexPaths";
+
+  /** Typed analysis types database paths key. */
+  public static final String TYPED_TYPES_DB_PATHS_KEY = "sonar.magik.typed.typesDbPaths";
+
   private final Configuration configuration;
 
   /**
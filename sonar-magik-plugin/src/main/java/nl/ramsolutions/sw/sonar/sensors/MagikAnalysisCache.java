@@ -0,0 +1,210 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.checks.checks.FileNotInLoadListCheck;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Cache of {@link MagikFileAnalysis}s between analyses, using the sensor read/write cache.
+ *
+ * <p>An analysis is stored per file, together with the hash of the file and a fingerprint of the
+ * active rules and plugin version. It is only replayed for files with status {@link
+ * InputFile.Status#SAME} when both still match.
+ *
+ * <p>Some rules also read other files, such as {@link FileNotInLoadListCheck} reading the {@code
+ * load_list.txt} next to the file. When such a rule is active, the hash of that file is stored as
+ * well, and has to match too.
+ */
+final class MagikAnalysisCache {
+
+  private static final Logger LOGGER = Loggers.get(MagikAnalysisCache.class);
+  private static final String KEY_PREFIX = "magik:analysis:";
+  private static final int FORMAT_VERSION = 3;
+  private static final String LOAD_LIST_FILENAME = "load_list.txt";
+  private static final String NO_HASH = "";
+
+  private final SensorContext context;
+  private final boolean enabled;
+  private final String fingerprint;
+  private final boolean loadListDependent;
+
+  /** Hashes of load_list.txt files, keyed by directory. */
+  private final Map<Path, String> loadListHashes = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param context Sensor context.
+   * @param enabled Use the cache, if enabled for the analysis.
+   */
+  MagikAnalysisCache(final SensorContext context, final boolean enabled) {
+    this.context = context;
+    this.enabled = enabled && context.isCacheEnabled();
+    this.fingerprint = MagikAnalysisCache.getFingerprint(context.activeRules());
+    this.loadListDependent =
+        context
+                .activeRules()
+                .find(RuleKey.of(CheckList.REPOSITORY_KEY, FileNotInLoadListCheck.CHECK_KEY))
+            != null;
+  }
+
+  /**
+   * Read the analysis of a previous run for an unchanged file, and keep it for the next run.
+   *
+   * @param inputFile File to read analysis for.
+   * @return Analysis of the previous run, or null if there is no usable analysis.
+   */
+  @CheckForNull
+  MagikFileAnalysis read(final InputFile inputFile) {
+    if (!this.enabled || inputFile.status() != InputFile.Status.SAME) {
+      return null;
+    }
+
+    final String key = MagikAnalysisCache.getKey(inputFile);
+    if (!this.context.previousCache().contains(key)) {
+      return null;
+    }
+
+    final MagikFileAnalysis analysis;
+    try (InputStream inputStream = this.context.previousCache().read(key);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream))) {
+      if (input.readInt() != FORMAT_VERSION
+          || !this.fingerprint.equals(input.readUTF())
+          || !MagikAnalysisCache.hashContents(inputFile).equals(input.readUTF())
+          || !this.getLoadListHash(inputFile).equals(input.readUTF())) {
+        return null;
+      }
+
+      analysis = MagikFileAnalysis.read(input);
+    } catch (final IOException | RuntimeException exception) {
+      LOGGER.debug("Unable to read cached analysis of {}: {}", inputFile, exception.getMessage());
+      return null;
+    }
+
+    LOGGER.debug("Using cached analysis of {}", inputFile);
+    this.context.nextCache().copyFromPrevious(key);
+    return analysis;
+  }
+
+  /**
+   * Write the analysis of a file for the next run.
+   *
+   * @param inputFile File the analysis belongs to.
+   * @param analysis Analysis to write.
+   */
+  void write(final InputFile inputFile, final MagikFileAnalysis analysis) {
+    if (!this.enabled) {
+      return;
+    }
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeInt(FORMAT_VERSION);
+      output.writeUTF(this.fingerprint);
+      output.writeUTF(MagikAnalysisCache.hashContents(inputFile));
+      output.writeUTF(this.getLoadListHash(inputFile));
+      analysis.write(output);
+    } catch (final IOException exception) {
+      LOGGER.debug("Unable to write cached analysis of {}: {}", inputFile, exception.getMessage());
+      return;
+    }
+
+    this.context.nextCache().write(MagikAnalysisCache.getKey(inputFile), bytes.toByteArray());
+  }
+
+  /**
+   * Get the hash of the load_list.txt next to the file, if any rule depends on it.
+   *
+   * @param inputFile File to get the hash for.
+   * @return Hash of the load_list.txt, or an empty string if not needed or not present.
+   */
+  private String getLoadListHash(final InputFile inputFile) {
+    if (!this.loadListDependent || !"file".equals(inputFile.uri().getScheme())) {
+      return NO_HASH;
+    }
+
+    final Path directory = Path.of(inputFile.uri()).getParent();
+    if (directory == null) {
+      return NO_HASH;
+    }
+
+    return this.loadListHashes.computeIfAbsent(
+        directory, dir -> MagikAnalysisCache.hashFile(dir.resolve(LOAD_LIST_FILENAME)));
+  }
+
+  private static String hashContents(final InputFile inputFile) throws IOException {
+    try (InputStream inputStream = inputFile.inputStream()) {
+      return MagikAnalysisCache.hash(inputStream.readAllBytes());
+    }
+  }
+
+  private static String hashFile(final Path path) {
+    if (!Files.exists(path)) {
+      return NO_HASH;
+    }
+
+    try {
+      return MagikAnalysisCache.hash(Files.readAllBytes(path));
+    } catch (final IOException exception) {
+      // Never matches a stored hash, so the file is analyzed again.
+      LOGGER.debug("Unable to read {}: {}", path, exception.getMessage());
+      return "unreadable";
+    }
+  }
+
+  private static String getKey(final InputFile inputFile) {
+    return KEY_PREFIX + inputFile.key();
+  }
+
+  /** Get a fingerprint of the active Magik rules, their parameters, and the plugin version. */
+  private static String getFingerprint(final ActiveRules activeRules) {
+    final StringBuilder builder = new StringBuilder();
+    final String version = MagikAnalysisCache.class.getPackage().getImplementationVersion();
+    builder.append(Objects.requireNonNullElse(version, "")).append('\n');
+    activeRules.findByRepository(CheckList.REPOSITORY_KEY).stream()
+        .sorted(Comparator.comparing(activeRule -> activeRule.ruleKey().toString()))
+        .forEach(activeRule -> MagikAnalysisCache.appendActiveRule(builder, activeRule));
+
+    return MagikAnalysisCache.hash(builder.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String hash(final byte[] bytes) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(bytes));
+    } catch (final NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  private static void appendActiveRule(final StringBuilder builder, final ActiveRule activeRule) {
+    builder.append(activeRule.ruleKey());
+    new TreeMap<>(activeRule.params())
+        .forEach((key, value) -> builder.append(';').append(key).append('=').append(value));
+    builder.append('\n');
+  }
+}
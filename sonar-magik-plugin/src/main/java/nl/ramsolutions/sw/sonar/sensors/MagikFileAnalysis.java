@@ -0,0 +1,303 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nl.ramsolutions.sw.magik.metrics.FileMetrics;
+import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver.CpdToken;
+import nl.ramsolutions.sw.sonar.visitors.MagikHighlighterVisitor.Highlight;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Result of analyzing a single file: metrics, issues, highlights and CPD tokens.
+ *
+ * <p>Holds no AST, so it is cheap to keep while waiting to be saved, and can be (de)serialized to
+ * the sensor cache.
+ */
+final class MagikFileAnalysis {
+
+  /** Metrics of a file. */
+  static final class Metrics {
+
+    private final Set<Integer> linesOfCode;
+    private final int commentLineCount;
+    private final int numberOfClasses;
+    private final int numberOfFunctions;
+    private final int numberOfStatements;
+    private final int complexity;
+    private final Set<Integer> executableLines;
+    private final Set<Integer> nosonarLines;
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    Metrics(
+        final Set<Integer> linesOfCode,
+        final int commentLineCount,
+        final int numberOfClasses,
+        final int numberOfFunctions,
+        final int numberOfStatements,
+        final int complexity,
+        final Set<Integer> executableLines,
+        final Set<Integer> nosonarLines) {
+      this.linesOfCode = linesOfCode;
+      this.commentLineCount = commentLineCount;
+      this.numberOfClasses = numberOfClasses;
+      this.numberOfFunctions = numberOfFunctions;
+      this.numberOfStatements = numberOfStatements;
+      this.complexity = complexity;
+      this.executableLines = executableLines;
+      this.nosonarLines = nosonarLines;
+    }
+
+    static Metrics of(final FileMetrics fileMetrics) {
+      return new Metrics(
+          fileMetrics.linesOfCode(),
+          fileMetrics.commentLineCount(),
+          fileMetrics.numberOfExemplars(),
+          fileMetrics.numberOfMethods() + fileMetrics.numberOfProcedures(),
+          fileMetrics.numberOfStatements(),
+          fileMetrics.fileComplexity(),
+          fileMetrics.executableLines(),
+          fileMetrics.nosonarLines());
+    }
+
+    Set<Integer> linesOfCode() {
+      return this.linesOfCode;
+    }
+
+    int commentLineCount() {
+      return this.commentLineCount;
+    }
+
+    int numberOfClasses() {
+      return this.numberOfClasses;
+    }
+
+    int numberOfFunctions() {
+      return this.numberOfFunctions;
+    }
+
+    int numberOfStatements() {
+      return this.numberOfStatements;
+    }
+
+    int complexity() {
+      return this.complexity;
+    }
+
+    Set<Integer> executableLines() {
+      return this.executableLines;
+    }
+
+    Set<Integer> nosonarLines() {
+      return this.nosonarLines;
+    }
+  }
+
+  /** Issue raised by a rule. */
+  static final class Issue {
+
+    private final RuleKey ruleKey;
+    private final int line;
+    private final String message;
+
+    Issue(final RuleKey ruleKey, final int line, final String message) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.message = message;
+    }
+
+    RuleKey ruleKey() {
+      return this.ruleKey;
+    }
+
+    int line() {
+      return this.line;
+    }
+
+    String message() {
+      return this.message;
+    }
+  }
+
+  private final Metrics metrics;
+  private final List<Issue> issues;
+  private final List<Highlight> highlights;
+  private final List<CpdToken> cpdTokens;
+  private final boolean fromCache;
+
+  MagikFileAnalysis(
+      final Metrics metrics,
+      final List<Issue> issues,
+      final List<Highlight> highlights,
+      final List<CpdToken> cpdTokens,
+      final boolean fromCache) {
+    this.metrics = metrics;
+    this.issues = issues;
+    this.highlights = highlights;
+    this.cpdTokens = cpdTokens;
+    this.fromCache = fromCache;
+  }
+
+  Metrics getMetrics() {
+    return this.metrics;
+  }
+
+  List<Issue> getIssues() {
+    return this.issues;
+  }
+
+  List<Highlight> getHighlights() {
+    return this.highlights;
+  }
+
+  List<CpdToken> getCpdTokens() {
+    return this.cpdTokens;
+  }
+
+  /**
+   * Test if this analysis was replayed from the cache of a previous analysis.
+   *
+   * @return True if from cache, false otherwise.
+   */
+  boolean isFromCache() {
+    return this.fromCache;
+  }
+
+  /**
+   * Write this analysis.
+   *
+   * @param output Output to write to.
+   * @throws IOException -
+   */
+  void write(final DataOutputStream output) throws IOException {
+    MagikFileAnalysis.writeLines(output, this.metrics.linesOfCode());
+    output.writeInt(this.metrics.commentLineCount());
+    output.writeInt(this.metrics.numberOfClasses());
+    output.writeInt(this.metrics.numberOfFunctions());
+    output.writeInt(this.metrics.numberOfStatements());
+    output.writeInt(this.metrics.complexity());
+    MagikFileAnalysis.writeLines(output, this.metrics.executableLines());
+    MagikFileAnalysis.writeLines(output, this.metrics.nosonarLines());
+
+    output.writeInt(this.issues.size());
+    for (final Issue issue : this.issues) {
+      MagikFileAnalysis.writeString(output, issue.ruleKey().toString());
+      output.writeInt(issue.line());
+      MagikFileAnalysis.writeString(output, issue.message());
+    }
+
+    output.writeInt(this.highlights.size());
+    for (final Highlight highlight : this.highlights) {
+      output.writeInt(highlight.line());
+      output.writeInt(highlight.column());
+      output.writeInt(highlight.endLine());
+      output.writeInt(highlight.endColumn());
+      output.writeByte(highlight.typeOfText().ordinal());
+    }
+
+    output.writeInt(this.cpdTokens.size());
+    for (final CpdToken cpdToken : this.cpdTokens) {
+      output.writeInt(cpdToken.line());
+      output.writeInt(cpdToken.column());
+      output.writeInt(cpdToken.endLine());
+      output.writeInt(cpdToken.endColumn());
+      MagikFileAnalysis.writeString(output, cpdToken.image());
+    }
+  }
+
+  /**
+   * Read an analysis, as written by {@link #write}.
+   *
+   * @param input Input to read from.
+   * @return Read analysis.
+   * @throws IOException -
+   */
+  static MagikFileAnalysis read(final DataInputStream input) throws IOException {
+    final Metrics metrics =
+        new Metrics(
+            MagikFileAnalysis.readLines(input),
+            input.readInt(),
+            input.readInt(),
+            input.readInt(),
+            input.readInt(),
+            input.readInt(),
+            MagikFileAnalysis.readLines(input),
+            MagikFileAnalysis.readLines(input));
+
+    final int issueCount = input.readInt();
+    final List<Issue> issues = new ArrayList<>(issueCount);
+    for (int i = 0; i < issueCount; ++i) {
+      final RuleKey ruleKey = RuleKey.parse(MagikFileAnalysis.readString(input));
+      issues.add(new Issue(ruleKey, input.readInt(), MagikFileAnalysis.readString(input)));
+    }
+
+    final TypeOfText[] typesOfText = TypeOfText.values();
+    final int highlightCount = input.readInt();
+    final List<Highlight> highlights = new ArrayList<>(highlightCount);
+    for (int i = 0; i < highlightCount; ++i) {
+      highlights.add(
+          new Highlight(
+              input.readInt(),
+              input.readInt(),
+              input.readInt(),
+              input.readInt(),
+              typesOfText[input.readByte()]));
+    }
+
+    final int cpdTokenCount = input.readInt();
+    final List<CpdToken> cpdTokens = new ArrayList<>(cpdTokenCount);
+    for (int i = 0; i < cpdTokenCount; ++i) {
+      cpdTokens.add(
+          new CpdToken(
+              input.readInt(),
+              input.readInt(),
+              input.readInt(),
+              input.readInt(),
+              MagikFileAnalysis.readString(input)));
+    }
+
+    return new MagikFileAnalysis(metrics, issues, highlights, cpdTokens, true);
+  }
+
+  private static void writeLines(final DataOutputStream output, final Collection<Integer> lines)
+      throws IOException {
+    output.writeInt(lines.size());
+    for (final int line : lines) {
+      output.writeInt(line);
+    }
+  }
+
+  private static Set<Integer> readLines(final DataInputStream input) throws IOException {
+    final int count = input.readInt();
+    final Set<Integer> lines = new HashSet<>(count);
+    for (int i = 0; i < count; ++i) {
+      lines.add(input.readInt());
+    }
+    return lines;
+  }
+
+  private static void writeString(final DataOutputStream output, final String value)
+      throws IOException {
+    // Not writeUTF(), as that is limited to 64K bytes.
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(final DataInputStream input) throws IOException {
+    final int length = input.readInt();
+    final byte[] bytes = input.readNBytes(length);
+    if (bytes.length != length) {
+      throw new IOException("Unexpected end of data");
+    }
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -2,13 +2,25 @@ package nl.ramsolutions.sw.sonar.sensors;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.MagikTypedFile;
 import nl.ramsolutions.sw.magik.MagikVisitor;
+import nl.ramsolutions.sw.magik.MagikVisitorGroup;
+import nl.ramsolutions.sw.magik.analysis.MagikAnalysisConfiguration;
 import nl.ramsolutions.sw.magik.checks.CheckList;
 import nl.ramsolutions.sw.magik.checks.MagikCheck;
-import nl.ramsolutions.sw.magik.checks.MagikIssue;
 import nl.ramsolutions.sw.magik.metrics.FileMetrics;
 import nl.ramsolutions.sw.sonar.language.Magik;
 import nl.ramsolutions.sw.sonar.sensors.cpd.CpdTokenSaver;
@@ -39,24 +51,30 @@ public class MagikSensor implements Sensor {
 
   private static final Logger LOGGER = Loggers.get(MagikSensor.class);
   private static final long SLEEP_PERIOD = 100;
+  private static final int WINDOW_SIZE_PER_THREAD = 2;
 
   private final CheckFactory checkFactory;
   private final FileLinesContextFactory fileLinesContextFactory;
   private final NoSonarFilter noSonarFilter;
+  private final MagikWorkspaceIndex workspaceIndex;
 
   /**
    * Constructor.
    *
    * @param checkFactory Factory.
    * @param fileLinesContextFactory Factory.
+   * @param noSonarFilter No sonar filter.
+   * @param workspaceIndex Index of the project, for typed analysis.
    */
   public MagikSensor(
       final CheckFactory checkFactory,
       final FileLinesContextFactory fileLinesContextFactory,
-      final NoSonarFilter noSonarFilter) {
+      final NoSonarFilter noSonarFilter,
+      final MagikWorkspaceIndex workspaceIndex) {
     this.checkFactory = checkFactory;
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.noSonarFilter = noSonarFilter;
+    this.workspaceIndex = workspaceIndex;
   }
 
   @Override
@@ -80,15 +98,155 @@ public class MagikSensor implements Sensor {
     final List<String> filenames = inputFiles.stream().map(InputFile::toString).toList();
     progressReport.start(filenames);
 
-    for (final InputFile inputFile : inputFiles) {
-      this.scanMagikFile(context, inputFile);
-      progressReport.nextFile();
+    // Index the project before analyzing any file, the index is shared by all threads.
+    final boolean typed = this.isTypedAnalysisEnabled(context);
+    if (typed) {
+      this.workspaceIndex.getDefinitionKeeper();
+    }
+
+    // Checks are configured once per thread, and reused for all files analyzed by that thread.
+    final ThreadLocal<List<Checks<MagikCheck>>> threadChecks =
+        ThreadLocal.withInitial(() -> this.createChecks(typed));
+    final Function<InputFile, MagikFileAnalysis> analyzer =
+        inputFile -> this.analyzeMagikFile(inputFile, threadChecks.get(), typed);
+
+    // Typed issues depend on other files, so do not use cached analyses.
+    final MagikAnalysisCache analysisCache = new MagikAnalysisCache(context, !typed);
+    final int threads = this.getAnalysisThreads(context);
+    try {
+      if (threads <= 1) {
+        for (final InputFile inputFile : inputFiles) {
+          final MagikFileAnalysis cachedAnalysis = analysisCache.read(inputFile);
+          final MagikFileAnalysis analysis =
+              cachedAnalysis != null ? cachedAnalysis : analyzer.apply(inputFile);
+          this.saveAnalysis(context, analysisCache, inputFile, analysis);
+          progressReport.nextFile();
+        }
+      } else {
+        this.executeParallel(context, analysisCache, analyzer, inputFiles, threads, progressReport);
+      }
+    } finally {
+      threadChecks.remove();
     }
 
     progressReport.stop();
   }
 
-  private void scanMagikFile(final SensorContext context, final InputFile inputFile) {
+  private List<Checks<MagikCheck>> createChecks(final boolean typed) {
+    final Checks<MagikCheck> checks =
+        this.checkFactory
+            .<MagikCheck>create(CheckList.REPOSITORY_KEY)
+            .addAnnotatedChecks(CheckList.getChecks());
+    if (!typed) {
+      return List.of(checks);
+    }
+
+    final Checks<MagikCheck> typedChecks =
+        this.checkFactory
+            .<MagikCheck>create(nl.ramsolutions.sw.magik.typedchecks.CheckList.REPOSITORY_KEY)
+            .addAnnotatedChecks(nl.ramsolutions.sw.magik.typedchecks.CheckList.getChecks());
+    return List.of(checks, typedChecks);
+  }
+
+  /** Typed analysis is enabled when configured, and any typed rule is active. */
+  private boolean isTypedAnalysisEnabled(final SensorContext context) {
+    return context.config().getBoolean(Magik.TYPED_ENABLED_KEY).orElse(false)
+        && !context
+            .activeRules()
+            .findByRepository(nl.ramsolutions.sw.magik.typedchecks.CheckList.REPOSITORY_KEY)
+            .isEmpty();
+  }
+
+  private int getAnalysisThreads(final SensorContext context) {
+    return context
+        .config()
+        .getInt(Magik.ANALYSIS_THREADS_KEY)
+        .filter(threads -> threads > 0)
+        .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Analyze files on a pool of {@code threads} threads.
+   *
+   * <p>Only the analysis runs on the pool. The results are saved to the {@link SensorContext} from
+   * the sensor thread, in file order. At most a window of files is being analyzed or waiting to be
+   * saved at any time. Files with a cached analysis are not analyzed again.
+   */
+  private void executeParallel(
+      final SensorContext context,
+      final MagikAnalysisCache analysisCache,
+      final Function<InputFile, MagikFileAnalysis> analyzer,
+      final List<InputFile> inputFiles,
+      final int threads,
+      final ProgressReport progressReport) {
+    final ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              final Thread thread = new Thread(runnable, "magik-sensor-analysis");
+              thread.setDaemon(true);
+              return thread;
+            });
+    final int windowSize = threads * WINDOW_SIZE_PER_THREAD;
+    final Iterator<InputFile> inputFileIterator = inputFiles.iterator();
+    final Deque<Map.Entry<InputFile, Future<MagikFileAnalysis>>> window = new ArrayDeque<>();
+    try {
+      this.fillWindow(
+          window, windowSize, inputFileIterator, analysisCache, analyzer, executorService);
+      while (!window.isEmpty()) {
+        final Map.Entry<InputFile, Future<MagikFileAnalysis>> entry = window.removeFirst();
+        final MagikFileAnalysis analysis = MagikSensor.await(entry.getValue());
+        this.fillWindow(
+            window, windowSize, inputFileIterator, analysisCache, analyzer, executorService);
+        this.saveAnalysis(context, analysisCache, entry.getKey(), analysis);
+        progressReport.nextFile();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void fillWindow(
+      final Deque<Map.Entry<InputFile, Future<MagikFileAnalysis>>> window,
+      final int windowSize,
+      final Iterator<InputFile> inputFileIterator,
+      final MagikAnalysisCache analysisCache,
+      final Function<InputFile, MagikFileAnalysis> analyzer,
+      final ExecutorService executorService) {
+    while (window.size() < windowSize && inputFileIterator.hasNext()) {
+      final InputFile inputFile = inputFileIterator.next();
+      final MagikFileAnalysis cachedAnalysis = analysisCache.read(inputFile);
+      final Future<MagikFileAnalysis> future =
+          cachedAnalysis != null
+              ? CompletableFuture.completedFuture(cachedAnalysis)
+              : executorService.submit(() -> analyzer.apply(inputFile));
+      window.addLast(Map.entry(inputFile, future));
+    }
+  }
+
+  private static MagikFileAnalysis await(final Future<MagikFileAnalysis> future) {
+    try {
+      return future.get();
+    } catch (final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(exception);
+    } catch (final ExecutionException exception) {
+      final Throwable cause = exception.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Analyze a file: parse it, compute its metrics, run the checks and collect the highlights and
+   * CPD tokens. The checks, highlights and CPD tokens are done in a single walk over the tree. Does
+   * not touch the {@link SensorContext}, safe to call concurrently with different {@code checks}.
+   */
+  private MagikFileAnalysis analyzeMagikFile(
+      final InputFile inputFile, final List<Checks<MagikCheck>> checksList, final boolean typed) {
     LOGGER.debug("Scanning magik file: {}", inputFile);
 
     // Read contents.
@@ -99,55 +257,99 @@ public class MagikSensor implements Sensor {
     } catch (IOException ex) {
       throw new IllegalStateException("Cannot read " + inputFile, ex);
     }
-    final MagikFile magikFile = new MagikFile(uri, fileContent);
+    final MagikFile magikFile =
+        typed
+            ? new MagikTypedFile(
+                MagikAnalysisConfiguration.DEFAULT_CONFIGURATION,
+                uri,
+                fileContent,
+                this.workspaceIndex.getDefinitionKeeper(),
+                this.workspaceIndex.getTypeStringResolver())
+            : new MagikFile(uri, fileContent);
 
-    // Save metrics.
-    LOGGER.debug("Save measures");
-    this.saveMetrics(context, inputFile, magikFile);
+    // Metrics.
+    final FileMetrics fileMetrics = new FileMetrics(magikFile, true);
 
-    // Save issues.
+    // Checks, highlighted tokens and CPD tokens.
     LOGGER.debug("Running checks");
-    final Checks<MagikCheck> checks =
-        checkFactory
-            .<MagikCheck>create(CheckList.REPOSITORY_KEY)
-            .addAnnotatedChecks(CheckList.getChecks());
-    for (final MagikCheck check : checks.all()) {
-      LOGGER.debug("Running check: {}", check);
-      final List<MagikIssue> issues = check.scanFileForIssues(magikFile);
-      final RuleKey ruleKey = checks.ruleKey(check);
-      if (ruleKey == null) {
-        continue;
-      }
+    final MagikHighlighterVisitor highlighterVisitor = new MagikHighlighterVisitor();
+    final CpdTokenSaver.CpdTokenVisitor cpdTokenVisitor = new CpdTokenSaver.CpdTokenVisitor();
+    final List<MagikVisitor> visitors = new ArrayList<>();
+    checksList.forEach(checks -> visitors.addAll(checks.all()));
+    visitors.add(highlighterVisitor);
+    visitors.add(cpdTokenVisitor);
+    final MagikVisitorGroup visitorGroup = new MagikVisitorGroup(visitors);
+    visitorGroup.scanFile(magikFile);
 
-      this.saveIssues(context, ruleKey, issues, inputFile);
+    return new MagikFileAnalysis(
+        MagikFileAnalysis.Metrics.of(fileMetrics),
+        this.getIssues(checksList),
+        highlighterVisitor.getHighlights(),
+        cpdTokenVisitor.getCpdTokens(),
+        false);
+  }
+
+  private List<MagikFileAnalysis.Issue> getIssues(final List<Checks<MagikCheck>> checksList) {
+    final List<MagikFileAnalysis.Issue> issues = new ArrayList<>();
+    for (final Checks<MagikCheck> checks : checksList) {
+      for (final MagikCheck check : checks.all()) {
+        final RuleKey ruleKey = checks.ruleKey(check);
+        if (ruleKey == null) {
+          continue;
+        }
+
+        check.getIssues().stream()
+            .map(
+                magikIssue ->
+                    new MagikFileAnalysis.Issue(
+                        ruleKey, magikIssue.startLine(), magikIssue.message()))
+            .forEach(issues::add);
+      }
     }
+    return issues;
+  }
+
+  /**
+   * Save the analysis of a file to the {@link SensorContext}, and store it in the cache for the
+   * next run.
+   */
+  private void saveAnalysis(
+      final SensorContext context,
+      final MagikAnalysisCache analysisCache,
+      final InputFile inputFile,
+      final MagikFileAnalysis analysis) {
+    // Save metrics.
+    LOGGER.debug("Save measures");
+    this.saveMetrics(context, inputFile, analysis.getMetrics());
+
+    // Save issues.
+    analysis.getIssues().forEach(issue -> this.saveIssue(context, issue, inputFile));
 
     // Save highlighted tokens.
     LOGGER.debug("Saving highlighted tokens");
-    final MagikVisitor tokensVisitor = new MagikHighlighterVisitor(context, inputFile);
-    tokensVisitor.scanFile(magikFile);
+    MagikHighlighterVisitor.saveHighlights(context, inputFile, analysis.getHighlights());
 
     // Save CPD tokens.
     LOGGER.debug("Saving CPD tokens");
     final CpdTokenSaver cpdTokenSaver = new CpdTokenSaver(context);
-    cpdTokenSaver.saveCpdTokens(inputFile, magikFile);
+    cpdTokenSaver.saveCpdTokens(inputFile, analysis.getCpdTokens());
+
+    if (!analysis.isFromCache()) {
+      analysisCache.write(inputFile, analysis);
+    }
   }
 
   private void saveMetrics(
-      final SensorContext context, final InputFile inputFile, final MagikFile magikFile) {
-    final FileMetrics metrics = new FileMetrics(magikFile, true);
-
+      final SensorContext context,
+      final InputFile inputFile,
+      final MagikFileAnalysis.Metrics metrics) {
     // Metrics on file.
     this.saveMetric(context, inputFile, CoreMetrics.NCLOC, metrics.linesOfCode().size());
     this.saveMetric(context, inputFile, CoreMetrics.COMMENT_LINES, metrics.commentLineCount());
-    this.saveMetric(context, inputFile, CoreMetrics.CLASSES, metrics.numberOfExemplars());
-    this.saveMetric(
-        context,
-        inputFile,
-        CoreMetrics.FUNCTIONS,
-        metrics.numberOfMethods() + metrics.numberOfProcedures());
+    this.saveMetric(context, inputFile, CoreMetrics.CLASSES, metrics.numberOfClasses());
+    this.saveMetric(context, inputFile, CoreMetrics.FUNCTIONS, metrics.numberOfFunctions());
     this.saveMetric(context, inputFile, CoreMetrics.STATEMENTS, metrics.numberOfStatements());
-    this.saveMetric(context, inputFile, CoreMetrics.COMPLEXITY, metrics.fileComplexity());
+    this.saveMetric(context, inputFile, CoreMetrics.COMPLEXITY, metrics.complexity());
 
     // Metrics on lines.
     final FileLinesContext fileLinesContext = this.fileLinesContextFactory.createFor(inputFile);
@@ -174,22 +376,20 @@ public class MagikSensor implements Sensor {
     context.<Integer>newMeasure().withValue(value).forMetric(metric).on(inputFile).save();
   }
 
-  private void saveIssues(
+  private void saveIssue(
       final SensorContext context,
-      final RuleKey ruleKey,
-      final List<MagikIssue> magikIssues,
+      final MagikFileAnalysis.Issue magikIssue,
       final InputFile inputFile) {
-    for (final MagikIssue magikIssue : magikIssues) {
-      LOGGER.debug("Saving issue, file: {}, issue: {}", inputFile, magikIssue);
-
-      final NewIssue issue = context.newIssue();
-      final NewIssueLocation location =
-          issue.newLocation().on(inputFile).message(magikIssue.message());
-      final Integer line = magikIssue.startLine();
-      if (line != null) {
-        location.at(inputFile.selectLine(line));
-      }
-      issue.at(location).forRule(ruleKey).save();
-    }
+    LOGGER.debug(
+        "Saving issue, file: {}, rule: {}, line: {}",
+        inputFile,
+        magikIssue.ruleKey(),
+        magikIssue.line());
+
+    final NewIssue issue = context.newIssue();
+    final NewIssueLocation location =
+        issue.newLocation().on(inputFile).message(magikIssue.message());
+    location.at(inputFile.selectLine(magikIssue.line()));
+    issue.at(location).forRule(magikIssue.ruleKey()).save();
   }
 }
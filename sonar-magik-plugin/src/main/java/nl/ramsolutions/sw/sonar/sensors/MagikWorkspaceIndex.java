@@ -0,0 +1,96 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import nl.ramsolutions.sw.magik.analysis.definitions.IDefinitionKeeper;
+import nl.ramsolutions.sw.magik.analysis.indexer.WorkspaceIndexer;
+import nl.ramsolutions.sw.magik.analysis.typing.TypeStringResolver;
+import nl.ramsolutions.sw.sonar.language.Magik;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.scanner.ScannerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Index of the definitions in the project, for typed analysis.
+ *
+ * <p>A single instance lives for the whole scan, so the project is indexed once and reused when the
+ * sensor runs for each module of a multi-module scan. Indexing only happens on first use.
+ */
+@ScannerSide
+public class MagikWorkspaceIndex {
+
+  private static final Logger LOGGER = Loggers.get(MagikWorkspaceIndex.class);
+  private static final String PROJECT_BASE_DIR_KEY = "sonar.projectBaseDir";
+
+  private final Configuration configuration;
+  private IDefinitionKeeper definitionKeeper;
+  private TypeStringResolver typeStringResolver;
+
+  /**
+   * Constructor.
+   *
+   * @param configuration Project configuration.
+   */
+  public MagikWorkspaceIndex(final Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  /**
+   * Get the {@link IDefinitionKeeper}, indexing the project when needed.
+   *
+   * @return Definition keeper.
+   */
+  public synchronized IDefinitionKeeper getDefinitionKeeper() {
+    this.ensureIndexed();
+    return this.definitionKeeper;
+  }
+
+  /**
+   * Get the {@link TypeStringResolver}, shared by all files and analysis threads.
+   *
+   * @return Type string resolver.
+   */
+  public synchronized TypeStringResolver getTypeStringResolver() {
+    this.ensureIndexed();
+    return this.typeStringResolver;
+  }
+
+  private void ensureIndexed() {
+    if (this.definitionKeeper != null) {
+      return;
+    }
+
+    final Path baseDir = this.getBaseDir();
+    final List<Path> indexPaths = this.getPaths(Magik.TYPED_INDEX_PATHS_KEY, baseDir);
+    final List<Path> roots = !indexPaths.isEmpty() ? indexPaths : List.of(baseDir);
+    final List<Path> typesDbPaths = this.getPaths(Magik.TYPED_TYPES_DB_PATHS_KEY, baseDir);
+    LOGGER.info("Indexing for typed analysis: {}", roots);
+
+    final WorkspaceIndexer indexer = new WorkspaceIndexer(typesDbPaths, Collections.emptyList());
+    try {
+      this.definitionKeeper = indexer.index(roots);
+    } catch (final IOException exception) {
+      throw new IllegalStateException("Cannot index " + roots, exception);
+    }
+    this.typeStringResolver = new TypeStringResolver(this.definitionKeeper);
+  }
+
+  private Path getBaseDir() {
+    return this.configuration
+        .get(PROJECT_BASE_DIR_KEY)
+        .map(Path::of)
+        .orElseGet(() -> Path.of(""))
+        .toAbsolutePath();
+  }
+
+  private List<Path> getPaths(final String key, final Path baseDir) {
+    return Arrays.stream(this.configuration.getStringArray(key))
+        .filter(value -> !value.isBlank())
+        .map(value -> baseDir.resolve(value.trim()))
+        .toList();
+  }
+}
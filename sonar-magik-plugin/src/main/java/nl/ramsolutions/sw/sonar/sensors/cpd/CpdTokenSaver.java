@@ -1,9 +1,12 @@
 package nl.ramsolutions.sw.sonar.sensors.cpd;
 
 import com.sonar.sslr.api.Token;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import nl.ramsolutions.sw.magik.MagikFile;
+import nl.ramsolutions.sw.magik.MagikVisitor;
+import nl.ramsolutions.sw.magik.MagikVisitorGroup;
 import nl.ramsolutions.sw.sonar.TokenLocation;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
@@ -16,6 +19,103 @@ public class CpdTokenSaver {
 
   private static final Logger LOGGER = Loggers.get(CpdTokenSaver.class);
 
+  /** Token for CPD. */
+  public static final class CpdToken {
+
+    private final int line;
+    private final int column;
+    private final int endLine;
+    private final int endColumn;
+    private final String image;
+
+    /**
+     * Constructor.
+     *
+     * @param line Start line.
+     * @param column Start column.
+     * @param endLine End line.
+     * @param endColumn End column.
+     * @param image Image of the token.
+     */
+    public CpdToken(
+        final int line,
+        final int column,
+        final int endLine,
+        final int endColumn,
+        final String image) {
+      this.line = line;
+      this.column = column;
+      this.endLine = endLine;
+      this.endColumn = endColumn;
+      this.image = image;
+    }
+
+    public int line() {
+      return this.line;
+    }
+
+    public int column() {
+      return this.column;
+    }
+
+    public int endLine() {
+      return this.endLine;
+    }
+
+    public int endColumn() {
+      return this.endColumn;
+    }
+
+    public String image() {
+      return this.image;
+    }
+  }
+
+  /**
+   * Visitor collecting the tokens for CPD. Does not touch the {@link SensorContext}, and can be
+   * walked together with other visitors in a {@link MagikVisitorGroup}.
+   */
+  public static class CpdTokenVisitor extends MagikVisitor {
+
+    private final List<TokenLocation> tokenLocations = new ArrayList<>();
+
+    @Override
+    protected void startFile(final MagikFile scannedMagikFile) {
+      super.startFile(scannedMagikFile);
+      this.tokenLocations.clear();
+    }
+
+    @Override
+    protected void walkToken(final Token token) {
+      if (!token.getValue().trim().isEmpty()) {
+        this.tokenLocations.add(new TokenLocation(token));
+      }
+    }
+
+    /**
+     * Get tokens for CPD, in order.
+     *
+     * @return Tokens for CPD.
+     */
+    public List<CpdToken> getCpdTokens() {
+      // Ensure order of tokens is preserved.
+      final Comparator<TokenLocation> byLine = Comparator.comparing(TokenLocation::line);
+      final Comparator<TokenLocation> byColumn = Comparator.comparing(TokenLocation::column);
+
+      return this.tokenLocations.stream()
+          .sorted(byLine.thenComparing(byColumn))
+          .map(
+              tokenLocation ->
+                  new CpdToken(
+                      tokenLocation.line(),
+                      tokenLocation.column(),
+                      tokenLocation.endLine(),
+                      tokenLocation.endColumn(),
+                      tokenLocation.getValue()))
+          .toList();
+    }
+  }
+
   private final SensorContext context;
 
   /**
@@ -27,6 +127,18 @@ public class CpdTokenSaver {
     this.context = context;
   }
 
+  /**
+   * Get tokens for CPD, in order. Does not touch the {@link SensorContext}.
+   *
+   * @param magikFile Magik file.
+   * @return Tokens for CPD.
+   */
+  public static List<CpdToken> getCpdTokens(final MagikFile magikFile) {
+    final CpdTokenVisitor visitor = new CpdTokenVisitor();
+    visitor.scanFile(magikFile);
+    return visitor.getCpdTokens();
+  }
+
   /**
    * Save tokens for CPD.
    *
@@ -34,27 +146,27 @@ public class CpdTokenSaver {
    * @param magikFile Magik file.
    */
   public void saveCpdTokens(final InputFile inputFile, final MagikFile magikFile) {
+    this.saveCpdTokens(inputFile, CpdTokenSaver.getCpdTokens(magikFile));
+  }
+
+  /**
+   * Save tokens for CPD.
+   *
+   * @param inputFile Input file.
+   * @param cpdTokens Tokens for CPD.
+   */
+  public void saveCpdTokens(final InputFile inputFile, final List<CpdToken> cpdTokens) {
     LOGGER.debug("Saving CPD tokens, file: {}", inputFile);
 
     final NewCpdTokens newCpdTokens = this.context.newCpdTokens().onFile(inputFile);
-    final List<Token> tokens = magikFile.getTopNode().getTokens();
-
-    // Ensure order of tokens is preserved.
-    final Comparator<TokenLocation> byLine = Comparator.comparing(TokenLocation::line);
-    final Comparator<TokenLocation> byColumn = Comparator.comparing(TokenLocation::column);
-
-    tokens.stream()
-        .filter(token -> !token.getValue().trim().isEmpty())
-        .map(TokenLocation::new)
-        .sorted(byLine.thenComparing(byColumn))
-        .forEach(
-            tokenLocation ->
-                newCpdTokens.addToken(
-                    tokenLocation.line(),
-                    tokenLocation.column(),
-                    tokenLocation.endLine(),
-                    tokenLocation.endColumn(),
-                    tokenLocation.getValue()));
+    cpdTokens.forEach(
+        cpdToken ->
+            newCpdTokens.addToken(
+                cpdToken.line(),
+                cpdToken.column(),
+                cpdToken.endLine(),
+                cpdToken.endColumn(),
+                cpdToken.image()));
     newCpdTokens.save();
   }
 }
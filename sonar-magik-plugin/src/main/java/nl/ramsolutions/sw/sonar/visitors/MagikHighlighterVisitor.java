@@ -3,7 +3,10 @@ package nl.ramsolutions.sw.sonar.visitors;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.Trivia;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import nl.ramsolutions.sw.magik.MagikFile;
 import nl.ramsolutions.sw.magik.MagikVisitor;
 import nl.ramsolutions.sw.magik.api.MagikKeyword;
 import nl.ramsolutions.sw.sonar.TokenLocation;
@@ -12,21 +15,104 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 
-/** Magik highlighter visitor. */
+/**
+ * Magik highlighter visitor.
+ *
+ * <p>Collects the highlights without touching the {@link SensorContext}, so it can run off the
+ * sensor thread. Use {@link #saveHighlights} to save them.
+ */
 public class MagikHighlighterVisitor extends MagikVisitor {
 
   private static final List<String> KEYWORDS = List.of(MagikKeyword.keywordValues());
 
-  private final NewHighlighting newHighlighting;
+  /** Highlighted range of text. */
+  public static final class Highlight {
 
-  public MagikHighlighterVisitor(final SensorContext context, final InputFile inputFile) {
-    this.newHighlighting = context.newHighlighting();
-    this.newHighlighting.onFile(inputFile);
+    private final int line;
+    private final int column;
+    private final int endLine;
+    private final int endColumn;
+    private final TypeOfText typeOfText;
+
+    /**
+     * Constructor.
+     *
+     * @param line Start line.
+     * @param column Start column.
+     * @param endLine End line.
+     * @param endColumn End column.
+     * @param typeOfText Type of text.
+     */
+    public Highlight(
+        final int line,
+        final int column,
+        final int endLine,
+        final int endColumn,
+        final TypeOfText typeOfText) {
+      this.line = line;
+      this.column = column;
+      this.endLine = endLine;
+      this.endColumn = endColumn;
+      this.typeOfText = typeOfText;
+    }
+
+    public int line() {
+      return this.line;
+    }
+
+    public int column() {
+      return this.column;
+    }
+
+    public int endLine() {
+      return this.endLine;
+    }
+
+    public int endColumn() {
+      return this.endColumn;
+    }
+
+    public TypeOfText typeOfText() {
+      return this.typeOfText;
+    }
+  }
+
+  private final List<Highlight> highlights = new ArrayList<>();
+
+  /**
+   * Get the collected highlights.
+   *
+   * @return Highlights.
+   */
+  public List<Highlight> getHighlights() {
+    return Collections.unmodifiableList(this.highlights);
+  }
+
+  /**
+   * Save highlights to the {@link SensorContext}.
+   *
+   * @param context Sensor context.
+   * @param inputFile Input file.
+   * @param highlights Highlights to save.
+   */
+  public static void saveHighlights(
+      final SensorContext context, final InputFile inputFile, final List<Highlight> highlights) {
+    final NewHighlighting newHighlighting = context.newHighlighting().onFile(inputFile);
+    highlights.forEach(
+        highlight ->
+            newHighlighting.highlight(
+                highlight.line(),
+                highlight.column(),
+                highlight.endLine(),
+                highlight.endColumn(),
+                highlight.typeOfText()));
+    newHighlighting.save();
   }
 
   @Override
-  protected void walkPostMagik(final AstNode node) {
-    this.newHighlighting.save();
+  protected void startFile(final MagikFile scannedMagikFile) {
+    super.startFile(scannedMagikFile);
+    this.highlights.clear();
   }
 
   @Override
@@ -60,11 +146,12 @@ public class MagikHighlighterVisitor extends MagikVisitor {
 
   private void highlight(final Token token, final TypeOfText typeOfText) {
     final TokenLocation tokenLocation = new TokenLocation(token);
-    this.newHighlighting.highlight(
-        tokenLocation.line(),
-        tokenLocation.column(),
-        tokenLocation.endLine(),
-        tokenLocation.endColumn(),
-        typeOfText);
+    this.highlights.add(
+        new Highlight(
+            tokenLocation.line(),
+            tokenLocation.column(),
+            tokenLocation.endLine(),
+            tokenLocation.endColumn(),
+            typeOfText));
   }
 }
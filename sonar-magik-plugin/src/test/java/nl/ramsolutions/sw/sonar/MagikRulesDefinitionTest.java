@@ -0,0 +1,38 @@
+package nl.ramsolutions.sw.sonar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.typedchecks.checks.MethodExistsTypedCheck;
+import nl.ramsolutions.sw.sonar.language.Magik;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.impl.server.RulesDefinitionContext;
+import org.sonar.api.server.rule.RulesDefinition;
+
+/** Test MagikRulesDefinition. */
+class MagikRulesDefinitionTest {
+
+  @Test
+  void testRepositories() {
+    final RulesDefinition.Context context = new RulesDefinitionContext();
+    new MagikRulesDefinition().define(context);
+
+    final RulesDefinition.Repository repository = context.repository(CheckList.REPOSITORY_KEY);
+    assertThat(repository).isNotNull();
+    assertThat(repository.language()).isEqualTo(Magik.KEY);
+    assertThat(repository.rules()).hasSameSizeAs(CheckList.getChecks());
+
+    final RulesDefinition.Repository typedRepository =
+        context.repository(nl.ramsolutions.sw.magik.typedchecks.CheckList.REPOSITORY_KEY);
+    assertThat(typedRepository).isNotNull();
+    assertThat(typedRepository.language()).isEqualTo(Magik.KEY);
+    assertThat(typedRepository.rules())
+        .hasSameSizeAs(nl.ramsolutions.sw.magik.typedchecks.CheckList.getChecks());
+    assertThat(typedRepository.rules())
+        .allSatisfy(rule -> assertThat(rule.htmlDescription()).isNotBlank());
+
+    final RulesDefinition.Rule rule = typedRepository.rule(MethodExistsTypedCheck.CHECK_KEY);
+    assertThat(rule).isNotNull();
+    assertThat(rule.name()).isNotBlank();
+  }
+}
@@ -0,0 +1,362 @@
+package nl.ramsolutions.sw.sonar.sensors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import nl.ramsolutions.sw.magik.checks.CheckList;
+import nl.ramsolutions.sw.magik.checks.checks.FileNotInLoadListCheck;
+import nl.ramsolutions.sw.magik.checks.checks.LineLengthCheck;
+import nl.ramsolutions.sw.magik.typedchecks.LintObjectFixture;
+import nl.ramsolutions.sw.magik.typedchecks.checks.GlobalExistsTypedCheck;
+import nl.ramsolutions.sw.magik.typedchecks.checks.MethodExistsTypedCheck;
+import nl.ramsolutions.sw.sonar.language.Magik;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.issue.internal.DefaultNoSonarFilter;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.rule.RuleKey;
+
+/** Tests for MagikSensor. */
+class MagikSensorTest {
+
+  private static final Path BASE_PATH = Path.of("src/test/resources/test_product");
+  private static final int FILE_COUNT = 20;
+
+  /** File lines context, ignoring all data. */
+  private static final class NullFileLinesContext implements FileLinesContext {
+
+    @Override
+    public void setIntValue(final String metricKey, final int line, final int value) {
+      // Ignore.
+    }
+
+    @Override
+    public void setStringValue(final String metricKey, final int line, final String value) {
+      // Ignore.
+    }
+
+    @Override
+    public void save() {
+      // Ignore.
+    }
+  }
+
+  /** In memory sensor cache. */
+  private static final class MapCache implements ReadCache, WriteCache {
+
+    private final Map<String, byte[]> entries = new HashMap<>();
+    private final Set<String> copiedKeys = new HashSet<>();
+    private final MapCache previousCache;
+
+    MapCache(final MapCache previousCache) {
+      this.previousCache = previousCache;
+    }
+
+    @Override
+    public InputStream read(final String key) {
+      return new ByteArrayInputStream(this.entries.get(key));
+    }
+
+    @Override
+    public boolean contains(final String key) {
+      return this.entries.containsKey(key);
+    }
+
+    @Override
+    public void write(final String key, final InputStream data) {
+      try {
+        this.write(key, data.readAllBytes());
+      } catch (final IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+
+    @Override
+    public void write(final String key, final byte[] data) {
+      assertThat(this.entries).doesNotContainKey(key);
+      this.entries.put(key, data);
+    }
+
+    @Override
+    public void copyFromPrevious(final String key) {
+      this.write(key, this.previousCache.entries.get(key));
+      this.copiedKeys.add(key);
+    }
+  }
+
+  private SensorContextTester analyze(final int threads) {
+    return this.analyze(threads, InputFile.Status.ADDED, "120", new MapCache(null));
+  }
+
+  private SensorContextTester analyze(
+      final int threads,
+      final InputFile.Status status,
+      final String maxLineLength,
+      final MapCache cache) {
+    final SensorContextTester context = SensorContextTester.create(BASE_PATH);
+    final MapSettings settings = new MapSettings();
+    settings.setProperty(Magik.ANALYSIS_THREADS_KEY, threads);
+    context.setSettings(settings);
+    context.setCacheEnabled(true);
+    if (cache.previousCache != null) {
+      context.setPreviousCache(cache.previousCache);
+    }
+    context.setNextCache(cache);
+    IntStream.range(0, FILE_COUNT)
+        .mapToObj(
+            i ->
+                TestInputFileBuilder.create("moduleKey", "file_" + i + ".magik")
+                    .setCharset(StandardCharsets.ISO_8859_1)
+                    .setType(InputFile.Type.MAIN)
+                    .setLanguage(Magik.KEY)
+                    .setStatus(status)
+                    .setContents(
+                        "_block\n" + "\twrite(\"" + "x".repeat(150 + i) + "\")\n" + "_endblock\n")
+                    .build())
+        .forEach(context.fileSystem()::add);
+
+    final ActiveRules activeRules =
+        new ActiveRulesBuilder()
+            .addRule(
+                new NewActiveRule.Builder()
+                    .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, LineLengthCheck.CHECK_KEY))
+                    .setParam("line length", maxLineLength)
+                    .build())
+            .build();
+    context.setActiveRules(activeRules);
+    final CheckFactory checkFactory = new CheckFactory(activeRules);
+    final FileLinesContextFactory fileLinesContextFactory = inputFile -> new NullFileLinesContext();
+    final MagikSensor sensor =
+        new MagikSensor(
+            checkFactory,
+            fileLinesContextFactory,
+            new DefaultNoSonarFilter(),
+            new MagikWorkspaceIndex(settings.asConfig()));
+    sensor.execute(context);
+    return context;
+  }
+
+  private List<String> getIssues(final SensorContextTester context) {
+    return context.allIssues().stream()
+        .map(Issue::primaryLocation)
+        .map(location -> location.inputComponent().key() + ":" + location.message())
+        .toList();
+  }
+
+  @Test
+  void testParallelMatchesSequential() {
+    final SensorContextTester sequentialContext = this.analyze(1);
+    final SensorContextTester parallelContext = this.analyze(4);
+
+    final List<String> sequentialIssues = this.getIssues(sequentialContext);
+    assertThat(sequentialIssues).hasSize(FILE_COUNT);
+    assertThat(this.getIssues(parallelContext)).containsExactlyElementsOf(sequentialIssues);
+
+    for (int i = 0; i < FILE_COUNT; ++i) {
+      final String key = "moduleKey:file_" + i + ".magik";
+      assertThat(parallelContext.measure(key, CoreMetrics.NCLOC).value())
+          .isEqualTo(sequentialContext.measure(key, CoreMetrics.NCLOC).value());
+      assertThat(parallelContext.cpdTokens(key)).hasSameSizeAs(sequentialContext.cpdTokens(key));
+      assertThat(parallelContext.highlightingTypeAt(key, 1, 0))
+          .isEqualTo(sequentialContext.highlightingTypeAt(key, 1, 0));
+    }
+  }
+
+  @Test
+  void testCachedAnalysisIsReplayed() {
+    final MapCache firstCache = new MapCache(null);
+    final SensorContextTester firstContext =
+        this.analyze(4, InputFile.Status.ADDED, "120", firstCache);
+    assertThat(firstCache.entries).hasSize(FILE_COUNT);
+    assertThat(firstCache.copiedKeys).isEmpty();
+
+    final MapCache secondCache = new MapCache(firstCache);
+    final SensorContextTester secondContext =
+        this.analyze(4, InputFile.Status.SAME, "120", secondCache);
+    assertThat(secondCache.copiedKeys).hasSize(FILE_COUNT);
+    assertThat(this.getIssues(secondContext))
+        .containsExactlyElementsOf(this.getIssues(firstContext));
+
+    for (int i = 0; i < FILE_COUNT; ++i) {
+      final String key = "moduleKey:file_" + i + ".magik";
+      assertThat(secondContext.measure(key, CoreMetrics.NCLOC).value())
+          .isEqualTo(firstContext.measure(key, CoreMetrics.NCLOC).value());
+      assertThat(secondContext.cpdTokens(key)).hasSameSizeAs(firstContext.cpdTokens(key));
+      assertThat(secondContext.highlightingTypeAt(key, 2, 7))
+          .isEqualTo(firstContext.highlightingTypeAt(key, 2, 7));
+    }
+  }
+
+  @Test
+  void testCachedAnalysisIgnoredOnChangedRules() {
+    final MapCache firstCache = new MapCache(null);
+    this.analyze(1, InputFile.Status.ADDED, "120", firstCache);
+
+    final MapCache secondCache = new MapCache(firstCache);
+    final SensorContextTester secondContext =
+        this.analyze(1, InputFile.Status.SAME, "1000", secondCache);
+    assertThat(secondCache.copiedKeys).isEmpty();
+    assertThat(secondCache.entries).hasSize(FILE_COUNT);
+    assertThat(this.getIssues(secondContext)).isEmpty();
+  }
+
+  @Test
+  void testCachedAnalysisIgnoredOnChangedFiles() {
+    final MapCache firstCache = new MapCache(null);
+    this.analyze(1, InputFile.Status.ADDED, "120", firstCache);
+
+    final MapCache secondCache = new MapCache(firstCache);
+    this.analyze(1, InputFile.Status.CHANGED, "120", secondCache);
+    assertThat(secondCache.copiedKeys).isEmpty();
+    assertThat(secondCache.entries).hasSize(FILE_COUNT);
+  }
+
+  /**
+   * Analyze {@code files}, in order, from {@code baseDir}, with typed analysis and {@code ruleKey}
+   * active on a single thread, so all files share the same check instances.
+   */
+  private SensorContextTester analyzeTyped(
+      final Path baseDir, final MapCache cache, final RuleKey ruleKey, final String... files)
+      throws IOException {
+    final MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.projectBaseDir", baseDir.toString());
+    settings.setProperty(Magik.TYPED_ENABLED_KEY, true);
+    settings.setProperty(Magik.ANALYSIS_THREADS_KEY, 1);
+    return this.analyzeFiles(baseDir, settings, InputFile.Status.ADDED, cache, ruleKey, files);
+  }
+
+  /** Analyze {@code files}, in order, from {@code baseDir}, with only {@code ruleKey} active. */
+  private SensorContextTester analyzeFiles(
+      final Path baseDir,
+      final MapSettings settings,
+      final InputFile.Status status,
+      final MapCache cache,
+      final RuleKey ruleKey,
+      final String... files)
+      throws IOException {
+    final SensorContextTester context = SensorContextTester.create(baseDir);
+    context.setSettings(settings);
+    context.setCacheEnabled(true);
+    if (cache.previousCache != null) {
+      context.setPreviousCache(cache.previousCache);
+    }
+    context.setNextCache(cache);
+    for (final String file : files) {
+      context
+          .fileSystem()
+          .add(
+              TestInputFileBuilder.create("moduleKey", file)
+                  .setModuleBaseDir(baseDir)
+                  .setCharset(StandardCharsets.ISO_8859_1)
+                  .setType(InputFile.Type.MAIN)
+                  .setLanguage(Magik.KEY)
+                  .setStatus(status)
+                  .setContents(Files.readString(baseDir.resolve(file)))
+                  .build());
+    }
+
+    final ActiveRules activeRules =
+        new ActiveRulesBuilder()
+            .addRule(new NewActiveRule.Builder().setRuleKey(ruleKey).build())
+            .build();
+    context.setActiveRules(activeRules);
+    final MagikSensor sensor =
+        new MagikSensor(
+            new CheckFactory(activeRules),
+            inputFile -> new NullFileLinesContext(),
+            new DefaultNoSonarFilter(),
+            new MagikWorkspaceIndex(settings.asConfig()));
+    sensor.execute(context);
+    return context;
+  }
+
+  private static RuleKey typedRuleKey(final String checkKey) {
+    return RuleKey.of(nl.ramsolutions.sw.magik.typedchecks.CheckList.REPOSITORY_KEY, checkKey);
+  }
+
+  @Test
+  void testCachedAnalysisIgnoredOnChangedLoadList(@TempDir final Path tempDir) throws IOException {
+    Files.writeString(tempDir.resolve("a.magik"), "_block\n_endblock\n");
+    Files.writeString(tempDir.resolve("load_list.txt"), "a\n");
+    final RuleKey ruleKey = RuleKey.of(CheckList.REPOSITORY_KEY, FileNotInLoadListCheck.CHECK_KEY);
+    final MapCache firstCache = new MapCache(null);
+    final SensorContextTester firstContext =
+        this.analyzeFiles(
+            tempDir, new MapSettings(), InputFile.Status.ADDED, firstCache, ruleKey, "a.magik");
+    assertThat(firstContext.allIssues()).isEmpty();
+
+    // The file itself is unchanged, but its load_list.txt is.
+    Files.writeString(tempDir.resolve("load_list.txt"), "b\n");
+    final MapCache secondCache = new MapCache(firstCache);
+    final SensorContextTester secondContext =
+        this.analyzeFiles(
+            tempDir, new MapSettings(), InputFile.Status.SAME, secondCache, ruleKey, "a.magik");
+    assertThat(secondCache.copiedKeys).isEmpty();
+    assertThat(secondContext.allIssues()).hasSize(1);
+  }
+
+  @Test
+  void testTypedChecks(@TempDir final Path tempDir) throws IOException {
+    LintObjectFixture.write(tempDir);
+    final MapCache cache = new MapCache(null);
+
+    final SensorContextTester context =
+        this.analyzeTyped(
+            tempDir,
+            cache,
+            MagikSensorTest.typedRuleKey(MethodExistsTypedCheck.CHECK_KEY),
+            LintObjectFixture.USAGE_FILENAME);
+
+    assertThat(context.allIssues())
+        .extracting(issue -> issue.primaryLocation().textRange().start().line())
+        .containsExactly(LintObjectFixture.UNKNOWN_METHOD_LINE);
+    assertThat(cache.entries).isEmpty();
+  }
+
+  @Test
+  void testTypedChecksReusedForFiles(@TempDir final Path tempDir) throws IOException {
+    // The package of a file must not leak into the files analyzed after it, by the same checks.
+    final List<String> files =
+        IntStream.range(0, FILE_COUNT).mapToObj(i -> "file_" + i + ".magik").toList();
+    Files.writeString(tempDir.resolve(files.get(0)), "_package unknown_package\n$\n");
+    for (final String file : files.subList(1, FILE_COUNT)) {
+      Files.writeString(tempDir.resolve(file), "_block\n\t_local x << float\n_endblock\n");
+    }
+
+    final SensorContextTester context =
+        this.analyzeTyped(
+            tempDir,
+            new MapCache(null),
+            MagikSensorTest.typedRuleKey(GlobalExistsTypedCheck.CHECK_KEY),
+            files.toArray(String[]::new));
+
+    assertThat(context.allIssues())
+        .extracting(issue -> issue.primaryLocation().message())
+        .isEmpty();
+  }
+}